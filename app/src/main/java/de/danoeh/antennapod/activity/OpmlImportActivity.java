@@ -19,25 +19,28 @@ import android.widget.Toast;
 
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts.RequestPermission;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import de.danoeh.antennapod.R;
 import de.danoeh.antennapod.core.export.opml.OpmlElement;
+import de.danoeh.antennapod.core.export.opml.OpmlImportWorker;
 import de.danoeh.antennapod.core.export.opml.OpmlReader;
 import de.danoeh.antennapod.core.preferences.UserPreferences;
-
-import de.danoeh.antennapod.core.service.download.DownloadService;
-import de.danoeh.antennapod.core.service.download.DownloadRequestCreator;
 import de.danoeh.antennapod.databinding.OpmlSelectionBinding;
-import de.danoeh.antennapod.model.feed.Feed;
+import de.danoeh.antennapod.event.OpmlImportEvent;
 import io.reactivex.Completable;
 import io.reactivex.Observable;
 import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
 import io.reactivex.schedulers.Schedulers;
 import org.apache.commons.io.ByteOrderMark;
 import org.apache.commons.io.input.BOMInputStream;
+import org.greenrobot.eventbus.EventBus;
+import org.greenrobot.eventbus.Subscribe;
+import org.greenrobot.eventbus.ThreadMode;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -50,12 +53,16 @@ import java.util.List;
  * */
 public class OpmlImportActivity extends AppCompatActivity {
     private static final String TAG = "OpmlImportBaseActivity";
+    private static final String KEY_IMPORT_STARTED = "import_started";
     @Nullable private Uri uri;
     OpmlSelectionBinding viewBinding;
     private ArrayAdapter<String> listAdapter;
     private MenuItem selectAll;
     private MenuItem deselectAll;
     private ArrayList<OpmlElement> readElements;
+    private boolean importStarted = false;
+    private Disposable readDisposable;
+    private Disposable importDisposable;
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -88,31 +95,29 @@ public class OpmlImportActivity extends AppCompatActivity {
         });
         viewBinding.butConfirm.setOnClickListener(v -> {
             viewBinding.progressBar.setVisibility(View.VISIBLE);
-            Completable.fromAction(() -> {
-                SparseBooleanArray checked = viewBinding.feedlist.getCheckedItemPositions();
-                for (int i = 0; i < checked.size(); i++) {
-                    if (!checked.valueAt(i)) {
-                        continue;
-                    }
-                    OpmlElement element = readElements.get(checked.keyAt(i));
-                    Feed feed = new Feed(element.getXmlUrl(), null, element.getText());
-                    DownloadService.download(this, false, DownloadRequestCreator.create(feed).build());
+            viewBinding.butConfirm.setEnabled(false);
+            List<OpmlElement> selectedElements = new ArrayList<>();
+            SparseBooleanArray checked = viewBinding.feedlist.getCheckedItemPositions();
+            for (int i = 0; i < checked.size(); i++) {
+                if (checked.valueAt(i)) {
+                    selectedElements.add(readElements.get(checked.keyAt(i)));
                 }
-            })
+            }
+            importStarted = true;
+            importDisposable = Completable.fromAction(() ->
+                    OpmlImportWorker.enqueue(getApplicationContext(), selectedElements))
                     .subscribeOn(Schedulers.io())
                     .observeOn(AndroidSchedulers.mainThread())
-                    .subscribe(
-                            () -> {
-                                viewBinding.progressBar.setVisibility(View.GONE);
-                                Intent intent = new Intent(OpmlImportActivity.this, MainActivity.class);
-                                intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_NEW_TASK);
-                                startActivity(intent);
-                                finish();
-                            }, e -> {
-                                viewBinding.progressBar.setVisibility(View.GONE);
-                                Toast.makeText(this, e.getMessage(), Toast.LENGTH_LONG).show();
-                            });
+                    .subscribe(() -> Log.d(TAG, "Import started"), e -> {
+                        importStarted = false;
+                        viewBinding.progressBar.setVisibility(View.GONE);
+                        viewBinding.butConfirm.setEnabled(true);
+                        Toast.makeText(this, e.getMessage(), Toast.LENGTH_LONG).show();
+                    });
         });
+        if (savedInstanceState != null) {
+            importStarted = savedInstanceState.getBoolean(KEY_IMPORT_STARTED);
+        }
 
         Uri uri = getIntent().getData();
         if (uri != null && uri.toString().startsWith("/")) {
@@ -126,6 +131,55 @@ public class OpmlImportActivity extends AppCompatActivity {
         importUri(uri);
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        EventBus.getDefault().register(this);
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        EventBus.getDefault().unregister(this);
+    }
+
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putBoolean(KEY_IMPORT_STARTED, importStarted);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (readDisposable != null) {
+            readDisposable.dispose();
+        }
+        if (importDisposable != null) {
+            importDisposable.dispose();
+        }
+    }
+
+    @Subscribe(threadMode = ThreadMode.MAIN, sticky = true)
+    public void onImportProgress(OpmlImportEvent event) {
+        if (!importStarted) {
+            // Progress of an import that was started before this screen was opened
+            return;
+        }
+        if (!event.isFinished()) {
+            viewBinding.progressBar.setVisibility(View.VISIBLE);
+            viewBinding.butConfirm.setEnabled(false);
+            setTitle(getString(R.string.opml_import_progress, event.getDone(), event.getTotal()));
+            return;
+        }
+        EventBus.getDefault().removeStickyEvent(event);
+        viewBinding.progressBar.setVisibility(View.GONE);
+        Intent intent = new Intent(OpmlImportActivity.this, MainActivity.class);
+        intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_NEW_TASK);
+        startActivity(intent);
+        finish();
+    }
+
     void importUri(@Nullable Uri uri) {
         if (uri == null) {
             new AlertDialog.Builder(this)
@@ -147,16 +201,6 @@ public class OpmlImportActivity extends AppCompatActivity {
         startImport();
     }
 
-    private List<String> getTitleList() {
-        List<String> result = new ArrayList<>();
-        if (readElements != null) {
-            for (OpmlElement element : readElements) {
-                result.add(element.getText());
-            }
-        }
-        return result;
-    }
-
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         super.onCreateOptionsMenu(menu);
@@ -216,28 +260,29 @@ public class OpmlImportActivity extends AppCompatActivity {
     private void startImport() {
         viewBinding.progressBar.setVisibility(View.VISIBLE);
 
-        Observable.fromCallable(() -> {
+        readElements = new ArrayList<>();
+        listAdapter = new ArrayAdapter<>(OpmlImportActivity.this,
+                android.R.layout.simple_list_item_multiple_choice, new ArrayList<>());
+        viewBinding.feedlist.setAdapter(listAdapter);
+
+        // Elements are shown while the document is still being read
+        readDisposable = Observable.<OpmlElement>create(emitter -> {
             InputStream opmlFileStream = getContentResolver().openInputStream(uri);
             BOMInputStream bomInputStream = new BOMInputStream(opmlFileStream);
             ByteOrderMark bom = bomInputStream.getBOM();
             String charsetName = (bom == null) ? "UTF-8" : bom.getCharsetName();
             Reader reader = new InputStreamReader(bomInputStream, charsetName);
             OpmlReader opmlReader = new OpmlReader();
-            ArrayList<OpmlElement> result = opmlReader.readDocument(reader);
+            opmlReader.readDocument(reader, emitter::onNext);
             reader.close();
-            return result;
+            emitter.onComplete();
         })
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(
-                        result -> {
-                            viewBinding.progressBar.setVisibility(View.GONE);
-                            Log.d(TAG, "Parsing was successful");
-                            readElements = result;
-                            listAdapter = new ArrayAdapter<>(OpmlImportActivity.this,
-                                    android.R.layout.simple_list_item_multiple_choice,
-                                    getTitleList());
-                            viewBinding.feedlist.setAdapter(listAdapter);
+                        element -> {
+                            readElements.add(element);
+                            listAdapter.add(element.getText());
                         }, e -> {
                             viewBinding.progressBar.setVisibility(View.GONE);
                             AlertDialog.Builder alert = new AlertDialog.Builder(this);
@@ -245,6 +290,9 @@ public class OpmlImportActivity extends AppCompatActivity {
                             alert.setMessage(getString(R.string.opml_reader_error) + e.getMessage());
                             alert.setNeutralButton(android.R.string.ok, (dialog, which) -> dialog.dismiss());
                             alert.create().show();
+                        }, () -> {
+                            viewBinding.progressBar.setVisibility(View.GONE);
+                            Log.d(TAG, "Parsing was successful");
                         });
     }
 }
@@ -103,13 +103,13 @@ public class AllEpisodesFragment extends EpisodesListFragment {
 
     @NonNull
     @Override
-    protected List<FeedItem> loadData() {
-        return DBReader.getRecentlyPublishedEpisodes(0, page * EPISODES_PER_PAGE, feedItemFilter);
+    protected List<FeedItem> loadData(int limit) {
+        return DBReader.getRecentlyPublishedEpisodes(null, limit, feedItemFilter);
     }
 
     @NonNull
     @Override
-    protected List<FeedItem> loadMoreData() {
-        return DBReader.getRecentlyPublishedEpisodes((page - 1) * EPISODES_PER_PAGE, EPISODES_PER_PAGE, feedItemFilter);
+    protected List<FeedItem> loadMoreData(@Nullable FeedItem lastItem) {
+        return DBReader.getRecentlyPublishedEpisodes(lastItem, EPISODES_PER_PAGE, feedItemFilter);
     }
 }
@@ -133,6 +133,8 @@ public class DownloadLogFragment extends ListFragment {
 
             if (!status.isSuccessful()) {
                 message = status.getReasonDetailed();
+            } else if (status.getReasonDetailed() != null) {
+                message += "\n" + status.getReasonDetailed();
             }
 
             String messageFull = getString(R.string.download_error_details_message, message, url);
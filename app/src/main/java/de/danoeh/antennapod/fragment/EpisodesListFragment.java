@@ -4,6 +4,7 @@ import android.content.DialogInterface;
 import android.os.Bundle;
 import android.view.KeyEvent;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.recyclerview.widget.SimpleItemAnimator;
@@ -61,7 +62,6 @@ public abstract class EpisodesListFragment extends Fragment {
 
     public static final String TAG = "EpisodesListFragment";
     protected static final int EPISODES_PER_PAGE = 150;
-    protected int page = 1;
     protected boolean isLoadingMore = false;
     protected boolean hasMoreItems = true;
 
@@ -233,7 +233,6 @@ public abstract class EpisodesListFragment extends Fragment {
                 super.onScrolled(view, deltaX, deltaY);
                 if (!isLoadingMore && hasMoreItems && recyclerView.isScrolledToBottom()) {
                     /* The end of the list has been reached. Load more data. */
-                    page++;
                     loadMoreItems();
                     isLoadingMore = true;
                 }
@@ -247,7 +246,8 @@ public abstract class EpisodesListFragment extends Fragment {
         }
         isLoadingMore = true;
         loadingMoreView.setVisibility(View.VISIBLE);
-        disposable = Observable.fromCallable(this::loadMoreData)
+        final FeedItem lastItem = episodes.isEmpty() ? null : episodes.get(episodes.size() - 1);
+        disposable = Observable.fromCallable(() -> loadMoreData(lastItem))
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(data -> {
@@ -385,7 +385,9 @@ public abstract class EpisodesListFragment extends Fragment {
         if (disposable != null) {
             disposable.dispose();
         }
-        disposable = Observable.fromCallable(this::loadData)
+        // Reload everything that is currently shown, but at least one page
+        final int limit = Math.max(EPISODES_PER_PAGE, episodes.size());
+        disposable = Observable.fromCallable(() -> loadData(limit))
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(data -> {
@@ -397,17 +399,24 @@ public abstract class EpisodesListFragment extends Fragment {
                 }, error -> Log.e(TAG, Log.getStackTraceString(error)));
     }
 
+    /**
+     * Load the first items of the list.
+     *
+     * @param limit The maximum number of items to load
+     * @return The first items of the list
+     */
     @NonNull
-    protected abstract List<FeedItem> loadData();
+    protected abstract List<FeedItem> loadData(int limit);
 
     /**
-     * Load a new page of data as defined by {@link #page} and {@link #EPISODES_PER_PAGE}.
+     * Load a new page of data with {@link #EPISODES_PER_PAGE} items, starting after the given item.
      * If the number of items returned is less than {@link #EPISODES_PER_PAGE},
      * it will be assumed that the underlying data is exhausted
      * and this method will not be called again.
      *
+     * @param lastItem The last item that is currently loaded, or null if the list is empty
      * @return The items from the next page of data
      */
     @NonNull
-    protected abstract List<FeedItem> loadMoreData();
+    protected abstract List<FeedItem> loadMoreData(@Nullable FeedItem lastItem);
 }
@@ -3,6 +3,7 @@ package de.danoeh.antennapod.fragment;
 import android.os.Bundle;
 import android.view.Menu;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import com.google.android.material.snackbar.Snackbar;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.recyclerview.widget.ItemTouchHelper;
@@ -93,13 +94,13 @@ public class FavoriteEpisodesFragment extends EpisodesListFragment {
 
     @NonNull
     @Override
-    protected List<FeedItem> loadData() {
-        return DBReader.getFavoriteItemsList(0, page * EPISODES_PER_PAGE);
+    protected List<FeedItem> loadData(int limit) {
+        return DBReader.getFavoriteItemsList(null, limit);
     }
 
     @NonNull
     @Override
-    protected List<FeedItem> loadMoreData() {
-        return DBReader.getFavoriteItemsList((page - 1) * EPISODES_PER_PAGE, EPISODES_PER_PAGE);
+    protected List<FeedItem> loadMoreData(@Nullable FeedItem lastItem) {
+        return DBReader.getFavoriteItemsList(lastItem, EPISODES_PER_PAGE);
     }
 }
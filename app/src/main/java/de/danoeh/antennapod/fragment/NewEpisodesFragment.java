@@ -2,6 +2,7 @@ package de.danoeh.antennapod.fragment;
 
 import android.os.Bundle;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.recyclerview.widget.ItemTouchHelper;
 import android.view.LayoutInflater;
@@ -74,13 +75,13 @@ public class NewEpisodesFragment extends EpisodesListFragment {
 
     @NonNull
     @Override
-    protected List<FeedItem> loadData() {
-        return DBReader.getNewItemsList(0, page * EPISODES_PER_PAGE);
+    protected List<FeedItem> loadData(int limit) {
+        return DBReader.getNewItemsList(null, limit);
     }
 
     @NonNull
     @Override
-    protected List<FeedItem> loadMoreData() {
-        return DBReader.getNewItemsList((page - 1) * EPISODES_PER_PAGE, EPISODES_PER_PAGE);
+    protected List<FeedItem> loadMoreData(@Nullable FeedItem lastItem) {
+        return DBReader.getNewItemsList(lastItem, EPISODES_PER_PAGE);
     }
 }
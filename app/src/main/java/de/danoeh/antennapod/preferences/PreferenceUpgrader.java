@@ -115,5 +115,9 @@ public class PreferenceUpgrader {
         if (oldVersion < 2050000) {
             prefs.edit().putBoolean(UserPreferences.PREF_PAUSE_PLAYBACK_FOR_FOCUS_LOSS, true).apply();
         }
+        if (oldVersion < 2050002) {
+            // The time of the last full parse of each feed is stored in the database now
+            context.getSharedPreferences("FeedParserTask", Context.MODE_PRIVATE).edit().clear().apply();
+        }
     }
 }
@@ -16,8 +16,16 @@ public class DownloadEvent {
     }
 
     public static DownloadEvent refresh(List<Downloader> list) {
+        return refresh(list, 0, 0);
+    }
+
+    /**
+     * @param queuedDownloads Number of downloads that wait for a free slot
+     * @param bytesPerSecond  Total speed of all downloads
+     */
+    public static DownloadEvent refresh(List<Downloader> list, int queuedDownloads, long bytesPerSecond) {
         list = new ArrayList<>(list);
-        DownloaderUpdate update = new DownloaderUpdate(list);
+        DownloaderUpdate update = new DownloaderUpdate(list, queuedDownloads, bytesPerSecond);
         return new DownloadEvent(update);
     }
 
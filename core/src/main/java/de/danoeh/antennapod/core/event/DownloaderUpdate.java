@@ -28,8 +28,20 @@ public class DownloaderUpdate {
      */
     public final long[] mediaIds;
 
-    DownloaderUpdate(@NonNull List<Downloader> downloaders) {
+    /**
+     * Number of downloads that wait for a free slot
+     */
+    public final int queuedDownloads;
+
+    /**
+     * Total speed of all downloads, in bytes per second
+     */
+    public final long bytesPerSecond;
+
+    DownloaderUpdate(@NonNull List<Downloader> downloaders, int queuedDownloads, long bytesPerSecond) {
         this.downloaders = downloaders;
+        this.queuedDownloads = queuedDownloads;
+        this.bytesPerSecond = bytesPerSecond;
         LongList feedIds1 = new LongList();
         LongList mediaIds1 = new LongList();
         for(Downloader d1 : downloaders) {
@@ -53,6 +65,8 @@ public class DownloaderUpdate {
                 "downloaders=" + downloaders +
                 ", feedIds=" + Arrays.toString(feedIds) +
                 ", mediaIds=" + Arrays.toString(mediaIds) +
+                ", queuedDownloads=" + queuedDownloads +
+                ", bytesPerSecond=" + bytesPerSecond +
                 '}';
     }
 }
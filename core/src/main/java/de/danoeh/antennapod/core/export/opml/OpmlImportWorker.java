@@ -0,0 +1,124 @@
+package de.danoeh.antennapod.core.export.opml;
+
+import android.app.Notification;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.core.app.NotificationCompat;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.ForegroundInfo;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import org.greenrobot.eventbus.EventBus;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.danoeh.antennapod.core.ClientConfig;
+import de.danoeh.antennapod.core.R;
+import de.danoeh.antennapod.core.util.gui.NotificationUtils;
+import de.danoeh.antennapod.event.OpmlImportEvent;
+import de.danoeh.antennapod.model.feed.Feed;
+
+/**
+ * Subscribes to the feeds of an OPML import in the foreground, so the import continues when the user leaves
+ * the import screen. WorkManager starts it again if the app is killed, and feeds that were already subscribed
+ * to are skipped then. Progress is posted as a sticky {@link OpmlImportEvent}.
+ */
+public class OpmlImportWorker extends Worker {
+    private static final String TAG = "OpmlImportWorker";
+    private static final String WORK_ID_OPML_IMPORT = "OpmlImportWorkId";
+    private static final String PARAM_FILE = "file";
+
+    public OpmlImportWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Starts subscribing to the feeds of the elements. The elements are written to a file first, because
+     * they can be too many for the input data of a work request, so this must not be called on the main thread.
+     */
+    public static void enqueue(Context context, List<OpmlElement> elements) throws IOException {
+        List<Feed> feeds = new ArrayList<>();
+        for (OpmlElement element : elements) {
+            feeds.add(new Feed(element.getXmlUrl(), null, element.getText()));
+        }
+        File file = File.createTempFile("opml_import", ".opml", context.getCacheDir());
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), Charset.forName("UTF-8"))) {
+            new OpmlWriter().writeDocument(feeds, writer, context);
+        }
+
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+        OneTimeWorkRequest workRequest = new OneTimeWorkRequest.Builder(OpmlImportWorker.class)
+                .setConstraints(constraints)
+                .setInputData(new Data.Builder().putString(PARAM_FILE, file.getAbsolutePath()).build())
+                .build();
+        EventBus.getDefault().removeStickyEvent(OpmlImportEvent.class);
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_ID_OPML_IMPORT, ExistingWorkPolicy.APPEND,
+                workRequest);
+    }
+
+    @Override
+    @NonNull
+    public Result doWork() {
+        ClientConfig.initialize(getApplicationContext());
+        File file = new File(getInputData().getString(PARAM_FILE));
+        int done = 0;
+        int total = 0;
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), Charset.forName("UTF-8"))) {
+            setForegroundAsync(createForegroundInfo(0, 0));
+            OpmlImporter importer = new OpmlImporter(getApplicationContext(), this::onProgress);
+            new OpmlReader().readDocument(reader, importer::add);
+            onProgress(importer.getProgress());
+            importer.awaitCompletion();
+            OpmlImporter.Progress progress = importer.getProgress();
+            done = progress.getDone();
+            total = progress.total;
+        } catch (Exception e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+        } finally {
+            file.delete();
+        }
+        EventBus.getDefault().postSticky(new OpmlImportEvent(done, total, true));
+        return Result.success();
+    }
+
+    private void onProgress(@NonNull OpmlImporter.Progress progress) {
+        EventBus.getDefault().postSticky(new OpmlImportEvent(progress.getDone(), progress.total, false));
+        setForegroundAsync(createForegroundInfo(progress.getDone(), progress.total));
+    }
+
+    private ForegroundInfo createForegroundInfo(int done, int total) {
+        Context context = getApplicationContext();
+        Notification notification = new NotificationCompat.Builder(context, NotificationUtils.CHANNEL_ID_DOWNLOADING)
+                .setContentTitle(context.getString(R.string.opml_import_label))
+                .setContentText(context.getString(R.string.opml_import_progress, done, total))
+                .setProgress(total, done, total == 0)
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .setShowWhen(false)
+                .setContentIntent(ClientConfig.downloadServiceCallbacks.getNotificationContentIntent(context))
+                .setSmallIcon(R.drawable.ic_notification_sync)
+                .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+                .build();
+        return new ForegroundInfo(R.id.notification_opml_import, notification);
+    }
+}
@@ -0,0 +1,299 @@
+package de.danoeh.antennapod.core.export.opml;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import de.danoeh.antennapod.core.preferences.UserPreferences;
+import de.danoeh.antennapod.core.service.download.DownloadRequest;
+import de.danoeh.antennapod.core.service.download.DownloadRequestCreator;
+import de.danoeh.antennapod.core.service.download.DownloadService;
+import de.danoeh.antennapod.core.service.download.DownloadStatus;
+import de.danoeh.antennapod.core.service.download.Downloader;
+import de.danoeh.antennapod.core.service.download.handler.FeedSyncPipeline;
+import de.danoeh.antennapod.core.service.download.handler.FeedSyncTask;
+import de.danoeh.antennapod.core.storage.DBReader;
+import de.danoeh.antennapod.core.storage.DBWriter;
+import de.danoeh.antennapod.core.util.DownloadError;
+import de.danoeh.antennapod.core.util.URLChecker;
+import de.danoeh.antennapod.model.feed.Feed;
+import okhttp3.HttpUrl;
+
+/**
+ * Subscribes to the feeds of an OPML document. Feeds are downloaded by as many threads as parallel downloads
+ * are allowed, starting as soon as they are added. The downloaded feeds are saved by a {@link FeedSyncPipeline},
+ * so feeds that finish at the same time are saved in one transaction.
+ * Downloads that fail because of network problems are retried after increasing delays.
+ */
+public class OpmlImporter {
+    private static final String TAG = "OpmlImporter";
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MILLIS = 2000;
+
+    public interface Callback {
+        /**
+         * Called on a background thread after a feed was subscribed to or failed.
+         */
+        void onProgress(@NonNull Progress progress);
+    }
+
+    public static class Progress {
+        public final int total;
+        public final int subscribed;
+        public final int failed;
+        public final int skipped;
+        public final float feedsPerSecond;
+
+        Progress(int total, int subscribed, int failed, int skipped, float feedsPerSecond) {
+            this.total = total;
+            this.subscribed = subscribed;
+            this.failed = failed;
+            this.skipped = skipped;
+            this.feedsPerSecond = feedsPerSecond;
+        }
+
+        public int getDone() {
+            return subscribed + failed;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%d of %d feeds, %d failed, %d already subscribed, %.1f feeds/s",
+                    getDone(), total, failed, skipped, feedsPerSecond);
+        }
+    }
+
+    /**
+     * Downloads and saves a single feed.
+     */
+    interface FeedSubscriber {
+        /**
+         * Downloads the feed. If that was successful, the feed is saved in the background.
+         *
+         * @param onSaved Called after the downloaded feed was saved or failed to be saved
+         * @return The result of the download
+         */
+        @NonNull
+        DownloadStatus subscribe(@NonNull OpmlElement element, @NonNull SaveCallback onSaved);
+
+        /**
+         * Records a download that failed and is not retried.
+         */
+        void onFailed(@NonNull DownloadStatus status);
+
+        /**
+         * Called after all feeds were subscribed to or failed.
+         */
+        void shutdown();
+    }
+
+    interface SaveCallback {
+        void onSaved(boolean success);
+    }
+
+    private final Callback callback;
+    private final Set<String> addedUrls = new HashSet<>();
+    private final List<String> subscribedUrls = new ArrayList<>();
+    private final FeedSubscriber subscriber;
+    private final long retryDelayMillis;
+    private final ThreadPoolExecutor downloadExecutor;
+    private final ScheduledThreadPoolExecutor retryExecutor;
+
+    private int total = 0;
+    private int subscribed = 0;
+    private int failed = 0;
+    private int skipped = 0;
+    private long startTime = 0;
+
+    /**
+     * Loads the existing subscriptions, so this must not be called on the main thread.
+     */
+    public OpmlImporter(Context context, Callback callback) {
+        this(callback, DBReader.getFeedListDownloadUrls(), UserPreferences.getParallelDownloads(),
+                new DownloadingFeedSubscriber(context), RETRY_DELAY_MILLIS);
+    }
+
+    OpmlImporter(Callback callback, List<String> existingUrls, int parallelDownloads,
+                 FeedSubscriber subscriber, long retryDelayMillis) {
+        this.callback = callback;
+        this.subscriber = subscriber;
+        this.retryDelayMillis = retryDelayMillis;
+        for (String url : existingUrls) {
+            // Local feeds and broken URLs can not be compared by URLChecker
+            if (HttpUrl.parse(url) != null) {
+                subscribedUrls.add(url);
+            }
+            addedUrls.add(url);
+        }
+        downloadExecutor = new ThreadPoolExecutor(parallelDownloads, parallelDownloads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "OpmlImportThread");
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                }, (r, executor) -> Log.w(TAG, "Import rejected submission of new task"));
+        retryExecutor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "OpmlImportRetryThread");
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    /**
+     * Starts subscribing to the feed of the element, unless it is a duplicate or already subscribed.
+     */
+    public void add(OpmlElement element) {
+        String url = element.getXmlUrl();
+        synchronized (this) {
+            if (startTime == 0) {
+                startTime = System.nanoTime();
+            }
+            if (!addedUrls.add(url) || isSubscribed(url)) {
+                Log.d(TAG, "Skipping feed that was already added: " + url);
+                skipped++;
+                return;
+            }
+            total++;
+        }
+        downloadExecutor.execute(() -> download(element, 1));
+    }
+
+    private boolean isSubscribed(String url) {
+        return HttpUrl.parse(url) != null && URLChecker.containsUrl(subscribedUrls, url);
+    }
+
+    private void download(OpmlElement element, int attempt) {
+        DownloadStatus status;
+        try {
+            status = subscriber.subscribe(element, this::onFinished);
+        } catch (Exception e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+            onFinished(false);
+            return;
+        }
+        if (status.isSuccessful()) {
+            return;
+        } else if (attempt < MAX_ATTEMPTS && isTemporaryError(status.getReason())) {
+            long delay = retryDelayMillis << (attempt - 1);
+            Log.d(TAG, "Download of " + element.getXmlUrl() + " failed, retrying in " + delay + " ms");
+            retryExecutor.schedule(() -> downloadExecutor.execute(() -> download(element, attempt + 1)),
+                    delay, TimeUnit.MILLISECONDS);
+        } else {
+            if (!status.isCancelled()) {
+                subscriber.onFailed(status);
+            }
+            onFinished(false);
+        }
+    }
+
+    private static boolean isTemporaryError(DownloadError reason) {
+        return reason == DownloadError.ERROR_CONNECTION_ERROR
+                || reason == DownloadError.ERROR_IO_ERROR
+                || reason == DownloadError.ERROR_HTTP_DATA_ERROR;
+    }
+
+    private void onFinished(boolean success) {
+        Progress progress;
+        synchronized (this) {
+            if (success) {
+                subscribed++;
+            } else {
+                failed++;
+            }
+            progress = getProgress();
+            notifyAll();
+        }
+        try {
+            callback.onProgress(progress);
+        } catch (Exception e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+        }
+    }
+
+    public synchronized Progress getProgress() {
+        float seconds = (System.nanoTime() - startTime) / 1e9f;
+        int done = subscribed + failed;
+        return new Progress(total, subscribed, failed, skipped, seconds > 0 ? done / seconds : 0);
+    }
+
+    /**
+     * Waits until all feeds that were added have been subscribed to or failed. No feeds can be added afterwards.
+     */
+    public void awaitCompletion() throws InterruptedException {
+        try {
+            synchronized (this) {
+                while (subscribed + failed < total) {
+                    wait();
+                }
+            }
+            Log.d(TAG, "Import finished: " + getProgress());
+        } finally {
+            downloadExecutor.shutdown();
+            retryExecutor.shutdown();
+            subscriber.shutdown();
+        }
+    }
+
+    /**
+     * Downloads feeds like {@link DownloadService} and saves them with a {@link FeedSyncPipeline}.
+     */
+    private static class DownloadingFeedSubscriber implements FeedSubscriber {
+        private final Context context;
+        private final FeedSyncPipeline feedSyncPipeline;
+
+        DownloadingFeedSubscriber(Context context) {
+            this.context = context;
+            feedSyncPipeline = new FeedSyncPipeline(context);
+        }
+
+        @NonNull
+        @Override
+        public DownloadStatus subscribe(@NonNull OpmlElement element, @NonNull SaveCallback onSaved) {
+            Feed feed = new Feed(element.getXmlUrl(), null, element.getText());
+            DownloadRequest request = DownloadRequestCreator.create(feed).build();
+            Downloader downloader = DownloadService.getDownloaderFactory().create(request);
+            if (downloader == null) {
+                return new DownloadStatus(request, DownloadError.ERROR_UNSUPPORTED_TYPE, false, false,
+                        "No downloader for " + request.getSource());
+            }
+            long start = System.nanoTime();
+            try {
+                downloader.call();
+            } catch (Exception e) {
+                Log.e(TAG, Log.getStackTraceString(e));
+            }
+            DownloadStatus status = downloader.getResult();
+            if (status.isSuccessful()) {
+                FeedSyncTask task = new FeedSyncTask(context, request, downloader.getFeedParserTask());
+                feedSyncPipeline.submit(task, System.nanoTime() - start, (syncedTask, success) -> {
+                    if (!success && syncedTask.getDownloadStatus() != null) {
+                        DBWriter.addDownloadStatus(syncedTask.getDownloadStatus());
+                    }
+                    onSaved.onSaved(success);
+                });
+            }
+            return status;
+        }
+
+        @Override
+        public void onFailed(@NonNull DownloadStatus status) {
+            DBWriter.addDownloadStatus(status);
+        }
+
+        @Override
+        public void shutdown() {
+            feedSyncPipeline.shutdown();
+        }
+    }
+}
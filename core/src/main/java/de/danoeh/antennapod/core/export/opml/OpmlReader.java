@@ -18,7 +18,11 @@ public class OpmlReader {
 	
 	// ATTRIBUTES
 	private boolean isInOpml = false;
-	private ArrayList<OpmlElement> elementList;
+
+	/** Receives the elements of a document while it is read. */
+	public interface ElementListener {
+		void onElement(OpmlElement element);
+	}
 
 	/**
 	 * Reads an Opml document and returns a list of all OPML elements it can
@@ -29,7 +33,17 @@ public class OpmlReader {
 	 */
 	public ArrayList<OpmlElement> readDocument(Reader reader)
 			throws XmlPullParserException, IOException {
-		elementList = new ArrayList<>();
+		ArrayList<OpmlElement> elementList = new ArrayList<>();
+		readDocument(reader, elementList::add);
+		return elementList;
+	}
+
+	/**
+	 * Reads an Opml document and passes each OPML element to the listener
+	 * as soon as it was read
+	 */
+	public void readDocument(Reader reader, ElementListener listener)
+			throws XmlPullParserException, IOException {
 		XmlPullParserFactory factory = XmlPullParserFactory.newInstance();
 		factory.setNamespaceAware(true);
 		XmlPullParser xpp = factory.newPullParser();
@@ -68,7 +82,7 @@ public class OpmlReader {
 							Log.i(TAG, "Opml element has no text attribute.");
 							element.setText(element.getXmlUrl());
 						}
-						elementList.add(element);
+						listener.onElement(element);
 					} else {
 						if (BuildConfig.DEBUG)
 							Log.d(TAG,
@@ -82,8 +96,6 @@ public class OpmlReader {
 
 		if (BuildConfig.DEBUG)
 			Log.d(TAG, "Parsing finished.");
-
-		return elementList;
 	}
 
 }
@@ -99,6 +99,7 @@ public class UserPreferences {
     private static final String PREF_MOBILE_UPDATE = "prefMobileUpdateTypes";
     public static final String PREF_EPISODE_CLEANUP = "prefEpisodeCleanup";
     public static final String PREF_PARALLEL_DOWNLOADS = "prefParallelDownloads";
+    public static final String PREF_DOWNLOAD_BANDWIDTH_LIMIT = "prefDownloadBandwidthLimit";
     public static final String PREF_EPISODE_CACHE_SIZE = "prefEpisodeCacheSize";
     public static final String PREF_ENABLE_AUTODL = "prefEnableAutoDl";
     public static final String PREF_ENABLE_AUTODL_ON_BATTERY = "prefEnableAutoDownloadOnBattery";
@@ -116,6 +117,7 @@ public class UserPreferences {
     // Other
     private static final String PREF_DATA_FOLDER = "prefDataFolder";
     public static final String PREF_DELETE_REMOVES_FROM_QUEUE = "prefDeleteRemovesFromQueue";
+    public static final String PREF_DATABASE_WAL = "prefDatabaseWal";
     public static final String PREF_USAGE_COUNTING_DATE = "prefUsageCounting";
 
     // Mediaplayer
@@ -565,6 +567,13 @@ public class UserPreferences {
         return Integer.parseInt(prefs.getString(PREF_PARALLEL_DOWNLOADS, "4"));
     }
 
+    /**
+     * @return The total speed of all downloads, in bytes per second, or 0 if it is not limited
+     */
+    public static long getDownloadBandwidthLimit() {
+        return 1024L * Integer.parseInt(prefs.getString(PREF_DOWNLOAD_BANDWIDTH_LIMIT, "0"));
+    }
+
     public static int getEpisodeCacheSizeUnlimited() {
         return context.getResources().getInteger(R.integer.episode_cache_size_unlimited);
     }
@@ -0,0 +1,110 @@
+package de.danoeh.antennapod.core.service.download;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the total speed of all downloads with a token bucket, and measures it.
+ * Each downloaded byte needs a token. Tokens are added at the configured rate, and up to one second
+ * worth of them can be saved up. A download that takes more tokens than there are waits until they
+ * would have been added, so parallel downloads share the bandwidth in the order they read.
+ */
+public class BandwidthLimiter {
+    private static final BandwidthLimiter instance = new BandwidthLimiter();
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /** 0 for no limit */
+    private long bytesPerSecond = 0;
+    private double tokens = 0;
+    private long lastRefill = 0;
+
+    private boolean measuring = false;
+    private long windowStart = 0;
+    private long windowBytes = 0;
+    private long throughput = 0;
+    private long totalBytes = 0;
+
+    BandwidthLimiter() {
+
+    }
+
+    public static BandwidthLimiter getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param bytesPerSecond The limit, or 0 to allow any speed
+     */
+    public synchronized void setLimit(long bytesPerSecond) {
+        this.bytesPerSecond = Math.max(0, bytesPerSecond);
+        tokens = this.bytesPerSecond;
+        lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Called after bytes were read. Blocks while the limit is exceeded.
+     */
+    public void onBytesRead(int bytes) throws InterruptedIOException {
+        long waitNanos = reserve(bytes, System.nanoTime());
+        if (waitNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for bandwidth");
+        }
+    }
+
+    /**
+     * Takes the tokens for the bytes, even if there are not enough.
+     *
+     * @return How long to wait until the tokens that were missing would have been added, in nanoseconds
+     */
+    synchronized long reserve(int bytes, long now) {
+        measure(bytes, now);
+        if (bytesPerSecond <= 0) {
+            return 0;
+        }
+        tokens = Math.min(bytesPerSecond, tokens + (double) (now - lastRefill) * bytesPerSecond / NANOS_PER_SECOND);
+        lastRefill = now;
+        tokens -= bytes;
+        return tokens >= 0 ? 0 : (long) (-tokens * NANOS_PER_SECOND / bytesPerSecond);
+    }
+
+    private void measure(int bytes, long now) {
+        totalBytes += bytes;
+        if (!measuring) {
+            measuring = true;
+            windowStart = now;
+        } else if (now - windowStart >= NANOS_PER_SECOND) {
+            throughput = windowBytes * NANOS_PER_SECOND / (now - windowStart);
+            windowStart = now;
+            windowBytes = 0;
+        }
+        windowBytes += bytes;
+    }
+
+    /**
+     * @return The speed of all downloads during the last second, in bytes per second
+     */
+    public long getThroughput() {
+        return getThroughput(System.nanoTime());
+    }
+
+    synchronized long getThroughput(long now) {
+        // Nothing was read for a while, so the last measurement is outdated
+        if (!measuring || now - windowStart >= 2 * NANOS_PER_SECOND) {
+            return 0;
+        }
+        return throughput;
+    }
+
+    /**
+     * @return The number of bytes that all downloads read so far
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+}
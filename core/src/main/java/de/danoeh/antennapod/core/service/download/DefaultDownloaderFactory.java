@@ -15,6 +15,6 @@ public class DefaultDownloaderFactory implements DownloaderFactory {
             Log.e(TAG, "Could not find appropriate downloader for " + request.getSource());
             return null;
         }
-        return new HttpDownloader(request);
+        return new HttpDownloader(request, true);
     }
 }
\ No newline at end of file
@@ -15,6 +15,7 @@ import de.danoeh.antennapod.model.feed.FeedMedia;
 public class DownloadRequest implements Parcelable {
     public static final String REQUEST_ARG_PAGE_NR = "page";
     public static final String REQUEST_ARG_LOAD_ALL_PAGES = "loadAllPages";
+    public static final String REQUEST_ARG_LAST_FULL_PARSE = "lastFullParse";
 
     private final String destination;
     private final String source;
@@ -22,6 +23,7 @@ public class DownloadRequest implements Parcelable {
     private String username;
     private String password;
     private String lastModified;
+    private String etag;
     private final boolean deleteOnFailure;
     private final long feedfileId;
     private final int feedfileType;
@@ -37,31 +39,32 @@ public class DownloadRequest implements Parcelable {
     public DownloadRequest(@NonNull String destination, @NonNull String source, @NonNull String title, long feedfileId,
                            int feedfileType, String username, String password, boolean deleteOnFailure,
                            Bundle arguments, boolean initiatedByUser) {
-        this(destination, source, title, feedfileId, feedfileType, null, deleteOnFailure, username, password, false,
-             arguments, initiatedByUser);
+        this(destination, source, title, feedfileId, feedfileType, null, null, deleteOnFailure, username, password,
+             false, arguments, initiatedByUser);
     }
 
     private DownloadRequest(Builder builder) {
         this(builder.destination, builder.source, builder.title, builder.feedfileId, builder.feedfileType,
-             builder.lastModified, builder.deleteOnFailure, builder.username, builder.password, false,
+             builder.lastModified, builder.etag, builder.deleteOnFailure, builder.username, builder.password, false,
              builder.arguments != null ? builder.arguments : new Bundle(), builder.initiatedByUser);
     }
 
     private DownloadRequest(Parcel in) {
         this(in.readString(), in.readString(), in.readString(), in.readLong(), in.readInt(), in.readString(),
-             in.readByte() > 0, nullIfEmpty(in.readString()), nullIfEmpty(in.readString()), in.readByte() > 0,
-             in.readBundle(), in.readByte() > 0);
+             in.readString(), in.readByte() > 0, nullIfEmpty(in.readString()), nullIfEmpty(in.readString()),
+             in.readByte() > 0, in.readBundle(), in.readByte() > 0);
     }
 
     private DownloadRequest(String destination, String source, String title, long feedfileId, int feedfileType,
-                            String lastModified, boolean deleteOnFailure, String username, String password,
-                            boolean mediaEnqueued, Bundle arguments, boolean initiatedByUser) {
+                            String lastModified, String etag, boolean deleteOnFailure, String username,
+                            String password, boolean mediaEnqueued, Bundle arguments, boolean initiatedByUser) {
         this.destination = destination;
         this.source = source;
         this.title = title;
         this.feedfileId = feedfileId;
         this.feedfileType = feedfileType;
         this.lastModified = lastModified;
+        this.etag = etag;
         this.deleteOnFailure = deleteOnFailure;
         this.username = username;
         this.password = password;
@@ -83,6 +86,7 @@ public class DownloadRequest implements Parcelable {
         dest.writeLong(feedfileId);
         dest.writeInt(feedfileType);
         dest.writeString(lastModified);
+        dest.writeString(etag);
         dest.writeByte((deleteOnFailure) ? (byte) 1 : 0);
         // in case of null username/password, still write an empty string
         // (rather than skipping it). Otherwise, unmarshalling  a collection
@@ -124,6 +128,7 @@ public class DownloadRequest implements Parcelable {
 
         if (lastModified != null ? !lastModified.equals(that.lastModified) : that.lastModified != null)
             return false;
+        if (etag != null ? !etag.equals(that.etag) : that.etag != null) return false;
         if (deleteOnFailure != that.deleteOnFailure) return false;
         if (feedfileId != that.feedfileId) return false;
         if (feedfileType != that.feedfileType) return false;
@@ -151,6 +156,7 @@ public class DownloadRequest implements Parcelable {
         result = 31 * result + (username != null ? username.hashCode() : 0);
         result = 31 * result + (password != null ? password.hashCode() : 0);
         result = 31 * result + (lastModified != null ? lastModified.hashCode() : 0);
+        result = 31 * result + (etag != null ? etag.hashCode() : 0);
         result = 31 * result + (deleteOnFailure ? 1 : 0);
         result = 31 * result + (int) (feedfileId ^ (feedfileId >>> 32));
         result = 31 * result + feedfileType;
@@ -237,6 +243,16 @@ public class DownloadRequest implements Parcelable {
         return lastModified;
     }
 
+    public DownloadRequest setEtag(@Nullable String etag) {
+        this.etag = etag;
+        return this;
+    }
+
+    @Nullable
+    public String getEtag() {
+        return etag;
+    }
+
     public boolean isDeleteOnFailure() {
         return deleteOnFailure;
     }
@@ -268,6 +284,7 @@ public class DownloadRequest implements Parcelable {
         private String username;
         private String password;
         private String lastModified;
+        private String etag;
         private boolean deleteOnFailure = false;
         private final long feedfileId;
         private final int feedfileType;
@@ -288,6 +305,7 @@ public class DownloadRequest implements Parcelable {
             this.title = feed.getHumanReadableIdentifier();
             this.feedfileId = feed.getId();
             this.feedfileType = feed.getTypeAsInt();
+            arguments.putLong(REQUEST_ARG_LAST_FULL_PARSE, feed.getLastFullParse());
         }
 
         public void setInitiatedByUser(boolean initiatedByUser) {
@@ -297,6 +315,7 @@ public class DownloadRequest implements Parcelable {
         public void setForce(boolean force) {
             if (force) {
                 lastModified = null;
+                etag = null;
             }
         }
 
@@ -310,6 +329,11 @@ public class DownloadRequest implements Parcelable {
             return this;
         }
 
+        public Builder etag(String etag) {
+            this.etag = etag;
+            return this;
+        }
+
         public Builder withAuthentication(String username, String password) {
             this.username = username;
             this.password = password;
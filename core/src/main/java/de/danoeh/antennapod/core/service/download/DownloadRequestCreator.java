@@ -31,7 +31,8 @@ public class DownloadRequestCreator {
         return new DownloadRequest.Builder(dest.toString(), feed)
                 .withAuthentication(username, password)
                 .deleteOnFailure(true)
-                .lastModified(feed.getLastUpdate());
+                .lastModified(feed.getLastUpdate())
+                .etag(feed.getEtag());
     }
 
     public static DownloadRequest.Builder create(FeedMedia media) {
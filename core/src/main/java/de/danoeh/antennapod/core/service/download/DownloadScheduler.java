@@ -0,0 +1,205 @@
+package de.danoeh.antennapod.core.service.download;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+
+/**
+ * Decides which download runs next. Episodes that the user downloads run before feed refreshes,
+ * which run before automatic downloads. Downloads of the same priority run in the order they were submitted.
+ * <ul>
+ *     <li>The number of connections to the same host is limited, so that a server with many queued files
+ *     does not take all slots. Downloads in parts count each of their connections, see
+ *     {@link #getConnectionLimit(String)}.</li>
+ *     <li>Downloads started by the user can use one slot more than the parallel downloads, so they do not
+ *     have to wait for a running automatic download to finish.</li>
+ * </ul>
+ */
+public class DownloadScheduler {
+    private static final String TAG = "DownloadScheduler";
+    static final int PRIORITY_USER = 0;
+    static final int PRIORITY_FEED = 1;
+    static final int PRIORITY_AUTO_DOWNLOAD = 2;
+    static final int MAX_CONNECTIONS_PER_HOST = 3;
+    static final int RESERVED_USER_SLOTS = 1;
+
+    /**
+     * Decides how many connections a download may open to its host in addition to its own.
+     */
+    interface ConnectionLimit {
+        /**
+         * @return The number of the wanted connections that may be opened. They must be released afterwards.
+         */
+        int acquire(int wanted);
+
+        void release(int count);
+    }
+
+    static final ConnectionLimit UNLIMITED = new ConnectionLimit() {
+        @Override
+        public int acquire(int wanted) {
+            return wanted;
+        }
+
+        @Override
+        public void release(int count) {
+        }
+    };
+
+    private static class Task {
+        final int priority;
+        final long sequence;
+        @Nullable
+        final String host;
+        final Runnable runnable;
+
+        Task(int priority, long sequence, @Nullable String host, Runnable runnable) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.host = host;
+            this.runnable = runnable;
+        }
+    }
+
+    private final Executor executor;
+    private final int maxRunning;
+    private final int maxPerHost;
+    private final TreeSet<Task> pending = new TreeSet<>((lhs, rhs) -> lhs.priority != rhs.priority
+            ? Integer.compare(lhs.priority, rhs.priority) : Long.compare(lhs.sequence, rhs.sequence));
+    private final Map<String, Integer> runningPerHost = new HashMap<>();
+    private int running = 0;
+    private long sequence = 0;
+
+    /**
+     * @param executor Must be able to run maxRunning + {@link #RESERVED_USER_SLOTS} tasks at the same time
+     */
+    DownloadScheduler(@NonNull Executor executor, int maxRunning, int maxPerHost) {
+        this.executor = executor;
+        this.maxRunning = maxRunning;
+        this.maxPerHost = maxPerHost;
+    }
+
+    /**
+     * @param host The host of the download, or null if it does not count towards the limit per host
+     */
+    void submit(int priority, @Nullable String host, @NonNull Runnable runnable) {
+        synchronized (this) {
+            pending.add(new Task(priority, sequence++, host, runnable));
+        }
+        startPending();
+    }
+
+    private void startPending() {
+        List<Task> start = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Task> iterator = pending.iterator();
+            while (iterator.hasNext()) {
+                Task task = iterator.next();
+                int slots = maxRunning + (task.priority == PRIORITY_USER ? RESERVED_USER_SLOTS : 0);
+                if (running >= slots) {
+                    if (task.priority == PRIORITY_USER) {
+                        continue;
+                    }
+                    break;
+                }
+                if (task.host != null && getRunning(task.host) >= maxPerHost) {
+                    continue;
+                }
+                iterator.remove();
+                running++;
+                if (task.host != null) {
+                    runningPerHost.put(task.host, getRunning(task.host) + 1);
+                }
+                start.add(task);
+            }
+        }
+        for (Task task : start) {
+            executor.execute(() -> run(task));
+        }
+    }
+
+    private void run(Task task) {
+        try {
+            task.runnable.run();
+        } catch (Throwable t) {
+            // The executor would not report it, and the app would crash
+            Log.e(TAG, Log.getStackTraceString(t));
+        } finally {
+            synchronized (this) {
+                running--;
+                removeConnections(task.host, 1);
+            }
+            startPending();
+        }
+    }
+
+    /**
+     * @return The connections to the host that downloads in parts can open. Other downloads from the host
+     *         wait while they are open.
+     */
+    ConnectionLimit getConnectionLimit(@Nullable String host) {
+        if (host == null) {
+            return UNLIMITED;
+        }
+        return new ConnectionLimit() {
+            @Override
+            public int acquire(int wanted) {
+                synchronized (DownloadScheduler.this) {
+                    int granted = Math.max(0, Math.min(wanted, maxPerHost - getRunning(host)));
+                    if (granted > 0) {
+                        runningPerHost.put(host, getRunning(host) + granted);
+                    }
+                    return granted;
+                }
+            }
+
+            @Override
+            public void release(int count) {
+                if (count <= 0) {
+                    return;
+                }
+                synchronized (DownloadScheduler.this) {
+                    removeConnections(host, count);
+                }
+                startPending();
+            }
+        };
+    }
+
+    private void removeConnections(@Nullable String host, int count) {
+        if (host == null) {
+            return;
+        }
+        int remaining = getRunning(host) - count;
+        if (remaining > 0) {
+            runningPerHost.put(host, remaining);
+        } else {
+            runningPerHost.remove(host);
+        }
+    }
+
+    private int getRunning(String host) {
+        Integer count = runningPerHost.get(host);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * @return The number of downloads that wait for a free slot
+     */
+    public synchronized int getQueueDepth() {
+        return pending.size();
+    }
+
+    public synchronized int getRunningCount() {
+        return running;
+    }
+}
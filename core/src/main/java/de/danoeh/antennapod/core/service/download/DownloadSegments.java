@@ -0,0 +1,168 @@
+package de.danoeh.antennapod.core.service.download;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits a file into parts that are downloaded at the same time, and keeps track of how much of each part
+ * was written. The progress can be saved to a file next to the download, so that it can be resumed exactly.
+ * Not thread safe.
+ */
+class DownloadSegments {
+    private static final int FILE_VERSION = 1;
+    private static final String FILE_SUFFIX = ".segments";
+
+    static class Segment {
+        final long start;
+        /** Exclusive */
+        final long end;
+        long position;
+
+        Segment(long start, long end, long position) {
+            this.start = start;
+            this.end = end;
+            this.position = position;
+        }
+
+        long getRemaining() {
+            return end - position;
+        }
+    }
+
+    private final long size;
+    private final String validator;
+    private final List<Segment> segments;
+
+    private DownloadSegments(long size, String validator, List<Segment> segments) {
+        this.size = size;
+        this.validator = validator;
+        this.segments = segments;
+    }
+
+    /**
+     * @param validator The ETag or Last-Modified header of the file, so that parts of different versions of
+     *                  the file are not mixed up when resuming
+     */
+    static DownloadSegments split(long size, @NonNull String validator, int maxCount, long minSegmentSize) {
+        int count = (int) Math.max(1, Math.min(maxCount, size / minSegmentSize));
+        List<Segment> segments = new ArrayList<>();
+        long segmentSize = size / count;
+        for (int i = 0; i < count; i++) {
+            long start = i * segmentSize;
+            long end = (i == count - 1) ? size : start + segmentSize;
+            segments.add(new Segment(start, end, start));
+        }
+        return new DownloadSegments(size, validator, segments);
+    }
+
+    static File getProgressFile(File destination) {
+        return new File(destination.getPath() + FILE_SUFFIX);
+    }
+
+    /**
+     * @return The saved progress, or null if there is none or it can not be read
+     */
+    @Nullable
+    static DownloadSegments load(File progressFile) {
+        if (!progressFile.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(progressFile)))) {
+            if (in.readInt() != FILE_VERSION) {
+                return null;
+            }
+            long size = in.readLong();
+            String validator = in.readUTF();
+            int count = in.readInt();
+            List<Segment> segments = new ArrayList<>();
+            long expectedStart = 0;
+            for (int i = 0; i < count; i++) {
+                Segment segment = new Segment(in.readLong(), in.readLong(), in.readLong());
+                if (segment.start != expectedStart || segment.position < segment.start
+                        || segment.position > segment.end) {
+                    return null;
+                }
+                expectedStart = segment.end;
+                segments.add(segment);
+            }
+            if (segments.isEmpty() || expectedStart != size) {
+                return null;
+            }
+            return new DownloadSegments(size, validator, segments);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the progress to a temporary file first, so that an interrupted write does not lose the old progress.
+     */
+    void save(File progressFile) throws IOException {
+        File temp = new File(progressFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(FILE_VERSION);
+            out.writeLong(size);
+            out.writeUTF(validator);
+            out.writeInt(segments.size());
+            for (Segment segment : segments) {
+                out.writeLong(segment.start);
+                out.writeLong(segment.end);
+                out.writeLong(segment.position);
+            }
+        }
+        if (!temp.renameTo(progressFile)) {
+            throw new IOException("Unable to save download progress to " + progressFile);
+        }
+    }
+
+    /**
+     * Must only be called after the bytes were written.
+     *
+     * @return The number of bytes written of all parts
+     */
+    long advance(Segment segment, int count) {
+        segment.position += count;
+        return getBytesDone();
+    }
+
+    long getBytesDone() {
+        long done = 0;
+        for (Segment segment : segments) {
+            done += segment.position - segment.start;
+        }
+        return done;
+    }
+
+    boolean isComplete() {
+        for (Segment segment : segments) {
+            if (segment.getRemaining() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    String getValidator() {
+        return validator;
+    }
+
+    List<Segment> getSegments() {
+        return Collections.unmodifiableList(segments);
+    }
+}
@@ -22,6 +22,7 @@ import androidx.core.content.ContextCompat;
 import de.danoeh.antennapod.core.R;
 import de.danoeh.antennapod.core.feed.LocalFeedUpdater;
 import org.apache.commons.io.FileUtils;
+import okhttp3.HttpUrl;
 import org.greenrobot.eventbus.EventBus;
 
 import java.io.File;
@@ -29,24 +30,33 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import de.danoeh.antennapod.core.event.DownloadEvent;
+import de.danoeh.antennapod.core.util.download.AutoUpdateManager;
 import de.danoeh.antennapod.core.util.download.ConnectionStateMonitor;
+import de.danoeh.antennapod.core.util.download.FeedRefreshSchedule;
 import de.danoeh.antennapod.event.FeedItemEvent;
 import de.danoeh.antennapod.model.feed.Feed;
 import de.danoeh.antennapod.model.feed.FeedItem;
 import de.danoeh.antennapod.model.feed.FeedMedia;
 import de.danoeh.antennapod.core.preferences.UserPreferences;
 import de.danoeh.antennapod.core.service.download.handler.FailedDownloadHandler;
+import de.danoeh.antennapod.core.service.download.handler.FeedSyncPipeline;
 import de.danoeh.antennapod.core.service.download.handler.FeedSyncTask;
 import de.danoeh.antennapod.core.service.download.handler.MediaDownloadedHandler;
+import de.danoeh.antennapod.core.service.download.handler.MediaDownloadedPipeline;
 import de.danoeh.antennapod.core.service.download.handler.PostDownloaderTask;
 import de.danoeh.antennapod.core.storage.DBReader;
 import de.danoeh.antennapod.core.storage.DBTasks;
@@ -68,6 +78,7 @@ public class DownloadService extends Service {
     public static final String EXTRA_DOWNLOAD_URL = "downloadUrl";
     public static final String EXTRA_REQUESTS = "downloadRequests";
     public static final String EXTRA_REFRESH_ALL = "refreshAll";
+    public static final String EXTRA_REFRESH_DUE_ONLY = "refreshDueOnly";
     public static final String EXTRA_INITIATED_BY_USER = "initiatedByUser";
     public static final String EXTRA_CLEANUP_MEDIA = "cleanupMedia";
 
@@ -78,7 +89,13 @@ public class DownloadService extends Service {
     // Add while iterating: We think it is not downloading and might start a second download with the same file.
     static final List<Downloader> downloads = Collections.synchronizedList(new CopyOnWriteArrayList<>());
     private final ExecutorService downloadHandleExecutor;
+    private final DownloadScheduler downloadScheduler;
     private final ExecutorService downloadEnqueueExecutor;
+    private final FeedSyncPipeline feedSyncPipeline;
+    private final MediaDownloadedPipeline mediaDownloadedPipeline;
+    private final AtomicInteger feedsDownloaded = new AtomicInteger();
+    private final AtomicInteger feedsNotModified = new AtomicInteger();
+    private final AtomicLong feedBytesDownloaded = new AtomicLong();
 
     private final List<DownloadStatus> reportQueue = new ArrayList<>();
     private DownloadServiceNotification notificationManager;
@@ -113,13 +130,21 @@ public class DownloadService extends Service {
         // Must be the first runnable in syncExecutor
         downloadEnqueueExecutor.execute(newEpisodesNotification::loadCountersBeforeRefresh);
 
-        Log.d(TAG, "parallel downloads: " + UserPreferences.getParallelDownloads());
-        downloadHandleExecutor = Executors.newFixedThreadPool(UserPreferences.getParallelDownloads(),
-            r -> {
-                Thread t = new Thread(r, "DownloadThread");
-                t.setPriority(Thread.MIN_PRIORITY);
-                return t;
-            });
+        int parallelDownloads = UserPreferences.getParallelDownloads();
+        Log.d(TAG, "parallel downloads: " + parallelDownloads);
+        // The scheduler decides which downloads run, so the pool only needs a thread for each slot
+        int threads = parallelDownloads + DownloadScheduler.RESERVED_USER_SLOTS;
+        downloadHandleExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "DownloadThread");
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                }, (r, executor) -> Log.w(TAG, "Download rejected submission of new task"));
+        downloadScheduler = new DownloadScheduler(downloadHandleExecutor, parallelDownloads,
+                DownloadScheduler.MAX_CONNECTIONS_PER_HOST);
+        BandwidthLimiter.getInstance().setLimit(UserPreferences.getDownloadBandwidthLimit());
+        feedSyncPipeline = new FeedSyncPipeline(this);
+        mediaDownloadedPipeline = new MediaDownloadedPipeline();
         notificationUpdateExecutor = new ScheduledThreadPoolExecutor(SCHED_EX_POOL_SIZE,
                 r -> {
                     Thread t = new Thread(r, "NotificationUpdateExecutor");
@@ -174,6 +199,16 @@ public class DownloadService extends Service {
         ContextCompat.startForegroundService(context, launchIntent);
     }
 
+    /**
+     * Refreshes only the feeds whose next refresh is due, see {@link FeedRefreshSchedule}.
+     */
+    public static void refreshDueFeeds(Context context) {
+        Intent launchIntent = new Intent(context, DownloadService.class);
+        launchIntent.putExtra(DownloadService.EXTRA_REFRESH_ALL, true);
+        launchIntent.putExtra(DownloadService.EXTRA_REFRESH_DUE_ONLY, true);
+        ContextCompat.startForegroundService(context, launchIntent);
+    }
+
     public static void cancel(Context context, String url) {
         if (!isRunning) {
             return;
@@ -266,6 +301,9 @@ public class DownloadService extends Service {
         cancelNotificationUpdater();
         downloadHandleExecutor.shutdown();
         downloadEnqueueExecutor.shutdown();
+        feedSyncPipeline.shutdown();
+        mediaDownloadedPipeline.shutdown();
+        Log.d(TAG, getRefreshSummary());
         notificationUpdateExecutor.shutdown();
         if (downloadPostFuture != null) {
             downloadPostFuture.cancel(true);
@@ -281,20 +319,40 @@ public class DownloadService extends Service {
      * Otherwise, it hangs up the refresh thread pool.
      */
     private void performDownload(Downloader downloader) {
+        long start = System.nanoTime();
         try {
             downloader.call();
         } catch (Exception e) {
             e.printStackTrace();
         }
+        long downloadNanos = System.nanoTime() - start;
         try {
-            if (downloader.getResult().isSuccessful()) {
-                handleSuccessfulDownload(downloader);
+            DownloadStatus status = downloader.getResult();
+            if (status.isNotModified() && status.getFeedfileType() == Feed.FEEDFILETYPE_FEED) {
+                handleFeedNotModified(downloader);
+            } else if (status.isSuccessful() && status.getFeedfileType() == Feed.FEEDFILETYPE_FEED) {
+                feedsDownloaded.incrementAndGet();
+                feedBytesDownloaded.addAndGet(Math.max(0, downloader.getDownloadRequest().getSoFar()));
+                // Saving continues in the pipeline, so this thread can start the next download
+                FeedSyncTask task = new FeedSyncTask(DownloadService.this,
+                        downloader.getDownloadRequest(), downloader.getFeedParserTask());
+                feedSyncPipeline.submit(task, downloadNanos,
+                        (syncedTask, success) -> onFeedSynced(downloader, syncedTask, success));
+                return;
+            } else if (status.isSuccessful()) {
+                if (handleSuccessfulDownload(downloader)) {
+                    return;
+                }
             } else {
                 handleFailedDownload(downloader);
             }
         } catch (Exception e) {
             e.printStackTrace();
         }
+        onDownloadDone(downloader);
+    }
+
+    private void onDownloadDone(Downloader downloader) {
         downloadEnqueueExecutor.submit(() -> {
             downloads.remove(downloader);
             stopServiceIfEverythingDone();
@@ -312,46 +370,89 @@ public class DownloadService extends Service {
         } catch (Exception e) {
             e.printStackTrace();
         }
-        downloadEnqueueExecutor.submit(() -> {
-            downloads.remove(downloader);
-            stopServiceIfEverythingDone();
-        });
+        onDownloadDone(downloader);
     }
 
-
-    private void handleSuccessfulDownload(Downloader downloader) {
-        DownloadRequest request = downloader.getDownloadRequest();
-        DownloadStatus status = downloader.getResult();
-        final int type = status.getFeedfileType();
-
-        if (type == Feed.FEEDFILETYPE_FEED) {
-            Log.d(TAG, "Handling completed Feed Download");
-            FeedSyncTask task = new FeedSyncTask(DownloadService.this, request);
-            boolean success = task.run();
-
+    /**
+     * Called on the merge thread of the {@link FeedSyncPipeline} when a downloaded feed has been handled.
+     */
+    private void onFeedSynced(Downloader downloader, FeedSyncTask task, boolean success) {
+        DownloadRequest request = task.getDownloadRequest();
+        try {
             if (success) {
-                if (request.getFeedfileId() == 0) {
-                    return; // No download logs for new subscriptions
+                if (task.getSavedFeed() != null) {
+                    DBWriter.updateFeedRefreshSchedule(task.getSavedFeed().getId(), false,
+                            AutoUpdateManager.getAutoUpdateInterval());
                 }
-                // we create a 'successful' download log if the feed's last refresh failed
-                List<DownloadStatus> log = DBReader.getFeedDownloadLog(request.getFeedfileId());
-                if (log.size() > 0 && !log.get(0).isSuccessful()) {
-                    saveDownloadStatus(task.getDownloadStatus());
-                }
-                if (!request.isInitiatedByUser()) {
-                    // Was stored in the database before and not initiated manually
-                    newEpisodesNotification.showIfNeeded(DownloadService.this, task.getSavedFeed());
+                // No download logs for new subscriptions
+                if (request.getFeedfileId() != 0) {
+                    // we create a 'successful' download log if the feed's last refresh failed
+                    List<DownloadStatus> log = DBReader.getFeedDownloadLog(request.getFeedfileId());
+                    if (log.size() > 0 && !log.get(0).isSuccessful()) {
+                        saveDownloadStatus(task.getDownloadStatus());
+                    }
+                    if (!request.isInitiatedByUser()) {
+                        // Was stored in the database before and not initiated manually
+                        newEpisodesNotification.showIfNeeded(DownloadService.this, task.getSavedFeed());
+                    }
                 }
             } else {
                 DBWriter.setFeedLastUpdateFailed(request.getFeedfileId(), true);
-                saveDownloadStatus(task.getDownloadStatus());
+                if (task.getDownloadStatus() != null) {
+                    saveDownloadStatus(task.getDownloadStatus());
+                }
             }
-        } else if (type == FeedMedia.FEEDFILETYPE_FEEDMEDIA) {
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        onDownloadDone(downloader);
+    }
+
+    /**
+     * The feed did not change since the last refresh, so it is neither parsed nor saved.
+     */
+    private void handleFeedNotModified(Downloader downloader) {
+        feedsNotModified.incrementAndGet();
+        long feedId = downloader.getDownloadRequest().getFeedfileId();
+        DBWriter.updateFeedRefreshSchedule(feedId, true, AutoUpdateManager.getAutoUpdateInterval());
+        // we create a 'successful' download log if the feed's last refresh failed
+        List<DownloadStatus> log = DBReader.getFeedDownloadLog(feedId);
+        if (log.size() > 0 && !log.get(0).isSuccessful()) {
+            DBWriter.setFeedLastUpdateFailed(feedId, false);
+            saveDownloadStatus(downloader.getResult());
+        }
+    }
+
+    private String getRefreshSummary() {
+        int notModified = feedsNotModified.get();
+        int total = notModified + feedsDownloaded.get();
+        return String.format(Locale.US, "Feed refresh: %d of %d feeds not modified (%.0f%%), %d kB downloaded",
+                notModified, total, total > 0 ? 100.0 * notModified / total : 0.0,
+                feedBytesDownloaded.get() / 1024);
+    }
+
+    /**
+     * @return true if the download is finished by the {@link MediaDownloadedPipeline}
+     */
+    private boolean handleSuccessfulDownload(Downloader downloader) {
+        DownloadRequest request = downloader.getDownloadRequest();
+        DownloadStatus status = downloader.getResult();
+        final int type = status.getFeedfileType();
+
+        if (type == FeedMedia.FEEDFILETYPE_FEEDMEDIA) {
             Log.d(TAG, "Handling completed FeedMedia Download");
             MediaDownloadedHandler handler = new MediaDownloadedHandler(DownloadService.this, status, request);
-            handler.run();
+            if (handler.readMetadata()) {
+                // Saving continues in the pipeline, together with other downloads that complete meanwhile
+                mediaDownloadedPipeline.submit(handler, savedHandler -> {
+                    saveDownloadStatus(savedHandler.getUpdatedStatus());
+                    onDownloadDone(downloader);
+                });
+                return true;
+            }
             saveDownloadStatus(handler.getUpdatedStatus());
         }
+        return false;
     }
 
     private void handleFailedDownload(Downloader downloader) {
@@ -501,14 +602,25 @@ public class DownloadService extends Service {
 
     private void enqueueAll(Intent intent) {
         boolean initiatedByUser = intent.getBooleanExtra(EXTRA_INITIATED_BY_USER, false);
+        boolean dueOnly = intent.getBooleanExtra(EXTRA_REFRESH_DUE_ONLY, false);
+        long now = System.currentTimeMillis();
+        long interval = AutoUpdateManager.getAutoUpdateInterval();
+        int skipped = 0;
         List<Feed> feeds = DBReader.getFeedList();
         for (Feed feed : feeds) {
-            if (feed.getPreferences().getKeepUpdated()) {
+            if (!feed.getPreferences().getKeepUpdated()) {
+                continue;
+            } else if (dueOnly && !FeedRefreshSchedule.isDue(feed.getNextRefresh(), now, interval)) {
+                skipped++;
+            } else {
                 DownloadRequest.Builder builder = DownloadRequestCreator.create(feed);
                 builder.setInitiatedByUser(initiatedByUser);
                 addNewRequest(builder.build());
             }
         }
+        if (dueOnly) {
+            Log.d(TAG, "Skipped " + skipped + " feeds that are not due for a refresh");
+        }
         postDownloaders();
         stopServiceIfEverythingDone();
     }
@@ -522,17 +634,30 @@ public class DownloadService extends Service {
         if (request.getSource().startsWith(Feed.PREFIX_LOCAL_FOLDER)) {
             Downloader downloader = new LocalFeedStubDownloader(request);
             downloads.add(downloader);
-            downloadHandleExecutor.submit(() -> performLocalFeedRefresh(downloader, request));
+            downloadScheduler.submit(DownloadScheduler.PRIORITY_FEED, null,
+                    () -> performLocalFeedRefresh(downloader, request));
         } else {
             writeFileUrl(request);
             Downloader downloader = downloaderFactory.create(request);
             if (downloader != null) {
                 downloads.add(downloader);
-                downloadHandleExecutor.submit(() -> performDownload(downloader));
+                HttpUrl url = HttpUrl.parse(request.getSource());
+                String host = url != null ? url.host() : null;
+                downloader.connectionLimit = downloadScheduler.getConnectionLimit(host);
+                downloadScheduler.submit(getPriority(request), host, () -> performDownload(downloader));
             }
         }
     }
 
+    private static int getPriority(DownloadRequest request) {
+        if (request.getFeedfileType() == Feed.FEEDFILETYPE_FEED) {
+            return DownloadScheduler.PRIORITY_FEED;
+        } else if (request.isInitiatedByUser()) {
+            return DownloadScheduler.PRIORITY_USER;
+        }
+        return DownloadScheduler.PRIORITY_AUTO_DOWNLOAD;
+    }
+
     @VisibleForTesting
     public static DownloaderFactory getDownloaderFactory() {
         return downloaderFactory;
@@ -646,11 +771,11 @@ public class DownloadService extends Service {
     }
 
     private void postDownloaders() {
-        new PostDownloaderTask(downloads).run();
+        new PostDownloaderTask(downloads, downloadScheduler).run();
 
         if (downloadPostFuture == null) {
             downloadPostFuture = notificationUpdateExecutor.scheduleAtFixedRate(
-                    new PostDownloaderTask(downloads), 1, 1, TimeUnit.SECONDS);
+                    new PostDownloaderTask(downloads, downloadScheduler), 1, 1, TimeUnit.SECONDS);
         }
     }
 
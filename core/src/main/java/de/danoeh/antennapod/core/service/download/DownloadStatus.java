@@ -29,7 +29,7 @@ public class DownloadStatus {
 	private DownloadError reason;
 	/**
 	 * A message which can be presented to the user to give more information.
-	 * Should be null if Download was successful.
+	 * For successful downloads, this is either null or contains statistics.
 	 */
     private String reasonDetailed;
 	private boolean successful;
@@ -46,6 +46,7 @@ public class DownloadStatus {
 	// ------------------------------------ NOT STORED IN DB
     private boolean done;
 	private boolean cancelled;
+    private boolean notModified;
 
 	public DownloadStatus(@NonNull DownloadRequest request, DownloadError reason, boolean successful, boolean cancelled,
                           String reasonDetailed) {
@@ -100,7 +101,7 @@ public class DownloadStatus {
 				+ ", successful=" + successful + ", completionDate="
 				+ completionDate + ", feedfileId=" + feedfileId
 				+ ", feedfileType=" + feedfileType + ", done=" + done
-				+ ", cancelled=" + cancelled + "]";
+				+ ", cancelled=" + cancelled + ", notModified=" + notModified + "]";
 	}
 
     public long getId() {
@@ -145,6 +146,14 @@ public class DownloadStatus {
         return cancelled;
     }
 
+    /**
+     * @return true if the server responded that the file did not change since the last download.
+     *         Nothing was downloaded then.
+     */
+    public boolean isNotModified() {
+        return notModified;
+    }
+
     public void setSuccessful() {
         this.successful = true;
         this.reason = DownloadError.SUCCESS;
@@ -158,6 +167,15 @@ public class DownloadStatus {
         this.done = true;
     }
 
+    public void setReasonDetailed(String reasonDetailed) {
+        this.reasonDetailed = reasonDetailed;
+    }
+
+    public void setNotModified() {
+        setSuccessful();
+        this.notModified = true;
+    }
+
     public void setCancelled() {
         this.successful = false;
         this.reason = DownloadError.ERROR_DOWNLOAD_CANCELLED;
@@ -3,11 +3,13 @@ package de.danoeh.antennapod.core.service.download;
 import android.content.Context;
 import android.net.wifi.WifiManager;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import java.util.concurrent.Callable;
 
 import de.danoeh.antennapod.core.ClientConfig;
 import de.danoeh.antennapod.core.R;
+import de.danoeh.antennapod.core.service.download.handler.FeedParserTask;
 
 /**
  * Downloads files
@@ -23,6 +25,11 @@ public abstract class Downloader implements Callable<Downloader> {
     final DownloadRequest request;
     @NonNull
     final DownloadStatus result;
+    /**
+     * Limits the connections that a download in parts opens to the host, set before the download starts
+     */
+    @NonNull
+    DownloadScheduler.ConnectionLimit connectionLimit = DownloadScheduler.UNLIMITED;
 
     Downloader(@NonNull DownloadRequest request) {
         super();
@@ -63,6 +70,15 @@ public abstract class Downloader implements Callable<Downloader> {
         return result;
     }
 
+    /**
+     * @return The parser if the feed was parsed while it was downloaded,
+     *         or null if it needs to be parsed from the destination file
+     */
+    @Nullable
+    public FeedParserTask getFeedParserTask() {
+        return null;
+    }
+
     public boolean isFinished() {
         return finished;
     }
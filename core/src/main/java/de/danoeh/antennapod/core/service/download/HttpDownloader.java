@@ -1,15 +1,18 @@
 package de.danoeh.antennapod.core.service.download;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import android.text.TextUtils;
 import android.util.Log;
 
+import de.danoeh.antennapod.core.service.download.handler.FeedParserTask;
 import de.danoeh.antennapod.core.util.NetworkUtils;
 import okhttp3.CacheControl;
 import org.apache.commons.io.IOUtils;
 
 import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
@@ -19,9 +22,9 @@ import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.net.UnknownHostException;
 import java.util.Collections;
-import java.util.Date;
 
 import de.danoeh.antennapod.core.R;
+import de.danoeh.antennapod.model.feed.Feed;
 import de.danoeh.antennapod.model.feed.FeedMedia;
 import de.danoeh.antennapod.parser.feed.util.DateUtils;
 import de.danoeh.antennapod.core.util.DownloadError;
@@ -39,14 +42,27 @@ public class HttpDownloader extends Downloader {
 
     private static final int BUFFER_SIZE = 8 * 1024;
 
+    private final boolean streamFeed;
+    @Nullable
+    private FeedParserTask feedParserTask = null;
+
     public HttpDownloader(@NonNull DownloadRequest request) {
+        this(request, false);
+    }
+
+    /**
+     * @param streamFeed If true, feeds are parsed directly from the response body instead of being written
+     *                   to the destination file first. Has no effect on other downloads.
+     */
+    public HttpDownloader(@NonNull DownloadRequest request, boolean streamFeed) {
         super(request);
+        this.streamFeed = streamFeed;
     }
 
     @Override
     protected void download() {
         File destination = new File(request.getDestination());
-        final boolean fileExists = destination.exists();
+        boolean fileExists = destination.exists();
 
         if (request.isDeleteOnFailure() && fileExists) {
             Log.w(TAG, "File already exists");
@@ -54,6 +70,7 @@ public class HttpDownloader extends Downloader {
             return;
         }
 
+        final boolean streaming = streamFeed && request.getFeedfileType() == Feed.FEEDFILETYPE_FEED;
         OkHttpClient httpClient = AntennapodHttpClient.getHttpClient();
         RandomAccessFile out = null;
         InputStream connection;
@@ -74,22 +91,34 @@ public class HttpDownloader extends Downloader {
 
             if (!TextUtils.isEmpty(request.getLastModified())) {
                 String lastModified = request.getLastModified();
-                Date lastModifiedDate = DateUtils.parse(lastModified);
-                if (lastModifiedDate != null) {
-                    long threeDaysAgo = System.currentTimeMillis() - 1000 * 60 * 60 * 24 * 3;
-                    if (lastModifiedDate.getTime() > threeDaysAgo) {
-                        Log.d(TAG, "addHeader(\"If-Modified-Since\", \"" + lastModified + "\")");
-                        httpReq.addHeader("If-Modified-Since", lastModified);
-                    }
-                } else {
+                if (DateUtils.parse(lastModified) != null) {
+                    Log.d(TAG, "addHeader(\"If-Modified-Since\", \"" + lastModified + "\")");
+                    httpReq.addHeader("If-Modified-Since", lastModified);
+                } else if (TextUtils.isEmpty(request.getEtag())) {
+                    // Stored before ETags had their own field
                     Log.d(TAG, "addHeader(\"If-None-Match\", \"" + lastModified + "\")");
                     httpReq.addHeader("If-None-Match", lastModified);
                 }
             }
+            if (!TextUtils.isEmpty(request.getEtag())) {
+                Log.d(TAG, "addHeader(\"If-None-Match\", \"" + request.getEtag() + "\")");
+                httpReq.addHeader("If-None-Match", request.getEtag());
+            }
 
 
+            if (request.getFeedfileType() == FeedMedia.FEEDFILETYPE_FEEDMEDIA && fileExists
+                    && SegmentedDownload.hasProgress(destination)) {
+                SegmentedDownload segmentedDownload = new SegmentedDownload(this, httpClient,
+                        httpReq.build(), destination);
+                if (segmentedDownload.resume()) {
+                    onSegmentedDownloadFinished();
+                    return;
+                }
+                fileExists = destination.exists();
+            }
+
             // add range header if necessary
-            if (fileExists && destination.length() > 0) {
+            if (!streaming && fileExists && destination.length() > 0) {
                 request.setSoFar(destination.length());
                 httpReq.addHeader("Range", "bytes=" + request.getSoFar() + "-");
                 Log.d(TAG, "Adding range header: " + request.getSoFar());
@@ -121,8 +150,8 @@ public class HttpDownloader extends Downloader {
             Log.d(TAG, "Response code is " + response.code());
 
             if (!response.isSuccessful() && response.code() == HttpURLConnection.HTTP_NOT_MODIFIED) {
-                Log.d(TAG, "Feed '" + request.getSource() + "' not modified since last update, Download canceled");
-                onCancelled();
+                Log.d(TAG, "Feed '" + request.getSource() + "' not modified since last update");
+                onNotModified();
                 return;
             }
 
@@ -146,6 +175,11 @@ public class HttpDownloader extends Downloader {
                 return;
             }
 
+            if (streaming) {
+                parseResponseBody(response, responseBody, isGzip);
+                return;
+            }
+
             if (!StorageUtils.storageAvailable()) {
                 onFail(DownloadError.ERROR_DEVICE_NOT_FOUND, null);
                 return;
@@ -193,6 +227,7 @@ public class HttpDownloader extends Downloader {
                     throw new IOException("Unable to recreate partially downloaded file");
                 }
                 out = new RandomAccessFile(destination, "rw");
+                request.setSoFar(0);
             }
 
             byte[] buffer = new byte[BUFFER_SIZE];
@@ -213,6 +248,16 @@ public class HttpDownloader extends Downloader {
                 return;
             }
 
+            if (request.getFeedfileType() == FeedMedia.FEEDFILETYPE_FEEDMEDIA && !isGzip
+                    && request.getSoFar() == 0 && SegmentedDownload.isSupported(response, responseBody)) {
+                SegmentedDownload segmentedDownload = new SegmentedDownload(this, httpClient,
+                        response.request(), destination);
+                if (segmentedDownload.start(response, responseBody, out)) {
+                    onSegmentedDownloadFinished();
+                    return;
+                }
+            }
+
             Log.d(TAG, "Starting download");
             try {
                 while (!cancelled && (count = connection.read(buffer)) != -1) {
@@ -220,6 +265,7 @@ public class HttpDownloader extends Downloader {
                     request.setSoFar(request.getSoFar() + count);
                     int progressPercent = (int) (100.0 * request.getSoFar() / request.getSize());
                     request.setProgressPercent(progressPercent);
+                    BandwidthLimiter.getInstance().onBytesRead(count);
                 }
             } catch (IOException e) {
                 Log.e(TAG, Log.getStackTraceString(e));
@@ -238,12 +284,7 @@ public class HttpDownloader extends Downloader {
                     onFail(DownloadError.ERROR_IO_ERROR, "Download completed, but nothing was read");
                     return;
                 }
-                String lastModified = response.header("Last-Modified");
-                if (lastModified != null) {
-                    request.setLastModified(lastModified);
-                } else {
-                    request.setLastModified(response.header("ETag"));
-                }
+                setLastModified(response);
                 onSuccess();
             }
 
@@ -278,6 +319,64 @@ public class HttpDownloader extends Downloader {
         }
     }
 
+    /**
+     * Parses the feed while the response body is downloaded, so it does not need to be written to a file
+     * and read again. The parser is kept for {@link #getFeedParserTask()}, also if parsing fails.
+     */
+    private void parseResponseBody(Response response, ResponseBody responseBody, boolean isGzip)
+            throws IOException {
+        request.setStatusMsg(R.string.download_running);
+        request.setSoFar(0);
+        request.setSize(responseBody.contentLength());
+        if (request.getSize() < 0) {
+            request.setSize(DownloadStatus.SIZE_UNKNOWN);
+        }
+        // The parser creates the feed with the last modified value of the request
+        setLastModified(response);
+
+        Log.d(TAG, "Starting download and parsing");
+        ProgressInputStream in = new ProgressInputStream(responseBody.byteStream());
+        FeedParserTask parser = new FeedParserTask(request, in);
+        parser.call();
+
+        if (cancelled) {
+            onCancelled();
+            return;
+        } else if (in.error != null) {
+            // The parser reports any exception as a parser error, but this one was caused by the connection
+            throw in.error;
+        } else if (parser.isSuccessful() && !isGzip && request.getSize() != DownloadStatus.SIZE_UNKNOWN
+                && request.getSoFar() != request.getSize()) {
+            onFail(DownloadError.ERROR_IO_WRONG_SIZE, "Download completed but size: "
+                    + request.getSoFar() + " does not equal expected size " + request.getSize());
+            return;
+        }
+        feedParserTask = parser;
+        onSuccess();
+    }
+
+    private void onSegmentedDownloadFinished() {
+        if (cancelled) {
+            onCancelled();
+        } else if (request.getSoFar() != request.getSize()) {
+            onFail(DownloadError.ERROR_IO_WRONG_SIZE, "Download completed but size: "
+                    + request.getSoFar() + " does not equal expected size " + request.getSize());
+        } else {
+            onSuccess();
+        }
+    }
+
+    private void setLastModified(Response response) {
+        request.setLastModified(response.header("Last-Modified"));
+        request.setEtag(response.header("ETag"));
+    }
+
+    @Nullable
+    @Override
+    public FeedParserTask getFeedParserTask() {
+        return feedParserTask;
+    }
+
     private void onSuccess() {
         Log.d(TAG, "Download was successful");
         result.setSuccessful();
@@ -292,6 +391,11 @@ public class HttpDownloader extends Downloader {
         }
     }
 
+    private void onNotModified() {
+        result.setNotModified();
+        cleanup();
+    }
+
     private void onCancelled() {
         Log.d(TAG, "Download was cancelled");
         result.setCancelled();
@@ -304,6 +408,8 @@ public class HttpDownloader extends Downloader {
     private void cleanup() {
         if (request.getDestination() != null) {
             File dest = new File(request.getDestination());
+            //noinspection ResultOfMethodCallIgnored
+            DownloadSegments.getProgressFile(dest).delete();
             if (dest.exists()) {
                 boolean rc = dest.delete();
                 Log.d(TAG, "Deleted file " + dest.getName() + "; Result: "
@@ -314,6 +420,48 @@ public class HttpDownloader extends Downloader {
         }
     }
 
+    /**
+     * Updates the progress of the request while the stream is read and stops reading when the download
+     * is cancelled. Remembers errors of the underlying stream, so they can be told apart from parser errors.
+     */
+    private class ProgressInputStream extends FilterInputStream {
+        @Nullable
+        IOException error = null;
+
+        ProgressInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int count = read(single, 0, 1);
+            return count == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(@NonNull byte[] buffer, int offset, int length) throws IOException {
+            if (cancelled) {
+                throw new IOException("Download cancelled");
+            }
+            int count;
+            try {
+                count = super.read(buffer, offset, length);
+            } catch (IOException e) {
+                error = e;
+                throw e;
+            }
+            if (count > 0) {
+                request.setSoFar(request.getSoFar() + count);
+                if (request.getSize() > 0) {
+                    request.setProgressPercent((int) (100.0 * request.getSoFar() / request.getSize()));
+                }
+                BandwidthLimiter.getInstance().onBytesRead(count);
+            }
+            return count;
+        }
+    }
+
     public static String encodeCredentials(String username, String password, String charset) {
         try {
             String credentials = username + ":" + password;
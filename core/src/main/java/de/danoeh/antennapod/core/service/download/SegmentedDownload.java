@@ -0,0 +1,356 @@
+package de.danoeh.antennapod.core.service.download;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import de.danoeh.antennapod.core.R;
+import de.danoeh.antennapod.core.service.download.DownloadSegments.Segment;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Downloads a large file over several connections at the same time, one for each part of the file.
+ * Some servers limit the speed of each connection, so this can be a lot faster than a single connection.
+ * The parts are written to their positions in the destination file, which is allocated up front.
+ * The progress of each part is saved next to the destination file, so interrupted downloads continue
+ * exactly where each part stopped. The additional connections count towards the limit per host of the
+ * {@link DownloadScheduler}, so there are only as many parts as connections to the host are free.
+ */
+class SegmentedDownload {
+    private static final String TAG = "SegmentedDownload";
+    static final int MAX_SEGMENTS = 4;
+    static final long MIN_SEGMENT_SIZE = 4 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long SAVE_INTERVAL_MILLIS = 1000;
+
+    private static final ThreadPoolExecutor segmentExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE,
+            60L, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+                Thread t = new Thread(r, "SegmentDownloadThread");
+                t.setPriority(Thread.MIN_PRIORITY);
+                return t;
+            });
+
+    private final Downloader downloader;
+    private final DownloadRequest request;
+    private final OkHttpClient httpClient;
+    private final Request baseRequest;
+    private final File destination;
+    private final File progressFile;
+
+    private DownloadSegments segments;
+    private FileChannel channel;
+    private volatile boolean failed = false;
+    private long lastSaved = 0;
+
+    SegmentedDownload(Downloader downloader, OkHttpClient httpClient, Request baseRequest, File destination) {
+        this.downloader = downloader;
+        this.request = downloader.request;
+        this.httpClient = httpClient;
+        this.baseRequest = baseRequest;
+        this.destination = destination;
+        this.progressFile = DownloadSegments.getProgressFile(destination);
+    }
+
+    /**
+     * @return true if the server announces support for range requests, and the file is large enough to be split
+     */
+    static boolean isSupported(@NonNull Response response, @NonNull ResponseBody body) {
+        return response.code() == HttpURLConnection.HTTP_OK
+                && "bytes".equalsIgnoreCase(response.header("Accept-Ranges"))
+                && body.contentLength() >= 2 * MIN_SEGMENT_SIZE
+                && getValidator(response) != null;
+    }
+
+    static boolean hasProgress(File destination) {
+        return DownloadSegments.getProgressFile(destination).exists();
+    }
+
+    /**
+     * Range requests can only be made sure to return parts of the same file with a strong validator.
+     */
+    @Nullable
+    private static String getValidator(Response response) {
+        String etag = response.header("ETag");
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return response.header("Last-Modified");
+    }
+
+    /**
+     * Downloads the file in parts. The first part is read from the response to the normal request.
+     *
+     * @param out An empty file to write to
+     * @return false if the server does not respond to range requests, or no more connections to the host are free.
+     *         Nothing was read or written then, so the response can still be downloaded as a single stream.
+     */
+    boolean start(Response response, ResponseBody body, RandomAccessFile out) throws IOException {
+        int connections = downloader.connectionLimit.acquire(MAX_SEGMENTS - 1);
+        if (connections == 0) {
+            Log.d(TAG, "No more connections to the host are free, using a single connection");
+            return false;
+        }
+        boolean started = false;
+        try {
+            long size = body.contentLength();
+            segments = DownloadSegments.split(size, getValidator(response), connections + 1, MIN_SEGMENT_SIZE);
+            List<Segment> parts = segments.getSegments();
+            Segment last = parts.get(parts.size() - 1);
+            Response lastResponse = requestSegment(last);
+            if (lastResponse == null) {
+                Log.d(TAG, "Server does not support range requests, using a single connection");
+                return false;
+            }
+            Log.d(TAG, "Downloading " + size + " bytes in " + parts.size() + " parts");
+            try {
+                segments.save(progressFile);
+                out.setLength(size);
+            } catch (IOException e) {
+                lastResponse.close();
+                throw e;
+            }
+            channel = out.getChannel();
+            started = true;
+            downloadSegments(parts.get(0), body.byteStream(), last, lastResponse, connections);
+            return true;
+        } finally {
+            if (!started) {
+                downloader.connectionLimit.release(connections);
+            }
+        }
+    }
+
+    /**
+     * Continues a download in parts that was interrupted.
+     *
+     * @return false if the download can not be continued, for example because the file changed on the server.
+     *         The partial download was deleted then.
+     */
+    boolean resume() throws IOException {
+        segments = DownloadSegments.load(progressFile);
+        if (segments == null || destination.length() != segments.getSize()) {
+            Log.d(TAG, "Unable to continue download in parts, starting again");
+            discard();
+            return false;
+        }
+        Segment first = null;
+        int unfinished = 0;
+        for (Segment segment : segments.getSegments()) {
+            if (segment.getRemaining() > 0) {
+                if (first == null) {
+                    first = segment;
+                }
+                unfinished++;
+            }
+        }
+        if (first == null) {
+            request.setSize(segments.getSize());
+            onProgress(null, 0);
+            //noinspection ResultOfMethodCallIgnored
+            progressFile.delete();
+            return true;
+        }
+        // Parts that do not get a connection of their own are read after another part
+        int connections = downloader.connectionLimit.acquire(unfinished - 1);
+        boolean started = false;
+        try {
+            Response firstResponse = requestSegment(first);
+            if (firstResponse == null) {
+                Log.d(TAG, "File changed on the server or range requests are no longer supported, starting again");
+                discard();
+                return false;
+            }
+            Log.d(TAG, "Continuing download in parts at " + segments.getBytesDone() + " of " + segments.getSize());
+            try (RandomAccessFile out = new RandomAccessFile(destination, "rw");
+                    Response response = firstResponse) {
+                channel = out.getChannel();
+                started = true;
+                downloadSegments(first, response.body().byteStream(), null, null, connections);
+            }
+            return true;
+        } finally {
+            if (!started) {
+                downloader.connectionLimit.release(connections);
+            }
+        }
+    }
+
+    private void discard() {
+        //noinspection ResultOfMethodCallIgnored
+        progressFile.delete();
+        //noinspection ResultOfMethodCallIgnored
+        destination.delete();
+    }
+
+    /**
+     * @return The response, or null if the server did not respond with the requested part of the same file
+     */
+    @Nullable
+    private Response requestSegment(Segment segment) throws IOException {
+        Request segmentRequest = baseRequest.newBuilder()
+                .header("Range", "bytes=" + segment.position + "-" + (segment.end - 1))
+                .header("If-Range", segments.getValidator())
+                .build();
+        Response response = httpClient.newCall(segmentRequest).execute();
+        String contentRange = response.header("Content-Range");
+        if (response.code() != HttpURLConnection.HTTP_PARTIAL || response.body() == null || contentRange == null
+                || !contentRange.startsWith("bytes " + segment.position + "-")) {
+            Log.d(TAG, "Unexpected response to range request: " + response.code() + " " + contentRange);
+            response.close();
+            return null;
+        }
+        return response;
+    }
+
+    /**
+     * Reads the given part on the current thread, and the other unfinished parts on one thread for each
+     * connection. If there are more parts than connections, threads read another part when they are done.
+     *
+     * @param other         A part that was already requested, or null
+     * @param otherResponse The response to the request of that part
+     * @param connections   The connections that were acquired for the other parts, which are released here
+     */
+    private void downloadSegments(Segment own, InputStream ownInput, @Nullable Segment other,
+                                  @Nullable Response otherResponse, int connections) throws IOException {
+        request.setStatusMsg(R.string.download_running);
+        request.setSize(segments.getSize());
+        onProgress(null, 0);
+
+        Queue<Segment> remaining = new ConcurrentLinkedQueue<>();
+        if (other != null) {
+            // First, so its response is read right away
+            remaining.add(other);
+        }
+        for (Segment segment : segments.getSegments()) {
+            if (segment != own && segment != other && segment.getRemaining() > 0) {
+                remaining.add(segment);
+            }
+        }
+        int threads = Math.min(connections, remaining.size());
+        downloader.connectionLimit.release(connections - threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(segmentExecutor.submit(() -> {
+                try {
+                    copyRemaining(remaining, other, otherResponse);
+                } finally {
+                    downloader.connectionLimit.release(1);
+                }
+                return null;
+            }));
+        }
+
+        IOException error = null;
+        try {
+            copy(ownInput, own);
+            // Frees the connection before the next part is requested
+            ownInput.close();
+            copyRemaining(remaining, other, otherResponse);
+        } catch (IOException e) {
+            failed = true;
+            error = e;
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (error == null) {
+                    error = e.getCause() instanceof IOException
+                            ? (IOException) e.getCause() : new IOException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                failed = true;
+                if (error == null) {
+                    error = new IOException(e);
+                }
+            }
+        }
+        if (other != null && remaining.remove(other)) {
+            // Not read because the download failed before
+            otherResponse.close();
+        }
+
+        synchronized (this) {
+            if (segments.isComplete()) {
+                //noinspection ResultOfMethodCallIgnored
+                progressFile.delete();
+            } else if (!downloader.cancelled) {
+                segments.save(progressFile);
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Reads parts from the queue until it is empty or the download stops.
+     */
+    private void copyRemaining(Queue<Segment> remaining, @Nullable Segment other,
+                               @Nullable Response otherResponse) throws IOException {
+        Segment segment;
+        while (!downloader.cancelled && !failed && (segment = remaining.poll()) != null) {
+            try (Response response = (segment == other) ? otherResponse : requestSegment(segment)) {
+                if (response == null) {
+                    throw new IOException("Range request failed for part at " + segment.start);
+                }
+                copy(response.body().byteStream(), segment);
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+    }
+
+    private void copy(InputStream in, Segment segment) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+        while (!downloader.cancelled && !failed && segment.getRemaining() > 0) {
+            int count = in.read(buffer, 0, (int) Math.min(buffer.length, segment.getRemaining()));
+            if (count == -1) {
+                throw new IOException("Part at " + segment.start + " ended after " + (segment.position - segment.start)
+                        + " of " + (segment.end - segment.start) + " bytes");
+            }
+            wrapped.clear();
+            wrapped.limit(count);
+            long position = segment.position;
+            while (wrapped.hasRemaining()) {
+                position += channel.write(wrapped, position);
+            }
+            onProgress(segment, count);
+            BandwidthLimiter.getInstance().onBytesRead(count);
+        }
+    }
+
+    private synchronized void onProgress(@Nullable Segment segment, int count) throws IOException {
+        long done = (segment != null) ? segments.advance(segment, count) : segments.getBytesDone();
+        request.setSoFar(done);
+        request.setProgressPercent((int) (100.0 * done / segments.getSize()));
+        long now = System.currentTimeMillis();
+        if (segment != null && now - lastSaved > SAVE_INTERVAL_MILLIS) {
+            lastSaved = now;
+            segments.save(progressFile);
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package de.danoeh.antennapod.core.service.download.handler;
 
 import android.util.Log;
+
+import androidx.annotation.Nullable;
+import de.danoeh.antennapod.core.storage.DBReader;
+import de.danoeh.antennapod.core.storage.DBWriter;
 import de.danoeh.antennapod.model.feed.Feed;
 import de.danoeh.antennapod.model.feed.FeedItem;
 import de.danoeh.antennapod.model.feed.FeedPreferences;
@@ -17,21 +21,44 @@ import org.xml.sax.SAXException;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 public class FeedParserTask implements Callable<FeedHandlerResult> {
     private static final String TAG = "FeedParserTask";
+    /**
+     * Number of consecutive known items after which the remaining items of a feed are not parsed.
+     */
+    static final int KNOWN_ITEMS_BEFORE_SKIPPING = 10;
+    /**
+     * Feeds are parsed completely at least this often, so that changes to older items are not missed forever.
+     */
+    static final long FULL_PARSE_INTERVAL = TimeUnit.DAYS.toMillis(7);
     private final DownloadRequest request;
+    @Nullable
+    private final InputStream feedStream;
     private DownloadStatus downloadStatus;
+    private FeedHandlerResult result;
     private boolean successful = true;
 
     public FeedParserTask(DownloadRequest request) {
+        this(request, null);
+    }
+
+    /**
+     * @param feedStream Stream to read the feed from, for example the body of the HTTP response.
+     *                   If null, the feed is read from the destination file of the request.
+     */
+    public FeedParserTask(DownloadRequest request, @Nullable InputStream feedStream) {
         this.request = request;
+        this.feedStream = feedStream;
     }
 
     @Override
     public FeedHandlerResult call() {
         Feed feed = new Feed(request.getSource(), request.getLastModified());
+        feed.setEtag(request.getEtag());
         feed.setFile_url(request.getDestination());
         feed.setId(request.getFeedfileId());
         feed.setDownloaded(true);
@@ -42,12 +69,23 @@ public class FeedParserTask implements Callable<FeedHandlerResult> {
         DownloadError reason = null;
         String reasonDetailed = null;
         FeedHandler feedHandler = new FeedHandler();
+        if (isIncrementalParseAllowed()) {
+            feedHandler.setKnownItems(DBReader.getItemIdentifyingValues(request.getFeedfileId()),
+                    KNOWN_ITEMS_BEFORE_SKIPPING);
+        }
 
         FeedHandlerResult result = null;
         try {
-            result = feedHandler.parseFeed(feed);
-            Log.d(TAG, feed.getTitle() + " parsed");
+            if (feedStream != null) {
+                result = feedHandler.parseFeed(feed, feedStream);
+            } else {
+                result = feedHandler.parseFeed(feed);
+            }
+            Log.d(TAG, feed.getTitle() + " parsed, skipped " + result.skippedItems + " known items");
             checkFeedData(feed);
+            if (result.skippedItems == 0 && request.getFeedfileId() != 0) {
+                DBWriter.setFeedLastFullParse(request.getFeedfileId(), System.currentTimeMillis());
+            }
         } catch (SAXException | IOException | ParserConfigurationException e) {
             successful = false;
             e.printStackTrace();
@@ -78,6 +116,7 @@ public class FeedParserTask implements Callable<FeedHandlerResult> {
         if (successful) {
             downloadStatus = new DownloadStatus(feed, feed.getHumanReadableIdentifier(), DownloadError.SUCCESS,
                                                 successful, reasonDetailed, request.isInitiatedByUser());
+            this.result = result;
             return result;
         } else {
             downloadStatus = new DownloadStatus(feed, feed.getTitle(), reason, successful,
@@ -86,6 +125,29 @@ public class FeedParserTask implements Callable<FeedHandlerResult> {
         }
     }
 
+    /**
+     * @return The result of {@link #call()}
+     */
+    @Nullable
+    public FeedHandlerResult getResult() {
+        return result;
+    }
+
+    /**
+     * Only feeds that are already in the database can be parsed incrementally, and only if all their items are
+     * not needed otherwise: The user expects a manual refresh to update every episode, and loading further
+     * pages needs the complete page.
+     */
+    private boolean isIncrementalParseAllowed() {
+        if (request.getFeedfileId() == 0 || request.isInitiatedByUser()
+                || request.getArguments().getInt(DownloadRequest.REQUEST_ARG_PAGE_NR, 0) != 0
+                || request.getArguments().getBoolean(DownloadRequest.REQUEST_ARG_LOAD_ALL_PAGES)) {
+            return false;
+        }
+        long lastFullParse = request.getArguments().getLong(DownloadRequest.REQUEST_ARG_LAST_FULL_PARSE, 0);
+        return System.currentTimeMillis() - lastFullParse < FULL_PARSE_INTERVAL;
+    }
+
     public boolean isSuccessful() {
         return successful;
     }
@@ -0,0 +1,245 @@
+package de.danoeh.antennapod.core.service.download.handler;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import de.danoeh.antennapod.core.service.download.DownloadStatus;
+import de.danoeh.antennapod.core.storage.DBTasks;
+import de.danoeh.antennapod.model.feed.Feed;
+
+/**
+ * Saves downloaded feeds, so that download threads do not have to wait for the database.
+ * <ol>
+ *     <li>Download threads parse their feeds while reading the response (see {@link FeedParserTask})
+ *     and hand them over with {@link #submit}.</li>
+ *     <li>A single thread merges the parsed feeds into the database. Feeds that are submitted while it is busy
+ *     are saved together, in one transaction.</li>
+ * </ol>
+ * The queue in front of the merge thread is bounded. If merging falls behind, download threads wait for it.
+ */
+public class FeedSyncPipeline {
+    private static final String TAG = "FeedSyncPipeline";
+    private static final int MERGE_QUEUE_SIZE = 16;
+    static final int MAX_MERGE_BATCH_SIZE = 8;
+
+    public interface Callback {
+        /**
+         * Called on the merge thread after the feed was saved, or after parsing or saving it failed.
+         * Feeds that are submitted after {@link #shutdown()} are handled on the submitting thread.
+         */
+        void onFeedSynced(@NonNull FeedSyncTask task, boolean success);
+    }
+
+    /**
+     * Saves a batch of parsed feeds, see {@link DBTasks#updateFeeds}.
+     */
+    interface FeedSaver {
+        /**
+         * @return The saved feeds, in the same order as the parsed feeds
+         */
+        List<Feed> save(List<Feed> feeds, List<DownloadStatus> downloadStatuses);
+    }
+
+    private static class Entry {
+        final FeedSyncTask task;
+        final Callback callback;
+        long queued;
+        boolean parsed;
+
+        Entry(FeedSyncTask task, Callback callback) {
+            this.task = task;
+            this.callback = callback;
+        }
+    }
+
+    private final FeedSaver feedSaver;
+    private final ThreadPoolExecutor mergeExecutor;
+    private final BlockingQueue<Entry> mergeQueue = new ArrayBlockingQueue<>(MERGE_QUEUE_SIZE);
+
+    private final StageTimer downloadTimer = new StageTimer("download");
+    private final StageTimer parseTimer = new StageTimer("parse");
+    private final StageTimer mergeWaitTimer = new StageTimer("wait for merge");
+    private final StageTimer mergeTimer = new StageTimer("merge batch");
+
+    public FeedSyncPipeline(Context context) {
+        // Known items might have been skipped while parsing, so items that are not listed must not be removed
+        this((feeds, downloadStatuses) -> DBTasks.updateFeeds(context, feeds, false, downloadStatuses));
+    }
+
+    FeedSyncPipeline(FeedSaver feedSaver) {
+        this.feedSaver = feedSaver;
+        mergeExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "FeedMergeThread");
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                }, (r, executor) -> {
+                    // The feed is already queued, so it is saved on the calling thread instead of being lost
+                    Log.w(TAG, "Merge rejected submission of new task, merging on calling thread");
+                    r.run();
+                });
+    }
+
+    /**
+     * Hands a downloaded feed over to the merge thread. Blocks while the merge queue is full.
+     * Feeds that were not parsed while they were downloaded are parsed from their file on the calling thread.
+     *
+     * @param downloadNanos Time that was needed to download the feed, only used for statistics
+     */
+    public void submit(FeedSyncTask task, long downloadNanos, Callback callback) {
+        downloadTimer.add(downloadNanos);
+        Entry entry = new Entry(task, callback);
+        long start = System.nanoTime();
+        try {
+            entry.parsed = task.parse();
+        } catch (Exception e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+        }
+        entry.queued = System.nanoTime();
+        parseTimer.add(entry.queued - start);
+
+        boolean interrupted = false;
+        while (true) {
+            try {
+                mergeQueue.put(entry);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        mergeExecutor.execute(this::mergeQueuedFeeds);
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Merges the feeds that are currently queued. Each queued feed schedules one call,
+     * so calls that find the queue empty are expected.
+     */
+    private void mergeQueuedFeeds() {
+        List<Entry> entries = new ArrayList<>();
+        mergeQueue.drainTo(entries, MAX_MERGE_BATCH_SIZE);
+        while (!entries.isEmpty()) {
+            // The same feed must not be saved twice in a batch, for example two pages of it
+            List<Entry> batch = new ArrayList<>();
+            Set<String> sources = new HashSet<>();
+            Iterator<Entry> iterator = entries.iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (sources.add(entry.task.getDownloadRequest().getSource())) {
+                    batch.add(entry);
+                    iterator.remove();
+                }
+            }
+            merge(batch);
+        }
+    }
+
+    private void merge(List<Entry> batch) {
+        List<Entry> parsed = new ArrayList<>();
+        List<Feed> feeds = new ArrayList<>();
+        List<DownloadStatus> downloadStatuses = new ArrayList<>();
+        long start = System.nanoTime();
+        for (Entry entry : batch) {
+            mergeWaitTimer.add(start - entry.queued);
+            if (entry.parsed) {
+                parsed.add(entry);
+                feeds.add(entry.task.getParsedFeed());
+                downloadStatuses.add(entry.task.getDownloadStatus());
+            } else {
+                runCallback(entry, false);
+            }
+        }
+        if (parsed.isEmpty()) {
+            return;
+        }
+
+        List<Feed> savedFeeds = null;
+        try {
+            savedFeeds = feedSaver.save(feeds, downloadStatuses);
+        } catch (Exception e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+        }
+        mergeTimer.add(System.nanoTime() - start);
+        Log.d(TAG, "Merged " + parsed.size() + " feeds in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+
+        for (int i = 0; i < parsed.size(); i++) {
+            Entry entry = parsed.get(i);
+            if (savedFeeds == null) {
+                runCallback(entry, false);
+                continue;
+            }
+            try {
+                entry.task.onSaved(savedFeeds.get(i));
+            } catch (Exception e) {
+                Log.e(TAG, Log.getStackTraceString(e));
+            }
+            runCallback(entry, true);
+        }
+    }
+
+    private static void runCallback(Entry entry, boolean success) {
+        try {
+            entry.callback.onFeedSynced(entry.task, success);
+        } catch (Exception e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+        }
+    }
+
+    /**
+     * Stops the merge thread after the feeds that were already submitted have been saved.
+     * Feeds that are submitted afterwards are saved on the submitting thread.
+     */
+    public void shutdown() {
+        Log.d(TAG, getStatistics());
+        mergeExecutor.shutdown();
+    }
+
+    /**
+     * @return The time spent in each stage so far
+     */
+    public String getStatistics() {
+        return "Feed sync stages: " + downloadTimer + ", " + parseTimer + ", " + mergeWaitTimer + ", " + mergeTimer;
+    }
+
+    private static class StageTimer {
+        private final String name;
+        private long count = 0;
+        private long totalNanos = 0;
+        private long maxNanos = 0;
+
+        StageTimer(String name) {
+            this.name = name;
+        }
+
+        synchronized void add(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        @NonNull
+        @Override
+        public synchronized String toString() {
+            double averageMs = count == 0 ? 0 : totalNanos / 1e6 / count;
+            return String.format(Locale.US, "%s %d times, average %.1f ms, max %d ms",
+                    name, count, averageMs, TimeUnit.NANOSECONDS.toMillis(maxNanos));
+        }
+    }
+}
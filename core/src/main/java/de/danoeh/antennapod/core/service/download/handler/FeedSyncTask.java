@@ -2,35 +2,67 @@ package de.danoeh.antennapod.core.service.download.handler;
 
 import android.content.Context;
 
+import androidx.annotation.Nullable;
+
 import de.danoeh.antennapod.core.util.FeedUtils;
 import de.danoeh.antennapod.model.feed.Feed;
 import de.danoeh.antennapod.core.service.download.DownloadRequest;
 import de.danoeh.antennapod.core.service.download.DownloadStatus;
-import de.danoeh.antennapod.core.storage.DBTasks;
 import de.danoeh.antennapod.parser.feed.FeedHandlerResult;
 
 public class FeedSyncTask {
     private static final String TAG = "FeedParserTask";
     private final DownloadRequest request;
     private final Context context;
+    @Nullable
+    private final FeedParserTask parsedFeed;
+    private FeedHandlerResult result;
     private DownloadStatus downloadStatus;
     private Feed savedFeed;
 
-    public FeedSyncTask(Context context, DownloadRequest request) {
+    /**
+     * @param parsedFeed The parser that already parsed the feed while it was downloaded,
+     *                   or null to parse the downloaded file.
+     */
+    public FeedSyncTask(Context context, DownloadRequest request, @Nullable FeedParserTask parsedFeed) {
         this.request = request;
         this.context = context;
+        this.parsedFeed = parsedFeed;
     }
 
-    public boolean run() {
-        FeedParserTask task = new FeedParserTask(request);
-        FeedHandlerResult result = task.call();
+    /**
+     * Parses the downloaded feed, or takes the result of the parser that already parsed it.
+     *
+     * @return true if the feed was parsed successfully
+     */
+    public boolean parse() {
+        FeedParserTask task;
+        if (parsedFeed != null) {
+            task = parsedFeed;
+            result = task.getResult();
+        } else {
+            task = new FeedParserTask(request);
+            result = task.call();
+        }
         downloadStatus = task.getDownloadStatus();
+        return task.isSuccessful();
+    }
 
-        if (!task.isSuccessful()) {
-            return false;
-        }
+    /**
+     * @return The parsed feed, or null if it has not been parsed successfully
+     */
+    @Nullable
+    public Feed getParsedFeed() {
+        return result != null ? result.feed : null;
+    }
 
-        savedFeed = DBTasks.updateFeed(context, result.feed, false);
+    /**
+     * Called after the parsed feed was saved.
+     *
+     * @param savedFeed The feed as it is stored in the database now
+     */
+    public void onSaved(Feed savedFeed) {
+        this.savedFeed = savedFeed;
         // If loadAllPages=true, check if another page is available and queue it for download
         final boolean loadAllPages = request.getArguments().getBoolean(DownloadRequest.REQUEST_ARG_LOAD_ALL_PAGES);
         final Feed feed = result.feed;
@@ -38,7 +70,10 @@ public class FeedSyncTask {
             feed.setId(savedFeed.getId());
             FeedUtils.loadNextPageOfFeed(context, feed, true);
         }
-        return true;
+    }
+
+    public DownloadRequest getDownloadRequest() {
+        return request;
     }
 
     public DownloadStatus getDownloadStatus() {
@@ -5,102 +5,106 @@ import android.media.MediaMetadataRetriever;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
-
-import org.greenrobot.eventbus.EventBus;
+import androidx.annotation.Nullable;
 
 import java.io.File;
-import java.util.concurrent.ExecutionException;
+import java.util.List;
 
-import de.danoeh.antennapod.event.UnreadItemsUpdateEvent;
 import de.danoeh.antennapod.core.service.download.DownloadRequest;
 import de.danoeh.antennapod.core.service.download.DownloadStatus;
 import de.danoeh.antennapod.core.storage.DBReader;
-import de.danoeh.antennapod.core.storage.DBWriter;
 import de.danoeh.antennapod.core.sync.queue.SynchronizationQueueSink;
 import de.danoeh.antennapod.core.util.ChapterUtils;
 import de.danoeh.antennapod.core.util.DownloadError;
+import de.danoeh.antennapod.model.feed.Chapter;
 import de.danoeh.antennapod.model.feed.FeedItem;
 import de.danoeh.antennapod.model.feed.FeedMedia;
 import de.danoeh.antennapod.net.sync.model.EpisodeAction;
 import de.danoeh.antennapod.net.sync.model.EpisodeActionBuilder;
 
 /**
- * Handles a completed media download.
+ * Handles a completed media download. The metadata of the file is read by {@link #readMetadata()},
+ * and then saved by a {@link MediaDownloadedPipeline}, together with other downloads that completed at the same time.
  */
-public class MediaDownloadedHandler implements Runnable {
+public class MediaDownloadedHandler {
     private static final String TAG = "MediaDownloadedHandler";
     private final DownloadRequest request;
-    private final DownloadStatus status;
     private final Context context;
     private DownloadStatus updatedStatus;
+    private FeedMedia media;
+    @Nullable
+    private List<Chapter> fileChapters;
+    private boolean broadcastUnreadStateUpdate;
 
     public MediaDownloadedHandler(@NonNull Context context, @NonNull DownloadStatus status,
                                   @NonNull DownloadRequest request) {
-        this.status = status;
         this.request = request;
         this.context = context;
+        this.updatedStatus = status;
     }
 
-    @Override
-    public void run() {
-        updatedStatus = status;
-        FeedMedia media = DBReader.getFeedMedia(request.getFeedfileId());
+    /**
+     * Reads the duration, embedded picture and chapters of the downloaded file. Does not write to the database.
+     *
+     * @return false if the media does not exist in the database anymore
+     */
+    public boolean readMetadata() {
+        media = DBReader.getFeedMedia(request.getFeedfileId());
         if (media == null) {
             Log.e(TAG, "Could not find downloaded media object in database");
-            return;
+            return false;
         }
         // media.setDownloaded modifies played state
-        boolean broadcastUnreadStateUpdate = media.getItem() != null && media.getItem().isNew();
+        broadcastUnreadStateUpdate = media.getItem() != null && media.getItem().isNew();
         media.setDownloaded(true);
         media.setFile_url(request.getDestination());
-        media.setSize(new File(request.getDestination()).length());
-        media.checkEmbeddedPicture(); // enforce check
+        File file = new File(request.getDestination());
+        media.setSize(file.length());
 
-        // check if file has chapters
-        if (media.getItem() != null && !media.getItem().hasChapters()) {
-            media.setChapters(ChapterUtils.loadChaptersFromMediaFile(media, context));
-        }
-
-        // Get duration
+        // One retriever reads both the duration and the embedded picture, so the file is only parsed once
         MediaMetadataRetriever mmr = new MediaMetadataRetriever();
         String durationStr = null;
         try {
             mmr.setDataSource(media.getFile_url());
+            media.setHasEmbeddedPicture(mmr.getEmbeddedPicture() != null);
             durationStr = mmr.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION);
             media.setDuration(Integer.parseInt(durationStr));
             Log.d(TAG, "Duration of file is " + media.getDuration());
         } catch (NumberFormatException e) {
             Log.d(TAG, "Invalid file duration: " + durationStr);
         } catch (Exception e) {
-            Log.e(TAG, "Get duration failed", e);
+            Log.e(TAG, "Reading metadata failed", e);
+            media.setHasEmbeddedPicture(false);
         } finally {
             mmr.release();
         }
 
-        final FeedItem item = media.getItem();
-
-        try {
-            DBWriter.setFeedMedia(media).get();
-
-            // we've received the media, we don't want to autodownload it again
-            if (item != null) {
-                item.disableAutoDownload();
-                // setFeedItem() signals (via EventBus) that the item has been updated,
-                // so we do it after the enclosing media has been updated above,
-                // to ensure subscribers will get the updated FeedMedia as well
-                DBWriter.setFeedItem(item).get();
-                if (broadcastUnreadStateUpdate) {
-                    EventBus.getDefault().post(new UnreadItemsUpdateEvent());
-                }
+        // Chapters of the file are stored, so that they do not have to be read again for playback
+        if (media.getItem() != null) {
+            long lastModified = file.lastModified();
+            fileChapters = ChapterUtils.loadChaptersFromMediaFile(media, context);
+            media.setChaptersFileFingerprint(media.getSize(), lastModified);
+            if (!media.getItem().hasChapters()) {
+                media.setChapters(fileChapters);
             }
-        } catch (InterruptedException e) {
-            Log.e(TAG, "MediaHandlerThread was interrupted");
-        } catch (ExecutionException e) {
-            Log.e(TAG, "ExecutionException in MediaHandlerThread: " + e.getMessage());
-            updatedStatus = new DownloadStatus(media, media.getEpisodeTitle(),
-                    DownloadError.ERROR_DB_ACCESS_ERROR, false, e.getMessage(), request.isInitiatedByUser());
+            // we've received the media, we don't want to autodownload it again
+            media.getItem().disableAutoDownload();
         }
+        return true;
+    }
 
+    /**
+     * Called after the media was saved, or saving it failed.
+     *
+     * @param error The reason saving failed, or null if it was saved
+     */
+    void onSaved(@Nullable String error) {
+        if (error != null) {
+            updatedStatus = new DownloadStatus(media, media.getEpisodeTitle(),
+                    DownloadError.ERROR_DB_ACCESS_ERROR, false, error, request.isInitiatedByUser());
+            return;
+        }
+        FeedItem item = media.getItem();
         if (item != null) {
             EpisodeAction action = new EpisodeActionBuilder.Builder(item, EpisodeAction.DOWNLOAD)
                     .currentTimestamp()
@@ -109,6 +113,22 @@ public class MediaDownloadedHandler implements Runnable {
         }
     }
 
+    FeedMedia getMedia() {
+        return media;
+    }
+
+    /**
+     * @return The chapters that were read from the file, or null if it has none
+     */
+    @Nullable
+    List<Chapter> getFileChapters() {
+        return fileChapters;
+    }
+
+    boolean isBroadcastUnreadStateUpdate() {
+        return broadcastUnreadStateUpdate;
+    }
+
     public DownloadStatus getUpdatedStatus() {
         return updatedStatus;
     }
@@ -0,0 +1,120 @@
+package de.danoeh.antennapod.core.service.download.handler;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import org.greenrobot.eventbus.EventBus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import de.danoeh.antennapod.core.storage.DBWriter;
+import de.danoeh.antennapod.event.UnreadItemsUpdateEvent;
+import de.danoeh.antennapod.model.feed.Chapter;
+import de.danoeh.antennapod.model.feed.FeedMedia;
+
+/**
+ * Saves completed media downloads. Download threads read the metadata of their files with
+ * {@link MediaDownloadedHandler#readMetadata()} and hand them over with {@link #submit}.
+ * A single thread saves them. Downloads that complete while it is busy are saved together,
+ * in one transaction and with one event.
+ */
+public class MediaDownloadedPipeline {
+    private static final String TAG = "MediaDownloadedPipeline";
+    static final int MAX_BATCH_SIZE = 16;
+
+    public interface Callback {
+        /**
+         * Called on the save thread after the media was saved, or after saving it failed.
+         * See {@link MediaDownloadedHandler#getUpdatedStatus()}.
+         */
+        void onMediaSaved(@NonNull MediaDownloadedHandler handler);
+    }
+
+    private static class Entry {
+        final MediaDownloadedHandler handler;
+        final Callback callback;
+
+        Entry(MediaDownloadedHandler handler, Callback callback) {
+            this.handler = handler;
+            this.callback = callback;
+        }
+    }
+
+    private final LinkedBlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final ThreadPoolExecutor saveExecutor;
+
+    public MediaDownloadedPipeline() {
+        saveExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "MediaSaveThread");
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                }, (r, executor) -> Log.w(TAG, "Save rejected submission of new task"));
+    }
+
+    /**
+     * @param handler A handler that has read the metadata of its file
+     */
+    public void submit(MediaDownloadedHandler handler, Callback callback) {
+        queue.add(new Entry(handler, callback));
+        saveExecutor.execute(this::saveQueuedMedia);
+    }
+
+    /**
+     * Saves the media that is currently queued. Each queued media schedules one call,
+     * so calls that find the queue empty are expected.
+     */
+    private void saveQueuedMedia() {
+        List<Entry> batch = new ArrayList<>();
+        queue.drainTo(batch, MAX_BATCH_SIZE);
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<FeedMedia> media = new ArrayList<>();
+        List<List<Chapter>> fileChapters = new ArrayList<>();
+        boolean broadcastUnreadStateUpdate = false;
+        for (Entry entry : batch) {
+            media.add(entry.handler.getMedia());
+            fileChapters.add(entry.handler.getFileChapters());
+            broadcastUnreadStateUpdate |= entry.handler.isBroadcastUnreadStateUpdate();
+        }
+
+        String error = null;
+        long start = System.nanoTime();
+        try {
+            DBWriter.setDownloadedMedia(media, fileChapters).get();
+            Log.d(TAG, "Saved " + batch.size() + " downloaded media in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+            if (broadcastUnreadStateUpdate) {
+                EventBus.getDefault().post(new UnreadItemsUpdateEvent());
+            }
+        } catch (InterruptedException e) {
+            Log.e(TAG, "MediaSaveThread was interrupted");
+        } catch (ExecutionException e) {
+            Log.e(TAG, "ExecutionException in MediaSaveThread: " + e.getMessage());
+            error = e.getMessage();
+        }
+
+        for (Entry entry : batch) {
+            try {
+                entry.handler.onSaved(error);
+                entry.callback.onMediaSaved(entry.handler);
+            } catch (Exception e) {
+                Log.e(TAG, Log.getStackTraceString(e));
+            }
+        }
+    }
+
+    /**
+     * Stops accepting media. Media that was already submitted is still saved.
+     */
+    public void shutdown() {
+        saveExecutor.shutdown();
+    }
+}
@@ -1,6 +1,8 @@
 package de.danoeh.antennapod.core.service.download.handler;
 
 import de.danoeh.antennapod.core.event.DownloadEvent;
+import de.danoeh.antennapod.core.service.download.BandwidthLimiter;
+import de.danoeh.antennapod.core.service.download.DownloadScheduler;
 import de.danoeh.antennapod.core.service.download.Downloader;
 import org.greenrobot.eventbus.EventBus;
 
@@ -10,9 +12,14 @@ import java.util.List;
 
 public class PostDownloaderTask implements Runnable {
     private List<Downloader> downloads;
+    private DownloadScheduler scheduler;
 
-    public PostDownloaderTask(List<Downloader> downloads) {
+    /**
+     * @param scheduler Used to tell how many downloads are queued
+     */
+    public PostDownloaderTask(List<Downloader> downloads, DownloadScheduler scheduler) {
         this.downloads = downloads;
+        this.scheduler = scheduler;
     }
 
     @Override
@@ -24,6 +31,7 @@ public class PostDownloaderTask implements Runnable {
             }
         }
         List<Downloader> list = Collections.unmodifiableList(runningDownloads);
-        EventBus.getDefault().postSticky(DownloadEvent.refresh(list));
+        long bytesPerSecond = BandwidthLimiter.getInstance().getThroughput();
+        EventBus.getDefault().postSticky(DownloadEvent.refresh(list, scheduler.getQueueDepth(), bytesPerSecond));
     }
 }
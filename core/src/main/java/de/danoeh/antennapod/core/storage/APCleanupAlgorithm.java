@@ -14,7 +14,6 @@ import java.util.Locale;
 import java.util.concurrent.ExecutionException;
 
 import de.danoeh.antennapod.model.feed.FeedItem;
-import de.danoeh.antennapod.model.feed.FeedMedia;
 
 /**
  * Implementation of the EpisodeCleanupAlgorithm interface used by AntennaPod.
@@ -35,26 +34,17 @@ public class APCleanupAlgorithm extends EpisodeCleanupAlgorithm {
      */
     public int getReclaimableItems()
     {
-        return getCandidates().size();
+        return getCandidates(DBReader.getDownloadedEpisodeStates()).size();
     }
 
     @Override
     public int performCleanup(Context context, int numberOfEpisodesToDelete) {
-        List<FeedItem> candidates = getCandidates();
-        List<FeedItem> delete;
+        EpisodeStateList episodes = DBReader.getDownloadedEpisodeStates();
+        List<Integer> candidates = getCandidates(episodes);
+        List<Integer> delete;
 
-        Collections.sort(candidates, (lhs, rhs) -> {
-            Date l = lhs.getMedia().getPlaybackCompletionDate();
-            Date r = rhs.getMedia().getPlaybackCompletionDate();
-
-            if (l == null) {
-                l = new Date();
-            }
-            if (r == null) {
-                r = new Date();
-            }
-            return l.compareTo(r);
-        });
+        Collections.sort(candidates, (lhs, rhs) -> Long.compare(
+                episodes.getPlaybackCompletionDate(lhs), episodes.getPlaybackCompletionDate(rhs)));
 
         if (candidates.size() > numberOfEpisodesToDelete) {
             delete = candidates.subList(0, numberOfEpisodesToDelete);
@@ -62,9 +52,9 @@ public class APCleanupAlgorithm extends EpisodeCleanupAlgorithm {
             delete = candidates;
         }
 
-        for (FeedItem item : delete) {
+        for (int index : delete) {
             try {
-                DBWriter.deleteFeedMediaOfItem(context, item.getMedia().getId()).get();
+                DBWriter.deleteFeedMediaOfItem(context, episodes.getMediaId(index)).get();
             } catch (InterruptedException | ExecutionException e) {
                 e.printStackTrace();
             }
@@ -85,25 +75,23 @@ public class APCleanupAlgorithm extends EpisodeCleanupAlgorithm {
         return minusHours(currentDate, numberOfHoursAfterPlayback);
     }
 
+    /**
+     * @return The indices of the episodes that can be deleted
+     */
     @NonNull
-    private List<FeedItem> getCandidates() {
-        List<FeedItem> candidates = new ArrayList<>();
-        List<FeedItem> downloadedItems = DBReader.getDownloadedItems();
-
-        Date mostRecentDateForDeletion = calcMostRecentDateForDeletion(new Date());
-        for (FeedItem item : downloadedItems) {
-            if (item.hasMedia()
-                    && item.getMedia().isDownloaded()
-                    && !item.isTagged(FeedItem.TAG_QUEUE)
-                    && item.isPlayed()
-                    && !item.isTagged(FeedItem.TAG_FAVORITE)) {
-                FeedMedia media = item.getMedia();
+    private List<Integer> getCandidates(EpisodeStateList episodes) {
+        List<Integer> candidates = new ArrayList<>();
+        long mostRecentDateForDeletion = calcMostRecentDateForDeletion(new Date()).getTime();
+        for (int i = 0; i < episodes.size(); i++) {
+            if (episodes.isDownloaded(i)
+                    && !episodes.isInQueue(i)
+                    && episodes.getState(i) == FeedItem.PLAYED
+                    && !episodes.isFavorite(i)) {
                 // make sure this candidate was played at least the proper amount of days prior
                 // to now
-                if (media != null
-                        && media.getPlaybackCompletionDate() != null
-                        && media.getPlaybackCompletionDate().before(mostRecentDateForDeletion)) {
-                    candidates.add(item);
+                long playbackCompletionDate = episodes.getPlaybackCompletionDate(i);
+                if (playbackCompletionDate > 0 && playbackCompletionDate < mostRecentDateForDeletion) {
+                    candidates.add(i);
                 }
             }
         }
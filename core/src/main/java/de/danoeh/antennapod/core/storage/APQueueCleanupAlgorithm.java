@@ -6,13 +6,10 @@ import android.util.Log;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.ExecutionException;
 
-import de.danoeh.antennapod.model.feed.FeedItem;
-
 /**
  * A cleanup algorithm that removes any item that isn't in the queue and isn't a favorite
  * but only if space is needed.
@@ -26,27 +23,17 @@ public class APQueueCleanupAlgorithm extends EpisodeCleanupAlgorithm {
      */
     public int getReclaimableItems()
     {
-        return getCandidates().size();
+        return getCandidates(DBReader.getDownloadedEpisodeStates()).size();
     }
 
     @Override
     public int performCleanup(Context context, int numberOfEpisodesToDelete) {
-        List<FeedItem> candidates = getCandidates();
-        List<FeedItem> delete;
+        EpisodeStateList episodes = DBReader.getDownloadedEpisodeStates();
+        List<Integer> candidates = getCandidates(episodes);
+        List<Integer> delete;
 
         // in the absence of better data, we'll sort by item publication date
-        Collections.sort(candidates, (lhs, rhs) -> {
-            Date l = lhs.getPubDate();
-            Date r = rhs.getPubDate();
-
-            if (l == null) {
-                l = new Date();
-            }
-            if (r == null) {
-                r = new Date();
-            }
-            return l.compareTo(r);
-        });
+        Collections.sort(candidates, (lhs, rhs) -> Long.compare(episodes.getPubDate(lhs), episodes.getPubDate(rhs)));
 
         if (candidates.size() > numberOfEpisodesToDelete) {
             delete = candidates.subList(0, numberOfEpisodesToDelete);
@@ -54,9 +41,9 @@ public class APQueueCleanupAlgorithm extends EpisodeCleanupAlgorithm {
             delete = candidates;
         }
 
-        for (FeedItem item : delete) {
+        for (int index : delete) {
             try {
-                DBWriter.deleteFeedMediaOfItem(context, item.getMedia().getId()).get();
+                DBWriter.deleteFeedMediaOfItem(context, episodes.getMediaId(index)).get();
             } catch (InterruptedException | ExecutionException e) {
                 e.printStackTrace();
             }
@@ -72,16 +59,17 @@ public class APQueueCleanupAlgorithm extends EpisodeCleanupAlgorithm {
         return counter;
     }
 
+    /**
+     * @return The indices of the episodes that can be deleted
+     */
     @NonNull
-    private List<FeedItem> getCandidates() {
-        List<FeedItem> candidates = new ArrayList<>();
-        List<FeedItem> downloadedItems = DBReader.getDownloadedItems();
-        for (FeedItem item : downloadedItems) {
-            if (item.hasMedia()
-                    && item.getMedia().isDownloaded()
-                    && !item.isTagged(FeedItem.TAG_QUEUE)
-                    && !item.isTagged(FeedItem.TAG_FAVORITE)) {
-                candidates.add(item);
+    private List<Integer> getCandidates(EpisodeStateList episodes) {
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < episodes.size(); i++) {
+            if (episodes.isDownloaded(i)
+                    && !episodes.isInQueue(i)
+                    && !episodes.isFavorite(i)) {
+                candidates.add(i);
             }
         }
         return candidates;
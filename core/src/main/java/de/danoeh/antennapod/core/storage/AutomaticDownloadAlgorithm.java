@@ -4,16 +4,19 @@ import android.content.Context;
 import android.util.Log;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import de.danoeh.antennapod.core.service.download.DownloadRequest;
 import de.danoeh.antennapod.core.service.download.DownloadRequestCreator;
 import de.danoeh.antennapod.core.service.download.DownloadService;
+import de.danoeh.antennapod.model.feed.Feed;
+import de.danoeh.antennapod.model.feed.FeedFilter;
 import de.danoeh.antennapod.model.feed.FeedItem;
-import de.danoeh.antennapod.model.feed.FeedPreferences;
 import de.danoeh.antennapod.core.preferences.UserPreferences;
 import de.danoeh.antennapod.core.util.FeedItemUtil;
+import de.danoeh.antennapod.core.util.LongList;
 import de.danoeh.antennapod.core.util.NetworkUtils;
 import de.danoeh.antennapod.core.util.PowerUtils;
 
@@ -50,28 +53,34 @@ public class AutomaticDownloadAlgorithm {
 
                 Log.d(TAG, "Performing auto-dl of undownloaded episodes");
 
-                List<FeedItem> candidates;
-                final List<FeedItem> queue = DBReader.getQueue();
-                final List<FeedItem> newItems = DBReader.getNewItemsList(0, Integer.MAX_VALUE);
-                candidates = new ArrayList<>(queue.size() + newItems.size());
-                candidates.addAll(queue);
-                for (FeedItem newItem : newItems) {
-                    FeedPreferences feedPrefs = newItem.getFeed().getPreferences();
-                    if (feedPrefs.getAutoDownload()
-                            && !candidates.contains(newItem)
-                            && feedPrefs.getFilter().shouldAutoDownload(newItem)) {
-                        candidates.add(newItem);
+                Map<Long, Feed> feeds = new HashMap<>();
+                for (Feed feed : DBReader.getFeedList()) {
+                    feeds.put(feed.getId(), feed);
+                }
+                long now = System.currentTimeMillis();
+                LongList candidates = new LongList();
+                EpisodeStateList queue = DBReader.getQueueEpisodeStates();
+                for (int i = 0; i < queue.size(); i++) {
+                    if (isAutoDownloadable(queue, i, feeds.get(queue.getFeedId(i)), now)) {
+                        candidates.add(queue.getItemId(i));
                     }
                 }
-
-                // filter items that are not auto downloadable
-                Iterator<FeedItem> it = candidates.iterator();
-                while (it.hasNext()) {
-                    FeedItem item = it.next();
-                    if (!item.isAutoDownloadable(System.currentTimeMillis()) || FeedItemUtil.isPlaying(item.getMedia())
-                            || item.getFeed().isLocalFeed()) {
-                        it.remove();
+                EpisodeStateList newItems = DBReader.getNewEpisodeStates();
+                for (int i = 0; i < newItems.size(); i++) {
+                    Feed feed = feeds.get(newItems.getFeedId(i));
+                    if (feed == null || !feed.getPreferences().getAutoDownload()
+                            || candidates.contains(newItems.getItemId(i))
+                            || !isAutoDownloadable(newItems, i, feed, now)) {
+                        continue;
                     }
+                    if (hasFilter(feed.getPreferences().getFilter())) {
+                        // The filter needs the title, so it is checked after loading the full item
+                        FeedItem item = DBReader.getFeedItem(newItems.getItemId(i));
+                        if (item == null || !feed.getPreferences().getFilter().shouldAutoDownload(item)) {
+                            continue;
+                        }
+                    }
+                    candidates.add(newItems.getItemId(i));
                 }
 
                 int autoDownloadableEpisodes = candidates.size();
@@ -89,7 +98,11 @@ public class AutomaticDownloadAlgorithm {
                     episodeSpaceLeft = episodeCacheSize - (downloadedEpisodes - deletedEpisodes);
                 }
 
-                List<FeedItem> itemsToDownload = candidates.subList(0, episodeSpaceLeft);
+                LongList idsToDownload = new LongList(Math.max(0, episodeSpaceLeft));
+                for (int i = 0; i < episodeSpaceLeft; i++) {
+                    idsToDownload.add(candidates.get(i));
+                }
+                List<FeedItem> itemsToDownload = DBReader.getFeedItemsById(idsToDownload);
                 if (itemsToDownload.size() > 0) {
                     Log.d(TAG, "Enqueueing " + itemsToDownload.size() + " items for download");
 
@@ -104,4 +117,15 @@ public class AutomaticDownloadAlgorithm {
             }
         };
     }
+
+    private static boolean isAutoDownloadable(EpisodeStateList episodes, int index, Feed feed, long now) {
+        return feed != null
+                && !feed.isLocalFeed()
+                && episodes.isAutoDownloadable(index, now)
+                && !FeedItemUtil.isPlaying(episodes.getMediaId(index));
+    }
+
+    private static boolean hasFilter(FeedFilter filter) {
+        return filter.hasIncludeFilter() || filter.hasExcludeFilter() || filter.hasMinimalDurationFilter();
+    }
 }
@@ -3,17 +3,17 @@ package de.danoeh.antennapod.core.storage;
 import android.database.Cursor;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.collection.ArrayMap;
 import android.text.TextUtils;
 import android.util.Log;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import de.danoeh.antennapod.model.feed.Chapter;
 import de.danoeh.antennapod.model.feed.Feed;
@@ -29,8 +29,10 @@ import de.danoeh.antennapod.core.storage.mapper.FeedCursorMapper;
 import de.danoeh.antennapod.core.storage.mapper.FeedItemCursorMapper;
 import de.danoeh.antennapod.core.storage.mapper.FeedMediaCursorMapper;
 import de.danoeh.antennapod.core.storage.mapper.FeedPreferencesCursorMapper;
+import de.danoeh.antennapod.core.util.LongHashSet;
 import de.danoeh.antennapod.core.util.LongIntMap;
 import de.danoeh.antennapod.core.util.LongList;
+import de.danoeh.antennapod.core.util.LongObjectMap;
 import de.danoeh.antennapod.core.util.comparator.DownloadStatusComparator;
 import de.danoeh.antennapod.core.util.comparator.FeedItemPubdateComparator;
 import de.danoeh.antennapod.core.util.comparator.PlaybackCompletionDateComparator;
@@ -120,8 +122,16 @@ public final class DBReader {
     }
 
     private static void loadTagsOfFeedItemList(List<FeedItem> items) {
-        LongList favoriteIds = getFavoriteIDList();
-        LongList queueIds = getQueueIDList();
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        LongHashSet favoriteIds;
+        LongHashSet queueIds;
+        try {
+            favoriteIds = getIDSet(adapter.getFavoriteIDCursor());
+            queueIds = getIDSet(adapter.getQueueIDCursor());
+        } finally {
+            adapter.close();
+        }
 
         for (FeedItem item : items) {
             if (favoriteIds.contains(item.getId())) {
@@ -141,12 +151,7 @@ public final class DBReader {
      * @param items The FeedItems whose Feed-objects should be loaded.
      */
     private static void loadFeedDataOfFeedItemList(List<FeedItem> items) {
-        List<Feed> feeds = getFeedList();
-
-        Map<Long, Feed> feedIndex = new ArrayMap<>(feeds.size());
-        for (Feed feed : feeds) {
-            feedIndex.put(feed.getId(), feed);
-        }
+        LongObjectMap<Feed> feedIndex = FeedIndexCache.getFeedIndex();
         for (FeedItem item : items) {
             Feed feed = feedIndex.get(item.getFeedId());
             if (feed == null) {
@@ -297,6 +302,116 @@ public final class DBReader {
         }
     }
 
+    /**
+     * Loads the states of the episodes whose media has been downloaded. This method should be preferred over
+     * {@link #getDownloadedItems()} if only the ids and states of the episodes are needed.
+     */
+    @NonNull
+    public static EpisodeStateList getDownloadedEpisodeStates() {
+        Log.d(TAG, "getDownloadedEpisodeStates() called");
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getDownloadedEpisodeStatesCursor()) {
+            return EpisodeStateList.fromCursor(cursor);
+        } finally {
+            adapter.close();
+        }
+    }
+
+    /**
+     * Loads the states of the episodes in the queue, sorted by the same order as the queue.
+     */
+    @NonNull
+    public static EpisodeStateList getQueueEpisodeStates() {
+        Log.d(TAG, "getQueueEpisodeStates() called");
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getQueueEpisodeStatesCursor()) {
+            return EpisodeStateList.fromCursor(cursor);
+        } finally {
+            adapter.close();
+        }
+    }
+
+    /**
+     * Loads the states of all new episodes, sorted by the same order as {@link #getNewItemsList(int, int)}.
+     */
+    @NonNull
+    public static EpisodeStateList getNewEpisodeStates() {
+        Log.d(TAG, "getNewEpisodeStates() called");
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getNewEpisodeStatesCursor()) {
+            return EpisodeStateList.fromCursor(cursor);
+        } finally {
+            adapter.close();
+        }
+    }
+
+    /**
+     * Loads the FeedItems with the given ids, including their feeds and tags.
+     *
+     * @return The FeedItems in the order of the ids. Ids that do not exist are skipped.
+     */
+    @NonNull
+    public static List<FeedItem> getFeedItemsById(LongList itemIds) {
+        Log.d(TAG, "getFeedItemsById() called with " + itemIds.size() + " ids");
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try {
+            Map<Long, FeedItem> itemsById = new HashMap<>(itemIds.size());
+            for (int start = 0; start < itemIds.size(); start += PodDBAdapter.IN_OPERATOR_MAXIMUM) {
+                int end = Math.min(itemIds.size(), start + PodDBAdapter.IN_OPERATOR_MAXIMUM);
+                String[] ids = new String[end - start];
+                for (int i = start; i < end; i++) {
+                    ids[i - start] = Long.toString(itemIds.get(i));
+                }
+                try (Cursor cursor = adapter.getFeedItemCursor(ids)) {
+                    for (FeedItem item : extractItemlistFromCursor(adapter, cursor)) {
+                        itemsById.put(item.getId(), item);
+                    }
+                }
+            }
+            List<FeedItem> items = new ArrayList<>(itemsById.size());
+            for (int i = 0; i < itemIds.size(); i++) {
+                FeedItem item = itemsById.get(itemIds.get(i));
+                if (item != null) {
+                    items.add(item);
+                }
+            }
+            loadAdditionalFeedItemListData(items);
+            return items;
+        } finally {
+            adapter.close();
+        }
+    }
+
+    /**
+     * Loads the identifying values of the items of a feed, see {@link FeedItem#getIdentifyingValue()},
+     * without loading the items themselves.
+     */
+    @NonNull
+    public static Set<String> getItemIdentifyingValues(long feedId) {
+        Log.d(TAG, "getItemIdentifyingValues() called with: feedId = [" + feedId + "]");
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getItemIdentifyingValuesCursor(feedId)) {
+            Set<String> values = new HashSet<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                String value = null;
+                for (int column = 0; column < cursor.getColumnCount() && TextUtils.isEmpty(value); column++) {
+                    value = cursor.getString(column);
+                }
+                if (value != null) {
+                    values.add(value);
+                }
+            }
+            return values;
+        } finally {
+            adapter.close();
+        }
+    }
+
     /**
      * Loads a list of FeedItems whose episode has been played.
      *
@@ -339,6 +454,28 @@ public final class DBReader {
         }
     }
 
+    /**
+     * Loads a page of the new items list. Pages are found by their position, so loading
+     * a page deep in the list is as fast as loading the first one.
+     *
+     * @param after The last item of the previous page, or null to load the first page.
+     * @param limit The maximum number of episodes that should be loaded.
+     */
+    @NonNull
+    public static List<FeedItem> getNewItemsList(@Nullable FeedItem after, int limit) {
+        Log.d(TAG, "getNewItemsList() called with: after=" + (after != null ? after.getId() : 0));
+
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getNewItemsCursor(after, limit)) {
+            List<FeedItem> items = extractItemlistFromCursor(adapter, cursor);
+            loadAdditionalFeedItemListData(items);
+            return items;
+        } finally {
+            adapter.close();
+        }
+    }
+
     /**
      * Loads a list of favorite items.
      *
@@ -360,19 +497,40 @@ public final class DBReader {
         }
     }
 
-    private static LongList getFavoriteIDList() {
-        Log.d(TAG, "getFavoriteIDList() called");
+    /**
+     * Loads a page of the favorite items. Pages are found by their position, so loading
+     * a page deep in the list is as fast as loading the first one.
+     *
+     * @param after The last item of the previous page, or null to load the first page.
+     * @param limit The maximum number of episodes that should be loaded.
+     */
+    @NonNull
+    public static List<FeedItem> getFavoriteItemsList(@Nullable FeedItem after, int limit) {
+        Log.d(TAG, "getFavoriteItemsList() called with: after=" + (after != null ? after.getId() : 0));
 
         PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
-        try (Cursor cursor = adapter.getFavoritesCursor(0, Integer.MAX_VALUE)) {
-            LongList favoriteIDs = new LongList(cursor.getCount());
+        try (Cursor cursor = adapter.getFavoritesCursor(after, limit)) {
+            List<FeedItem> items = extractItemlistFromCursor(adapter, cursor);
+            loadAdditionalFeedItemListData(items);
+            return items;
+        } finally {
+            adapter.close();
+        }
+    }
+
+    /**
+     * Reads the ids in the first column of the cursor and closes it.
+     */
+    private static LongHashSet getIDSet(Cursor cursor) {
+        try {
+            LongHashSet ids = new LongHashSet(cursor.getCount());
             while (cursor.moveToNext()) {
-                favoriteIDs.add(cursor.getLong(0));
+                ids.add(cursor.getLong(0));
             }
-            return favoriteIDs;
+            return ids;
         } finally {
-            adapter.close();
+            cursor.close();
         }
     }
 
@@ -398,6 +556,32 @@ public final class DBReader {
         }
     }
 
+    /**
+     * Loads a page of the episodes sorted by their publication date in descending order.
+     * Pages are found by their position, so loading a page deep in the list is as fast
+     * as loading the first one.
+     *
+     * @param after The last item of the previous page, or null to load the first page.
+     * @param limit The maximum number of episodes that should be loaded.
+     * @param filter The filter describing which episodes to filter out.
+     */
+    @NonNull
+    public static List<FeedItem> getRecentlyPublishedEpisodes(@Nullable FeedItem after, int limit,
+                                                              FeedItemFilter filter) {
+        Log.d(TAG, "getRecentlyPublishedEpisodes() called with: after="
+                + (after != null ? after.getId() : 0) + ", limit=" + limit);
+
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getRecentlyPublishedItemsCursor(after, limit, filter)) {
+            List<FeedItem> items = extractItemlistFromCursor(adapter, cursor);
+            loadAdditionalFeedItemListData(items);
+            return items;
+        } finally {
+            adapter.close();
+        }
+    }
+
     /**
      * Loads the playback history from the database. A FeedItem is in the playback history if playback of the correpsonding episode
      * has been completed at least once.
@@ -772,66 +956,45 @@ public final class DBReader {
     }
 
     /**
-     * Searches the DB for statistics.
+     * Searches the DB for statistics. The statistics of feeds whose episodes did not change
+     * since the last call are taken from a cache.
      *
      * @return The list of statistics objects
      */
     @NonNull
-    public static List<StatisticsItem> getStatistics() {
+    public static synchronized List<StatisticsItem> getStatistics() {
         PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
-
-        List<StatisticsItem> feedTime = new ArrayList<>();
-
-        List<Feed> feeds = getFeedList();
-        for (Feed feed : feeds) {
-            long feedPlayedTimeCountAll = 0;
-            long feedPlayedTime = 0;
-            long feedTotalTime = 0;
-            long episodes = 0;
-            long episodesStarted = 0;
-            long episodesStartedIncludingMarked = 0;
-            long totalDownloadSize = 0;
-            long episodesDownloadCount = 0;
-            List<FeedItem> items = getFeed(feed.getId()).getItems();
-            for (FeedItem item : items) {
-                FeedMedia media = item.getMedia();
-                if (media == null) {
-                    continue;
+        try {
+            List<Feed> feeds = getFeedList(adapter);
+            LongList invalidFeeds = StatisticsCache.takeInvalidFeeds();
+            if (invalidFeeds == null || invalidFeeds.size() > 0) {
+                long[] feedIds = invalidFeeds == null ? null : invalidFeeds.toArray();
+                try (Cursor cursor = adapter.getFeedStatisticsCursor(feedIds)) {
+                    while (cursor.moveToNext()) {
+                        StatisticsCache.put(cursor.getLong(0), new StatisticsItem(null,
+                                cursor.getLong(1), cursor.getLong(2), cursor.getLong(3), cursor.getLong(4),
+                                cursor.getLong(5), cursor.getLong(6), cursor.getLong(7), cursor.getLong(8)));
+                    }
                 }
+            }
 
-                feedPlayedTime += media.getPlayedDuration() / 1000;
-
-                if (item.isPlayed()) {
-                    feedPlayedTimeCountAll += media.getDuration() / 1000;
+            List<StatisticsItem> feedTime = new ArrayList<>();
+            for (Feed feed : feeds) {
+                StatisticsItem cached = StatisticsCache.get(feed.getId());
+                if (cached == null) {
+                    feedTime.add(new StatisticsItem(feed, 0, 0, 0, 0, 0, 0, 0, 0));
                 } else {
-                    feedPlayedTimeCountAll += media.getPosition() / 1000;
-                }
-
-                if (media.getPlaybackCompletionDate() != null || media.getPlayedDuration() > 0) {
-                    episodesStarted++;
-                }
-
-                if (item.isPlayed() || media.getPosition() != 0) {
-                    episodesStartedIncludingMarked++;
+                    feedTime.add(new StatisticsItem(feed, cached.time, cached.timePlayed,
+                            cached.timePlayedCountAll, cached.episodes, cached.episodesStarted,
+                            cached.episodesStartedIncludingMarked, cached.totalDownloadSize,
+                            cached.episodesDownloadCount));
                 }
-
-                feedTotalTime += media.getDuration() / 1000;
-
-                if (media.isDownloaded()) {
-                    totalDownloadSize += new File(media.getFile_url()).length();
-                    episodesDownloadCount++;
-                }
-
-                episodes++;
             }
-            feedTime.add(new StatisticsItem(
-                    feed, feedTotalTime, feedPlayedTime, feedPlayedTimeCountAll, episodes,
-                    episodesStarted, episodesStartedIncludingMarked, totalDownloadSize, episodesDownloadCount));
+            return feedTime;
+        } finally {
+            adapter.close();
         }
-
-        adapter.close();
-        return feedTime;
     }
 
     /**
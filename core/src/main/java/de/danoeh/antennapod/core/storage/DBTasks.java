@@ -5,9 +5,9 @@ import static android.content.Context.MODE_PRIVATE;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.database.Cursor;
-import android.text.TextUtils;
 import android.util.Log;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import de.danoeh.antennapod.core.service.download.DownloadRequest;
@@ -130,31 +130,6 @@ public final class DBTasks {
         return null;
     }
 
-    /**
-     * Get a FeedItem by its identifying value.
-     */
-    private static FeedItem searchFeedItemByIdentifyingValue(List<FeedItem> items, FeedItem searchItem) {
-        for (FeedItem item : items) {
-            if (TextUtils.equals(item.getIdentifyingValue(), searchItem.getIdentifyingValue())) {
-                return item;
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Guess if one of the items could actually mean the searched item, even if it uses another identifying value.
-     * This is to work around podcasters breaking their GUIDs.
-     */
-    private static FeedItem searchFeedItemGuessDuplicate(List<FeedItem> items, FeedItem searchItem) {
-        for (FeedItem item : items) {
-            if (FeedItemDuplicateGuesser.seemDuplicates(item, searchItem)) {
-                return item;
-            }
-        }
-        return null;
-    }
-
     /**
      * Adds new Feeds to the database or updates the old versions if they already exists. If another Feed with the same
      * identifying value already exists, this method will add new FeedItems from the new Feed to the existing Feed.
@@ -170,13 +145,98 @@ public final class DBTasks {
      *                            I.e. items are removed from the database if they are not in this item list.
      * @return The updated Feed from the database if it already existed, or the new Feed from the parameters otherwise.
      */
-    public static synchronized Feed updateFeed(Context context, Feed newFeed, boolean removeUnlistedItems) {
-        Feed resultFeed;
+    public static Feed updateFeed(Context context, Feed newFeed, boolean removeUnlistedItems) {
+        return updateFeeds(context, Collections.singletonList(newFeed), removeUnlistedItems,
+                Collections.singletonList(null)).get(0);
+    }
+
+    /**
+     * Same as {@link #updateFeed(Context, Feed, boolean)} for several feeds at once.
+     * The changes of all feeds that already exist are written in a single transaction.
+     *
+     * @param downloadStatuses The download status of each feed, or null. If the feed already existed,
+     *                         receives the number of database rows written for it as detailed reason.
+     * @return The updated Feeds, in the same order as newFeeds
+     */
+    public static synchronized List<Feed> updateFeeds(Context context, List<Feed> newFeeds,
+                                                      boolean removeUnlistedItems,
+                                                      List<DownloadStatus> downloadStatuses) {
+        List<Feed> resultFeeds = new ArrayList<>();
+        List<Feed> savedFeeds = new ArrayList<>();
         List<FeedItem> unlistedItems = new ArrayList<>();
 
         PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
+        boolean[] existed = new boolean[newFeeds.size()];
+        for (int i = 0; i < newFeeds.size(); i++) {
+            Feed savedFeed = mergeWithSavedFeed(context, adapter, newFeeds.get(i), removeUnlistedItems, unlistedItems);
+            resultFeeds.add(savedFeed);
+            existed[i] = savedFeed != null;
+            if (savedFeed != null) {
+                savedFeeds.add(savedFeed);
+            }
+        }
+
+        try {
+            // All new feeds are inserted in one transaction, for example when importing subscriptions
+            List<Feed> addedFeeds = new ArrayList<>();
+            for (int i = 0; i < newFeeds.size(); i++) {
+                if (!existed[i]) {
+                    addedFeeds.add(newFeeds.get(i));
+                }
+            }
+            if (!addedFeeds.isEmpty()) {
+                DBWriter.addNewFeed(context, addedFeeds.toArray(new Feed[0])).get();
+                for (int i = 0; i < newFeeds.size(); i++) {
+                    if (!existed[i]) {
+                        // Update with default values that are set in database
+                        resultFeeds.set(i, searchFeedByIdentifyingValueOrID(adapter, newFeeds.get(i)));
+                    }
+                }
+            }
+            if (!savedFeeds.isEmpty()) {
+                int[] rowsWritten = DBWriter.setCompleteFeed(savedFeeds.toArray(new Feed[0])).get();
+                int savedIndex = 0;
+                for (int i = 0; i < newFeeds.size(); i++) {
+                    if (!existed[i]) {
+                        continue;
+                    }
+                    int rows = rowsWritten[savedIndex++];
+                    Log.d(TAG, "Database rows written for " + newFeeds.get(i).getTitle() + ": " + rows);
+                    DownloadStatus downloadStatus = downloadStatuses.get(i);
+                    if (downloadStatus != null && downloadStatus.isSuccessful()) {
+                        downloadStatus.setReasonDetailed("Database rows written: " + rows);
+                    }
+                }
+            }
+            if (removeUnlistedItems) {
+                DBWriter.deleteFeedItems(context, unlistedItems).get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+        }
+
+        adapter.close();
+
+        if (!savedFeeds.isEmpty()) {
+            EventBus.getDefault().post(new FeedListUpdateEvent(savedFeeds));
+        }
+        if (savedFeeds.size() < newFeeds.size()) {
+            EventBus.getDefault().post(new FeedListUpdateEvent(Collections.emptyList()));
+        }
 
+        return resultFeeds;
+    }
+
+    /**
+     * Merges the new feed into the feed that is stored in the database, without writing anything.
+     *
+     * @param unlistedItems Receives the items that are no longer listed if removeUnlistedItems is true
+     * @return The merged feed, or null if the feed is not in the database yet
+     */
+    @Nullable
+    private static Feed mergeWithSavedFeed(Context context, PodDBAdapter adapter, Feed newFeed,
+                                           boolean removeUnlistedItems, List<FeedItem> unlistedItems) {
         // Look up feed in the feedslist
         final Feed savedFeed = searchFeedByIdentifyingValueOrID(adapter, newFeed);
         if (savedFeed == null) {
@@ -189,11 +249,13 @@ public final class DBTasks {
             if (mostRecent != null) {
                 mostRecent.setNew();
             }
-
-            resultFeed = newFeed;
         } else {
             Log.d(TAG, "Feed with title " + newFeed.getTitle()
                         + " already exists. Syncing new with existing one.");
+            for (FeedItem savedItem : savedFeed.getItems()) {
+                // Only items that actually change need to be written back
+                savedItem.startTrackingChanges();
+            }
 
             Collections.sort(newFeed.getItems(), new FeedItemPubdateComparator());
 
@@ -218,11 +280,14 @@ public final class DBTasks {
                 priorMostRecentDate = priorMostRecent.getPubDate();
             }
 
+            FeedItemMergeIndex newItemsIndex = new FeedItemMergeIndex(newFeed.getItems());
+            FeedItemMergeIndex savedItemsIndex = new FeedItemMergeIndex(savedFeed.getItems());
+
             // Look for new or updated Items
             for (int idx = 0; idx < newFeed.getItems().size(); idx++) {
                 final FeedItem item = newFeed.getItems().get(idx);
 
-                FeedItem possibleDuplicate = searchFeedItemGuessDuplicate(newFeed.getItems(), item);
+                FeedItem possibleDuplicate = newItemsIndex.findGuessedDuplicate(item);
                 if (!newFeed.isLocalFeed() && possibleDuplicate != null && item != possibleDuplicate) {
                     // Canonical episode is the first one returned (usually oldest)
                     DBWriter.addDownloadStatus(new DownloadStatus(savedFeed,
@@ -235,9 +300,9 @@ public final class DBTasks {
                     continue;
                 }
 
-                FeedItem oldItem = searchFeedItemByIdentifyingValue(savedFeed.getItems(), item);
+                FeedItem oldItem = savedItemsIndex.findByIdentifyingValue(item);
                 if (!newFeed.isLocalFeed() && oldItem == null) {
-                    oldItem = searchFeedItemGuessDuplicate(savedFeed.getItems(), item);
+                    oldItem = savedItemsIndex.findGuessedDuplicate(item);
                     if (oldItem != null) {
                         Log.d(TAG, "Repaired duplicate: " + oldItem + ", " + item);
                         DBWriter.addDownloadStatus(new DownloadStatus(savedFeed,
@@ -263,6 +328,7 @@ public final class DBTasks {
 
                 if (oldItem != null) {
                     oldItem.updateFromOther(item);
+                    savedItemsIndex.update(oldItem);
                 } else {
                     // item is new
                     item.setFeed(savedFeed);
@@ -272,6 +338,7 @@ public final class DBTasks {
                     } else {
                         savedFeed.getItems().add(idx, item);
                     }
+                    savedItemsIndex.add(item);
 
                     // only mark the item new if it was published after or at the same time
                     // as the most recent item
@@ -293,7 +360,7 @@ public final class DBTasks {
                 Iterator<FeedItem> it = savedFeed.getItems().iterator();
                 while (it.hasNext()) {
                     FeedItem feedItem = it.next();
-                    if (searchFeedItemByIdentifyingValue(newFeed.getItems(), feedItem) == null) {
+                    if (newItemsIndex.findByIdentifyingValue(feedItem) == null) {
                         unlistedItems.add(feedItem);
                         it.remove();
                     }
@@ -302,36 +369,11 @@ public final class DBTasks {
 
             // update attributes
             savedFeed.setLastUpdate(newFeed.getLastUpdate());
+            savedFeed.setEtag(newFeed.getEtag());
             savedFeed.setType(newFeed.getType());
             savedFeed.setLastUpdateFailed(false);
-
-            resultFeed = savedFeed;
         }
-
-        try {
-            if (savedFeed == null) {
-                DBWriter.addNewFeed(context, newFeed).get();
-                // Update with default values that are set in database
-                resultFeed = searchFeedByIdentifyingValueOrID(adapter, newFeed);
-            } else {
-                DBWriter.setCompleteFeed(savedFeed).get();
-            }
-            if (removeUnlistedItems) {
-                DBWriter.deleteFeedItems(context, unlistedItems).get();
-            }
-        } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
-        }
-
-        adapter.close();
-
-        if (savedFeed != null) {
-            EventBus.getDefault().post(new FeedListUpdateEvent(savedFeed));
-        } else {
-            EventBus.getDefault().post(new FeedListUpdateEvent(Collections.emptyList()));
-        }
-
-        return resultFeed;
+        return savedFeed;
     }
 
     private static String duplicateEpisodeDetails(FeedItem item) {
@@ -326,6 +326,42 @@ class DBUpgrader {
             db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEEDS
                     + " ADD COLUMN " + PodDBAdapter.KEY_MINIMAL_DURATION_FILTER + " INTEGER DEFAULT -1");
         }
+        if (oldVersion < 2050001) {
+            PodDBAdapter.createSearchIndex(db);
+        }
+        if (oldVersion < 2050002) {
+            PodDBAdapter.createFeedCounters(db);
+        }
+        if (oldVersion < 2050003) {
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEED_ITEMS
+                    + " ADD COLUMN " + PodDBAdapter.KEY_DESCRIPTION_HASH + " INTEGER");
+        }
+        if (oldVersion < 2050004) {
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEED_MEDIA
+                    + " ADD COLUMN " + PodDBAdapter.KEY_CHAPTERS_FILE_SIZE + " INTEGER");
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEED_MEDIA
+                    + " ADD COLUMN " + PodDBAdapter.KEY_CHAPTERS_FILE_MODIFIED + " INTEGER");
+        }
+        if (oldVersion < 2050005) {
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEEDS
+                    + " ADD COLUMN " + PodDBAdapter.KEY_ETAG + " TEXT");
+            // ETags were stored instead of the Last-Modified header if there was none
+            db.execSQL("UPDATE " + PodDBAdapter.TABLE_NAME_FEEDS
+                    + " SET " + PodDBAdapter.KEY_ETAG + " = " + PodDBAdapter.KEY_LASTUPDATE + ", "
+                    + PodDBAdapter.KEY_LASTUPDATE + " = NULL"
+                    + " WHERE " + PodDBAdapter.KEY_LASTUPDATE + " LIKE '\"%'"
+                    + " OR " + PodDBAdapter.KEY_LASTUPDATE + " LIKE 'W/%'");
+        }
+        if (oldVersion < 2050006) {
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEEDS
+                    + " ADD COLUMN " + PodDBAdapter.KEY_NEXT_REFRESH + " INTEGER DEFAULT 0");
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEEDS
+                    + " ADD COLUMN " + PodDBAdapter.KEY_NOT_MODIFIED_COUNT + " INTEGER DEFAULT 0");
+        }
+        if (oldVersion < 2050007) {
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEEDS
+                    + " ADD COLUMN " + PodDBAdapter.KEY_LAST_FULL_PARSE + " INTEGER DEFAULT 0");
+        }
     }
 
 }
@@ -0,0 +1,214 @@
+package de.danoeh.antennapod.core.storage;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single thread executor that runs the tasks of {@link DBWriter}.
+ *
+ * <p>Small writes that tend to arrive in bursts can be submitted with {@link #submitBatched(Write, Runnable)}.
+ * They are collected for a short time and committed together in one transaction,
+ * so a burst only needs one journal sync instead of one per write.</p>
+ *
+ * <p>Tasks still run in the order they were submitted: submitting a normal task closes the current batch.
+ * The afterCommit callbacks of a batch run in order after the batch has been committed,
+ * before any task that was submitted later.</p>
+ */
+class DBWriteExecutor extends ThreadPoolExecutor {
+    private static final String TAG = "DBWriteExecutor";
+
+    /**
+     * Time a batch waits for more writes after its first write was submitted.
+     */
+    static final long BATCH_WINDOW_MS = 10;
+    static final int MAX_BATCH_SIZE = 200;
+
+    /**
+     * A write that can be part of a batch. It must only modify the database and must not start its own
+     * transaction or catch SQLExceptions. It is applied a second time if another write of its batch fails.
+     */
+    interface Write {
+        void apply(PodDBAdapter adapter);
+    }
+
+    private final Object lock = new Object();
+    @Nullable
+    private Batch openBatch = null;
+
+    private long batchCount = 0;
+    private long batchedWriteCount = 0;
+    private int largestBatchSize = 0;
+    private long totalCommitNanos = 0;
+    private long maxCommitNanos = 0;
+
+    DBWriteExecutor(ThreadFactory threadFactory) {
+        super(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory);
+    }
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+        synchronized (lock) {
+            closeOpenBatch();
+            super.execute(command);
+        }
+    }
+
+    /**
+     * Adds the write to the current batch.
+     *
+     * @param afterCommit Runs after the write was committed, for example to post events. May be null.
+     * @return A Future that completes after the batch was committed and afterCommit has run
+     */
+    Future<?> submitBatched(@NonNull Write write, @Nullable Runnable afterCommit) {
+        BatchedWrite batchedWrite = new BatchedWrite(write, afterCommit);
+        synchronized (lock) {
+            if (openBatch == null || openBatch.writes.size() >= MAX_BATCH_SIZE) {
+                closeOpenBatch();
+                Batch batch = new Batch();
+                openBatch = batch;
+                super.execute(() -> runBatch(batch));
+            }
+            openBatch.writes.add(batchedWrite);
+        }
+        return batchedWrite;
+    }
+
+    private void closeOpenBatch() {
+        if (openBatch != null) {
+            openBatch.closed = true;
+            openBatch = null;
+            lock.notifyAll();
+        }
+    }
+
+    private void runBatch(Batch batch) {
+        synchronized (lock) {
+            long remainingMs = BATCH_WINDOW_MS - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batch.created);
+            while (!batch.closed && remainingMs > 0) {
+                try {
+                    lock.wait(remainingMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                remainingMs = BATCH_WINDOW_MS - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batch.created);
+            }
+            if (openBatch == batch) {
+                closeOpenBatch();
+            }
+        }
+
+        PodDBAdapter adapter = null;
+        try {
+            adapter = PodDBAdapter.getInstance().open();
+            applyBatch(adapter, batch);
+        } catch (RuntimeException e) {
+            // Never leave a caller waiting for a write that will not be applied anymore
+            Log.e(TAG, "Batch of " + batch.writes.size() + " writes could not be applied: "
+                    + Log.getStackTraceString(e));
+            for (BatchedWrite write : batch.writes) {
+                if (!write.isDone()) {
+                    write.fail(e);
+                }
+            }
+        } finally {
+            if (adapter != null) {
+                adapter.close();
+            }
+        }
+    }
+
+    private void applyBatch(PodDBAdapter adapter, Batch batch) {
+        long start = System.nanoTime();
+        RuntimeException batchError = applyInTransaction(adapter, batch.writes);
+        long commitNanos = System.nanoTime() - start;
+        if (batchError == null) {
+            recordBatch(batch.writes.size(), commitNanos);
+            for (BatchedWrite write : batch.writes) {
+                write.run();
+            }
+            return;
+        }
+
+        // Apply the writes one by one so that a single failing write does not take down the others
+        Log.e(TAG, "Batch of " + batch.writes.size() + " writes failed: " + Log.getStackTraceString(batchError));
+        for (BatchedWrite write : batch.writes) {
+            RuntimeException error = batch.writes.size() == 1
+                    ? batchError : applyInTransaction(adapter, Collections.singletonList(write));
+            if (error == null) {
+                write.run();
+            } else {
+                write.fail(error);
+            }
+        }
+    }
+
+    @Nullable
+    private static RuntimeException applyInTransaction(PodDBAdapter adapter, List<BatchedWrite> writes) {
+        try {
+            adapter.beginTransaction();
+            try {
+                for (BatchedWrite write : writes) {
+                    write.write.apply(adapter);
+                }
+                adapter.setTransactionSuccessful();
+            } finally {
+                adapter.endTransaction();
+            }
+            return null;
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    /**
+     * Logs the batch together with the totals since the app was started, so that the effect of batching
+     * can be seen in the log.
+     */
+    private void recordBatch(int size, long commitNanos) {
+        String totals;
+        synchronized (lock) {
+            batchCount++;
+            batchedWriteCount += size;
+            largestBatchSize = Math.max(largestBatchSize, size);
+            totalCommitNanos += commitNanos;
+            maxCommitNanos = Math.max(maxCommitNanos, commitNanos);
+            totals = batchedWriteCount + " writes in " + batchCount + " batches, largest " + largestBatchSize
+                    + ", average commit " + TimeUnit.NANOSECONDS.toMillis(totalCommitNanos / batchCount)
+                    + " ms, max " + TimeUnit.NANOSECONDS.toMillis(maxCommitNanos) + " ms";
+        }
+        Log.d(TAG, "Committed batch of " + size + " writes in " + TimeUnit.NANOSECONDS.toMillis(commitNanos)
+                + " ms. Total: " + totals);
+    }
+
+    private static class Batch {
+        final List<BatchedWrite> writes = new ArrayList<>();
+        final long created = System.nanoTime();
+        boolean closed = false;
+    }
+
+    private static class BatchedWrite extends FutureTask<Void> {
+        final Write write;
+
+        BatchedWrite(Write write, @Nullable Runnable afterCommit) {
+            super(afterCommit != null ? afterCommit : () -> { }, null);
+            this.write = write;
+        }
+
+        void fail(Throwable error) {
+            setException(error);
+        }
+    }
+}
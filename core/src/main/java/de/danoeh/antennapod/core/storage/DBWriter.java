@@ -18,8 +18,6 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
@@ -43,7 +41,9 @@ import de.danoeh.antennapod.core.util.FeedItemPermutors;
 import de.danoeh.antennapod.core.util.IntentUtils;
 import de.danoeh.antennapod.core.util.LongList;
 import de.danoeh.antennapod.core.util.Permutor;
+import de.danoeh.antennapod.core.util.download.FeedRefreshSchedule;
 import de.danoeh.antennapod.core.util.playback.PlayableUtils;
+import de.danoeh.antennapod.model.feed.Chapter;
 import de.danoeh.antennapod.model.feed.Feed;
 import de.danoeh.antennapod.model.feed.FeedItem;
 import de.danoeh.antennapod.model.feed.FeedMedia;
@@ -63,10 +63,10 @@ public class DBWriter {
 
     private static final String TAG = "DBWriter";
 
-    private static final ExecutorService dbExec;
+    private static final DBWriteExecutor dbExec;
 
     static {
-        dbExec = Executors.newSingleThreadExecutor(r -> {
+        dbExec = new DBWriteExecutor(r -> {
             Thread t = new Thread(r);
             t.setName("DatabaseExecutor");
             t.setPriority(Thread.MIN_PRIORITY);
@@ -128,6 +128,7 @@ public class DBWriter {
             adapter.open();
             adapter.setMedia(media);
             adapter.close();
+            StatisticsCache.invalidate(media);
 
             if (media.getId() == PlaybackPreferences.getCurrentlyPlayingFeedMediaId()) {
                 PlaybackPreferences.writeNoMediaPlaying();
@@ -220,6 +221,9 @@ public class DBWriter {
         }
         adapter.removeFeedItems(items);
         adapter.close();
+        for (FeedItem item : items) {
+            StatisticsCache.invalidate(item);
+        }
 
         for (FeedItem item : removedFromQueue) {
             EventBus.getDefault().post(QueueEvent.irreversibleRemoved(item));
@@ -243,6 +247,7 @@ public class DBWriter {
             adapter.open();
             adapter.clearPlaybackHistory();
             adapter.close();
+            StatisticsCache.invalidateAll();
             EventBus.getDefault().post(PlaybackHistoryEvent.listUpdated());
         });
     }
@@ -277,6 +282,7 @@ public class DBWriter {
             adapter.open();
             adapter.setFeedMediaPlaybackCompletionDate(media);
             adapter.close();
+            StatisticsCache.invalidate(media);
             EventBus.getDefault().post(PlaybackHistoryEvent.listUpdated());
 
         });
@@ -675,11 +681,8 @@ public class DBWriter {
      */
     public static Future<?> markItemPlayed(final int played, final boolean broadcastUpdate,
                                            final long... itemIds) {
-        return dbExec.submit(() -> {
-            final PodDBAdapter adapter = PodDBAdapter.getInstance();
-            adapter.open();
-            adapter.setFeedItemRead(played, itemIds);
-            adapter.close();
+        return dbExec.submitBatched(adapter -> adapter.setFeedItemRead(played, itemIds), () -> {
+            StatisticsCache.invalidateAll();
             if (broadcastUpdate) {
                 EventBus.getDefault().post(new UnreadItemsUpdateEvent());
             }
@@ -706,15 +709,11 @@ public class DBWriter {
                                             final int played,
                                             final long mediaId,
                                             final boolean resetMediaPosition) {
-        return dbExec.submit(() -> {
-            final PodDBAdapter adapter = PodDBAdapter.getInstance();
-            adapter.open();
-            adapter.setFeedItemRead(played, itemId, mediaId,
-                    resetMediaPosition);
-            adapter.close();
-
-            EventBus.getDefault().post(new UnreadItemsUpdateEvent());
-        });
+        return dbExec.submitBatched(adapter -> adapter.setFeedItemRead(played, itemId, mediaId, resetMediaPosition),
+                () -> {
+                    StatisticsCache.invalidateAll();
+                    EventBus.getDefault().post(new UnreadItemsUpdateEvent());
+                });
     }
 
     /**
@@ -744,6 +743,7 @@ public class DBWriter {
             adapter.open();
             adapter.setFeedItems(FeedItem.PLAYED, feedId);
             adapter.close();
+            StatisticsCache.invalidate(feedId);
 
             EventBus.getDefault().post(new UnreadItemsUpdateEvent());
         });
@@ -758,6 +758,7 @@ public class DBWriter {
             adapter.open();
             adapter.setFeedItems(FeedItem.PLAYED);
             adapter.close();
+            StatisticsCache.invalidateAll();
 
             EventBus.getDefault().post(new UnreadItemsUpdateEvent());
         });
@@ -783,8 +784,10 @@ public class DBWriter {
             adapter.open();
             adapter.setCompleteFeed(feeds);
             adapter.close();
+            FeedIndexCache.invalidate();
 
             for (Feed feed : feeds) {
+                StatisticsCache.invalidate(feed.getId());
                 if (!feed.isLocalFeed()) {
                     SynchronizationQueueSink.enqueueFeedAddedIfSynchronizationIsActive(context, feed.getDownload_url());
                 }
@@ -795,23 +798,67 @@ public class DBWriter {
         });
     }
 
-    static Future<?> setCompleteFeed(final Feed... feeds) {
+    /**
+     * Saves the feeds and their items.
+     *
+     * @return A Future that returns the number of database rows that were written for each feed
+     */
+    static Future<int[]> setCompleteFeed(final Feed... feeds) {
         return dbExec.submit(() -> {
             PodDBAdapter adapter = PodDBAdapter.getInstance();
             adapter.open();
-            adapter.setCompleteFeed(feeds);
+            int[] rowsWritten = adapter.setCompleteFeed(feeds);
             adapter.close();
+            FeedIndexCache.invalidate();
+            for (Feed feed : feeds) {
+                StatisticsCache.invalidate(feed.getId());
+            }
+            return rowsWritten;
         });
     }
 
     public static Future<?> setItemList(final List<FeedItem> items) {
-        return dbExec.submit(() -> {
-            PodDBAdapter adapter = PodDBAdapter.getInstance();
-            adapter.open();
-            adapter.storeFeedItemlist(items);
-            adapter.close();
-            EventBus.getDefault().post(FeedItemEvent.updated(items));
-        });
+        for (FeedItem item : items) {
+            if (!isStored(item)) {
+                // Inserts can not be applied again if their batch fails, so they are not batched
+                return dbExec.submit(() -> {
+                    PodDBAdapter adapter = PodDBAdapter.getInstance();
+                    adapter.open();
+                    adapter.storeFeedItemlist(items);
+                    adapter.close();
+                    onItemsStored(items);
+                });
+            }
+        }
+        return dbExec.submitBatched(adapter -> {
+            for (FeedItem item : items) {
+                adapter.setFeedItemInTransaction(item);
+            }
+        }, () -> onItemsStored(items));
+    }
+
+    /**
+     * @return true if the item, its media and its chapters already exist in the database
+     */
+    private static boolean isStored(FeedItem item) {
+        if (item.getId() == 0 || (item.getMedia() != null && item.getMedia().getId() == 0)) {
+            return false;
+        }
+        if (item.getChapters() != null) {
+            for (Chapter chapter : item.getChapters()) {
+                if (chapter.getId() == 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void onItemsStored(List<FeedItem> items) {
+        for (FeedItem item : items) {
+            StatisticsCache.invalidate(item);
+        }
+        EventBus.getDefault().post(FeedItemEvent.updated(items));
     }
 
     /**
@@ -826,23 +873,76 @@ public class DBWriter {
             adapter.open();
             adapter.setMedia(media);
             adapter.close();
+            StatisticsCache.invalidate(media);
         });
     }
 
     /**
-     * Saves the 'position', 'duration' and 'last played time' attributes of a FeedMedia object
+     * Replaces the stored chapters that were read from the file of a downloaded FeedMedia object.
+     * Chapters of the feed are kept.
      *
-     * @param media The FeedMedia object.
+     * @param media    The FeedMedia object, with the fingerprint of the file the chapters were read from.
+     * @param chapters The chapters of the file, or null if it has none.
      */
-    public static Future<?> setFeedMediaPlaybackInformation(final FeedMedia media) {
+    public static Future<?> setMediaFileChapters(final FeedMedia media, @Nullable final List<Chapter> chapters) {
         return dbExec.submit(() -> {
             PodDBAdapter adapter = PodDBAdapter.getInstance();
             adapter.open();
-            adapter.setFeedMediaPlaybackInformation(media);
+            adapter.setMediaFileChapters(media, chapters);
             adapter.close();
         });
     }
 
+    /**
+     * Saves downloaded FeedMedia objects and their items in one transaction, together with the chapters
+     * that were read from the files. A single event is posted for all items.
+     *
+     * @param fileChapters The chapters of each file, in the same order as the media. Null for files without chapters.
+     */
+    public static Future<?> setDownloadedMedia(final List<FeedMedia> mediaList,
+                                               final List<List<Chapter>> fileChapters) {
+        return dbExec.submit(() -> {
+            PodDBAdapter adapter = PodDBAdapter.getInstance();
+            adapter.open();
+            List<FeedItem> items = new ArrayList<>();
+            try {
+                adapter.beginTransaction();
+                for (int i = 0; i < mediaList.size(); i++) {
+                    FeedMedia media = mediaList.get(i);
+                    FeedItem item = media.getItem();
+                    if (item == null) {
+                        adapter.setMedia(media);
+                        continue;
+                    }
+                    // Chapters first, so that the item saves the chapters that now have an id
+                    adapter.setMediaFileChaptersInTransaction(media, fileChapters.get(i));
+                    adapter.setFeedItemInTransaction(item);
+                    items.add(item);
+                }
+                adapter.setTransactionSuccessful();
+            } finally {
+                adapter.endTransaction();
+                adapter.close();
+            }
+            for (FeedMedia media : mediaList) {
+                StatisticsCache.invalidate(media);
+            }
+            if (!items.isEmpty()) {
+                EventBus.getDefault().post(FeedItemEvent.updated(items));
+            }
+        });
+    }
+
+    /**
+     * Saves the 'position', 'duration' and 'last played time' attributes of a FeedMedia object
+     *
+     * @param media The FeedMedia object.
+     */
+    public static Future<?> setFeedMediaPlaybackInformation(final FeedMedia media) {
+        return dbExec.submitBatched(adapter -> adapter.setFeedMediaPlaybackInformation(media),
+                () -> StatisticsCache.invalidate(media));
+    }
+
     /**
      * Saves a FeedItem object in the database. This method will save all attributes of the FeedItem object including
      * the content of FeedComponent-attributes.
@@ -850,11 +950,11 @@ public class DBWriter {
      * @param item The FeedItem object.
      */
     public static Future<?> setFeedItem(final FeedItem item) {
-        return dbExec.submit(() -> {
-            PodDBAdapter adapter = PodDBAdapter.getInstance();
-            adapter.open();
-            adapter.setSingleFeedItem(item);
-            adapter.close();
+        if (!isStored(item)) {
+            return setItemList(Collections.singletonList(item));
+        }
+        return dbExec.submitBatched(adapter -> adapter.setFeedItemInTransaction(item), () -> {
+            StatisticsCache.invalidate(item);
             EventBus.getDefault().post(FeedItemEvent.updated(item));
         });
     }
@@ -869,6 +969,7 @@ public class DBWriter {
             adapter.open();
             adapter.setFeedDownloadUrl(original, updated);
             adapter.close();
+            FeedIndexCache.invalidate();
         });
     }
 
@@ -917,6 +1018,38 @@ public class DBWriter {
         });
     }
 
+    /**
+     * Schedules the next automatic refresh of the feed, based on its recent episodes.
+     *
+     * @param notModified True if the feed did not change since the last refresh
+     * @param minInterval Interval of the automatic refresh
+     */
+    public static Future<?> updateFeedRefreshSchedule(final long feedId, final boolean notModified,
+                                                      final long minInterval) {
+        return dbExec.submit(() -> {
+            PodDBAdapter adapter = PodDBAdapter.getInstance();
+            adapter.open();
+            int notModifiedCount = notModified ? adapter.getFeedNotModifiedCount(feedId) + 1 : 0;
+            long[] pubDates = adapter.getRecentItemPubDates(feedId, FeedRefreshSchedule.PUB_DATE_COUNT);
+            long nextRefresh = FeedRefreshSchedule.getNextRefresh(System.currentTimeMillis(),
+                    pubDates, notModifiedCount, minInterval);
+            adapter.setFeedRefreshSchedule(feedId, nextRefresh, notModifiedCount);
+            adapter.close();
+        });
+    }
+
+    /**
+     * Saves the time at which all items of the feed were parsed, see {@link Feed#getLastFullParse()}.
+     */
+    public static Future<?> setFeedLastFullParse(final long feedId, final long lastFullParse) {
+        return dbExec.submit(() -> {
+            PodDBAdapter adapter = PodDBAdapter.getInstance();
+            adapter.open();
+            adapter.setFeedLastFullParse(feedId, lastFullParse);
+            adapter.close();
+        });
+    }
+
     public static Future<?> setFeedCustomTitle(Feed feed) {
         return dbExec.submit(() -> {
             PodDBAdapter adapter = PodDBAdapter.getInstance();
@@ -1000,6 +1133,23 @@ public class DBWriter {
             adapter.open();
             adapter.resetAllMediaPlayedDuration();
             adapter.close();
+            StatisticsCache.invalidateAll();
+        });
+    }
+
+    /**
+     * Checks the materialized feed counters that are shown in the navigation drawer and the subscriptions list
+     * and rebuilds them if they do not match the episodes.
+     */
+    public static Future<?> repairFeedCounters() {
+        return dbExec.submit(() -> {
+            PodDBAdapter adapter = PodDBAdapter.getInstance();
+            adapter.open();
+            boolean repaired = adapter.repairFeedCounters();
+            adapter.close();
+            if (repaired) {
+                EventBus.getDefault().post(new UnreadItemsUpdateEvent());
+            }
         });
     }
 }
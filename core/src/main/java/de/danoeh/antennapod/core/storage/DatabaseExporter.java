@@ -50,6 +50,7 @@ public class DatabaseExporter {
         FileChannel dst = null;
         try {
             File currentDB = context.getDatabasePath(PodDBAdapter.DATABASE_NAME);
+            PodDBAdapter.getInstance().checkpoint();
 
             if (currentDB.exists()) {
                 src = new FileInputStream(currentDB).getChannel();
@@ -91,7 +92,8 @@ public class DatabaseExporter {
             db.close();
 
             File currentDB = context.getDatabasePath(PodDBAdapter.DATABASE_NAME);
-            boolean success = currentDB.delete();
+            // Also removes the write-ahead-log, which must not be applied to the imported database
+            boolean success = SQLiteDatabase.deleteDatabase(currentDB);
             if (!success) {
                 throw new IOException("Unable to delete old database");
             }
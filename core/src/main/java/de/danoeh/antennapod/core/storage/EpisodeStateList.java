@@ -0,0 +1,139 @@
+package de.danoeh.antennapod.core.storage;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import de.danoeh.antennapod.model.feed.FeedItem;
+
+/**
+ * The ids and states of a list of episodes, stored in primitive arrays.
+ * Use this instead of a list of FeedItems if only the state of the episodes is needed,
+ * for example to decide which episodes to download or delete.
+ * Episodes without media have a media id of 0.
+ */
+public class EpisodeStateList {
+    private final long[] itemIds;
+    private final long[] feedIds;
+    private final int[] states;
+    private final long[] pubDates;
+    private final long[] autoDownloadAttempts;
+    private final long[] mediaIds;
+    private final int[] durations;
+    private final int[] positions;
+    private final boolean[] downloaded;
+    private final String[] fileUrls;
+    private final long[] playbackCompletionDates;
+    private final boolean[] inQueue;
+    private final boolean[] favorite;
+    private int size = 0;
+
+    private EpisodeStateList(int capacity) {
+        itemIds = new long[capacity];
+        feedIds = new long[capacity];
+        states = new int[capacity];
+        pubDates = new long[capacity];
+        autoDownloadAttempts = new long[capacity];
+        mediaIds = new long[capacity];
+        durations = new int[capacity];
+        positions = new int[capacity];
+        downloaded = new boolean[capacity];
+        fileUrls = new String[capacity];
+        playbackCompletionDates = new long[capacity];
+        inQueue = new boolean[capacity];
+        favorite = new boolean[capacity];
+    }
+
+    /**
+     * Reads the episodes of a cursor that has the columns of {@link PodDBAdapter#SELECT_EPISODE_STATES}.
+     */
+    @NonNull
+    static EpisodeStateList fromCursor(Cursor cursor) {
+        EpisodeStateList list = new EpisodeStateList(cursor.getCount());
+        while (cursor.moveToNext() && list.size < list.itemIds.length) {
+            int i = list.size++;
+            list.itemIds[i] = cursor.getLong(0);
+            list.feedIds[i] = cursor.getLong(1);
+            list.states[i] = cursor.getInt(2);
+            list.pubDates[i] = cursor.getLong(3);
+            list.autoDownloadAttempts[i] = cursor.getLong(4);
+            list.mediaIds[i] = cursor.isNull(5) ? 0 : cursor.getLong(5);
+            list.durations[i] = cursor.getInt(6);
+            list.positions[i] = cursor.getInt(7);
+            list.downloaded[i] = cursor.getInt(8) > 0;
+            list.fileUrls[i] = cursor.getString(9);
+            list.playbackCompletionDates[i] = cursor.getLong(10);
+            list.inQueue[i] = cursor.getInt(11) > 0;
+            list.favorite[i] = cursor.getInt(12) > 0;
+        }
+        return list;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getItemId(int index) {
+        return itemIds[index];
+    }
+
+    public long getFeedId(int index) {
+        return feedIds[index];
+    }
+
+    /**
+     * @return One of FeedItem.NEW, FeedItem.UNPLAYED, FeedItem.PLAYED
+     */
+    public int getState(int index) {
+        return states[index];
+    }
+
+    public long getPubDate(int index) {
+        return pubDates[index];
+    }
+
+    public long getMediaId(int index) {
+        return mediaIds[index];
+    }
+
+    public int getDuration(int index) {
+        return durations[index];
+    }
+
+    public int getPosition(int index) {
+        return positions[index];
+    }
+
+    public boolean isDownloaded(int index) {
+        return downloaded[index];
+    }
+
+    @Nullable
+    public String getFileUrl(int index) {
+        return fileUrls[index];
+    }
+
+    /**
+     * @return The time the episode was played completely, or 0 if it was not
+     */
+    public long getPlaybackCompletionDate(int index) {
+        return playbackCompletionDates[index];
+    }
+
+    public boolean isInQueue(int index) {
+        return inQueue[index];
+    }
+
+    public boolean isFavorite(int index) {
+        return favorite[index];
+    }
+
+    /**
+     * Same as {@link FeedItem#isAutoDownloadable(long)}.
+     */
+    public boolean isAutoDownloadable(int index, long now) {
+        return mediaIds[index] != 0 && !downloaded[index]
+                && FeedItem.isAutoDownloadAttemptDue(autoDownloadAttempts[index], now);
+    }
+}
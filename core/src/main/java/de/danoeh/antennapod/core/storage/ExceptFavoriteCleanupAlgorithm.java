@@ -7,12 +7,10 @@ import androidx.annotation.NonNull;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.ExecutionException;
 
-import de.danoeh.antennapod.model.feed.FeedItem;
 import de.danoeh.antennapod.core.preferences.UserPreferences;
 
 /**
@@ -28,25 +26,23 @@ public class ExceptFavoriteCleanupAlgorithm extends EpisodeCleanupAlgorithm {
      * @return the number of episodes that *could* be cleaned up, if needed
      */
     public int getReclaimableItems() {
-        return getCandidates().size();
+        return getCandidates(DBReader.getDownloadedEpisodeStates()).size();
     }
 
     @Override
     public int performCleanup(Context context, int numberOfEpisodesToDelete) {
-        List<FeedItem> candidates = getCandidates();
-        List<FeedItem> delete;
+        EpisodeStateList episodes = DBReader.getDownloadedEpisodeStates();
+        List<Integer> candidates = getCandidates(episodes);
+        List<Integer> delete;
 
         // in the absence of better data, we'll sort by item publication date
         Collections.sort(candidates, (lhs, rhs) -> {
-            Date l = lhs.getPubDate();
-            Date r = rhs.getPubDate();
-
-            if (l != null && r != null) {
-                return l.compareTo(r);
-            } else {
-                // No date - compare by id which should be always incremented
-                return Long.compare(lhs.getId(), rhs.getId());
+            int result = Long.compare(episodes.getPubDate(lhs), episodes.getPubDate(rhs));
+            if (result == 0) {
+                // Same date - compare by id which should be always incremented
+                return Long.compare(episodes.getItemId(lhs), episodes.getItemId(rhs));
             }
+            return result;
         });
 
         if (candidates.size() > numberOfEpisodesToDelete) {
@@ -55,9 +51,9 @@ public class ExceptFavoriteCleanupAlgorithm extends EpisodeCleanupAlgorithm {
             delete = candidates;
         }
 
-        for (FeedItem item : delete) {
+        for (int index : delete) {
             try {
-                DBWriter.deleteFeedMediaOfItem(context, item.getMedia().getId()).get();
+                DBWriter.deleteFeedMediaOfItem(context, episodes.getMediaId(index)).get();
             } catch (InterruptedException | ExecutionException e) {
                 e.printStackTrace();
             }
@@ -71,15 +67,15 @@ public class ExceptFavoriteCleanupAlgorithm extends EpisodeCleanupAlgorithm {
         return counter;
     }
 
+    /**
+     * @return The indices of the episodes that can be deleted
+     */
     @NonNull
-    private List<FeedItem> getCandidates() {
-        List<FeedItem> candidates = new ArrayList<>();
-        List<FeedItem> downloadedItems = DBReader.getDownloadedItems();
-        for (FeedItem item : downloadedItems) {
-            if (item.hasMedia()
-                    && item.getMedia().isDownloaded()
-                    && !item.isTagged(FeedItem.TAG_FAVORITE)) {
-                candidates.add(item);
+    private List<Integer> getCandidates(EpisodeStateList episodes) {
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < episodes.size(); i++) {
+            if (episodes.isDownloaded(i) && !episodes.isFavorite(i)) {
+                candidates.add(i);
             }
         }
         return candidates;
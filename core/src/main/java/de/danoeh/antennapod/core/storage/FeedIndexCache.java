@@ -0,0 +1,75 @@
+package de.danoeh.antennapod.core.storage;
+
+import androidx.annotation.NonNull;
+
+import org.greenrobot.eventbus.EventBus;
+import org.greenrobot.eventbus.Subscribe;
+
+import java.util.List;
+
+import de.danoeh.antennapod.core.feed.FeedEvent;
+import de.danoeh.antennapod.core.util.LongObjectMap;
+import de.danoeh.antennapod.event.FeedListUpdateEvent;
+import de.danoeh.antennapod.model.feed.Feed;
+
+/**
+ * Caches the feeds by id, so that loading a list of items does not need to load all feeds again.
+ * The cache is invalidated when a {@link FeedListUpdateEvent} or {@link FeedEvent} is posted
+ * and by the DBWriter methods that change feeds without posting one of these events.
+ */
+public class FeedIndexCache {
+    private static final FeedIndexCache instance = new FeedIndexCache();
+    private static LongObjectMap<Feed> feedIndex = null;
+    /**
+     * Incremented on invalidation, so that feeds loaded before the invalidation are not put into the cache.
+     */
+    private static int generation = 0;
+    private static boolean registered = false;
+
+    private FeedIndexCache() {
+    }
+
+    @NonNull
+    static LongObjectMap<Feed> getFeedIndex() {
+        int loadedGeneration;
+        synchronized (FeedIndexCache.class) {
+            if (!registered) {
+                // Registered on first use, after the app has installed its default EventBus
+                EventBus.getDefault().register(instance);
+                registered = true;
+            }
+            if (feedIndex != null) {
+                return feedIndex;
+            }
+            loadedGeneration = generation;
+        }
+
+        List<Feed> feeds = DBReader.getFeedList();
+        LongObjectMap<Feed> index = new LongObjectMap<>(feeds.size());
+        for (Feed feed : feeds) {
+            index.put(feed.getId(), feed);
+        }
+
+        synchronized (FeedIndexCache.class) {
+            if (generation == loadedGeneration) {
+                feedIndex = index;
+            }
+        }
+        return index;
+    }
+
+    static synchronized void invalidate() {
+        feedIndex = null;
+        generation++;
+    }
+
+    @Subscribe
+    public void onFeedListChanged(FeedListUpdateEvent event) {
+        invalidate();
+    }
+
+    @Subscribe
+    public void onFeedChanged(FeedEvent event) {
+        invalidate();
+    }
+}
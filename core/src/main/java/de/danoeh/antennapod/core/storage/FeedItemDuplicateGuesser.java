@@ -5,6 +5,7 @@ import de.danoeh.antennapod.model.feed.FeedItem;
 import de.danoeh.antennapod.model.feed.FeedMedia;
 
 import java.text.DateFormat;
+import java.util.Calendar;
 import java.util.Locale;
 
 /**
@@ -38,6 +39,26 @@ public class FeedItemDuplicateGuesser {
         return string1.equals(string2);
     }
 
+    /**
+     * Returns a key that is equal for all items whose title and date look similar, or null if the
+     * item can not be similar to another item by title and date. Items with different keys never
+     * seem to be duplicates, unless their ID or download URL matches.
+     *
+     * @param calendar Calendar in the default time zone, can be re-used on the same thread
+     */
+    static String similarityKey(FeedItem item, Calendar calendar) {
+        String title = canonicalizeTitle(item.getTitle());
+        if (item.getMedia() == null || item.getPubDate() == null || TextUtils.isEmpty(title)) {
+            return null;
+        }
+        // Same fields that are compared by datesLookSimilar (MM/DD/YY), without the cost of formatting
+        calendar.setTime(item.getPubDate());
+        int date = (calendar.get(Calendar.YEAR) % 100) * 10000
+                + calendar.get(Calendar.MONTH) * 100
+                + calendar.get(Calendar.DAY_OF_MONTH);
+        return date + "|" + title;
+    }
+
     private static boolean datesLookSimilar(FeedItem item1, FeedItem item2) {
         if (item1.getPubDate() == null || item2.getPubDate() == null) {
             return false;
@@ -0,0 +1,180 @@
+package de.danoeh.antennapod.core.storage;
+
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import de.danoeh.antennapod.model.feed.FeedItem;
+
+/**
+ * Index over a list of FeedItems that is used when merging a downloaded feed into the stored one.
+ * The lookups return the same item as a linear search over the list would, i.e. the first matching
+ * item in list order, but only look at the items that share a key with the searched item.
+ * Changes to the list or to the indexed attributes of its items have to be reported to the index.
+ */
+class FeedItemMergeIndex {
+    private static final int KEY_IDENTIFYING_VALUE = 0;
+    private static final int KEY_ITEM_IDENTIFIER = 1;
+    private static final int KEY_STREAM_URL = 2;
+    private static final int KEY_SIMILARITY = 3;
+
+    private final List<FeedItem> items;
+    private final List<Map<String, List<FeedItem>>> indexes = new ArrayList<>();
+    private final Map<FeedItem, String[]> keysOfItem = new IdentityHashMap<>();
+    private final Calendar calendar = Calendar.getInstance(Locale.US);
+
+    FeedItemMergeIndex(@NonNull List<FeedItem> items) {
+        this.items = items;
+        for (int i = 0; i <= KEY_SIMILARITY; i++) {
+            indexes.add(new HashMap<>());
+        }
+        for (FeedItem item : items) {
+            add(item);
+        }
+    }
+
+    /**
+     * Adds an item that has been inserted into the indexed list.
+     */
+    void add(@NonNull FeedItem item) {
+        String[] keys = new String[KEY_SIMILARITY + 1];
+        keys[KEY_IDENTIFYING_VALUE] = item.getIdentifyingValue();
+        keys[KEY_ITEM_IDENTIFIER] = nullIfEmpty(item.getItemIdentifier());
+        if (item.getMedia() != null) {
+            keys[KEY_STREAM_URL] = nullIfEmpty(item.getMedia().getStreamUrl());
+        }
+        keys[KEY_SIMILARITY] = FeedItemDuplicateGuesser.similarityKey(item, calendar);
+        keysOfItem.put(item, keys);
+
+        // The identifying value is the only key where null is a legitimate value to match
+        put(KEY_IDENTIFYING_VALUE, keys[KEY_IDENTIFYING_VALUE], item);
+        for (int i = KEY_ITEM_IDENTIFIER; i <= KEY_SIMILARITY; i++) {
+            if (keys[i] != null) {
+                put(i, keys[i], item);
+            }
+        }
+    }
+
+    /**
+     * Re-indexes an item after its identifier, title, date or media have been changed.
+     */
+    void update(@NonNull FeedItem item) {
+        String[] keys = keysOfItem.remove(item);
+        if (keys != null) {
+            for (int i = 0; i < keys.length; i++) {
+                List<FeedItem> bucket = indexes.get(i).get(keys[i]);
+                if (bucket != null) {
+                    removeByIdentity(bucket, item);
+                    if (bucket.isEmpty()) {
+                        indexes.get(i).remove(keys[i]);
+                    }
+                }
+            }
+        }
+        add(item);
+    }
+
+    /**
+     * Returns the first item that has the same identifying value as the given item.
+     */
+    @Nullable
+    FeedItem findByIdentifyingValue(@NonNull FeedItem searchItem) {
+        List<FeedItem> bucket = indexes.get(KEY_IDENTIFYING_VALUE).get(searchItem.getIdentifyingValue());
+        if (bucket == null) {
+            return null;
+        }
+        return firstInList(bucket);
+    }
+
+    /**
+     * Returns the first item that {@link FeedItemDuplicateGuesser#seemDuplicates} with the given item.
+     */
+    @Nullable
+    FeedItem findGuessedDuplicate(@NonNull FeedItem searchItem) {
+        Set<FeedItem> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+        String itemIdentifier = nullIfEmpty(searchItem.getItemIdentifier());
+        if (itemIdentifier != null) {
+            addAll(candidates, indexes.get(KEY_ITEM_IDENTIFIER).get(itemIdentifier));
+        }
+        if (searchItem.getMedia() != null) {
+            String streamUrl = nullIfEmpty(searchItem.getMedia().getStreamUrl());
+            if (streamUrl != null) {
+                addAll(candidates, indexes.get(KEY_STREAM_URL).get(streamUrl));
+            }
+        }
+        String similarityKey = FeedItemDuplicateGuesser.similarityKey(searchItem, calendar);
+        if (similarityKey != null) {
+            List<FeedItem> similar = indexes.get(KEY_SIMILARITY).get(similarityKey);
+            if (similar != null) {
+                for (FeedItem item : similar) {
+                    if (FeedItemDuplicateGuesser.seemDuplicates(item, searchItem)) {
+                        candidates.add(item);
+                    }
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        return firstInList(candidates);
+    }
+
+    private void put(int index, String key, FeedItem item) {
+        List<FeedItem> bucket = indexes.get(index).get(key);
+        if (bucket == null) {
+            bucket = new ArrayList<>(1);
+            indexes.get(index).put(key, bucket);
+        }
+        bucket.add(item);
+    }
+
+    /**
+     * Candidates are usually unique. Only if there are several of them, the list needs to be
+     * scanned to find out which one comes first.
+     */
+    private FeedItem firstInList(Collection<FeedItem> candidates) {
+        if (candidates.size() == 1) {
+            return candidates.iterator().next();
+        }
+        Set<FeedItem> candidateSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        candidateSet.addAll(candidates);
+        for (FeedItem item : items) {
+            if (candidateSet.contains(item)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    private static void addAll(Set<FeedItem> target, @Nullable List<FeedItem> source) {
+        if (source != null) {
+            target.addAll(source);
+        }
+    }
+
+    private static void removeByIdentity(List<FeedItem> list, FeedItem item) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == item) {
+                list.remove(i);
+                return;
+            }
+        }
+    }
+
+    @Nullable
+    private static String nullIfEmpty(String value) {
+        return TextUtils.isEmpty(value) ? null : value;
+    }
+}
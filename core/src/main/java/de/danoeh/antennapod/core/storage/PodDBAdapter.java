@@ -10,12 +10,15 @@ import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteDatabase.CursorFactory;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import android.text.TextUtils;
 import android.util.Log;
+import android.util.SparseArray;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
+import androidx.preference.PreferenceManager;
 
 import de.danoeh.antennapod.model.feed.FeedFunding;
 import de.danoeh.antennapod.core.storage.mapper.FeedItemFilterQuery;
@@ -40,6 +43,8 @@ import de.danoeh.antennapod.core.preferences.UserPreferences;
 import de.danoeh.antennapod.core.service.download.DownloadStatus;
 import de.danoeh.antennapod.core.util.LongIntMap;
 import de.danoeh.antennapod.model.feed.SortOrder;
+import de.danoeh.antennapod.parser.media.id3.ID3Chapter;
+import de.danoeh.antennapod.parser.media.vorbis.VorbisCommentChapter;
 
 import static de.danoeh.antennapod.model.feed.FeedPreferences.SPEED_USE_GLOBAL;
 import static de.danoeh.antennapod.model.feed.SortOrder.toCodeString;
@@ -51,12 +56,12 @@ public class PodDBAdapter {
 
     private static final String TAG = "PodDBAdapter";
     public static final String DATABASE_NAME = "Antennapod.db";
-    public static final int VERSION = 2050000;
+    public static final int VERSION = 2050007;
 
     /**
      * Maximum number of arguments for IN-operator.
      */
-    private static final int IN_OPERATOR_MAXIMUM = 800;
+    static final int IN_OPERATOR_MAXIMUM = 800;
 
     // Key-constants
     public static final String KEY_ID = "id";
@@ -64,6 +69,7 @@ public class PodDBAdapter {
     public static final String KEY_CUSTOM_TITLE = "custom_title";
     public static final String KEY_LINK = "link";
     public static final String KEY_DESCRIPTION = "description";
+    public static final String KEY_DESCRIPTION_HASH = "description_hash";
     public static final String KEY_FILE_URL = "file_url";
     public static final String KEY_DOWNLOAD_URL = "download_url";
     public static final String KEY_PUBDATE = "pubDate";
@@ -77,6 +83,10 @@ public class PodDBAdapter {
     public static final String KEY_MEDIA = "media";
     public static final String KEY_DOWNLOADED = "downloaded";
     public static final String KEY_LASTUPDATE = "last_update";
+    public static final String KEY_ETAG = "etag";
+    public static final String KEY_NEXT_REFRESH = "next_refresh";
+    public static final String KEY_NOT_MODIFIED_COUNT = "not_modified_count";
+    public static final String KEY_LAST_FULL_PARSE = "last_full_parse";
     public static final String KEY_FEEDFILE = "feedfile";
     public static final String KEY_REASON = "reason";
     public static final String KEY_SUCCESSFUL = "successful";
@@ -110,6 +120,8 @@ public class PodDBAdapter {
     public static final String KEY_LAST_UPDATE_FAILED = "last_update_failed";
     public static final String KEY_HAS_EMBEDDED_PICTURE = "has_embedded_picture";
     public static final String KEY_LAST_PLAYED_TIME = "last_played_time";
+    public static final String KEY_CHAPTERS_FILE_SIZE = "chapters_file_size";
+    public static final String KEY_CHAPTERS_FILE_MODIFIED = "chapters_file_modified";
     public static final String KEY_INCLUDE_FILTER = "include_filter";
     public static final String KEY_EXCLUDE_FILTER = "exclude_filter";
     public static final String KEY_MINIMAL_DURATION_FILTER = "minimal_duration_filter";
@@ -118,6 +130,11 @@ public class PodDBAdapter {
     public static final String KEY_FEED_SKIP_ENDING = "feed_skip_ending";
     public static final String KEY_FEED_TAGS = "tags";
     public static final String KEY_EPISODE_NOTIFICATION = "episode_notification";
+    public static final String KEY_NEW_COUNT = "new_count";
+    public static final String KEY_UNPLAYED_COUNT = "unplayed_count";
+    public static final String KEY_PLAYED_COUNT = "played_count";
+    public static final String KEY_DOWNLOADED_COUNT = "downloaded_count";
+    public static final String KEY_MOST_RECENT_PUBDATE = "most_recent_pubdate";
 
     // Table names
     public static final String TABLE_NAME_FEEDS = "Feeds";
@@ -128,6 +145,24 @@ public class PodDBAdapter {
     public static final String TABLE_NAME_QUEUE = "Queue";
     public static final String TABLE_NAME_SIMPLECHAPTERS = "SimpleChapters";
     public static final String TABLE_NAME_FAVORITES = "Favorites";
+    public static final String TABLE_NAME_FEED_ITEMS_SEARCH = "FeedItemsSearch";
+    public static final String TABLE_NAME_FEED_COUNTERS = "FeedCounters";
+    public static final String TABLE_NAME_FEEDS_SEARCH = "FeedsSearch";
+
+    // FeedItem attributes that are written selectively by setCompleteFeed, and their columns.
+    // An attribute that is stored in several columns is listed once for each column.
+    private static final int[] TRACKED_ITEM_ATTRIBUTES = {
+            FeedItem.CHANGED_TITLE, FeedItem.CHANGED_DESCRIPTION, FeedItem.CHANGED_DESCRIPTION,
+            FeedItem.CHANGED_LINK, FeedItem.CHANGED_PUBDATE, FeedItem.CHANGED_PAYMENT_LINK,
+            FeedItem.CHANGED_IMAGE_URL, FeedItem.CHANGED_ITEM_IDENTIFIER, FeedItem.CHANGED_STATE,
+            FeedItem.CHANGED_FEED, FeedItem.CHANGED_AUTO_DOWNLOAD, FeedItem.CHANGED_CHAPTERS
+    };
+    private static final String[] TRACKED_ITEM_COLUMNS = {
+            KEY_TITLE, KEY_DESCRIPTION, KEY_DESCRIPTION_HASH,
+            KEY_LINK, KEY_PUBDATE, KEY_PAYMENT_LINK,
+            KEY_IMAGE_URL, KEY_ITEM_IDENTIFIER, KEY_READ,
+            KEY_FEED, KEY_AUTO_DOWNLOAD_ATTEMPTS, KEY_HAS_CHAPTERS
+    };
 
     // SQL Statements for creating new tables
     private static final String TABLE_PRIMARY_KEY = KEY_ID
@@ -152,6 +187,10 @@ public class PodDBAdapter {
             + KEY_HIDE + " TEXT,"
             + KEY_SORT_ORDER + " TEXT,"
             + KEY_LAST_UPDATE_FAILED + " INTEGER DEFAULT 0,"
+            + KEY_ETAG + " TEXT,"
+            + KEY_NEXT_REFRESH + " INTEGER DEFAULT 0,"
+            + KEY_NOT_MODIFIED_COUNT + " INTEGER DEFAULT 0,"
+            + KEY_LAST_FULL_PARSE + " INTEGER DEFAULT 0,"
             + KEY_AUTO_DELETE_ACTION + " INTEGER DEFAULT 0,"
             + KEY_FEED_PLAYBACK_SPEED + " REAL DEFAULT " + SPEED_USE_GLOBAL + ","
             + KEY_FEED_VOLUME_ADAPTION + " INTEGER DEFAULT 0,"
@@ -168,7 +207,8 @@ public class PodDBAdapter {
             + KEY_MEDIA + " INTEGER," + KEY_FEED + " INTEGER,"
             + KEY_HAS_CHAPTERS + " INTEGER," + KEY_ITEM_IDENTIFIER + " TEXT,"
             + KEY_IMAGE_URL + " TEXT,"
-            + KEY_AUTO_DOWNLOAD_ATTEMPTS + " INTEGER)";
+            + KEY_AUTO_DOWNLOAD_ATTEMPTS + " INTEGER,"
+            + KEY_DESCRIPTION_HASH + " INTEGER)";
 
     private static final String CREATE_TABLE_FEED_MEDIA = "CREATE TABLE "
             + TABLE_NAME_FEED_MEDIA + " (" + TABLE_PRIMARY_KEY + KEY_DURATION
@@ -179,7 +219,9 @@ public class PodDBAdapter {
             + KEY_FEEDITEM + " INTEGER,"
             + KEY_PLAYED_DURATION + " INTEGER,"
             + KEY_HAS_EMBEDDED_PICTURE + " INTEGER,"
-            + KEY_LAST_PLAYED_TIME + " INTEGER" + ")";
+            + KEY_LAST_PLAYED_TIME + " INTEGER,"
+            + KEY_CHAPTERS_FILE_SIZE + " INTEGER,"
+            + KEY_CHAPTERS_FILE_MODIFIED + " INTEGER" + ")";
 
     private static final String CREATE_TABLE_DOWNLOAD_LOG = "CREATE TABLE "
             + TABLE_NAME_DOWNLOAD_LOG + " (" + TABLE_PRIMARY_KEY + KEY_FEEDFILE
@@ -222,10 +264,31 @@ public class PodDBAdapter {
             + TABLE_NAME_SIMPLECHAPTERS + "_" + KEY_FEEDITEM + " ON " + TABLE_NAME_SIMPLECHAPTERS + " ("
             + KEY_FEEDITEM + ")";
 
+    static final String CREATE_INDEX_FEEDITEMS_FEED_PUBDATE = "CREATE INDEX "
+            + TABLE_NAME_FEED_ITEMS + "_" + KEY_FEED + "_" + KEY_PUBDATE + " ON " + TABLE_NAME_FEED_ITEMS + " ("
+            + KEY_FEED + ", " + KEY_PUBDATE + ")";
+
+    /**
+     * Number of episodes per feed by state and the date of the most recent episode.
+     * The table is kept up to date by triggers, see {@link #createFeedCounters(SQLiteDatabase)}.
+     */
+    static final String CREATE_TABLE_FEED_COUNTERS = "CREATE TABLE "
+            + TABLE_NAME_FEED_COUNTERS + " (" + KEY_FEED + " INTEGER PRIMARY KEY,"
+            + KEY_NEW_COUNT + " INTEGER DEFAULT 0," + KEY_UNPLAYED_COUNT + " INTEGER DEFAULT 0,"
+            + KEY_PLAYED_COUNT + " INTEGER DEFAULT 0," + KEY_DOWNLOADED_COUNT + " INTEGER DEFAULT 0,"
+            + KEY_MOST_RECENT_PUBDATE + " INTEGER DEFAULT 0)";
+
     static final String CREATE_TABLE_FAVORITES = "CREATE TABLE "
             + TABLE_NAME_FAVORITES + "(" + KEY_ID + " INTEGER PRIMARY KEY,"
             + KEY_FEEDITEM + " INTEGER," + KEY_FEED + " INTEGER)";
 
+    /*
+     * Columns of the full-text search index. The FTS4 tables use the item and feed tables as
+     * external content, so they only store the index itself. Triggers keep them in sync with all writes.
+     */
+    private static final String[] FEED_ITEMS_SEARCH_COLUMNS = {KEY_TITLE, KEY_DESCRIPTION};
+    private static final String[] FEEDS_SEARCH_COLUMNS = {KEY_TITLE, KEY_CUSTOM_TITLE, KEY_AUTHOR, KEY_DESCRIPTION};
+
     /**
      * Select all columns from the feed-table
      */
@@ -240,6 +303,9 @@ public class PodDBAdapter {
             TABLE_NAME_FEEDS + "." + KEY_DESCRIPTION,
             TABLE_NAME_FEEDS + "." + KEY_PAYMENT_LINK,
             TABLE_NAME_FEEDS + "." + KEY_LASTUPDATE,
+            TABLE_NAME_FEEDS + "." + KEY_ETAG,
+            TABLE_NAME_FEEDS + "." + KEY_NEXT_REFRESH,
+            TABLE_NAME_FEEDS + "." + KEY_LAST_FULL_PARSE,
             TABLE_NAME_FEEDS + "." + KEY_LANGUAGE,
             TABLE_NAME_FEEDS + "." + KEY_AUTHOR,
             TABLE_NAME_FEEDS + "." + KEY_IMAGE_URL,
@@ -276,7 +342,8 @@ public class PodDBAdapter {
             TABLE_NAME_DOWNLOAD_LOG,
             TABLE_NAME_QUEUE,
             TABLE_NAME_SIMPLECHAPTERS,
-            TABLE_NAME_FAVORITES
+            TABLE_NAME_FAVORITES,
+            TABLE_NAME_FEED_COUNTERS
     };
 
     public static final String SELECT_KEY_ITEM_ID = "item_id";
@@ -294,7 +361,8 @@ public class PodDBAdapter {
             + TABLE_NAME_FEED_ITEMS + "." + KEY_HAS_CHAPTERS + ", "
             + TABLE_NAME_FEED_ITEMS + "." + KEY_ITEM_IDENTIFIER + ", "
             + TABLE_NAME_FEED_ITEMS + "." + KEY_IMAGE_URL + ", "
-            + TABLE_NAME_FEED_ITEMS + "." + KEY_AUTO_DOWNLOAD_ATTEMPTS;
+            + TABLE_NAME_FEED_ITEMS + "." + KEY_AUTO_DOWNLOAD_ATTEMPTS + ", "
+            + TABLE_NAME_FEED_ITEMS + "." + KEY_DESCRIPTION_HASH;
 
     private static final String KEYS_FEED_MEDIA =
             TABLE_NAME_FEED_MEDIA + "." + KEY_ID + " AS " + SELECT_KEY_MEDIA_ID + ", "
@@ -309,7 +377,9 @@ public class PodDBAdapter {
             + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM + ", "
             + TABLE_NAME_FEED_MEDIA + "." + KEY_PLAYED_DURATION + ", "
             + TABLE_NAME_FEED_MEDIA + "." + KEY_HAS_EMBEDDED_PICTURE + ", "
-            + TABLE_NAME_FEED_MEDIA + "." + KEY_LAST_PLAYED_TIME;
+            + TABLE_NAME_FEED_MEDIA + "." + KEY_LAST_PLAYED_TIME + ", "
+            + TABLE_NAME_FEED_MEDIA + "." + KEY_CHAPTERS_FILE_SIZE + ", "
+            + TABLE_NAME_FEED_MEDIA + "." + KEY_CHAPTERS_FILE_MODIFIED;
 
     private static final String JOIN_FEED_ITEM_AND_MEDIA = " LEFT JOIN " + TABLE_NAME_FEED_MEDIA
             + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + "=" + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM + " ";
@@ -324,11 +394,38 @@ public class PodDBAdapter {
             + " FROM " + TABLE_NAME_FEED_ITEMS
             + JOIN_FEED_ITEM_AND_MEDIA;
 
+    /**
+     * Selects the ids and states of episodes without building full FeedItems, see {@link EpisodeStateList}.
+     */
+    static final String SELECT_EPISODE_STATES = "SELECT "
+            + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + ", "
+            + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + ", "
+            + TABLE_NAME_FEED_ITEMS + "." + KEY_READ + ", "
+            + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + ", "
+            + TABLE_NAME_FEED_ITEMS + "." + KEY_AUTO_DOWNLOAD_ATTEMPTS + ", "
+            + TABLE_NAME_FEED_MEDIA + "." + KEY_ID + ", "
+            + TABLE_NAME_FEED_MEDIA + "." + KEY_DURATION + ", "
+            + TABLE_NAME_FEED_MEDIA + "." + KEY_POSITION + ", "
+            + TABLE_NAME_FEED_MEDIA + "." + KEY_DOWNLOADED + ", "
+            + TABLE_NAME_FEED_MEDIA + "." + KEY_FILE_URL + ", "
+            + TABLE_NAME_FEED_MEDIA + "." + KEY_PLAYBACK_COMPLETION_DATE + ", "
+            + TABLE_NAME_FEED_ITEMS + "." + KEY_ID
+                + " IN (SELECT " + KEY_FEEDITEM + " FROM " + TABLE_NAME_QUEUE + "), "
+            + TABLE_NAME_FEED_ITEMS + "." + KEY_ID
+                + " IN (SELECT " + KEY_FEEDITEM + " FROM " + TABLE_NAME_FAVORITES + ")"
+            + " FROM " + TABLE_NAME_FEED_ITEMS
+            + JOIN_FEED_ITEM_AND_MEDIA;
+
+    private static final String ORDER_BY_PUBDATE_DESC = " ORDER BY " + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE
+            + " DESC, " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + " DESC";
+
     private static Context context;
     private static PodDBAdapter instance;
 
     private final SQLiteDatabase db;
     private final PodDBHelper dbHelper;
+    private Boolean searchIndexAvailable = null;
+    private final Map<String, SQLiteStatement> cachedStatements = new HashMap<>();
 
     public static void init(Context context) {
         PodDBAdapter.context = context.getApplicationContext();
@@ -350,7 +447,7 @@ public class PodDBAdapter {
         SQLiteDatabase newDb;
         try {
             newDb = dbHelper.getWritableDatabase();
-            newDb.disableWriteAheadLogging();
+            setupJournalMode(newDb);
         } catch (SQLException ex) {
             Log.e(TAG, Log.getStackTraceString(ex));
             newDb = dbHelper.getReadableDatabase();
@@ -358,6 +455,45 @@ public class PodDBAdapter {
         return newDb;
     }
 
+    /**
+     * Enables write-ahead-logging if the user opted in. In that mode, SQLiteDatabase uses its primary
+     * connection for the DBWriter executor and hands out connections from a pool of read-only
+     * connections to queries running on other threads, so DBReader calls do not have to wait for
+     * long write transactions like a feed refresh. Switching back is handled by
+     * disableWriteAheadLogging(), which checkpoints the log into the main database file.
+     */
+    private static void setupJournalMode(SQLiteDatabase db) {
+        // Not read through UserPreferences, which is not always initialized when the database is opened
+        boolean useWal = PreferenceManager.getDefaultSharedPreferences(context)
+                .getBoolean(UserPreferences.PREF_DATABASE_WAL, false);
+        if (!useWal) {
+            db.disableWriteAheadLogging();
+            return;
+        }
+        try {
+            if (!db.enableWriteAheadLogging()) {
+                Log.w(TAG, "Unable to enable write-ahead-logging, using rollback journal");
+                db.disableWriteAheadLogging();
+            }
+        } catch (IllegalStateException | SQLException e) {
+            Log.e(TAG, "Unable to enable write-ahead-logging: " + Log.getStackTraceString(e));
+            db.disableWriteAheadLogging();
+        }
+    }
+
+    /**
+     * Transfers all changes from the write-ahead-log to the main database file.
+     * Needs to be called before copying the database file.
+     */
+    public void checkpoint() {
+        if (!db.isWriteAheadLoggingEnabled()) {
+            return;
+        }
+        try (Cursor cursor = db.rawQuery("PRAGMA wal_checkpoint(FULL)", null)) {
+            cursor.moveToFirst();
+        }
+    }
+
     public synchronized PodDBAdapter open() {
         // do nothing
         return this;
@@ -367,6 +503,36 @@ public class PodDBAdapter {
         // do nothing
     }
 
+    /**
+     * Starts a transaction for the writes of a batch, see {@link DBWriteExecutor}.
+     */
+    void beginTransaction() {
+        db.beginTransactionNonExclusive();
+    }
+
+    void setTransactionSuccessful() {
+        db.setTransactionSuccessful();
+    }
+
+    void endTransaction() {
+        db.endTransaction();
+    }
+
+    /**
+     * Returns a compiled statement for the SQL. Statements are compiled on first use and reused afterwards.
+     * Bind and execute the statement while holding its lock.
+     */
+    private SQLiteStatement getCachedStatement(String sql) {
+        synchronized (cachedStatements) {
+            SQLiteStatement statement = cachedStatements.get(sql);
+            if (statement == null) {
+                statement = db.compileStatement(sql);
+                cachedStatements.put(sql, statement);
+            }
+            return statement;
+        }
+    }
+
     /**
      * <p>Resets all database connections to ensure new database connections for
      * the next test case. Call method only for unit tests.</p>
@@ -390,6 +556,8 @@ public class PodDBAdapter {
             for (String tableName : ALL_TABLES) {
                 adapter.db.delete(tableName, "1", null);
             }
+            StatisticsCache.invalidateAll();
+            FeedIndexCache.invalidate();
             return true;
         } finally {
             adapter.close();
@@ -415,6 +583,7 @@ public class PodDBAdapter {
         values.put(KEY_DOWNLOAD_URL, feed.getDownload_url());
         values.put(KEY_DOWNLOADED, feed.isDownloaded());
         values.put(KEY_LASTUPDATE, feed.getLastUpdate());
+        values.put(KEY_ETAG, feed.getEtag());
         values.put(KEY_TYPE, feed.getType());
         values.put(KEY_FEED_IDENTIFIER, feed.getFeedIdentifier());
 
@@ -512,13 +681,17 @@ public class PodDBAdapter {
 
     public void setFeedMediaPlaybackInformation(FeedMedia media) {
         if (media.getId() != 0) {
-            ContentValues values = new ContentValues();
-            values.put(KEY_POSITION, media.getPosition());
-            values.put(KEY_DURATION, media.getDuration());
-            values.put(KEY_PLAYED_DURATION, media.getPlayedDuration());
-            values.put(KEY_LAST_PLAYED_TIME, media.getLastPlayedTime());
-            db.update(TABLE_NAME_FEED_MEDIA, values, KEY_ID + "=?",
-                    new String[]{String.valueOf(media.getId())});
+            SQLiteStatement statement = getCachedStatement("UPDATE " + TABLE_NAME_FEED_MEDIA + " SET "
+                    + KEY_POSITION + "=?, " + KEY_DURATION + "=?, " + KEY_PLAYED_DURATION + "=?, "
+                    + KEY_LAST_PLAYED_TIME + "=? WHERE " + KEY_ID + "=?");
+            synchronized (statement) {
+                statement.bindLong(1, media.getPosition());
+                statement.bindLong(2, media.getDuration());
+                statement.bindLong(3, media.getPlayedDuration());
+                statement.bindLong(4, media.getLastPlayedTime());
+                statement.bindLong(5, media.getId());
+                statement.executeUpdateDelete();
+            }
         } else {
             Log.e(TAG, "setFeedMediaPlaybackInformation: ID of media was 0");
         }
@@ -552,28 +725,167 @@ public class PodDBAdapter {
 
     /**
      * Insert all FeedItems of a feed and the feed object itself in a single
-     * transaction
+     * transaction. Items that track their changes (see {@link FeedItem#startTrackingChanges()})
+     * only have their changed attributes written.
+     *
+     * @return the number of rows that were written for each feed
      */
-    public void setCompleteFeed(Feed... feeds) {
+    public int[] setCompleteFeed(Feed... feeds) {
+        int[] rowsWritten = new int[feeds.length];
+        SparseArray<SQLiteStatement> updateStatements = new SparseArray<>();
         try {
             db.beginTransactionNonExclusive();
-            for (Feed feed : feeds) {
+            for (int i = 0; i < feeds.length; i++) {
+                Feed feed = feeds[i];
                 setFeed(feed);
+                rowsWritten[i]++;
                 if (feed.getItems() != null) {
                     for (FeedItem item : feed.getItems()) {
-                        updateOrInsertFeedItem(item, false);
+                        rowsWritten[i] += writeChangedFeedItem(item, updateStatements);
                     }
                 }
                 if (feed.getPreferences() != null) {
                     setFeedPreferences(feed.getPreferences());
+                    rowsWritten[i]++;
                 }
             }
             db.setTransactionSuccessful();
         } catch (SQLException e) {
             Log.e(TAG, Log.getStackTraceString(e));
         } finally {
+            for (int i = 0; i < updateStatements.size(); i++) {
+                updateStatements.valueAt(i).close();
+            }
             db.endTransaction();
         }
+        return rowsWritten;
+    }
+
+    /**
+     * Writes the attributes of an item that were changed since it started tracking changes.
+     * New items and items that do not track changes are written completely.
+     *
+     * @param updateStatements compiled UPDATE statements, keyed by the changed attributes
+     * @return the number of rows that were written
+     */
+    private int writeChangedFeedItem(FeedItem item, SparseArray<SQLiteStatement> updateStatements) {
+        int changes = item.getChangedAttributes();
+        if (item.getId() == 0 || changes == FeedItem.CHANGED_ALL) {
+            updateOrInsertFeedItem(item, false);
+            return 1 + (item.getMedia() != null ? 1 : 0)
+                    + (item.getChapters() != null ? item.getChapters().size() : 0);
+        }
+        if (item.getDescription() == null) {
+            changes &= ~FeedItem.CHANGED_DESCRIPTION;
+        }
+
+        int rowsWritten = 0;
+        int columnChanges = changes & ~FeedItem.CHANGED_MEDIA;
+        if (columnChanges != 0) {
+            SQLiteStatement statement = updateStatements.get(columnChanges);
+            if (statement == null) {
+                statement = db.compileStatement(buildFeedItemUpdateSql(columnChanges));
+                updateStatements.put(columnChanges, statement);
+            }
+            statement.clearBindings();
+            int numColumns = 0;
+            for (int attribute : TRACKED_ITEM_ATTRIBUTES) {
+                if ((columnChanges & attribute) != 0) {
+                    numColumns++;
+                }
+            }
+            int column = 0;
+            for (int i = 0; i < TRACKED_ITEM_ATTRIBUTES.length; i++) {
+                if ((columnChanges & TRACKED_ITEM_ATTRIBUTES[i]) != 0) {
+                    Object value = getTrackedItemValue(item, TRACKED_ITEM_COLUMNS[i]);
+                    DatabaseUtils.bindObjectToProgram(statement, column + 1, value);
+                    DatabaseUtils.bindObjectToProgram(statement, numColumns + column + 2, value);
+                    column++;
+                }
+            }
+            statement.bindLong(numColumns + 1, item.getId());
+            rowsWritten += statement.executeUpdateDelete();
+        }
+
+        FeedMedia media = item.getMedia();
+        if ((changes & FeedItem.CHANGED_MEDIA) != 0 && media != null) {
+            if (media.getId() == 0) {
+                setMedia(media);
+            } else {
+                // Only the attributes taken from the feed. Playback state might have changed in the meantime.
+                ContentValues values = new ContentValues();
+                values.put(KEY_DOWNLOAD_URL, media.getDownload_url());
+                values.put(KEY_SIZE, media.getSize());
+                values.put(KEY_MIME_TYPE, media.getMime_type());
+                db.update(TABLE_NAME_FEED_MEDIA, values, KEY_ID + "=?",
+                        new String[]{String.valueOf(media.getId())});
+            }
+            rowsWritten++;
+        }
+        if ((changes & FeedItem.CHANGED_CHAPTERS) != 0 && item.getChapters() != null) {
+            setChapters(item);
+            rowsWritten += item.getChapters().size();
+        }
+        return rowsWritten;
+    }
+
+    /**
+     * Builds an UPDATE statement for the given attributes. The row is only touched if at least
+     * one of the values actually differs from the stored one. Bind the new values, the item id,
+     * and the new values again.
+     */
+    private static String buildFeedItemUpdateSql(int attributes) {
+        StringBuilder set = new StringBuilder();
+        StringBuilder differs = new StringBuilder();
+        for (int i = 0; i < TRACKED_ITEM_ATTRIBUTES.length; i++) {
+            if ((attributes & TRACKED_ITEM_ATTRIBUTES[i]) != 0) {
+                if (set.length() > 0) {
+                    set.append(", ");
+                    differs.append(" OR ");
+                }
+                set.append(TRACKED_ITEM_COLUMNS[i]).append("=?");
+                differs.append(TRACKED_ITEM_COLUMNS[i]).append(" IS NOT ?");
+            }
+        }
+        return "UPDATE " + TABLE_NAME_FEED_ITEMS + " SET " + set
+                + " WHERE " + KEY_ID + "=? AND (" + differs + ")";
+    }
+
+    private static Object getTrackedItemValue(FeedItem item, String column) {
+        switch (column) {
+            case KEY_TITLE:
+                return item.getTitle();
+            case KEY_DESCRIPTION:
+                return item.getDescription();
+            case KEY_DESCRIPTION_HASH:
+                // Lets the next refresh compare the hash instead of the description
+                return item.getDescriptionHash();
+            case KEY_LINK:
+                return item.getLink();
+            case KEY_PUBDATE:
+                return item.getPubDate() != null ? item.getPubDate().getTime() : null;
+            case KEY_PAYMENT_LINK:
+                return item.getPaymentLink();
+            case KEY_IMAGE_URL:
+                return item.getImageUrl();
+            case KEY_ITEM_IDENTIFIER:
+                return item.getItemIdentifier();
+            case KEY_READ:
+                if (item.isNew()) {
+                    return (long) FeedItem.NEW;
+                } else if (item.isPlayed()) {
+                    return (long) FeedItem.PLAYED;
+                }
+                return (long) FeedItem.UNPLAYED;
+            case KEY_FEED:
+                return item.getFeed() != null ? item.getFeed().getId() : item.getFeedId();
+            case KEY_AUTO_DOWNLOAD_ATTEMPTS:
+                return item.getAutoDownloadAttemptsAndTime();
+            case KEY_HAS_CHAPTERS:
+                return (item.getChapters() != null || item.hasChapters()) ? 1L : 0L;
+            default:
+                throw new IllegalArgumentException("Unknown column: " + column);
+        }
     }
 
     /**
@@ -599,18 +911,11 @@ public class PodDBAdapter {
         }
     }
 
-    public long setSingleFeedItem(FeedItem item) {
-        long result = 0;
-        try {
-            db.beginTransactionNonExclusive();
-            result = updateOrInsertFeedItem(item, true);
-            db.setTransactionSuccessful();
-        } catch (SQLException e) {
-            Log.e(TAG, Log.getStackTraceString(e));
-        } finally {
-            db.endTransaction();
-        }
-        return result;
+    /**
+     * Inserts or updates a feeditem entry without starting a transaction, see {@link DBWriteExecutor}.
+     */
+    void setFeedItemInTransaction(FeedItem item) {
+        updateOrInsertFeedItem(item, true);
     }
 
     /**
@@ -630,8 +935,10 @@ public class PodDBAdapter {
         ContentValues values = new ContentValues();
         values.put(KEY_TITLE, item.getTitle());
         values.put(KEY_LINK, item.getLink());
-        if (item.getDescription() != null) {
-            values.put(KEY_DESCRIPTION, item.getDescription());
+        String description = item.getDescription();
+        if (description != null) {
+            values.put(KEY_DESCRIPTION, description);
+            values.put(KEY_DESCRIPTION_HASH, item.getDescriptionHash());
         }
         values.put(KEY_PUBDATE, item.getPubDate().getTime());
         values.put(KEY_PAYMENT_LINK, item.getPaymentLink());
@@ -666,49 +973,37 @@ public class PodDBAdapter {
         return item.getId();
     }
 
-    public void setFeedItemRead(int played, long itemId, long mediaId,
-                                boolean resetMediaPosition) {
-        try {
-            db.beginTransactionNonExclusive();
-            ContentValues values = new ContentValues();
-
-            values.put(KEY_READ, played);
-            db.update(TABLE_NAME_FEED_ITEMS, values, KEY_ID + "=?", new String[]{String.valueOf(itemId)});
-
-            if (resetMediaPosition) {
-                values.clear();
-                values.put(KEY_POSITION, 0);
-                db.update(TABLE_NAME_FEED_MEDIA, values, KEY_ID + "=?", new String[]{String.valueOf(mediaId)});
+    /**
+     * Sets the 'read' attribute of the item and optionally resets the position of its media.
+     * Does not start a transaction, see {@link DBWriteExecutor}.
+     */
+    void setFeedItemRead(int played, long itemId, long mediaId, boolean resetMediaPosition) {
+        setFeedItemRead(played, itemId);
+        if (resetMediaPosition) {
+            SQLiteStatement statement = getCachedStatement("UPDATE " + TABLE_NAME_FEED_MEDIA
+                    + " SET " + KEY_POSITION + "=0 WHERE " + KEY_ID + "=?");
+            synchronized (statement) {
+                statement.bindLong(1, mediaId);
+                statement.executeUpdateDelete();
             }
-
-            db.setTransactionSuccessful();
-        } catch (SQLException e) {
-            Log.e(TAG, Log.getStackTraceString(e));
-        } finally {
-            db.endTransaction();
         }
     }
 
     /**
-     * Sets the 'read' attribute of the item.
+     * Sets the 'read' attribute of the item. Does not start a transaction, see {@link DBWriteExecutor}.
      *
      * @param read    must be one of FeedItem.PLAYED, FeedItem.NEW, FeedItem.UNPLAYED
      * @param itemIds items to change the value of
      */
-    public void setFeedItemRead(int read, long... itemIds) {
-        try {
-            db.beginTransactionNonExclusive();
-            ContentValues values = new ContentValues();
+    void setFeedItemRead(int read, long... itemIds) {
+        SQLiteStatement statement = getCachedStatement("UPDATE " + TABLE_NAME_FEED_ITEMS
+                + " SET " + KEY_READ + "=? WHERE " + KEY_ID + "=?");
+        synchronized (statement) {
             for (long id : itemIds) {
-                values.clear();
-                values.put(KEY_READ, read);
-                db.update(TABLE_NAME_FEED_ITEMS, values, KEY_ID + "=?", new String[]{String.valueOf(id)});
+                statement.bindLong(1, read);
+                statement.bindLong(2, id);
+                statement.executeUpdateDelete();
             }
-            db.setTransactionSuccessful();
-        } catch (SQLException e) {
-            Log.e(TAG, Log.getStackTraceString(e));
-        } finally {
-            db.endTransaction();
         }
     }
 
@@ -730,6 +1025,52 @@ public class PodDBAdapter {
         }
     }
 
+    /**
+     * Replaces the chapters that were read from the media file of an item, keeping the chapters of the feed,
+     * and remembers which version of the file they were read from.
+     */
+    public void setMediaFileChapters(FeedMedia media, @Nullable List<Chapter> chapters) {
+        try {
+            db.beginTransactionNonExclusive();
+            setMediaFileChaptersInTransaction(media, chapters);
+            db.setTransactionSuccessful();
+        } catch (SQLException e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Like {@link #setMediaFileChapters}, but does not start a transaction.
+     */
+    void setMediaFileChaptersInTransaction(FeedMedia media, @Nullable List<Chapter> chapters) {
+        FeedItem item = media.getItem();
+        db.delete(TABLE_NAME_SIMPLECHAPTERS, KEY_FEEDITEM + "=? AND " + KEY_CHAPTER_TYPE + " IN (?,?)",
+                new String[]{String.valueOf(item.getId()), String.valueOf(ID3Chapter.CHAPTERTYPE_ID3CHAPTER),
+                        String.valueOf(VorbisCommentChapter.CHAPTERTYPE_VORBISCOMMENT_CHAPTER)});
+        if (chapters != null && !chapters.isEmpty()) {
+            ContentValues values = new ContentValues();
+            for (Chapter chapter : chapters) {
+                values.put(KEY_TITLE, chapter.getTitle());
+                values.put(KEY_START, chapter.getStart());
+                values.put(KEY_FEEDITEM, item.getId());
+                values.put(KEY_LINK, chapter.getLink());
+                values.put(KEY_IMAGE_URL, chapter.getImageUrl());
+                values.put(KEY_CHAPTER_TYPE, chapter.getChapterType());
+                chapter.setId(db.insert(TABLE_NAME_SIMPLECHAPTERS, null, values));
+            }
+            values.clear();
+            values.put(KEY_HAS_CHAPTERS, true);
+            db.update(TABLE_NAME_FEED_ITEMS, values, KEY_ID + "=?", new String[]{String.valueOf(item.getId())});
+        }
+        ContentValues mediaValues = new ContentValues();
+        mediaValues.put(KEY_CHAPTERS_FILE_SIZE, media.getChaptersFileSize());
+        mediaValues.put(KEY_CHAPTERS_FILE_MODIFIED, media.getChaptersFileModified());
+        db.update(TABLE_NAME_FEED_MEDIA, mediaValues, KEY_ID + "=?",
+                new String[]{String.valueOf(media.getId())});
+    }
+
     public void setFeedLastUpdateFailed(long feedId, boolean failed) {
         final String sql = "UPDATE " + TABLE_NAME_FEEDS
                 + " SET " + KEY_LAST_UPDATE_FAILED + "=" + (failed ? "1" : "0")
@@ -737,6 +1078,27 @@ public class PodDBAdapter {
         db.execSQL(sql);
     }
 
+    int getFeedNotModifiedCount(long feedId) {
+        final String query = "SELECT " + KEY_NOT_MODIFIED_COUNT + " FROM " + TABLE_NAME_FEEDS
+                + " WHERE " + KEY_ID + "=" + feedId;
+        try (Cursor c = db.rawQuery(query, null)) {
+            return c.moveToFirst() ? c.getInt(0) : 0;
+        }
+    }
+
+    void setFeedRefreshSchedule(long feedId, long nextRefresh, int notModifiedCount) {
+        ContentValues values = new ContentValues();
+        values.put(KEY_NEXT_REFRESH, nextRefresh);
+        values.put(KEY_NOT_MODIFIED_COUNT, notModifiedCount);
+        db.update(TABLE_NAME_FEEDS, values, KEY_ID + "=?", new String[]{String.valueOf(feedId)});
+    }
+
+    void setFeedLastFullParse(long feedId, long lastFullParse) {
+        ContentValues values = new ContentValues();
+        values.put(KEY_LAST_FULL_PARSE, lastFullParse);
+        db.update(TABLE_NAME_FEEDS, values, KEY_ID + "=?", new String[]{String.valueOf(feedId)});
+    }
+
     void setFeedCustomTitle(long feedId, String customTitle) {
         ContentValues values = new ContentValues();
         values.put(KEY_CUSTOM_TITLE, customTitle);
@@ -982,6 +1344,25 @@ public class PodDBAdapter {
         return db.query(TABLE_NAME_QUEUE, new String[]{KEY_FEEDITEM}, null, null, null, null, KEY_ID + " ASC", null);
     }
 
+    public Cursor getFavoriteIDCursor() {
+        return db.query(TABLE_NAME_FAVORITES, new String[]{KEY_FEEDITEM}, null, null, null, null, null, null);
+    }
+
+    /**
+     * Selects the columns that {@link FeedItem#getIdentifyingValue()} is computed from:
+     * item identifier, title, media download URL and link.
+     */
+    public Cursor getItemIdentifyingValuesCursor(long feedId) {
+        final String query = "SELECT " + TABLE_NAME_FEED_ITEMS + "." + KEY_ITEM_IDENTIFIER + ", "
+                + TABLE_NAME_FEED_ITEMS + "." + KEY_TITLE + ", "
+                + TABLE_NAME_FEED_MEDIA + "." + KEY_DOWNLOAD_URL + ", "
+                + TABLE_NAME_FEED_ITEMS + "." + KEY_LINK
+                + " FROM " + TABLE_NAME_FEED_ITEMS
+                + JOIN_FEED_ITEM_AND_MEDIA
+                + " WHERE " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" + feedId;
+        return db.rawQuery(query, null);
+    }
+
     public Cursor getNextInQueue(final FeedItem item) {
         final String query = SELECT_FEED_ITEMS_AND_MEDIA
                 + "INNER JOIN " + TABLE_NAME_QUEUE
@@ -995,14 +1376,40 @@ public class PodDBAdapter {
     }
 
     public final Cursor getFavoritesCursor(int offset, int limit) {
+        return getFavoritesCursor(null, " LIMIT " + offset + ", " + limit);
+    }
+
+    /**
+     * Returns a cursor with the favorite items that come after the given item, as returned by the previous page.
+     *
+     * @param after The last item of the previous page, or null for the first page
+     */
+    public final Cursor getFavoritesCursor(@Nullable FeedItem after, int limit) {
+        return getFavoritesCursor(after, " LIMIT " + limit);
+    }
+
+    private Cursor getFavoritesCursor(@Nullable FeedItem after, String limitClause) {
         final String query = SELECT_FEED_ITEMS_AND_MEDIA
                 + " INNER JOIN " + TABLE_NAME_FAVORITES
                 + " ON " + SELECT_KEY_ITEM_ID + " = " + TABLE_NAME_FAVORITES + "." + KEY_FEEDITEM
-                + " ORDER BY " + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + " DESC"
-                + " LIMIT " + offset + ", " + limit;
+                + (after != null ? " WHERE " + afterItemCondition(after) : "")
+                + ORDER_BY_PUBDATE_DESC + limitClause;
         return db.rawQuery(query, null);
     }
 
+    /**
+     * Selects the items that come after the given item when ordering by pubDate and id, both descending.
+     * Unlike an OFFSET, this seeks directly to the position using the pubDate index,
+     * so later pages are as cheap to load as the first one.
+     */
+    private static String afterItemCondition(@NonNull FeedItem item) {
+        long pubDate = item.getPubDate() != null ? item.getPubDate().getTime() : 0;
+        String pubDateColumn = TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE;
+        return pubDateColumn + " <= " + pubDate
+                + " AND (" + pubDateColumn + " < " + pubDate
+                + " OR " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + " < " + item.getId() + ")";
+    }
+
     public void setFeedItems(int state) {
         setFeedItems(Integer.MIN_VALUE, state, 0);
     }
@@ -1033,21 +1440,52 @@ public class PodDBAdapter {
      * The returned cursor uses the FEEDITEM_SEL_FI_SMALL selection.
      */
     public final Cursor getNewItemsCursor(int offset, int limit) {
+        return getNewItemsCursor(null, " LIMIT " + offset + ", " + limit);
+    }
+
+    /**
+     * Returns a cursor with the new items that come after the given item, as returned by the previous page.
+     *
+     * @param after The last item of the previous page, or null for the first page
+     */
+    public final Cursor getNewItemsCursor(@Nullable FeedItem after, int limit) {
+        return getNewItemsCursor(after, " LIMIT " + limit);
+    }
+
+    private Cursor getNewItemsCursor(@Nullable FeedItem after, String limitClause) {
         final String query = SELECT_FEED_ITEMS_AND_MEDIA
                 + " INNER JOIN " + TABLE_NAME_FEEDS
                 + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" + TABLE_NAME_FEEDS + "." + KEY_ID
                 + " WHERE " + TABLE_NAME_FEED_ITEMS + "." + KEY_READ + "=" + FeedItem.NEW
                     + " AND " + TABLE_NAME_FEEDS + "." + KEY_KEEP_UPDATED + " > 0"
-                + " ORDER BY " + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + " DESC"
-                + " LIMIT " + offset + ", " + limit;
+                    + (after != null ? " AND " + afterItemCondition(after) : "")
+                + ORDER_BY_PUBDATE_DESC + limitClause;
         return db.rawQuery(query, null);
     }
 
     public final Cursor getRecentlyPublishedItemsCursor(int offset, int limit, FeedItemFilter filter) {
+        return getRecentlyPublishedItemsCursor(null, " LIMIT " + offset + ", " + limit, filter);
+    }
+
+    /**
+     * Returns a cursor with the items that come after the given item, as returned by the previous page.
+     *
+     * @param after The last item of the previous page, or null for the first page
+     */
+    public final Cursor getRecentlyPublishedItemsCursor(@Nullable FeedItem after, int limit, FeedItemFilter filter) {
+        return getRecentlyPublishedItemsCursor(after, " LIMIT " + limit, filter);
+    }
+
+    private Cursor getRecentlyPublishedItemsCursor(@Nullable FeedItem after, String limitClause,
+                                                   FeedItemFilter filter) {
         String filterQuery = FeedItemFilterQuery.generateFrom(filter);
+        if (after != null) {
+            filterQuery = "".equals(filterQuery) ? afterItemCondition(after)
+                    : "(" + filterQuery + ") AND " + afterItemCondition(after);
+        }
         String whereClause = "".equals(filterQuery) ? "" : " WHERE " + filterQuery;
         final String query = SELECT_FEED_ITEMS_AND_MEDIA + whereClause
-                + " ORDER BY " + KEY_PUBDATE + " DESC LIMIT " + offset + ", " + limit;
+                + ORDER_BY_PUBDATE_DESC + limitClause;
         return db.rawQuery(query, null);
     }
 
@@ -1057,6 +1495,42 @@ public class PodDBAdapter {
         return db.rawQuery(query, null);
     }
 
+    /**
+     * Returns the states of the episodes whose media is downloaded, newest first.
+     * See {@link #SELECT_EPISODE_STATES}.
+     */
+    public Cursor getDownloadedEpisodeStatesCursor() {
+        final String query = SELECT_EPISODE_STATES
+                + "WHERE " + TABLE_NAME_FEED_MEDIA + "." + KEY_DOWNLOADED + " > 0"
+                + ORDER_BY_PUBDATE_DESC;
+        return db.rawQuery(query, null);
+    }
+
+    /**
+     * Returns the states of the episodes in the queue in queue order, see {@link #SELECT_EPISODE_STATES}.
+     */
+    public Cursor getQueueEpisodeStatesCursor() {
+        final String query = SELECT_EPISODE_STATES
+                + " INNER JOIN " + TABLE_NAME_QUEUE
+                + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + " = " + TABLE_NAME_QUEUE + "." + KEY_FEEDITEM
+                + " ORDER BY " + TABLE_NAME_QUEUE + "." + KEY_ID;
+        return db.rawQuery(query, null);
+    }
+
+    /**
+     * Returns the states of the new episodes of feeds that are kept updated, newest first.
+     * See {@link #SELECT_EPISODE_STATES}.
+     */
+    public Cursor getNewEpisodeStatesCursor() {
+        final String query = SELECT_EPISODE_STATES
+                + " INNER JOIN " + TABLE_NAME_FEEDS
+                + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" + TABLE_NAME_FEEDS + "." + KEY_ID
+                + " WHERE " + TABLE_NAME_FEED_ITEMS + "." + KEY_READ + "=" + FeedItem.NEW
+                + " AND " + TABLE_NAME_FEEDS + "." + KEY_KEEP_UPDATED + " > 0"
+                + ORDER_BY_PUBDATE_DESC;
+        return db.rawQuery(query, null);
+    }
+
     public Cursor getPlayedItemsCursor() {
         final String query = SELECT_FEED_ITEMS_AND_MEDIA
                 + "WHERE " + TABLE_NAME_FEED_ITEMS + "." + KEY_READ + "=" + FeedItem.PLAYED;
@@ -1145,15 +1619,10 @@ public class PodDBAdapter {
     }
 
     public final int getNumberOfNewItems() {
-        Object[] args = new String[]{
-                TABLE_NAME_FEED_ITEMS + "." + KEY_ID,
-                TABLE_NAME_FEED_ITEMS,
-                TABLE_NAME_FEEDS,
-                TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" + TABLE_NAME_FEEDS + "." + KEY_ID,
-                TABLE_NAME_FEED_ITEMS + "." + KEY_READ + "=" + FeedItem.NEW
-                        + " AND " + TABLE_NAME_FEEDS + "." + KEY_KEEP_UPDATED + " > 0"
-        };
-        final String query = String.format("SELECT COUNT(%s) FROM %s INNER JOIN %s ON %s WHERE %s", args);
+        final String query = "SELECT SUM(" + TABLE_NAME_FEED_COUNTERS + "." + KEY_NEW_COUNT + ")"
+                + " FROM " + TABLE_NAME_FEED_COUNTERS + " INNER JOIN " + TABLE_NAME_FEEDS
+                + " ON " + TABLE_NAME_FEED_COUNTERS + "." + KEY_FEED + "=" + TABLE_NAME_FEEDS + "." + KEY_ID
+                + " WHERE " + TABLE_NAME_FEEDS + "." + KEY_KEEP_UPDATED + " > 0";
         Cursor c = db.rawQuery(query, null);
         int result = 0;
         if (c.moveToFirst()) {
@@ -1170,30 +1639,32 @@ public class PodDBAdapter {
     }
 
     public final LongIntMap getFeedCounters(int setting, long... feedIds) {
-        String whereRead;
+        String counter;
         switch (setting) {
             case UserPreferences.FEED_COUNTER_SHOW_NEW_UNPLAYED_SUM:
-                whereRead = "(" + KEY_READ + "=" + FeedItem.NEW +
-                        " OR " + KEY_READ + "=" + FeedItem.UNPLAYED + ")";
+                counter = KEY_NEW_COUNT + " + " + KEY_UNPLAYED_COUNT;
                 break;
             case UserPreferences.FEED_COUNTER_SHOW_NEW:
-                whereRead = KEY_READ + "=" + FeedItem.NEW;
+                counter = KEY_NEW_COUNT;
                 break;
             case UserPreferences.FEED_COUNTER_SHOW_UNPLAYED:
-                whereRead = KEY_READ + "=" + FeedItem.UNPLAYED;
+                counter = KEY_UNPLAYED_COUNT;
                 break;
             case UserPreferences.FEED_COUNTER_SHOW_DOWNLOADED:
-                whereRead = KEY_DOWNLOADED + "=1";
+                counter = KEY_DOWNLOADED_COUNT;
                 break;
             case UserPreferences.FEED_COUNTER_SHOW_NONE:
                 // deliberate fall-through
             default: // NONE
                 return new LongIntMap(0);
         }
-        return conditionalFeedCounterRead(whereRead, feedIds);
+        return conditionalFeedCounterRead(counter, feedIds);
     }
 
-    private LongIntMap conditionalFeedCounterRead(String whereRead, long... feedIds) {
+    /**
+     * Reads a counter from the materialized feed counters table. Feeds with a count of 0 are not included.
+     */
+    private LongIntMap conditionalFeedCounterRead(String counter, long... feedIds) {
         String limitFeeds = "";
         if (feedIds.length > 0) {
             // work around TextUtils.join wanting only boxed items
@@ -1208,12 +1679,9 @@ public class PodDBAdapter {
             limitFeeds = KEY_FEED + " IN (" + builder.toString() + ") AND ";
         }
 
-        final String query = "SELECT " + KEY_FEED + ", COUNT(" + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + ") AS count "
-                + " FROM " + TABLE_NAME_FEED_ITEMS
-                + " LEFT JOIN " + TABLE_NAME_FEED_MEDIA + " ON "
-                + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + "=" + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM
-                + " WHERE " + limitFeeds + " "
-                + whereRead + " GROUP BY " + KEY_FEED;
+        final String query = "SELECT " + KEY_FEED + ", " + counter + " AS count"
+                + " FROM " + TABLE_NAME_FEED_COUNTERS
+                + " WHERE " + limitFeeds + counter + " > 0";
 
         Cursor c = db.rawQuery(query, null);
         LongIntMap result = new LongIntMap(c.getCount());
@@ -1229,15 +1697,12 @@ public class PodDBAdapter {
     }
 
     public final LongIntMap getPlayedEpisodesCounters(long... feedIds) {
-        String whereRead = KEY_READ + "=" + FeedItem.PLAYED;
-        return conditionalFeedCounterRead(whereRead, feedIds);
+        return conditionalFeedCounterRead(KEY_PLAYED_COUNT, feedIds);
     }
 
     public final Map<Long, Long> getMostRecentItemDates() {
-        final String query = "SELECT " + KEY_FEED + ","
-                + " MAX(" + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + ") AS most_recent_pubdate"
-                + " FROM " + TABLE_NAME_FEED_ITEMS
-                + " GROUP BY " + KEY_FEED;
+        final String query = "SELECT " + KEY_FEED + ", " + KEY_MOST_RECENT_PUBDATE
+                + " FROM " + TABLE_NAME_FEED_COUNTERS;
 
         Cursor c = db.rawQuery(query, null);
         Map<Long, Long> result = new HashMap<>();
@@ -1252,9 +1717,66 @@ public class PodDBAdapter {
         return result;
     }
 
+    /**
+     * @return The publication dates of the most recent items of the feed, newest first
+     */
+    public final long[] getRecentItemPubDates(long feedId, int limit) {
+        final String query = "SELECT " + KEY_PUBDATE + " FROM " + TABLE_NAME_FEED_ITEMS
+                + " WHERE " + KEY_FEED + "=" + feedId + " AND " + KEY_PUBDATE + " > 0"
+                + " ORDER BY " + KEY_PUBDATE + " DESC LIMIT " + limit;
+        try (Cursor c = db.rawQuery(query, null)) {
+            long[] result = new long[c.getCount()];
+            for (int i = 0; c.moveToNext(); i++) {
+                result[i] = c.getLong(0);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Returns a cursor with the statistics of the episodes of each feed, computed in a single query.
+     * Times are in seconds. The download size is taken from the stored file size.
+     * Columns: feed id, total time, played time, played time counting all played episodes, episodes,
+     * episodes started, episodes started including marked as played, download size, downloaded episodes.
+     *
+     * @param feedIds The feeds to compute, or null to compute all feeds
+     */
+    public final Cursor getFeedStatisticsCursor(@Nullable long[] feedIds) {
+        final String item = TABLE_NAME_FEED_ITEMS + ".";
+        final String media = TABLE_NAME_FEED_MEDIA + ".";
+        final String isPlayed = item + KEY_READ + " = " + FeedItem.PLAYED;
+        final String isDownloaded = media + KEY_DOWNLOADED + " > 0";
+        String query = "SELECT " + item + KEY_FEED + ", "
+                + "SUM(" + media + KEY_DURATION + " / 1000), "
+                + "SUM(" + media + KEY_PLAYED_DURATION + " / 1000), "
+                + "SUM(CASE WHEN " + isPlayed + " THEN " + media + KEY_DURATION
+                    + " ELSE " + media + KEY_POSITION + " END / 1000), "
+                + "COUNT(*), "
+                + "SUM(CASE WHEN " + media + KEY_PLAYBACK_COMPLETION_DATE + " > 0"
+                    + " OR " + media + KEY_PLAYED_DURATION + " > 0 THEN 1 ELSE 0 END), "
+                + "SUM(CASE WHEN " + isPlayed + " OR " + media + KEY_POSITION + " != 0 THEN 1 ELSE 0 END), "
+                + "SUM(CASE WHEN " + isDownloaded + " AND " + media + KEY_SIZE + " > 0"
+                    + " THEN " + media + KEY_SIZE + " ELSE 0 END), "
+                + "SUM(CASE WHEN " + isDownloaded + " THEN 1 ELSE 0 END)"
+                + " FROM " + TABLE_NAME_FEED_ITEMS
+                + " INNER JOIN " + TABLE_NAME_FEED_MEDIA
+                + " ON " + item + KEY_ID + " = " + media + KEY_FEEDITEM;
+        if (feedIds != null) {
+            StringBuilder ids = new StringBuilder();
+            for (long feedId : feedIds) {
+                if (ids.length() > 0) {
+                    ids.append(",");
+                }
+                ids.append(feedId);
+            }
+            query += " WHERE " + item + KEY_FEED + " IN (" + ids + ")";
+        }
+        query += " GROUP BY " + item + KEY_FEED;
+        return db.rawQuery(query, null);
+    }
+
     public final int getNumberOfDownloadedEpisodes() {
-        final String query = "SELECT COUNT(DISTINCT " + KEY_ID + ") AS count FROM " + TABLE_NAME_FEED_MEDIA +
-                " WHERE " + KEY_DOWNLOADED + " > 0";
+        final String query = "SELECT SUM(" + KEY_DOWNLOADED_COUNT + ") FROM " + TABLE_NAME_FEED_COUNTERS;
 
         Cursor c = db.rawQuery(query, null);
         int result = 0;
@@ -1265,6 +1787,245 @@ public class PodDBAdapter {
         return result;
     }
 
+    /**
+     * Creates the materialized feed counters, fills them and creates the triggers that keep them up to date.
+     * The triggers run within the transaction of each write, so the counters never disagree with
+     * the episodes, no matter which DBWriter method changed them.
+     */
+    static void createFeedCounters(SQLiteDatabase db) {
+        final String item = TABLE_NAME_FEED_ITEMS + "_";
+        final String media = TABLE_NAME_FEED_MEDIA + "_";
+        final String prefix = "CREATE TRIGGER " + TABLE_NAME_FEED_COUNTERS + "_";
+        final String feedOfNewMedia = feedOfItem("new." + KEY_FEEDITEM);
+        final String feedOfOldMedia = feedOfItem("old." + KEY_FEEDITEM);
+        final String downloadedMediaOfOldItem = "(SELECT COUNT(*) FROM " + TABLE_NAME_FEED_MEDIA
+                + " WHERE " + KEY_FEEDITEM + " = old." + KEY_ID + " AND " + KEY_DOWNLOADED + " > 0)";
+        final String downloadedMediaOfNewItem = "(SELECT COUNT(*) FROM " + TABLE_NAME_FEED_MEDIA
+                + " WHERE " + KEY_FEEDITEM + " = new." + KEY_ID + " AND " + KEY_DOWNLOADED + " > 0)";
+
+        db.execSQL(CREATE_TABLE_FEED_COUNTERS);
+        db.execSQL(CREATE_INDEX_FEEDITEMS_FEED_PUBDATE);
+        fillFeedCounters(db);
+
+        db.execSQL(prefix + item + "ai AFTER INSERT ON " + TABLE_NAME_FEED_ITEMS + " BEGIN "
+                + ensureFeedCounters("new." + KEY_FEED)
+                + changeReadCounters("new." + KEY_FEED, "new." + KEY_READ, "+")
+                + "UPDATE " + TABLE_NAME_FEED_COUNTERS + " SET " + KEY_MOST_RECENT_PUBDATE
+                + " = MAX(" + KEY_MOST_RECENT_PUBDATE + ", IFNULL(new." + KEY_PUBDATE + ", 0))"
+                + " WHERE " + KEY_FEED + " = new." + KEY_FEED + "; END");
+        db.execSQL(prefix + item + "ad AFTER DELETE ON " + TABLE_NAME_FEED_ITEMS + " BEGIN "
+                + changeReadCounters("old." + KEY_FEED, "old." + KEY_READ, "-")
+                + changeDownloadedCounter("old." + KEY_FEED, "- " + downloadedMediaOfOldItem)
+                + updateMostRecentPubDate("old." + KEY_FEED) + " END");
+        db.execSQL(prefix + item + "au_read AFTER UPDATE OF " + KEY_READ + ", " + KEY_FEED
+                + " ON " + TABLE_NAME_FEED_ITEMS
+                + " WHEN old." + KEY_READ + " IS NOT new." + KEY_READ
+                + " OR old." + KEY_FEED + " IS NOT new." + KEY_FEED + " BEGIN "
+                + changeReadCounters("old." + KEY_FEED, "old." + KEY_READ, "-")
+                + ensureFeedCounters("new." + KEY_FEED)
+                + changeReadCounters("new." + KEY_FEED, "new." + KEY_READ, "+") + " END");
+        db.execSQL(prefix + item + "au_feed AFTER UPDATE OF " + KEY_FEED + " ON " + TABLE_NAME_FEED_ITEMS
+                + " WHEN old." + KEY_FEED + " IS NOT new." + KEY_FEED + " BEGIN "
+                + changeDownloadedCounter("old." + KEY_FEED, "- " + downloadedMediaOfNewItem)
+                + changeDownloadedCounter("new." + KEY_FEED, "+ " + downloadedMediaOfNewItem)
+                + updateMostRecentPubDate("new." + KEY_FEED) + " END");
+        db.execSQL(prefix + item + "au_pubdate AFTER UPDATE OF " + KEY_PUBDATE + ", " + KEY_FEED
+                + " ON " + TABLE_NAME_FEED_ITEMS
+                + " WHEN old." + KEY_PUBDATE + " IS NOT new." + KEY_PUBDATE
+                + " OR old." + KEY_FEED + " IS NOT new." + KEY_FEED + " BEGIN "
+                + updateMostRecentPubDate("old." + KEY_FEED) + " END");
+        db.execSQL(prefix + media + "ai AFTER INSERT ON " + TABLE_NAME_FEED_MEDIA
+                + " WHEN new." + KEY_DOWNLOADED + " > 0 BEGIN "
+                + changeDownloadedCounter(feedOfNewMedia, "+ 1") + " END");
+        db.execSQL(prefix + media + "ad AFTER DELETE ON " + TABLE_NAME_FEED_MEDIA
+                + " WHEN old." + KEY_DOWNLOADED + " > 0 BEGIN "
+                + changeDownloadedCounter(feedOfOldMedia, "- 1") + " END");
+        db.execSQL(prefix + media + "au AFTER UPDATE OF " + KEY_DOWNLOADED + ", " + KEY_FEEDITEM
+                + " ON " + TABLE_NAME_FEED_MEDIA
+                + " WHEN (IFNULL(old." + KEY_DOWNLOADED + ", 0) > 0) != (IFNULL(new." + KEY_DOWNLOADED + ", 0) > 0)"
+                + " OR old." + KEY_FEEDITEM + " IS NOT new." + KEY_FEEDITEM + " BEGIN "
+                + changeDownloadedCounter(feedOfOldMedia, "- (IFNULL(old." + KEY_DOWNLOADED + ", 0) > 0)")
+                + changeDownloadedCounter(feedOfNewMedia, "+ (IFNULL(new." + KEY_DOWNLOADED + ", 0) > 0)")
+                + " END");
+        db.execSQL(prefix + TABLE_NAME_FEEDS + "_ad AFTER DELETE ON " + TABLE_NAME_FEEDS + " BEGIN "
+                + "DELETE FROM " + TABLE_NAME_FEED_COUNTERS + " WHERE " + KEY_FEED + " = old." + KEY_ID + "; END");
+    }
+
+    private static String feedOfItem(String itemId) {
+        return "(SELECT " + KEY_FEED + " FROM " + TABLE_NAME_FEED_ITEMS + " WHERE " + KEY_ID + " = " + itemId + ")";
+    }
+
+    private static String ensureFeedCounters(String feedId) {
+        return "INSERT OR IGNORE INTO " + TABLE_NAME_FEED_COUNTERS + " (" + KEY_FEED + ") VALUES (" + feedId + "); ";
+    }
+
+    private static String changeReadCounters(String feedId, String read, String sign) {
+        return "UPDATE " + TABLE_NAME_FEED_COUNTERS + " SET "
+                + KEY_NEW_COUNT + " = " + KEY_NEW_COUNT + " " + sign + " (" + read + " = " + FeedItem.NEW + "), "
+                + KEY_UNPLAYED_COUNT + " = " + KEY_UNPLAYED_COUNT + " " + sign
+                    + " (" + read + " = " + FeedItem.UNPLAYED + "), "
+                + KEY_PLAYED_COUNT + " = " + KEY_PLAYED_COUNT + " " + sign + " (" + read + " = " + FeedItem.PLAYED + ")"
+                + " WHERE " + KEY_FEED + " = " + feedId + "; ";
+    }
+
+    private static String changeDownloadedCounter(String feedId, String change) {
+        return "UPDATE " + TABLE_NAME_FEED_COUNTERS + " SET " + KEY_DOWNLOADED_COUNT + " = "
+                + KEY_DOWNLOADED_COUNT + " " + change + " WHERE " + KEY_FEED + " = " + feedId + "; ";
+    }
+
+    private static String updateMostRecentPubDate(String feedId) {
+        return "UPDATE " + TABLE_NAME_FEED_COUNTERS + " SET " + KEY_MOST_RECENT_PUBDATE + " = IFNULL(("
+                + "SELECT MAX(" + KEY_PUBDATE + ") FROM " + TABLE_NAME_FEED_ITEMS
+                + " WHERE " + KEY_FEED + " = " + feedId + "), 0) WHERE " + KEY_FEED + " = " + feedId + ";";
+    }
+
+    /**
+     * Query that computes the feed counters from scratch.
+     */
+    private static final String SELECT_FEED_COUNTERS = "SELECT " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + ", "
+            + "SUM(" + KEY_READ + " = " + FeedItem.NEW + "), "
+            + "SUM(" + KEY_READ + " = " + FeedItem.UNPLAYED + "), "
+            + "SUM(" + KEY_READ + " = " + FeedItem.PLAYED + "), "
+            + "SUM(IFNULL(" + TABLE_NAME_FEED_MEDIA + "." + KEY_DOWNLOADED + ", 0) > 0), "
+            + "IFNULL(MAX(" + KEY_PUBDATE + "), 0)"
+            + " FROM " + TABLE_NAME_FEED_ITEMS
+            + " LEFT JOIN " + TABLE_NAME_FEED_MEDIA + " ON "
+            + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + "=" + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM
+            + " GROUP BY " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED;
+
+    private static void fillFeedCounters(SQLiteDatabase db) {
+        db.execSQL("DELETE FROM " + TABLE_NAME_FEED_COUNTERS);
+        db.execSQL("INSERT INTO " + TABLE_NAME_FEED_COUNTERS + " (" + KEY_FEED + ", " + KEY_NEW_COUNT + ", "
+                + KEY_UNPLAYED_COUNT + ", " + KEY_PLAYED_COUNT + ", " + KEY_DOWNLOADED_COUNT + ", "
+                + KEY_MOST_RECENT_PUBDATE + ") " + SELECT_FEED_COUNTERS);
+    }
+
+    /**
+     * Compares the materialized feed counters with counters computed from the episodes
+     * and rebuilds them if they do not match.
+     *
+     * @return true if the counters needed to be repaired
+     */
+    public boolean repairFeedCounters() {
+        Map<Long, String> expected = new HashMap<>();
+        try (Cursor cursor = db.rawQuery(SELECT_FEED_COUNTERS, null)) {
+            while (cursor.moveToNext()) {
+                expected.put(cursor.getLong(0), feedCountersToString(cursor));
+            }
+        }
+        int mismatches = 0;
+        try (Cursor cursor = db.rawQuery("SELECT " + KEY_FEED + ", " + KEY_NEW_COUNT + ", " + KEY_UNPLAYED_COUNT
+                + ", " + KEY_PLAYED_COUNT + ", " + KEY_DOWNLOADED_COUNT + ", " + KEY_MOST_RECENT_PUBDATE
+                + " FROM " + TABLE_NAME_FEED_COUNTERS, null)) {
+            while (cursor.moveToNext()) {
+                String expectedCounters = expected.remove(cursor.getLong(0));
+                String counters = feedCountersToString(cursor);
+                // Feeds without episodes do not need a row, but one with zeros is fine
+                if (expectedCounters == null ? !"0 0 0 0 0".equals(counters) : !expectedCounters.equals(counters)) {
+                    mismatches++;
+                }
+            }
+        }
+        mismatches += expected.size();
+        if (mismatches == 0) {
+            return false;
+        }
+        Log.w(TAG, "Repairing feed counters of " + mismatches + " feeds");
+        try {
+            db.beginTransactionNonExclusive();
+            fillFeedCounters(db);
+            db.setTransactionSuccessful();
+        } catch (SQLException e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+        } finally {
+            db.endTransaction();
+        }
+        return true;
+    }
+
+    private static String feedCountersToString(Cursor cursor) {
+        return cursor.getLong(1) + " " + cursor.getLong(2) + " " + cursor.getLong(3)
+                + " " + cursor.getLong(4) + " " + cursor.getLong(5);
+    }
+
+    /**
+     * Creates the full-text search index, the triggers that keep it up to date,
+     * and fills it with the existing items and feeds.
+     * If SQLite was built without FTS4, search falls back to LIKE queries.
+     */
+    static void createSearchIndex(SQLiteDatabase db) {
+        // Called within the transaction of onCreate/onUpgrade. A nested transaction would roll back
+        // the whole upgrade if FTS4 is not available.
+        try {
+            createSearchTable(db, TABLE_NAME_FEED_ITEMS_SEARCH, TABLE_NAME_FEED_ITEMS, FEED_ITEMS_SEARCH_COLUMNS);
+            createSearchTable(db, TABLE_NAME_FEEDS_SEARCH, TABLE_NAME_FEEDS, FEEDS_SEARCH_COLUMNS);
+        } catch (SQLException e) {
+            Log.e(TAG, "Unable to create search index: " + Log.getStackTraceString(e));
+        }
+    }
+
+    private static void createSearchTable(SQLiteDatabase db, String searchTable,
+                                          String contentTable, String[] columns) {
+        String columnList = TextUtils.join(", ", columns);
+        StringBuilder newValues = new StringBuilder("new." + KEY_ID);
+        for (String column : columns) {
+            newValues.append(", new.").append(column);
+        }
+        String deleteOld = " BEGIN DELETE FROM " + searchTable + " WHERE docid = old." + KEY_ID + "; END";
+        String insertNew = " BEGIN INSERT INTO " + searchTable + "(docid, " + columnList + ")"
+                + " VALUES (" + newValues + "); END";
+
+        db.execSQL("CREATE VIRTUAL TABLE " + searchTable + " USING fts4("
+                + columnList + ", content=\"" + contentTable + "\")");
+        db.execSQL("CREATE TRIGGER " + searchTable + "_bu BEFORE UPDATE OF " + columnList
+                + " ON " + contentTable + deleteOld);
+        db.execSQL("CREATE TRIGGER " + searchTable + "_bd BEFORE DELETE ON " + contentTable + deleteOld);
+        db.execSQL("CREATE TRIGGER " + searchTable + "_au AFTER UPDATE OF " + columnList
+                + " ON " + contentTable + insertNew);
+        db.execSQL("CREATE TRIGGER " + searchTable + "_ai AFTER INSERT ON " + contentTable + insertNew);
+        db.execSQL("INSERT INTO " + searchTable + "(" + searchTable + ") VALUES('rebuild')");
+    }
+
+    private boolean isSearchIndexAvailable() {
+        if (searchIndexAvailable == null) {
+            try (Cursor cursor = db.rawQuery("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?",
+                    new String[]{TABLE_NAME_FEED_ITEMS_SEARCH})) {
+                searchIndexAvailable = cursor.moveToFirst();
+            }
+        }
+        return searchIndexAvailable;
+    }
+
+    /**
+     * Converts the words of a search query to an FTS query that matches all words as prefixes.
+     *
+     * @return The FTS query or null if the query does not contain any words
+     */
+    @Nullable
+    static String prepareFullTextQuery(String query) {
+        StringBuilder sb = new StringBuilder();
+        for (String word : query.split("\\s+")) {
+            word = word.replace("\"", "");
+            if (!containsLetterOrDigit(word)) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append(" ");
+            }
+            sb.append("\"").append(word).append("*\"");
+        }
+        return sb.length() == 0 ? null : sb.toString();
+    }
+
+    private static boolean containsLetterOrDigit(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.isLetterOrDigit(word.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Uses DatabaseUtils to escape a search query and removes ' at the
      * beginning and the end of the string returned by the escape method.
@@ -1284,11 +2045,34 @@ public class PodDBAdapter {
 
     /**
      * Searches for the given query in various values of all items or the items
-     * of a specified feed.
+     * of a specified feed. Items matching in the title are returned first.
      *
      * @return A cursor with all search results in SEL_FI_EXTRA selection.
      */
     public Cursor searchItems(long feedID, String searchQuery) {
+        String ftsQuery = prepareFullTextQuery(searchQuery);
+        if (ftsQuery != null && isSearchIndexAvailable()) {
+            String feedFilter = "";
+            if (feedID != 0) {
+                feedFilter = " AND " + KEY_FEED + " = " + feedID;
+            }
+            String query = SELECT_FEED_ITEMS_AND_MEDIA_WITH_DESCRIPTION
+                    + " WHERE " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + " IN ("
+                    + "SELECT docid FROM " + TABLE_NAME_FEED_ITEMS_SEARCH
+                    + " WHERE " + TABLE_NAME_FEED_ITEMS_SEARCH + " MATCH ?)" + feedFilter
+                    + " ORDER BY " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + " IN ("
+                    + "SELECT docid FROM " + TABLE_NAME_FEED_ITEMS_SEARCH
+                    + " WHERE " + KEY_TITLE + " MATCH ?) DESC, " + KEY_PUBDATE + " DESC LIMIT 300";
+            try {
+                return db.rawQuery(query, new String[]{ftsQuery, ftsQuery});
+            } catch (SQLException e) {
+                Log.e(TAG, "Full-text search failed, using LIKE: " + Log.getStackTraceString(e));
+            }
+        }
+        return searchItemsLike(feedID, searchQuery);
+    }
+
+    private Cursor searchItemsLike(long feedID, String searchQuery) {
         String[] queryWords = prepareSearchQuery(searchQuery);
 
         String queryFeedId;
@@ -1324,10 +2108,31 @@ public class PodDBAdapter {
 
     /**
      * Searches for the given query in various values of all feeds.
+     * Feeds matching in the title are returned first.
      *
      * @return A cursor with all search results in SEL_FI_EXTRA selection.
      */
     public Cursor searchFeeds(String searchQuery) {
+        String ftsQuery = prepareFullTextQuery(searchQuery);
+        if (ftsQuery != null && isSearchIndexAvailable()) {
+            String query = "SELECT * FROM " + TABLE_NAME_FEEDS
+                    + " WHERE " + KEY_ID + " IN (SELECT docid FROM " + TABLE_NAME_FEEDS_SEARCH
+                    + " WHERE " + TABLE_NAME_FEEDS_SEARCH + " MATCH ?)"
+                    + " ORDER BY " + KEY_ID + " IN (SELECT docid FROM " + TABLE_NAME_FEEDS_SEARCH
+                    + " WHERE " + KEY_TITLE + " MATCH ?"
+                    + " UNION SELECT docid FROM " + TABLE_NAME_FEEDS_SEARCH
+                    + " WHERE " + KEY_CUSTOM_TITLE + " MATCH ?) DESC, "
+                    + KEY_TITLE + " ASC LIMIT 300";
+            try {
+                return db.rawQuery(query, new String[]{ftsQuery, ftsQuery, ftsQuery});
+            } catch (SQLException e) {
+                Log.e(TAG, "Full-text search failed, using LIKE: " + Log.getStackTraceString(e));
+            }
+        }
+        return searchFeedsLike(searchQuery);
+    }
+
+    private Cursor searchFeedsLike(String searchQuery) {
         String[] queryWords = prepareSearchQuery(searchQuery);
 
         String queryStart = "SELECT * FROM " + TABLE_NAME_FEEDS + " WHERE ";
@@ -1417,6 +2222,8 @@ public class PodDBAdapter {
             db.execSQL(CREATE_INDEX_FEEDMEDIA_FEEDITEM);
             db.execSQL(CREATE_INDEX_QUEUE_FEEDITEM);
             db.execSQL(CREATE_INDEX_SIMPLECHAPTERS_FEEDITEM);
+            createSearchIndex(db);
+            createFeedCounters(db);
         }
 
         @Override
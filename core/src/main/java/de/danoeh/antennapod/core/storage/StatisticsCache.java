@@ -0,0 +1,84 @@
+package de.danoeh.antennapod.core.storage;
+
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import de.danoeh.antennapod.core.util.LongList;
+import de.danoeh.antennapod.model.feed.FeedItem;
+import de.danoeh.antennapod.model.feed.FeedMedia;
+
+/**
+ * Caches the per-feed statistics of {@link DBReader#getStatistics()}.
+ * DBWriter invalidates the feeds whose episodes it changes, so only those feeds need to be computed again.
+ */
+class StatisticsCache {
+    /**
+     * Statistics by feed id. The items do not reference their feed, it is added when they are returned.
+     */
+    private static final Map<Long, StatisticsItem> statistics = new HashMap<>();
+    private static final Set<Long> invalidFeeds = new HashSet<>();
+    private static boolean allInvalid = true;
+
+    private StatisticsCache() {
+    }
+
+    static synchronized void invalidate(long feedId) {
+        invalidFeeds.add(feedId);
+    }
+
+    static void invalidate(@Nullable FeedItem item) {
+        if (item == null) {
+            invalidateAll();
+        } else if (item.getFeed() != null && item.getFeed().getId() != 0) {
+            invalidate(item.getFeed().getId());
+        } else if (item.getFeedId() != 0) {
+            invalidate(item.getFeedId());
+        } else {
+            invalidateAll();
+        }
+    }
+
+    static void invalidate(@Nullable FeedMedia media) {
+        invalidate(media != null ? media.getItem() : null);
+    }
+
+    static synchronized void invalidateAll() {
+        allInvalid = true;
+        invalidFeeds.clear();
+    }
+
+    /**
+     * Returns the feeds that need to be computed again and considers them valid from now on.
+     *
+     * @return The ids of the invalid feeds, or null if all feeds need to be computed
+     */
+    @Nullable
+    static synchronized LongList takeInvalidFeeds() {
+        if (allInvalid) {
+            allInvalid = false;
+            invalidFeeds.clear();
+            statistics.clear();
+            return null;
+        }
+        LongList result = new LongList(invalidFeeds.size());
+        for (long feedId : invalidFeeds) {
+            result.add(feedId);
+            statistics.remove(feedId);
+        }
+        invalidFeeds.clear();
+        return result;
+    }
+
+    static synchronized void put(long feedId, StatisticsItem item) {
+        statistics.put(feedId, item);
+    }
+
+    @Nullable
+    static synchronized StatisticsItem get(long feedId) {
+        return statistics.get(feedId);
+    }
+}
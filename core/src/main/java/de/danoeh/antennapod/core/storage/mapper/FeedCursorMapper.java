@@ -63,6 +63,19 @@ public abstract class FeedCursorMapper {
                 cursor.getInt(indexLastUpdateFailed) > 0
         );
 
+        int indexEtag = cursor.getColumnIndex(PodDBAdapter.KEY_ETAG);
+        if (indexEtag >= 0) {
+            feed.setEtag(cursor.getString(indexEtag));
+        }
+        int indexNextRefresh = cursor.getColumnIndex(PodDBAdapter.KEY_NEXT_REFRESH);
+        if (indexNextRefresh >= 0) {
+            feed.setNextRefresh(cursor.getLong(indexNextRefresh));
+        }
+        int indexLastFullParse = cursor.getColumnIndex(PodDBAdapter.KEY_LAST_FULL_PARSE);
+        if (indexLastFullParse >= 0) {
+            feed.setLastFullParse(cursor.getLong(indexLastFullParse));
+        }
+
         FeedPreferences preferences = FeedPreferencesCursorMapper.convert(cursor);
         feed.setPreferences(preferences);
         return feed;
@@ -40,7 +40,12 @@ public abstract class FeedItemCursorMapper {
         long autoDownload = cursor.getLong(indexAutoDownload);
         String imageUrl = cursor.getString(indexImageUrl);
 
-        return new FeedItem(id, title, link, pubDate, paymentLink, feedId,
+        FeedItem item = new FeedItem(id, title, link, pubDate, paymentLink, feedId,
                 hasChapters, imageUrl, state, itemIdentifier, autoDownload);
+        int indexDescriptionHash = cursor.getColumnIndex(PodDBAdapter.KEY_DESCRIPTION_HASH);
+        if (indexDescriptionHash >= 0) {
+            item.setDescriptionHash(cursor.getLong(indexDescriptionHash));
+        }
+        return item;
     }
 }
@@ -48,7 +48,7 @@ public abstract class FeedMediaCursorMapper {
                 break;
         }
 
-        return new FeedMedia(
+        FeedMedia media = new FeedMedia(
                 mediaId,
                 null,
                 cursor.getInt(indexDuration),
@@ -63,5 +63,12 @@ public abstract class FeedMediaCursorMapper {
                 hasEmbeddedPicture,
                 cursor.getLong(indexLastPlayedTime)
         );
+        int indexChaptersFileSize = cursor.getColumnIndex(PodDBAdapter.KEY_CHAPTERS_FILE_SIZE);
+        int indexChaptersFileModified = cursor.getColumnIndex(PodDBAdapter.KEY_CHAPTERS_FILE_MODIFIED);
+        if (indexChaptersFileSize >= 0 && indexChaptersFileModified >= 0) {
+            media.setChaptersFileFingerprint(cursor.getLong(indexChaptersFileSize),
+                    cursor.getLong(indexChaptersFileModified));
+        }
+        return media;
     }
 }
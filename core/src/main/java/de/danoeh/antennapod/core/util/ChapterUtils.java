@@ -4,28 +4,38 @@ import android.content.ContentResolver;
 import android.content.Context;
 import android.net.Uri;
 import android.util.Log;
+import android.util.LruCache;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import de.danoeh.antennapod.model.feed.Chapter;
 import de.danoeh.antennapod.core.feed.ChapterMerger;
 import de.danoeh.antennapod.model.feed.FeedMedia;
-import de.danoeh.antennapod.core.service.download.AntennapodHttpClient;
 import de.danoeh.antennapod.core.storage.DBReader;
+import de.danoeh.antennapod.core.storage.DBWriter;
 import de.danoeh.antennapod.core.util.comparator.ChapterStartTimeComparator;
 import de.danoeh.antennapod.parser.media.id3.ChapterReader;
+import de.danoeh.antennapod.parser.media.id3.ID3Chapter;
+import de.danoeh.antennapod.parser.media.id3.ID3Reader;
 import de.danoeh.antennapod.parser.media.id3.ID3ReaderException;
 import de.danoeh.antennapod.model.playback.Playable;
+import de.danoeh.antennapod.parser.media.vorbis.VorbisCommentChapter;
 import de.danoeh.antennapod.parser.media.vorbis.VorbisCommentChapterReader;
+import de.danoeh.antennapod.parser.media.vorbis.VorbisCommentReader;
 import de.danoeh.antennapod.parser.media.vorbis.VorbisCommentReaderException;
-import okhttp3.Request;
-import okhttp3.Response;
 import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.lang3.ArrayUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Utility class for getting chapter data from media files.
@@ -33,6 +43,15 @@ import java.util.List;
 public class ChapterUtils {
 
     private static final String TAG = "ChapterUtils";
+    private static final int REMOTE_CHAPTER_CACHE_SIZE = 20;
+    private static final int OGG_FIRST_REQUEST_LENGTH = 4096;
+    private static final int MAX_REMOTE_HEADER_LENGTH = 16 * 1024 * 1024;
+
+    /**
+     * Chapters of files that are streamed, by URL and ETag. Files without chapters are stored as empty lists.
+     */
+    private static final LruCache<String, List<Chapter>> remoteChapterCache =
+            new LruCache<>(REMOTE_CHAPTER_CACHE_SIZE);
 
     private ChapterUtils() {
     }
@@ -57,17 +76,34 @@ public class ChapterUtils {
         }
 
         List<Chapter> chaptersFromDatabase = null;
+        List<Chapter> chaptersFromMediaFile;
         if (playable instanceof FeedMedia) {
             FeedMedia feedMedia = (FeedMedia) playable;
             if (feedMedia.getItem() == null) {
                 feedMedia.setItem(DBReader.getFeedItem(feedMedia.getItemId()));
             }
+            List<Chapter> storedChaptersFromMediaFile = new ArrayList<>();
             if (feedMedia.getItem().hasChapters()) {
                 chaptersFromDatabase = DBReader.loadChaptersOfFeedItem(feedMedia.getItem());
+                if (chaptersFromDatabase != null) {
+                    chaptersFromDatabase = new ArrayList<>(chaptersFromDatabase);
+                    Iterator<Chapter> iterator = chaptersFromDatabase.iterator();
+                    while (iterator.hasNext()) {
+                        Chapter chapter = iterator.next();
+                        if (isFromMediaFile(chapter)) {
+                            storedChaptersFromMediaFile.add(chapter);
+                            iterator.remove();
+                        }
+                    }
+                    if (chaptersFromDatabase.isEmpty()) {
+                        chaptersFromDatabase = null;
+                    }
+                }
             }
+            chaptersFromMediaFile = loadChaptersFromMediaFile(feedMedia, storedChaptersFromMediaFile, context);
+        } else {
+            chaptersFromMediaFile = ChapterUtils.loadChaptersFromMediaFile(playable, context);
         }
-
-        List<Chapter> chaptersFromMediaFile = ChapterUtils.loadChaptersFromMediaFile(playable, context);
         List<Chapter> chapters = ChapterMerger.merge(chaptersFromDatabase, chaptersFromMediaFile);
         if (chapters == null) {
             // Do not try loading again. There are no chapters.
@@ -77,9 +113,54 @@ public class ChapterUtils {
         }
     }
 
+    private static boolean isFromMediaFile(Chapter chapter) {
+        return chapter.getChapterType() == ID3Chapter.CHAPTERTYPE_ID3CHAPTER
+                || chapter.getChapterType() == VorbisCommentChapter.CHAPTERTYPE_VORBISCOMMENT_CHAPTER;
+    }
+
+    /**
+     * Uses the stored chapters of a downloaded file if they were read from the same version of the file.
+     * Otherwise, the file is read again and its chapters are stored.
+     */
+    @Nullable
+    private static List<Chapter> loadChaptersFromMediaFile(FeedMedia media, List<Chapter> storedChapters,
+                                                           Context context) {
+        if (!media.localFileAvailable() || media.getId() == 0) {
+            return loadChaptersFromMediaFile(media, context);
+        }
+        File file = new File(media.getLocalMediaUrl());
+        if (media.hasChaptersOfFile(file.length(), file.lastModified())) {
+            Log.d(TAG, "Using stored chapters of " + file);
+            return storedChapters.isEmpty() ? null : storedChapters;
+        }
+        return updateChaptersFromMediaFile(media, context);
+    }
+
+    /**
+     * Reads the chapters of a downloaded file and stores them, together with the size and modification time
+     * of the file. Blocks until they are stored.
+     */
+    @Nullable
+    public static List<Chapter> updateChaptersFromMediaFile(FeedMedia media, Context context) {
+        File file = new File(media.getLocalMediaUrl());
+        long size = file.length();
+        long lastModified = file.lastModified();
+        List<Chapter> chapters = loadChaptersFromMediaFile(media, context);
+        media.setChaptersFileFingerprint(size, lastModified);
+        try {
+            DBWriter.setMediaFileChapters(media, chapters).get();
+        } catch (InterruptedException | ExecutionException e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+        }
+        return chapters;
+    }
+
     public static List<Chapter> loadChaptersFromMediaFile(Playable playable, Context context) {
-        try (CountingInputStream in = openStream(playable, context)) {
-            List<Chapter> chapters = readId3ChaptersFrom(in);
+        if (!playable.localFileAvailable() && !playable.getStreamUrl().startsWith(ContentResolver.SCHEME_CONTENT)) {
+            return loadChaptersFromRemoteFile(playable.getStreamUrl());
+        }
+        try {
+            List<Chapter> chapters = readId3Chapters(playable, context);
             if (!chapters.isEmpty()) {
                 Log.i(TAG, "Chapters loaded");
                 return chapters;
@@ -100,32 +181,109 @@ public class ChapterUtils {
         return null;
     }
 
-    private static CountingInputStream openStream(Playable playable, Context context) throws IOException {
-        if (playable.localFileAvailable()) {
-            if (playable.getLocalMediaUrl() == null) {
-                throw new IOException("No local url");
+    /**
+     * Loads the chapters of a file that is streamed. Only the tag is requested from the server,
+     * or the first pages of Ogg files.
+     */
+    @Nullable
+    private static List<Chapter> loadChaptersFromRemoteFile(String url) {
+        RemoteMediaFile file = new RemoteMediaFile(url);
+        try {
+            byte[] header = file.read(0, ID3Reader.TAG_HEADER_LENGTH);
+            String cacheKey = file.getEtag() != null ? url + "\n" + file.getEtag() : null;
+            List<Chapter> chapters = cacheKey != null ? remoteChapterCache.get(cacheKey) : null;
+            if (chapters == null) {
+                chapters = readRemoteChapters(file, header);
+                Log.d(TAG, "Read " + file.getBytesTransferred() + " bytes to load chapters of " + url);
+                if (cacheKey != null) {
+                    remoteChapterCache.put(cacheKey, chapters);
+                }
             }
-            File source = new File(playable.getLocalMediaUrl());
-            if (!source.exists()) {
-                throw new IOException("Local file does not exist");
+            if (!chapters.isEmpty()) {
+                Log.i(TAG, "Chapters loaded");
+                return new ArrayList<>(chapters);
             }
-            return new CountingInputStream(new FileInputStream(source));
-        } else if (playable.getStreamUrl().startsWith(ContentResolver.SCHEME_CONTENT)) {
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to load remote chapters: " + e.getMessage());
+        }
+        return null;
+    }
+
+    @NonNull
+    private static List<Chapter> readRemoteChapters(RemoteMediaFile file, byte[] header) throws IOException {
+        int tagLength = ID3Reader.getTagLength(ByteBuffer.wrap(header));
+        if (tagLength > header.length) {
+            // The tag is requested again from its start and parsed while it is received, so it can be of any size
+            try (CountingInputStream in = new CountingInputStream(file.openStream(0, tagLength))) {
+                return readId3ChaptersFrom(new ChapterReader(in));
+            } catch (ID3ReaderException e) {
+                Log.e(TAG, "Unable to load ID3 chapters: " + e.getMessage());
+                return Collections.emptyList();
+            }
+        }
+
+        byte[] data = header;
+        int headerPagesLength = VorbisCommentReader.getHeaderPagesLength(data);
+        if (headerPagesLength == data.length) {
+            return Collections.emptyList(); // Neither ID3 nor Ogg
+        }
+        data = ArrayUtils.addAll(data, file.read(data.length, OGG_FIRST_REQUEST_LENGTH - data.length));
+        while ((headerPagesLength = VorbisCommentReader.getHeaderPagesLength(data)) < 0
+                || headerPagesLength > data.length) {
+            int needed = Math.abs(headerPagesLength);
+            if (needed > MAX_REMOTE_HEADER_LENGTH) {
+                throw new IOException("Ogg headers too long: " + needed);
+            }
+            byte[] next = file.read(data.length, needed - data.length);
+            if (next.length == 0) {
+                break;
+            }
+            data = ArrayUtils.addAll(data, next);
+        }
+        try {
+            return readOggChaptersFromInputStream(new ByteArrayInputStream(data));
+        } catch (VorbisCommentReaderException e) {
+            Log.e(TAG, "Unable to load vorbis chapters: " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    private static File getLocalFile(Playable playable) throws IOException {
+        if (playable.getLocalMediaUrl() == null) {
+            throw new IOException("No local url");
+        }
+        File source = new File(playable.getLocalMediaUrl());
+        if (!source.exists()) {
+            throw new IOException("Local file does not exist");
+        }
+        return source;
+    }
+
+    private static CountingInputStream openStream(Playable playable, Context context) throws IOException {
+        if (playable.localFileAvailable()) {
+            return new CountingInputStream(new FileInputStream(getLocalFile(playable)));
+        } else {
             Uri uri = Uri.parse(playable.getStreamUrl());
             return new CountingInputStream(context.getContentResolver().openInputStream(uri));
-        } else {
-            Request request = new Request.Builder().url(playable.getStreamUrl()).build();
-            Response response = AntennapodHttpClient.getHttpClient().newCall(request).execute();
-            if (response.body() == null) {
-                throw new IOException("Body is null");
+        }
+    }
+
+    @NonNull
+    private static List<Chapter> readId3Chapters(Playable playable, Context context)
+            throws IOException, ID3ReaderException {
+        if (playable.localFileAvailable()) {
+            // Only the tag is read, and embedded images are skipped without reading them
+            try (FileInputStream in = new FileInputStream(getLocalFile(playable))) {
+                return readId3ChaptersFrom(new ChapterReader(ID3Reader.readTagRegion(in.getChannel())));
             }
-            return new CountingInputStream(response.body().byteStream());
+        }
+        try (CountingInputStream in = openStream(playable, context)) {
+            return readId3ChaptersFrom(new ChapterReader(in));
         }
     }
 
     @NonNull
-    private static List<Chapter> readId3ChaptersFrom(CountingInputStream in) throws IOException, ID3ReaderException {
-        ChapterReader reader = new ChapterReader(in);
+    private static List<Chapter> readId3ChaptersFrom(ChapterReader reader) throws IOException, ID3ReaderException {
         reader.readInputStream();
         List<Chapter> chapters = reader.getChapters();
         Collections.sort(chapters, new ChapterStartTimeComparator());
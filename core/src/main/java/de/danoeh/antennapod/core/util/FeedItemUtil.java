@@ -86,8 +86,14 @@ public class FeedItemUtil {
     }
 
     public static boolean isPlaying(FeedMedia media) {
+        return media != null && isPlaying(media.getId());
+    }
+
+    /**
+     * @param mediaId The id of a FeedMedia
+     */
+    public static boolean isPlaying(long mediaId) {
         return PlaybackPreferences.getCurrentlyPlayingMediaType() == FeedMedia.PLAYABLE_TYPE_FEEDMEDIA
-                && media != null
-                && PlaybackPreferences.getCurrentlyPlayingFeedMediaId() == media.getId();
+                && PlaybackPreferences.getCurrentlyPlayingFeedMediaId() == mediaId;
     }
 }
@@ -28,7 +28,22 @@ public class FeedUtils {
      */
     public static void refreshAllFeeds(final Context context, boolean initiatedByUser) {
         DownloadService.refreshAllFeeds(context, initiatedByUser);
+        onFeedsRefreshed(context);
+    }
+
+    /**
+     * Refreshes the feeds that are due according to how often they publish episodes,
+     * see {@link de.danoeh.antennapod.core.util.download.FeedRefreshSchedule}.
+     * It must not be from the main thread.
+     *
+     * @param context  Might be used for accessing the database
+     */
+    public static void refreshDueFeeds(final Context context) {
+        DownloadService.refreshDueFeeds(context);
+        onFeedsRefreshed(context);
+    }
 
+    private static void onFeedsRefreshed(Context context) {
         SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, MODE_PRIVATE);
         prefs.edit().putLong(PREF_LAST_REFRESH, System.currentTimeMillis()).apply();
 
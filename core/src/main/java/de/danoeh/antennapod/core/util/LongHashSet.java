@@ -0,0 +1,178 @@
+package de.danoeh.antennapod.core.util;
+
+/**
+ * Fast and memory efficient set of longs that uses open addressing, so no values are boxed.
+ * Lookups take constant time, unlike {@link LongList#contains(long)}.
+ */
+public final class LongHashSet {
+    private static final float LOAD_FACTOR = 0.5f;
+
+    /**
+     * Slots with the value 0 are free. 0 itself is stored in {@link #containsZero}.
+     */
+    private long[] slots;
+    private boolean containsZero;
+    private int size;
+
+    public LongHashSet() {
+        this(4);
+    }
+
+    /**
+     * @param expectedSize {@code >= 0;} number of values that can be added without growing the set
+     */
+    public LongHashSet(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expected size must be 0 or higher");
+        }
+        slots = new long[LongHashing.capacityFor(expectedSize, LOAD_FACTOR)];
+    }
+
+    public static LongHashSet of(LongList values) {
+        LongHashSet result = new LongHashSet(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            result.add(values.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * @return true if the value was not contained before
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int mask = slots.length - 1;
+        int index = LongHashing.hash(value) & mask;
+        while (slots[index] != 0) {
+            if (slots[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        slots[index] = value;
+        size++;
+        if (size > slots.length * LOAD_FACTOR) {
+            rehash(slots.length * 2);
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * @return true if the value was contained
+     */
+    public boolean remove(long value) {
+        if (value == 0) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            size--;
+            return true;
+        }
+        int index = indexOf(value);
+        if (index < 0) {
+            return false;
+        }
+        slots[index] = 0;
+        size--;
+        // Move the following values of the same probe sequence into the gap
+        int mask = slots.length - 1;
+        int gap = index;
+        index = (index + 1) & mask;
+        while (slots[index] != 0) {
+            int home = LongHashing.hash(slots[index]) & mask;
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                slots[gap] = slots[index];
+                slots[index] = 0;
+                gap = index;
+            }
+            index = (index + 1) & mask;
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        slots = new long[LongHashing.capacityFor(0, LOAD_FACTOR)];
+        containsZero = false;
+        size = 0;
+    }
+
+    /**
+     * Returns a copy of the values in this set, in no particular order.
+     */
+    public long[] toArray() {
+        long[] result = new long[size];
+        int i = 0;
+        if (containsZero) {
+            result[i++] = 0;
+        }
+        for (long value : slots) {
+            if (value != 0) {
+                result[i++] = value;
+            }
+        }
+        return result;
+    }
+
+    private int indexOf(long value) {
+        int mask = slots.length - 1;
+        int index = LongHashing.hash(value) & mask;
+        while (slots[index] != 0) {
+            if (slots[index] == value) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldSlots = slots;
+        slots = new long[newCapacity];
+        int mask = newCapacity - 1;
+        for (long value : oldSlots) {
+            if (value != 0) {
+                int index = LongHashing.hash(value) & mask;
+                while (slots[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                slots[index] = value;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buffer = new StringBuilder("LongHashSet{");
+        long[] values = toArray();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(values[i]);
+        }
+        return buffer.append('}').toString();
+    }
+}
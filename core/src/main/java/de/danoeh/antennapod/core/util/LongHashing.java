@@ -0,0 +1,30 @@
+package de.danoeh.antennapod.core.util;
+
+/**
+ * Helpers for the open addressing tables of {@link LongHashSet} and {@link LongObjectMap}.
+ */
+final class LongHashing {
+    private static final int MIN_CAPACITY = 8;
+
+    private LongHashing() {
+    }
+
+    /**
+     * Spreads the bits of the key, so that sequential ids do not end up in clusters.
+     */
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * @return A power of two that can hold the number of entries without exceeding the load factor
+     */
+    static int capacityFor(int expectedSize, float loadFactor) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * loadFactor < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,185 @@
+package de.danoeh.antennapod.core.util;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Fast and memory efficient map from longs to objects that uses open addressing, so no keys are boxed.
+ *
+ * @param <V> The type of the values
+ */
+public final class LongObjectMap<V> {
+    private static final float LOAD_FACTOR = 0.5f;
+
+    /**
+     * Slots with the key 0 are free. The value of 0 itself is stored in {@link #zeroValue}.
+     */
+    private long[] keys;
+    private Object[] values;
+    private boolean containsZero;
+    private V zeroValue;
+    private int size;
+
+    public LongObjectMap() {
+        this(4);
+    }
+
+    /**
+     * @param expectedSize {@code >= 0;} number of mappings that can be added without growing the map
+     */
+    public LongObjectMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expected size must be 0 or higher");
+        }
+        int capacity = LongHashing.capacityFor(expectedSize, LOAD_FACTOR);
+        keys = new long[capacity];
+        values = new Object[capacity];
+    }
+
+    /**
+     * Adds a mapping from the key to the value, replacing the previous mapping of the key if there was one.
+     *
+     * @return The previous value of the key, or null if there was none
+     */
+    @Nullable
+    public V put(long key, V value) {
+        if (key == 0) {
+            V previous = zeroValue;
+            if (!containsZero) {
+                containsZero = true;
+                size++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        int mask = keys.length - 1;
+        int index = LongHashing.hash(key) & mask;
+        while (keys[index] != 0) {
+            if (keys[index] == key) {
+                V previous = valueAt(index);
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        if (size > keys.length * LOAD_FACTOR) {
+            rehash(keys.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * @return The value of the key, or null if there is no mapping for the key
+     */
+    @Nullable
+    public V get(long key) {
+        if (key == 0) {
+            return zeroValue;
+        }
+        int index = indexOf(key);
+        return index >= 0 ? valueAt(index) : null;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == 0) {
+            return containsZero;
+        }
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Removes the mapping of the key, if there is one.
+     *
+     * @return The removed value, or null if there was none
+     */
+    @Nullable
+    public V remove(long key) {
+        if (key == 0) {
+            V previous = zeroValue;
+            if (containsZero) {
+                containsZero = false;
+                zeroValue = null;
+                size--;
+            }
+            return previous;
+        }
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        V previous = valueAt(index);
+        keys[index] = 0;
+        values[index] = null;
+        size--;
+        // Move the following mappings of the same probe sequence into the gap
+        int mask = keys.length - 1;
+        int gap = index;
+        index = (index + 1) & mask;
+        while (keys[index] != 0) {
+            int home = LongHashing.hash(keys[index]) & mask;
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = keys[index];
+                values[gap] = values[index];
+                keys[index] = 0;
+                values[index] = null;
+                gap = index;
+            }
+            index = (index + 1) & mask;
+        }
+        return previous;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        int capacity = LongHashing.capacityFor(0, LOAD_FACTOR);
+        keys = new long[capacity];
+        values = new Object[capacity];
+        containsZero = false;
+        zeroValue = null;
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int index) {
+        return (V) values[index];
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int index = LongHashing.hash(key) & mask;
+        while (keys[index] != 0) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[newCapacity];
+        values = new Object[newCapacity];
+        int mask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int index = LongHashing.hash(oldKeys[i]) & mask;
+                while (keys[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package de.danoeh.antennapod.core.util;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import de.danoeh.antennapod.core.service.download.AntennapodHttpClient;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.input.ProxyInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.Arrays;
+
+/**
+ * Reads parts of a file on a server with range requests, so that the file does not have to be downloaded.
+ * If the server does not support range requests, the file is only read up to the end of the requested part.
+ */
+public class RemoteMediaFile {
+    private static final String TAG = "RemoteMediaFile";
+
+    private final String url;
+    private final OkHttpClient httpClient;
+    @Nullable
+    private String etag;
+    private long bytesTransferred = 0;
+
+    public RemoteMediaFile(String url) {
+        this(url, AntennapodHttpClient.getHttpClient());
+    }
+
+    RemoteMediaFile(String url, OkHttpClient httpClient) {
+        this.url = url;
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * @return The requested bytes, or fewer if the file ends before
+     */
+    public byte[] read(long offset, int length) throws IOException {
+        if (length <= 0) {
+            return new byte[0];
+        }
+        try (InputStream in = openStream(offset, length)) {
+            byte[] data = new byte[length];
+            int read = IOUtils.read(in, data);
+            return read == length ? data : Arrays.copyOf(data, read);
+        }
+    }
+
+    /**
+     * Opens a stream of the requested bytes, for parts that are too large to be held in memory.
+     * The stream ends after the requested bytes or at the end of the file, and must be closed.
+     */
+    public InputStream openStream(long offset, long length) throws IOException {
+        Request request = new Request.Builder()
+                .url(url)
+                .header("Range", "bytes=" + offset + "-" + (offset + length - 1))
+                .build();
+        Response response = httpClient.newCall(request).execute();
+        ResponseBody body = response.body();
+        if (!response.isSuccessful() || body == null) {
+            response.close();
+            throw new IOException("Reading " + url + " failed with status " + response.code());
+        }
+        if (etag == null) {
+            etag = response.header("ETag");
+        }
+        InputStream in = new ProxyInputStream(body.byteStream()) {
+            @Override
+            protected void afterRead(int n) {
+                if (n > 0) {
+                    bytesTransferred += n;
+                }
+            }
+        };
+        if (response.code() != HttpURLConnection.HTTP_PARTIAL) {
+            Log.d(TAG, "Server does not support range requests: " + url);
+            try {
+                IOUtils.skip(in, offset);
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+        return new BoundedInputStream(in, length);
+    }
+
+    /**
+     * @return The ETag that the server sent with the first response, if any
+     */
+    @Nullable
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * @return The number of bytes that were read from this file, including skipped ones
+     */
+    public long getBytesTransferred() {
+        return bytesTransferred;
+    }
+}
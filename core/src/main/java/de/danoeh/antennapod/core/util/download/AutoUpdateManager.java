@@ -146,6 +146,14 @@ public class AutoUpdateManager {
                 context.getApplicationContext(), true), "ManualRefreshAllFeeds").start();
     }
 
+    /**
+     * @return The time between automatic refreshes, which is a day if they run at a time of day
+     */
+    public static long getAutoUpdateInterval() {
+        long interval = UserPreferences.getUpdateInterval();
+        return interval > 0 ? interval : TimeUnit.DAYS.toMillis(1);
+    }
+
     public static void disableAutoUpdate(Context context) {
         WorkManager.getInstance(context).cancelUniqueWork(WORK_ID_FEED_UPDATE);
     }
@@ -0,0 +1,73 @@
+package de.danoeh.antennapod.core.util.download;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when a feed needs to be refreshed again, based on how often it publishes episodes.
+ * Feeds that publish daily are refreshed by every automatic refresh, while feeds that publish weekly
+ * or were abandoned are only refreshed a few times per expected episode.
+ */
+public class FeedRefreshSchedule {
+    /**
+     * Number of recent episodes that the publishing interval is learned from.
+     */
+    public static final int PUB_DATE_COUNT = 10;
+    static final long MAX_INTERVAL = TimeUnit.DAYS.toMillis(2);
+    private static final int MIN_PUB_DATES = 3;
+    private static final int REFRESHES_PER_EPISODE = 4;
+    private static final int MAX_NOT_MODIFIED_COUNT = 4;
+
+    private FeedRefreshSchedule() {
+
+    }
+
+    /**
+     * @param now              Current time, in milliseconds
+     * @param pubDates         Publication dates of the most recent episodes, newest first
+     * @param notModifiedCount Number of refreshes in a row that found the feed unchanged.
+     *                         Each stretches the interval by a quarter, up to twice the interval.
+     * @param minInterval      Interval of the automatic refresh. Feeds are never refreshed more often.
+     * @return Time after which the feed should be refreshed again
+     */
+    public static long getNextRefresh(long now, long[] pubDates, int notModifiedCount, long minInterval) {
+        long expectedInterval = getMedianInterval(pubDates);
+        if (expectedInterval <= 0) {
+            return now + minInterval;
+        }
+        long sinceLatest = Math.max(0, now - pubDates[0]);
+        long interval = Math.max(expectedInterval, sinceLatest) / REFRESHES_PER_EPISODE;
+        interval += interval * Math.min(notModifiedCount, MAX_NOT_MODIFIED_COUNT) / MAX_NOT_MODIFIED_COUNT;
+        interval = Math.max(minInterval, Math.min(Math.max(minInterval, MAX_INTERVAL), interval));
+
+        long next = now + interval;
+        // Do not wait much longer than the expected release of the next episode
+        long expectedEpisode = pubDates[0] + expectedInterval;
+        if (expectedEpisode > now && expectedEpisode < next) {
+            next = Math.max(expectedEpisode, now + minInterval);
+        }
+        return next;
+    }
+
+    /**
+     * Automatic refreshes do not run at exact times, so feeds that are due shortly after are refreshed as well.
+     */
+    public static boolean isDue(long nextRefresh, long now, long minInterval) {
+        return nextRefresh <= now + minInterval / 2;
+    }
+
+    /**
+     * @return The median time between the episodes, or 0 if there are not enough episodes to tell
+     */
+    static long getMedianInterval(long[] pubDates) {
+        if (pubDates.length < MIN_PUB_DATES) {
+            return 0;
+        }
+        long[] intervals = new long[pubDates.length - 1];
+        for (int i = 0; i < intervals.length; i++) {
+            intervals[i] = Math.max(0, pubDates[i] - pubDates[i + 1]);
+        }
+        Arrays.sort(intervals);
+        return intervals[intervals.length / 2];
+    }
+}
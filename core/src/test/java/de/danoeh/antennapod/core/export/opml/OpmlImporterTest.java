@@ -0,0 +1,197 @@
+package de.danoeh.antennapod.core.export.opml;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import de.danoeh.antennapod.core.service.download.DownloadRequest;
+import de.danoeh.antennapod.core.service.download.DownloadStatus;
+import de.danoeh.antennapod.core.util.DownloadError;
+import de.danoeh.antennapod.model.feed.Feed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class OpmlImporterTest {
+    private static final long RETRY_DELAY_MILLIS = 50;
+
+    private FakeFeedSubscriber subscriber;
+    private List<OpmlImporter.Progress> progressUpdates;
+
+    @Before
+    public void setUp() {
+        subscriber = new FakeFeedSubscriber();
+        progressUpdates = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    private OpmlImporter createImporter(String... existingUrls) {
+        return new OpmlImporter(progressUpdates::add, Arrays.asList(existingUrls), 2, subscriber,
+                RETRY_DELAY_MILLIS);
+    }
+
+    private static OpmlElement element(String url) {
+        OpmlElement element = new OpmlElement();
+        element.setXmlUrl(url);
+        element.setText(url);
+        return element;
+    }
+
+    @Test
+    public void testSkipsSubscribedAndDuplicateFeeds() throws Exception {
+        OpmlImporter importer = createImporter("http://example.com/subscribed", "local:content://feed");
+        importer.add(element("http://example.com/subscribed/"));
+        importer.add(element("local:content://feed"));
+        importer.add(element("http://example.com/new"));
+        importer.add(element("http://example.com/new"));
+        importer.awaitCompletion();
+
+        assertEquals(Collections.singletonList("http://example.com/new"), subscriber.getAttemptedUrls());
+        OpmlImporter.Progress progress = importer.getProgress();
+        assertEquals(1, progress.total);
+        assertEquals(1, progress.subscribed);
+        assertEquals(3, progress.skipped);
+    }
+
+    @Test
+    public void testRetriesTemporaryErrorsWithBackoff() throws Exception {
+        String url = "http://example.com/unreachable";
+        subscriber.addResults(url, DownloadError.ERROR_CONNECTION_ERROR, DownloadError.ERROR_IO_ERROR, null);
+        OpmlImporter importer = createImporter();
+        importer.add(element(url));
+        importer.awaitCompletion();
+
+        List<Long> attempts = subscriber.getAttemptTimes(url);
+        assertEquals(3, attempts.size());
+        long firstDelay = TimeUnit.NANOSECONDS.toMillis(attempts.get(1) - attempts.get(0));
+        long secondDelay = TimeUnit.NANOSECONDS.toMillis(attempts.get(2) - attempts.get(1));
+        assertTrue("First retry after " + firstDelay + " ms", firstDelay >= RETRY_DELAY_MILLIS);
+        assertTrue("Second retry after " + secondDelay + " ms", secondDelay >= 2 * RETRY_DELAY_MILLIS);
+        assertEquals(1, importer.getProgress().subscribed);
+        assertTrue(subscriber.failedStatuses.isEmpty());
+    }
+
+    @Test
+    public void testGivesUpAfterLastAttempt() throws Exception {
+        String url = "http://example.com/unreachable";
+        subscriber.addResults(url, DownloadError.ERROR_IO_ERROR, DownloadError.ERROR_IO_ERROR,
+                DownloadError.ERROR_IO_ERROR, null);
+        OpmlImporter importer = createImporter();
+        importer.add(element(url));
+        importer.awaitCompletion();
+
+        assertEquals(3, subscriber.getAttemptTimes(url).size());
+        assertEquals(1, importer.getProgress().failed);
+        assertEquals(1, subscriber.failedStatuses.size());
+    }
+
+    @Test
+    public void testPermanentErrorIsNotRetried() throws Exception {
+        String url = "http://example.com/not-a-feed";
+        subscriber.addResults(url, DownloadError.ERROR_UNSUPPORTED_TYPE);
+        OpmlImporter importer = createImporter();
+        importer.add(element(url));
+        importer.awaitCompletion();
+
+        assertEquals(1, subscriber.getAttemptTimes(url).size());
+        assertEquals(1, importer.getProgress().failed);
+        assertEquals(1, subscriber.failedStatuses.size());
+    }
+
+    @Test
+    public void testProgress() throws Exception {
+        subscriber.addResults("http://example.com/fails", DownloadError.ERROR_UNSUPPORTED_TYPE);
+        subscriber.notSavedUrl = "http://example.com/not-saved";
+        OpmlImporter importer = createImporter("http://example.com/subscribed");
+        importer.add(element("http://example.com/subscribed"));
+        importer.add(element("http://example.com/a"));
+        importer.add(element("http://example.com/fails"));
+        importer.add(element("http://example.com/not-saved"));
+        importer.add(element("http://example.com/b"));
+        importer.awaitCompletion();
+
+        // One update for each feed that was subscribed to or failed
+        List<Integer> done = new ArrayList<>();
+        for (OpmlImporter.Progress update : progressUpdates) {
+            done.add(update.getDone());
+        }
+        Collections.sort(done);
+        assertEquals(Arrays.asList(1, 2, 3, 4), done);
+        OpmlImporter.Progress progress = importer.getProgress();
+        assertEquals(4, progress.total);
+        assertEquals(2, progress.subscribed);
+        assertEquals(2, progress.failed);
+        assertEquals(1, progress.skipped);
+        assertEquals(4, progress.getDone());
+    }
+
+    /**
+     * Returns the download results that were set up for each URL, and saves all feeds that were downloaded.
+     */
+    private static class FakeFeedSubscriber implements OpmlImporter.FeedSubscriber {
+        /** Errors of the next downloads of each URL, null for a successful download */
+        private final Map<String, LinkedList<DownloadError>> results = new HashMap<>();
+        private final Map<String, List<Long>> attemptTimes = new HashMap<>();
+        private final List<String> attemptedUrls = new ArrayList<>();
+        final List<DownloadStatus> failedStatuses = Collections.synchronizedList(new ArrayList<>());
+        String notSavedUrl;
+
+        synchronized void addResults(String url, DownloadError... errors) {
+            results.put(url, new LinkedList<>(Arrays.asList(errors)));
+        }
+
+        synchronized List<String> getAttemptedUrls() {
+            return new ArrayList<>(attemptedUrls);
+        }
+
+        synchronized List<Long> getAttemptTimes(String url) {
+            return new ArrayList<>(attemptTimes.get(url));
+        }
+
+        @NonNull
+        @Override
+        public DownloadStatus subscribe(@NonNull OpmlElement element, @NonNull OpmlImporter.SaveCallback onSaved) {
+            String url = element.getXmlUrl();
+            DownloadError error = null;
+            synchronized (this) {
+                if (!attemptTimes.containsKey(url)) {
+                    attemptTimes.put(url, new ArrayList<>());
+                    attemptedUrls.add(url);
+                }
+                attemptTimes.get(url).add(System.nanoTime());
+                LinkedList<DownloadError> errors = results.get(url);
+                if (errors != null && !errors.isEmpty()) {
+                    error = errors.removeFirst();
+                }
+            }
+            DownloadRequest request = new DownloadRequest("feed.xml", url, element.getText(), 0,
+                    Feed.FEEDFILETYPE_FEED, null, null, false, null, false);
+            if (error != null) {
+                return new DownloadStatus(request, error, false, false, null);
+            }
+            onSaved.onSaved(!url.equals(notSavedUrl));
+            return new DownloadStatus(request, null, true, false, null);
+        }
+
+        @Override
+        public void onFailed(@NonNull DownloadStatus status) {
+            failedStatuses.add(status);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+}
@@ -7,10 +7,12 @@ import org.junit.Test;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Random;
 
 import static de.danoeh.antennapod.core.feed.FeedItemMother.anyFeedItemWithImage;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class FeedItemTest {
@@ -26,6 +28,7 @@ public class FeedItemTest {
     public void setUp() {
         original = anyFeedItemWithImage();
         changedFeedItem = anyFeedItemWithImage();
+        changedFeedItem.setPubDate(original.getPubDate());
     }
 
     @Test
@@ -93,6 +96,30 @@ public class FeedItemTest {
         assertFalse(original.isNew());
     }
 
+    @Test
+    public void testChangeTracking_notTracking() {
+        assertEquals(FeedItem.CHANGED_ALL, original.getChangedAttributes());
+    }
+
+    @Test
+    public void testChangeTracking_unchangedUpdate() {
+        original.startTrackingChanges();
+        original.updateFromOther(changedFeedItem);
+        assertEquals(0, original.getChangedAttributes());
+    }
+
+    @Test
+    public void testChangeTracking_changedAttributes() {
+        original.startTrackingChanges();
+        changedFeedItem.setTitle("Other title");
+        setNewFeedItemImageDownloadUrl();
+        original.updateFromOther(changedFeedItem);
+        assertEquals(FeedItem.CHANGED_TITLE | FeedItem.CHANGED_IMAGE_URL, original.getChangedAttributes());
+
+        original.setNew();
+        assertTrue((original.getChangedAttributes() & FeedItem.CHANGED_STATE) != 0);
+    }
+
     private void setNewFeedItemImageDownloadUrl() {
         changedFeedItem.setImageUrl("http://example.com/new_picture");
     }
@@ -140,6 +167,58 @@ public class FeedItemTest {
         assertEquals(TEXT_LONG, item.getDescription());
     }
 
+    @Test
+    public void testCompressedDescription() {
+        StringBuilder description = new StringBuilder();
+        while (description.length() < 10000) {
+            description.append("<p>").append(TEXT_LONG).append(" äöü</p>");
+        }
+        FeedItem item = new FeedItem();
+        item.setDescriptionIfLonger(description.toString());
+        long hash = item.getDescriptionHash();
+        item.compressDescription();
+        assertEquals(description.toString(), item.getDescription());
+        assertEquals(hash, item.getDescriptionHash());
+
+        // Shorter descriptions do not replace the compressed one
+        item.setDescriptionIfLonger(TEXT_LONG);
+        assertEquals(description.toString(), item.getDescription());
+    }
+
+    @Test
+    public void testIncompressibleDescriptionIsKept() {
+        Random random = new Random(0);
+        StringBuilder builder = new StringBuilder();
+        while (builder.length() < 10000) {
+            builder.append((char) ('!' + random.nextInt('~' - '!' + 1)));
+        }
+        String description = builder.toString();
+        FeedItem item = new FeedItem();
+        item.setDescriptionIfLonger(description);
+        item.compressDescription();
+        // A description that was not compressed is returned as is, not decompressed into a new string
+        assertSame(description, item.getDescription());
+    }
+
+    @Test
+    public void testChangeTracking_descriptionHash() {
+        FeedItem parsed = new FeedItem();
+        parsed.setDescriptionIfLonger(TEXT_LONG);
+
+        // Items loaded from the database only know the hash of their description
+        FeedItem saved = new FeedItem();
+        saved.setDescriptionHash(parsed.getDescriptionHash());
+        saved.startTrackingChanges();
+        saved.updateFromOther(parsed);
+        assertEquals(0, saved.getChangedAttributes() & FeedItem.CHANGED_DESCRIPTION);
+
+        FeedItem changed = new FeedItem();
+        changed.setDescriptionIfLonger(TEXT_SHORT);
+        saved.updateFromOther(changed);
+        assertEquals(FeedItem.CHANGED_DESCRIPTION, saved.getChangedAttributes() & FeedItem.CHANGED_DESCRIPTION);
+        assertEquals(TEXT_SHORT, saved.getDescription());
+    }
+
     @Test
     public void testAutoDownloadBackoff() {
         FeedItem item = new FeedItem();
@@ -0,0 +1,60 @@
+package de.danoeh.antennapod.core.service.download;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class BandwidthLimiterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private BandwidthLimiter limiter;
+
+    @Before
+    public void setUp() {
+        limiter = new BandwidthLimiter();
+    }
+
+    @Test
+    public void testNoLimit() {
+        assertEquals(0, limiter.reserve(1000000, 0));
+        assertEquals(0, limiter.reserve(1000000, 1));
+        assertEquals(2000000, limiter.getTotalBytes());
+    }
+
+    @Test
+    public void testLimit() {
+        limiter.setLimit(1000);
+        long start = System.nanoTime();
+        // One second worth of bytes can be read at once
+        assertEquals(0, limiter.reserve(1000, start));
+        // Then readers wait until the missing bytes would have been allowed
+        assertEquals(SECOND / 2, limiter.reserve(500, start));
+        assertEquals(SECOND, limiter.reserve(500, start));
+        // Time that passed is taken into account
+        assertEquals(SECOND / 2, limiter.reserve(500, start + SECOND));
+    }
+
+    @Test
+    public void testSavedBytesAreLimited() {
+        limiter.setLimit(1000);
+        long start = System.nanoTime();
+        limiter.reserve(1000, start);
+        // Not reading for a long time does not allow more than one second worth of bytes
+        assertEquals(0, limiter.reserve(1000, start + 10 * SECOND));
+        assertEquals(SECOND, limiter.reserve(1000, start + 10 * SECOND));
+    }
+
+    @Test
+    public void testThroughput() {
+        assertEquals(0, limiter.getThroughput(0));
+        limiter.reserve(1000, 0);
+        limiter.reserve(1000, SECOND / 2);
+        limiter.reserve(1000, SECOND);
+        assertEquals(2000, limiter.getThroughput(SECOND));
+        // Nothing was read for a while
+        assertEquals(0, limiter.getThroughput(3 * SECOND));
+    }
+}
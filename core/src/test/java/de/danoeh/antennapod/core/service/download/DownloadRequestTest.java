@@ -59,6 +59,21 @@ public class DownloadRequestTest {
         assertNotEquals(request1, request3);
     }
 
+    @Test
+    public void parcelConditionalRequestTest() {
+        DownloadRequest request = new DownloadRequest.Builder("file://location/media.mp3", createFeedItem(1))
+                .lastModified("Wed, 21 Oct 2015 07:28:00 GMT")
+                .etag("\"33a64df5\"")
+                .build();
+        Parcel parcel = Parcel.obtain();
+        request.writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+        DownloadRequest fromParcel = DownloadRequest.CREATOR.createFromParcel(parcel);
+        assertEquals(request, fromParcel);
+        assertEquals("\"33a64df5\"", fromParcel.getEtag());
+        assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", fromParcel.getLastModified());
+    }
+
     // Test to ensure parcel using put/getParcelableArrayList() API work
     // based on: https://stackoverflow.com/a/13507191
     private void doTestParcelInArrayList(String message,
@@ -0,0 +1,139 @@
+package de.danoeh.antennapod.core.service.download;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class DownloadSchedulerTest {
+    /** Runnables that the scheduler started but that did not run yet */
+    private List<Runnable> started;
+    /** Names of the downloads in the order they ran */
+    private List<String> ran;
+
+    @Before
+    public void setUp() {
+        started = new ArrayList<>();
+        ran = new ArrayList<>();
+    }
+
+    private DownloadScheduler createScheduler(int maxRunning, int maxPerHost) {
+        return new DownloadScheduler(started::add, maxRunning, maxPerHost);
+    }
+
+    private void submit(DownloadScheduler scheduler, int priority, String host, String name) {
+        scheduler.submit(priority, host, () -> ran.add(name));
+    }
+
+    private void runStarted() {
+        while (!started.isEmpty()) {
+            started.remove(0).run();
+        }
+    }
+
+    @Test
+    public void testPriorityOrder() {
+        DownloadScheduler scheduler = createScheduler(1, 3);
+        submit(scheduler, DownloadScheduler.PRIORITY_AUTO_DOWNLOAD, "a.com", "running");
+        submit(scheduler, DownloadScheduler.PRIORITY_AUTO_DOWNLOAD, "a.com", "auto");
+        submit(scheduler, DownloadScheduler.PRIORITY_FEED, "b.com", "feed1");
+        submit(scheduler, DownloadScheduler.PRIORITY_FEED, "c.com", "feed2");
+        assertEquals(1, scheduler.getRunningCount());
+        assertEquals(3, scheduler.getQueueDepth());
+
+        runStarted();
+        assertEquals(Arrays.asList("running", "feed1", "feed2", "auto"), ran);
+        assertEquals(0, scheduler.getRunningCount());
+        assertEquals(0, scheduler.getQueueDepth());
+    }
+
+    @Test
+    public void testLimitPerHost() {
+        DownloadScheduler scheduler = createScheduler(3, 2);
+        submit(scheduler, DownloadScheduler.PRIORITY_AUTO_DOWNLOAD, "a.com", "a1");
+        submit(scheduler, DownloadScheduler.PRIORITY_AUTO_DOWNLOAD, "a.com", "a2");
+        submit(scheduler, DownloadScheduler.PRIORITY_AUTO_DOWNLOAD, "a.com", "a3");
+        submit(scheduler, DownloadScheduler.PRIORITY_AUTO_DOWNLOAD, "b.com", "b1");
+        // The third download from a.com waits, so b.com gets the free slot
+        assertEquals(3, scheduler.getRunningCount());
+        assertEquals(1, scheduler.getQueueDepth());
+
+        runStarted();
+        assertEquals(Arrays.asList("a1", "a2", "b1", "a3"), ran);
+    }
+
+    @Test
+    public void testNoHostIsNotLimited() {
+        DownloadScheduler scheduler = createScheduler(3, 1);
+        submit(scheduler, DownloadScheduler.PRIORITY_FEED, null, "local1");
+        submit(scheduler, DownloadScheduler.PRIORITY_FEED, null, "local2");
+        assertEquals(2, scheduler.getRunningCount());
+        assertEquals(0, scheduler.getQueueDepth());
+    }
+
+    @Test
+    public void testReservedUserSlot() {
+        DownloadScheduler scheduler = createScheduler(2, 3);
+        submit(scheduler, DownloadScheduler.PRIORITY_AUTO_DOWNLOAD, "a.com", "auto1");
+        submit(scheduler, DownloadScheduler.PRIORITY_AUTO_DOWNLOAD, "b.com", "auto2");
+        submit(scheduler, DownloadScheduler.PRIORITY_AUTO_DOWNLOAD, "c.com", "auto3");
+        submit(scheduler, DownloadScheduler.PRIORITY_USER, "d.com", "user1");
+        assertEquals(2 + DownloadScheduler.RESERVED_USER_SLOTS, scheduler.getRunningCount());
+        assertEquals(1, scheduler.getQueueDepth());
+
+        // Only downloads started by the user can use the reserved slot
+        submit(scheduler, DownloadScheduler.PRIORITY_USER, "e.com", "user2");
+        assertEquals(2 + DownloadScheduler.RESERVED_USER_SLOTS, scheduler.getRunningCount());
+        assertEquals(2, scheduler.getQueueDepth());
+
+        runStarted();
+        assertEquals(Arrays.asList("auto1", "auto2", "user1", "user2", "auto3"), ran);
+    }
+
+    @Test
+    public void testFailingDownloadFreesSlot() {
+        DownloadScheduler scheduler = createScheduler(1, 3);
+        scheduler.submit(DownloadScheduler.PRIORITY_USER, "a.com", () -> {
+            throw new IllegalStateException();
+        });
+        submit(scheduler, DownloadScheduler.PRIORITY_USER, "a.com", "next");
+        // Does not reach the executor, which would not report it
+        started.remove(0).run();
+        runStarted();
+        assertEquals(Arrays.asList("next"), ran);
+        assertEquals(0, scheduler.getRunningCount());
+    }
+
+    @Test
+    public void testConnectionsCountTowardsLimitPerHost() {
+        DownloadScheduler scheduler = createScheduler(3, 3);
+        submit(scheduler, DownloadScheduler.PRIORITY_USER, "a.com", "a1");
+        DownloadScheduler.ConnectionLimit limit = scheduler.getConnectionLimit("a.com");
+        // The download itself already uses one connection
+        assertEquals(2, limit.acquire(DownloadScheduler.MAX_CONNECTIONS_PER_HOST));
+        assertEquals(0, limit.acquire(1));
+        submit(scheduler, DownloadScheduler.PRIORITY_USER, "a.com", "a2");
+        submit(scheduler, DownloadScheduler.PRIORITY_USER, "b.com", "b1");
+        assertEquals(2, scheduler.getRunningCount());
+        assertEquals(1, scheduler.getQueueDepth());
+
+        limit.release(1);
+        assertEquals(3, scheduler.getRunningCount());
+        assertEquals(0, scheduler.getQueueDepth());
+        runStarted();
+        assertEquals(Arrays.asList("a1", "b1", "a2"), ran);
+    }
+
+    @Test
+    public void testNoHostConnectionsAreNotLimited() {
+        DownloadScheduler scheduler = createScheduler(3, 1);
+        assertEquals(5, scheduler.getConnectionLimit(null).acquire(5));
+    }
+}
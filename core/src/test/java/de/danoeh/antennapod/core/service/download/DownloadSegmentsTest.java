@@ -0,0 +1,101 @@
+package de.danoeh.antennapod.core.service.download;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.List;
+
+import de.danoeh.antennapod.core.service.download.DownloadSegments.Segment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DownloadSegmentsTest {
+    private static final String ETAG = "\"abc\"";
+
+    private File progressFile;
+
+    @Before
+    public void setUp() throws Exception {
+        File destination = File.createTempFile("episode", ".mp3");
+        progressFile = DownloadSegments.getProgressFile(destination);
+        //noinspection ResultOfMethodCallIgnored
+        destination.delete();
+    }
+
+    @After
+    public void tearDown() {
+        //noinspection ResultOfMethodCallIgnored
+        progressFile.delete();
+    }
+
+    @Test
+    public void testSplit() {
+        DownloadSegments segments = DownloadSegments.split(1001, ETAG, 4, 100);
+        List<Segment> parts = segments.getSegments();
+        assertEquals(4, parts.size());
+        long expectedStart = 0;
+        for (Segment segment : parts) {
+            assertEquals(expectedStart, segment.start);
+            assertEquals(segment.start, segment.position);
+            expectedStart = segment.end;
+        }
+        assertEquals(1001, expectedStart);
+        assertEquals(0, segments.getBytesDone());
+    }
+
+    @Test
+    public void testSplitSmallFile() {
+        assertEquals(2, DownloadSegments.split(250, ETAG, 4, 100).getSegments().size());
+        assertEquals(1, DownloadSegments.split(50, ETAG, 4, 100).getSegments().size());
+    }
+
+    @Test
+    public void testProgress() {
+        DownloadSegments segments = DownloadSegments.split(400, ETAG, 4, 100);
+        List<Segment> parts = segments.getSegments();
+        assertEquals(10, segments.advance(parts.get(1), 10));
+        assertEquals(110, segments.advance(parts.get(3), 100));
+        assertFalse(segments.isComplete());
+        segments.advance(parts.get(0), 100);
+        segments.advance(parts.get(1), 90);
+        assertEquals(400, segments.advance(parts.get(2), 100));
+        assertTrue(segments.isComplete());
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        DownloadSegments segments = DownloadSegments.split(1000, ETAG, 4, 100);
+        segments.advance(segments.getSegments().get(0), 17);
+        segments.advance(segments.getSegments().get(2), 250);
+        segments.save(progressFile);
+
+        DownloadSegments loaded = DownloadSegments.load(progressFile);
+        assertNotNull(loaded);
+        assertEquals(1000, loaded.getSize());
+        assertEquals(ETAG, loaded.getValidator());
+        assertEquals(267, loaded.getBytesDone());
+        assertEquals(17, loaded.getSegments().get(0).position);
+        assertEquals(750, loaded.getSegments().get(2).position);
+        assertEquals(0, loaded.getSegments().get(2).getRemaining());
+    }
+
+    @Test
+    public void testLoadInvalid() throws Exception {
+        assertNull(DownloadSegments.load(progressFile));
+
+        DownloadSegments.split(1000, ETAG, 4, 100).save(progressFile);
+        byte[] data = Files.readAllBytes(progressFile.toPath());
+        try (FileOutputStream out = new FileOutputStream(progressFile)) {
+            out.write(data, 0, data.length - 5);
+        }
+        assertNull(DownloadSegments.load(progressFile));
+    }
+}
@@ -0,0 +1,217 @@
+package de.danoeh.antennapod.core.service.download.handler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import de.danoeh.antennapod.core.service.download.DownloadRequest;
+import de.danoeh.antennapod.core.service.download.DownloadStatus;
+import de.danoeh.antennapod.model.feed.Feed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FeedSyncPipelineTest {
+    private static final long TIMEOUT_SECONDS = 5;
+
+    /** Titles of the feeds of each batch that was saved */
+    private List<List<String>> batches;
+    /** Titles of the feeds in the order their callbacks ran, with the result */
+    private List<String> synced;
+    private CountDownLatch firstSaveStarted;
+    private CountDownLatch firstSaveBlocked;
+    private boolean failSaving;
+    private FeedSyncPipeline pipeline;
+
+    @Before
+    public void setUp() {
+        batches = Collections.synchronizedList(new ArrayList<>());
+        synced = Collections.synchronizedList(new ArrayList<>());
+        firstSaveStarted = new CountDownLatch(1);
+        firstSaveBlocked = new CountDownLatch(0);
+        failSaving = false;
+        pipeline = new FeedSyncPipeline(this::save);
+    }
+
+    @After
+    public void tearDown() {
+        firstSaveBlocked.countDown();
+        pipeline.shutdown();
+    }
+
+    private List<Feed> save(List<Feed> feeds, List<DownloadStatus> downloadStatuses) {
+        List<String> titles = new ArrayList<>();
+        List<Feed> saved = new ArrayList<>();
+        for (Feed feed : feeds) {
+            titles.add(feed.getTitle());
+            saved.add(new Feed(feed.getDownload_url(), null, "saved " + feed.getTitle()));
+        }
+        batches.add(titles);
+        firstSaveStarted.countDown();
+        try {
+            firstSaveBlocked.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        if (failSaving) {
+            throw new IllegalStateException("Saving failed");
+        }
+        return saved;
+    }
+
+    private FakeFeedSyncTask submit(String title, String source, boolean parsed, CountDownLatch done) {
+        FakeFeedSyncTask task = new FakeFeedSyncTask(title, source, parsed);
+        pipeline.submit(task, 0, (syncedTask, success) -> {
+            synced.add(((FakeFeedSyncTask) syncedTask).title + (success ? "" : " failed"));
+            done.countDown();
+        });
+        return task;
+    }
+
+    /**
+     * Keeps the merge thread busy with the first feed, so that the next feeds are queued together.
+     */
+    private void blockFirstSave(CountDownLatch done) throws InterruptedException {
+        firstSaveBlocked = new CountDownLatch(1);
+        submit("first", "http://example.com/first", true, done);
+        assertTrue(firstSaveStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testQueuedFeedsAreSavedTogether() throws Exception {
+        CountDownLatch done = new CountDownLatch(4);
+        blockFirstSave(done);
+        FakeFeedSyncTask a = submit("a", "http://example.com/a", true, done);
+        FakeFeedSyncTask b = submit("b", "http://example.com/b", true, done);
+        FakeFeedSyncTask c = submit("c", "http://example.com/c", true, done);
+        firstSaveBlocked.countDown();
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        assertEquals(Arrays.asList(Collections.singletonList("first"), Arrays.asList("a", "b", "c")), batches);
+        assertEquals(Arrays.asList("first", "a", "b", "c"), synced);
+        assertEquals("saved a", a.savedFeed.getTitle());
+        assertEquals("saved b", b.savedFeed.getTitle());
+        assertEquals("saved c", c.savedFeed.getTitle());
+    }
+
+    @Test
+    public void testSameFeedIsNotSavedTwiceInOneBatch() throws Exception {
+        CountDownLatch done = new CountDownLatch(4);
+        blockFirstSave(done);
+        submit("page 1", "http://example.com/a", true, done);
+        submit("page 2", "http://example.com/a", true, done);
+        submit("b", "http://example.com/b", true, done);
+        firstSaveBlocked.countDown();
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        assertEquals(Arrays.asList(Collections.singletonList("first"), Arrays.asList("page 1", "b"),
+                Collections.singletonList("page 2")), batches);
+        assertEquals(Arrays.asList("first", "page 1", "b", "page 2"), synced);
+    }
+
+    @Test
+    public void testParserFailure() throws Exception {
+        CountDownLatch done = new CountDownLatch(2);
+        FakeFeedSyncTask invalid = submit("invalid", "http://example.com/invalid", false, done);
+        submit("valid", "http://example.com/valid", true, done);
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        assertEquals(Collections.singletonList(Collections.singletonList("valid")), batches);
+        assertEquals(Arrays.asList("invalid failed", "valid"), synced);
+        assertFalse(invalid.onSavedCalled);
+    }
+
+    @Test
+    public void testSaveFailure() throws Exception {
+        failSaving = true;
+        CountDownLatch done = new CountDownLatch(3);
+        blockFirstSave(done);
+        FakeFeedSyncTask a = submit("a", "http://example.com/a", true, done);
+        submit("b", "http://example.com/b", true, done);
+        firstSaveBlocked.countDown();
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        assertEquals(Arrays.asList("first failed", "a failed", "b failed"), synced);
+        assertFalse(a.onSavedCalled);
+    }
+
+    @Test
+    public void testSubmitAfterShutdown() throws Exception {
+        pipeline.shutdown();
+        CountDownLatch done = new CountDownLatch(1);
+        FakeFeedSyncTask task = submit("late", "http://example.com/late", true, done);
+
+        // Handled on the submitting thread, so it is done already
+        assertEquals(0, done.getCount());
+        assertEquals(Collections.singletonList("late"), synced);
+        assertEquals("saved late", task.savedFeed.getTitle());
+    }
+
+    @Test
+    public void testShutdownSavesSubmittedFeeds() throws Exception {
+        CountDownLatch done = new CountDownLatch(3);
+        blockFirstSave(done);
+        submit("a", "http://example.com/a", true, done);
+        submit("b", "http://example.com/b", true, done);
+        pipeline.shutdown();
+        firstSaveBlocked.countDown();
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        assertEquals(Arrays.asList("first", "a", "b"), synced);
+    }
+
+    /**
+     * A task that does not parse anything and records what the pipeline did with it.
+     */
+    private static class FakeFeedSyncTask extends FeedSyncTask {
+        final String title;
+        private final DownloadRequest request;
+        private final boolean parsed;
+        private final Feed feed;
+        Feed savedFeed;
+        boolean onSavedCalled = false;
+
+        FakeFeedSyncTask(String title, String source, boolean parsed) {
+            super(null, null, null);
+            this.title = title;
+            this.parsed = parsed;
+            request = new DownloadRequest("feed.xml", source, title, 0, Feed.FEEDFILETYPE_FEED,
+                    null, null, false, null, false);
+            feed = new Feed(source, null, title);
+        }
+
+        @Override
+        public boolean parse() {
+            return parsed;
+        }
+
+        @Override
+        public Feed getParsedFeed() {
+            return parsed ? feed : null;
+        }
+
+        @Override
+        public void onSaved(Feed savedFeed) {
+            this.savedFeed = savedFeed;
+            onSavedCalled = true;
+        }
+
+        @Override
+        public DownloadRequest getDownloadRequest() {
+            return request;
+        }
+
+        @Override
+        public DownloadStatus getDownloadStatus() {
+            return null;
+        }
+    }
+}
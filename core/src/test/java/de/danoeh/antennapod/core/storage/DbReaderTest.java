@@ -3,6 +3,7 @@ package de.danoeh.antennapod.core.storage;
 import android.content.Context;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Random;
@@ -10,8 +11,11 @@ import java.util.Random;
 import androidx.test.platform.app.InstrumentationRegistry;
 import de.danoeh.antennapod.model.feed.Feed;
 import de.danoeh.antennapod.model.feed.FeedItem;
+import de.danoeh.antennapod.model.feed.FeedItemFilter;
 import de.danoeh.antennapod.model.feed.FeedMedia;
 import de.danoeh.antennapod.core.preferences.UserPreferences;
+import de.danoeh.antennapod.core.util.FeedItemUtil;
+import de.danoeh.antennapod.core.util.LongIntMap;
 import de.danoeh.antennapod.core.util.LongList;
 import org.junit.After;
 import org.junit.Before;
@@ -237,6 +241,31 @@ public class DbReaderTest {
         }
     }
 
+    @Test
+    public void testGetDownloadedEpisodeStates() {
+        final int numItems = 10;
+        List<FeedItem> downloaded = saveDownloadedItems(numItems);
+        FeedItem queued = downloaded.get(0);
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setQueue(Collections.singletonList(queued));
+        adapter.close();
+
+        EpisodeStateList states = DBReader.getDownloadedEpisodeStates();
+        assertEquals(downloaded.size(), states.size());
+        for (int i = 0; i < states.size(); i++) {
+            assertTrue(states.isDownloaded(i));
+            assertTrue(states.getMediaId(i) != 0);
+            assertEquals(states.getItemId(i) == queued.getId(), states.isInQueue(i));
+            assertFalse(states.isFavorite(i));
+        }
+
+        EpisodeStateList queue = DBReader.getQueueEpisodeStates();
+        assertEquals(1, queue.size());
+        assertEquals(queued.getId(), queue.getItemId(0));
+        assertEquals(queued.getMedia().getId(), queue.getMediaId(0));
+    }
+
     @SuppressWarnings("SameParameterValue")
     private List<FeedItem> saveNewItems(int numItems) {
         List<Feed> feeds = saveFeedlist(numItems, numItems, true);
@@ -287,6 +316,47 @@ public class DbReaderTest {
         }
     }
 
+    @Test
+    public void testGetRecentlyPublishedEpisodesPaged() {
+        final int pageSize = 3;
+        saveFeedlist(3, 10, true);
+        List<FeedItem> allItems = DBReader.getRecentlyPublishedEpisodes(0, Integer.MAX_VALUE,
+                FeedItemFilter.unfiltered());
+
+        List<FeedItem> pagedItems = new ArrayList<>();
+        List<FeedItem> page = DBReader.getRecentlyPublishedEpisodes(null, pageSize, FeedItemFilter.unfiltered());
+        while (!page.isEmpty()) {
+            assertTrue(page.size() <= pageSize);
+            pagedItems.addAll(page);
+            FeedItem lastItem = page.get(page.size() - 1);
+            page = DBReader.getRecentlyPublishedEpisodes(lastItem, pageSize, FeedItemFilter.unfiltered());
+        }
+        assertEquals(FeedItemUtil.getIdList(allItems), FeedItemUtil.getIdList(pagedItems));
+    }
+
+    @Test
+    public void testGetStatistics() throws Exception {
+        List<Feed> feeds = saveFeedlist(2, 3, true);
+        FeedMedia media = feeds.get(0).getItems().get(0).getMedia();
+        media.setDuration(120000);
+        media.setPlayedDuration(60000);
+        DBWriter.setFeedMediaPlaybackInformation(media).get();
+
+        List<StatisticsItem> statistics = DBReader.getStatistics();
+        assertEquals(2, statistics.size());
+        assertEquals(feeds.get(0).getId(), statistics.get(0).feed.getId());
+        assertEquals(3, statistics.get(0).episodes);
+        assertEquals(120, statistics.get(0).time);
+        assertEquals(60, statistics.get(0).timePlayed);
+        assertEquals(1, statistics.get(0).episodesStarted);
+        assertEquals(0, statistics.get(1).timePlayed);
+
+        // Cached statistics need to be updated after a change
+        media.setPlayedDuration(90000);
+        DBWriter.setFeedMediaPlaybackInformation(media).get();
+        assertEquals(90, DBReader.getStatistics().get(0).timePlayed);
+    }
+
     @Test
     public void testGetPlaybackHistory() {
         final int numItems = (DBReader.PLAYBACK_HISTORY_SIZE + 1) * 2;
@@ -337,11 +407,14 @@ public class DbReaderTest {
         List<Feed> feeds = DbTestUtils.saveFeedlist(numFeeds, numItems, true);
         PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
+        adapter.beginTransaction();
         for (int i = 0; i < numNew; i++) {
             FeedItem item = feeds.get(0).getItems().get(i);
             item.setNew();
-            adapter.setSingleFeedItem(item);
+            adapter.setFeedItemInTransaction(item);
         }
+        adapter.setTransactionSuccessful();
+        adapter.endTransaction();
         List<FeedItem> queue = new ArrayList<>();
         for (int i = 0; i < numQueue; i++) {
             FeedItem item = feeds.get(1).getItems().get(i);
@@ -357,6 +430,32 @@ public class DbReaderTest {
         assertEquals(numQueue, navDrawerData.queueSize);
     }
 
+    @Test
+    public void testFeedCounters() throws Exception {
+        List<Feed> feeds = saveFeedlist(2, 5, true);
+        FeedItem item1 = feeds.get(0).getItems().get(0);
+        FeedItem item2 = feeds.get(0).getItems().get(1);
+        DBWriter.markItemPlayed(FeedItem.NEW, item1.getId(), item2.getId()).get();
+        DBWriter.markItemPlayed(FeedItem.UNPLAYED, item2.getId()).get();
+        item1.getMedia().setDownloaded(true);
+        DBWriter.setFeedMedia(item1.getMedia()).get();
+
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        LongIntMap newCounters = adapter.getFeedCounters(UserPreferences.FEED_COUNTER_SHOW_NEW);
+        assertEquals(1, newCounters.size());
+        assertEquals(1, newCounters.get(feeds.get(0).getId()));
+        LongIntMap sumCounters = adapter.getFeedCounters(UserPreferences.FEED_COUNTER_SHOW_NEW_UNPLAYED_SUM);
+        assertEquals(2, sumCounters.get(feeds.get(0).getId()));
+        LongIntMap playedCounters = adapter.getPlayedEpisodesCounters();
+        assertEquals(3, playedCounters.get(feeds.get(0).getId()));
+        assertEquals(5, playedCounters.get(feeds.get(1).getId()));
+        assertEquals(1, adapter.getNumberOfDownloadedEpisodes());
+        assertEquals(1, adapter.getNumberOfNewItems());
+        assertFalse(adapter.repairFeedCounters());
+        adapter.close();
+    }
+
     @Test
     public void testGetFeedItemlistCheckChaptersFalse() {
         List<Feed> feeds = DbTestUtils.saveFeedlist(10, 10, false, false, 0);
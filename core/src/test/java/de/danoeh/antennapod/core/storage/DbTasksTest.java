@@ -103,6 +103,34 @@ public class DbTasksTest {
         assertTrue(savedFeed1.getId() != savedFeed2.getId());
     }
 
+    @Test
+    public void testUpdateFeedsNewAndExistingFeeds() {
+        Feed existing = new Feed("url2", null, "title 2");
+        existing.setItems(new ArrayList<>());
+        DBTasks.updateFeed(context, existing, false);
+
+        Feed feed1 = new Feed("url1", null, "title 1");
+        Feed feed2 = new Feed("url2", null, "title 2");
+        Feed feed3 = new Feed("url3", null, "title 3");
+        for (Feed feed : Arrays.asList(feed1, feed2, feed3)) {
+            feed.setItems(new ArrayList<>());
+            feed.getItems().add(new FeedItem(0, "item", "id", "link", new Date(), FeedItem.UNPLAYED, feed));
+        }
+        List<Feed> savedFeeds = DBTasks.updateFeeds(context, Arrays.asList(feed1, feed2, feed3), false,
+                Arrays.asList(null, null, null));
+
+        assertEquals(3, savedFeeds.size());
+        assertEquals("url1", savedFeeds.get(0).getDownload_url());
+        assertEquals(existing.getId(), savedFeeds.get(1).getId());
+        assertEquals("url3", savedFeeds.get(2).getDownload_url());
+        assertTrue(savedFeeds.get(0).getId() != 0);
+        assertTrue(savedFeeds.get(2).getId() != 0);
+        assertEquals(3, DBReader.getFeedList().size());
+        for (Feed feed : DBReader.getFeedList()) {
+            assertEquals(1, DBReader.getFeedItemList(feed).size());
+        }
+    }
+
     @Test
     public void testUpdateFeedUpdatedFeed() {
         final int numItemsOld = 10;
@@ -254,6 +282,38 @@ public class DbTasksTest {
         }
     }
 
+    @Test
+    public void testUpdateFeeds() {
+        Feed saved = new Feed("url1", null, "title 1");
+        saved.setItems(new ArrayList<>());
+        saved.getItems().add(new FeedItem(0, "item 1", "id 1", "link", new Date(1000), FeedItem.PLAYED, saved));
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setCompleteFeed(saved);
+        adapter.close();
+
+        Feed refreshed = new Feed("url1", null, "title 1");
+        refreshed.setItems(new ArrayList<>());
+        refreshed.getItems().add(new FeedItem(0, "item 1", "id 1", "link", new Date(1000), FeedItem.UNPLAYED,
+                refreshed));
+        refreshed.getItems().add(new FeedItem(0, "item 2", "id 2", "link", new Date(2000), FeedItem.UNPLAYED,
+                refreshed));
+        Feed added = new Feed("url2", null, "title 2");
+        added.setItems(new ArrayList<>());
+        added.getItems().add(new FeedItem(0, "item 3", "id 3", "link", new Date(), FeedItem.UNPLAYED, added));
+
+        List<Feed> result = DBTasks.updateFeeds(context, Arrays.asList(refreshed, added), false,
+                Arrays.asList(null, null));
+
+        assertEquals(2, result.size());
+        assertEquals(saved.getId(), result.get(0).getId());
+        assertTrue(result.get(1).getId() != 0);
+        assertTrue(result.get(1).getId() != saved.getId());
+        List<FeedItem> items = DBReader.getFeedItemList(DBReader.getFeed(saved.getId()));
+        assertEquals(2, items.size());
+        assertEquals(1, DBReader.getFeedItemList(DBReader.getFeed(result.get(1).getId())).size());
+    }
+
     @Test
     public void testAddQueueItemsInDownload_EnqueueEnabled() throws Exception {
         // Setup test data / environment
@@ -304,6 +364,28 @@ public class DbTasksTest {
         assertEqualsByIds("Queue is unchanged", expectedQueue, DBReader.getQueue());
     }
 
+    @Test
+    public void testSearchFeedItems() throws Exception {
+        Feed feed = new Feed("url", null, "title");
+        feed.setItems(new ArrayList<>());
+        FeedItem descriptionMatch = new FeedItem(0, "Cooking", "id1", "link", new Date(2000), FeedItem.UNPLAYED, feed);
+        descriptionMatch.setDescriptionIfLonger("A podcast about penguins");
+        FeedItem titleMatch = new FeedItem(0, "Penguin news", "id2", "link", new Date(1000), FeedItem.UNPLAYED, feed);
+        FeedItem noMatch = new FeedItem(0, "Weather", "id3", "link", new Date(3000), FeedItem.UNPLAYED, feed);
+        feed.getItems().addAll(Arrays.asList(descriptionMatch, titleMatch, noMatch));
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setCompleteFeed(feed);
+        adapter.close();
+
+        List<FeedItem> result = FeedSearcher.searchFeedItems(context, "PENGUIN", 0);
+        assertEqualsByIds("Title matches first", Arrays.asList(titleMatch, descriptionMatch), result);
+
+        DBWriter.deleteFeedItems(context, singletonList(titleMatch)).get();
+        result = FeedSearcher.searchFeedItems(context, "penguin", feed.getId());
+        assertEqualsByIds("Deleted items are removed from index", singletonList(descriptionMatch), result);
+    }
+
     private void assertEqualsByIds(String msg, List<? extends FeedItem> expected, List<? extends FeedItem> actual) {
         // assert only the IDs, so that any differences are easily to spot.
         List<Long> expectedIds = getIdList(expected);
@@ -19,6 +19,7 @@ import org.robolectric.RobolectricTestRunner;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
@@ -27,12 +28,16 @@ import java.util.concurrent.TimeUnit;
 
 import de.danoeh.antennapod.core.ApplicationCallbacks;
 import de.danoeh.antennapod.core.ClientConfig;
+import de.danoeh.antennapod.model.feed.Chapter;
+import de.danoeh.antennapod.model.feed.EmbeddedChapterImage;
 import de.danoeh.antennapod.model.feed.Feed;
 import de.danoeh.antennapod.model.feed.FeedItem;
 import de.danoeh.antennapod.model.feed.FeedMedia;
 import de.danoeh.antennapod.core.preferences.PlaybackPreferences;
 import de.danoeh.antennapod.core.preferences.UserPreferences;
 import de.danoeh.antennapod.core.util.FeedItemUtil;
+import de.danoeh.antennapod.parser.feed.element.SimpleChapter;
+import de.danoeh.antennapod.parser.media.id3.ID3Chapter;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -123,6 +128,83 @@ public class DbWriterTest {
         assertEquals(duration, mediaFromDb.getDuration());
     }
 
+    @Test
+    public void testSetMediaFileChapters() throws Exception {
+        Feed feed = new Feed("url", null, "title");
+        List<FeedItem> items = new ArrayList<>();
+        feed.setItems(items);
+        FeedItem item = new FeedItem(0, "Item", "Item", "url", new Date(), FeedItem.PLAYED, feed);
+        items.add(item);
+        FeedMedia media = new FeedMedia(0, item, 100, 1, 1, "mime_type",
+                "dummy path", "download_url", true, null, 0, 0);
+        item.setMedia(media);
+        List<Chapter> feedChapters = new ArrayList<>();
+        feedChapters.add(new SimpleChapter(0, "Feed chapter", null, null));
+        item.setChapters(feedChapters);
+        DBWriter.setFeedItem(item).get(TIMEOUT, TimeUnit.SECONDS);
+
+        List<Chapter> fileChapters = new ArrayList<>();
+        fileChapters.add(new ID3Chapter(0, "File chapter 1", null, EmbeddedChapterImage.makeUrl(100, 200)));
+        fileChapters.add(new ID3Chapter(1000, "File chapter 2", null, null));
+        media.setChaptersFileFingerprint(1234, 5678);
+        DBWriter.setMediaFileChapters(media, fileChapters).get(TIMEOUT, TimeUnit.SECONDS);
+
+        // Reading the file again replaces its chapters, but not the ones of the feed
+        fileChapters.remove(1);
+        DBWriter.setMediaFileChapters(media, fileChapters).get(TIMEOUT, TimeUnit.SECONDS);
+
+        FeedItem itemFromDb = DBReader.getFeedItem(item.getId());
+        assertTrue(itemFromDb.hasChapters());
+        List<Chapter> chapters = DBReader.loadChaptersOfFeedItem(itemFromDb);
+        assertEquals(2, chapters.size());
+        for (Chapter chapter : chapters) {
+            if (chapter.getChapterType() == ID3Chapter.CHAPTERTYPE_ID3CHAPTER) {
+                assertEquals("File chapter 1", chapter.getTitle());
+                assertEquals(EmbeddedChapterImage.makeUrl(100, 200), chapter.getImageUrl());
+            } else {
+                assertEquals("Feed chapter", chapter.getTitle());
+            }
+        }
+        assertTrue(itemFromDb.getMedia().hasChaptersOfFile(1234, 5678));
+        assertFalse(itemFromDb.getMedia().hasChaptersOfFile(1234, 5679));
+    }
+
+    @Test
+    public void testSetDownloadedMedia() throws Exception {
+        Feed feed = new Feed("url", null, "title");
+        List<FeedItem> items = new ArrayList<>();
+        feed.setItems(items);
+        for (int i = 0; i < 3; i++) {
+            FeedItem item = new FeedItem(0, "Item " + i, "Item" + i, "url", new Date(), FeedItem.NEW, feed);
+            item.setMedia(new FeedMedia(0, item, 0, 0, 0, "mime_type", null, "download_url" + i, false, null, 0, 0));
+            items.add(item);
+        }
+        DBWriter.setItemList(items).get(TIMEOUT, TimeUnit.SECONDS);
+
+        List<FeedMedia> mediaList = new ArrayList<>();
+        List<List<Chapter>> fileChapters = new ArrayList<>();
+        for (FeedItem item : items) {
+            FeedMedia media = item.getMedia();
+            media.setDownloaded(true);
+            media.setFile_url("file" + item.getId());
+            media.setDuration(1000);
+            media.setChaptersFileFingerprint(1234, 5678);
+            mediaList.add(media);
+            fileChapters.add(null);
+        }
+        fileChapters.set(1, Collections.singletonList(new ID3Chapter(0, "File chapter", null, null)));
+        DBWriter.setDownloadedMedia(mediaList, fileChapters).get(TIMEOUT, TimeUnit.SECONDS);
+
+        for (int i = 0; i < items.size(); i++) {
+            FeedItem itemFromDb = DBReader.getFeedItem(items.get(i).getId());
+            assertTrue(itemFromDb.getMedia().isDownloaded());
+            assertEquals("file" + itemFromDb.getId(), itemFromDb.getMedia().getFile_url());
+            assertEquals(1000, itemFromDb.getMedia().getDuration());
+            assertTrue(itemFromDb.getMedia().hasChaptersOfFile(1234, 5678));
+            assertEquals(i == 1, itemFromDb.hasChapters());
+        }
+    }
+
     @Test
     public void testDeleteFeedMediaOfItemFileExists() throws Exception {
         File dest = new File(context.getExternalFilesDir(TEST_FOLDER), "testFile");
@@ -778,6 +860,43 @@ public class DbWriterTest {
         }
     }
 
+    @Test
+    public void testMarkItemPlayedBatched() throws Exception {
+        final int numItems = 10;
+        Feed feed = new Feed("url", null, "title");
+        feed.setItems(new ArrayList<>());
+        for (int i = 0; i < numItems; i++) {
+            FeedItem item = new FeedItem(0, "title " + i, "id " + i, "link " + i,
+                    new Date(), FeedItem.UNPLAYED, feed);
+            feed.getItems().add(item);
+        }
+
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setCompleteFeed(feed);
+        adapter.close();
+
+        // Writes that arrive together are committed in one transaction, later writes still win
+        List<Future<?>> futures = new ArrayList<>();
+        for (FeedItem item : feed.getItems()) {
+            futures.add(DBWriter.markItemPlayed(FeedItem.NEW, item.getId()));
+            futures.add(DBWriter.markItemPlayed(FeedItem.PLAYED, item.getId()));
+        }
+        FeedItem renamed = feed.getItems().get(0);
+        renamed.setTitle("renamed");
+        renamed.setPlayed(true);
+        futures.add(DBWriter.setFeedItem(renamed));
+        for (Future<?> future : futures) {
+            future.get(TIMEOUT, TimeUnit.SECONDS);
+        }
+
+        List<FeedItem> loadedItems = DBReader.getFeedItemList(feed);
+        for (FeedItem item : loadedItems) {
+            assertTrue(item.isPlayed());
+        }
+        assertEquals("renamed", DBReader.getFeedItem(renamed.getId()).getTitle());
+    }
+
     @Test
     public void testRemoveAllNewFlags() throws Exception {
         final int numItems = 10;
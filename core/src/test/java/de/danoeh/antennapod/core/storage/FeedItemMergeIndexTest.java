@@ -0,0 +1,111 @@
+package de.danoeh.antennapod.core.storage;
+
+import android.text.TextUtils;
+
+import de.danoeh.antennapod.model.feed.FeedItem;
+import de.danoeh.antennapod.model.feed.FeedMedia;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Test class for {@link FeedItemMergeIndex}.
+ */
+public class FeedItemMergeIndexTest {
+    private static final long MINUTES = 1000 * 60;
+    private static final long HOURS = 60 * MINUTES;
+
+    @Test
+    public void testLookupsMatchLinearSearch() {
+        List<FeedItem> items = generateItems(new Random(1), 1000);
+        FeedItemMergeIndex index = new FeedItemMergeIndex(items);
+        for (FeedItem searchItem : generateItems(new Random(2), 1000)) {
+            assertSame(linearSearchByIdentifyingValue(items, searchItem), index.findByIdentifyingValue(searchItem));
+            assertSame(linearSearchGuessedDuplicate(items, searchItem), index.findGuessedDuplicate(searchItem));
+        }
+    }
+
+    @Test
+    public void testReturnsFirstItemInListOrder() {
+        List<FeedItem> items = new ArrayList<>();
+        items.add(item("id", "Title1", "example.com/episode1", 0, 5 * MINUTES, "audio/*"));
+        items.add(item("id", "Title2", "example.com/episode2", 0, 5 * MINUTES, "audio/*"));
+        FeedItemMergeIndex index = new FeedItemMergeIndex(items);
+        FeedItem searchItem = item("id", "Title3", "example.com/episode3", 0, 5 * MINUTES, "audio/*");
+        assertSame(items.get(0), index.findByIdentifyingValue(searchItem));
+
+        FeedItem inserted = item("id", "Title4", "example.com/episode4", 0, 5 * MINUTES, "audio/*");
+        items.add(0, inserted);
+        index.add(inserted);
+        assertSame(inserted, index.findByIdentifyingValue(searchItem));
+        assertSame(inserted, index.findGuessedDuplicate(searchItem));
+    }
+
+    @Test
+    public void testUpdate() {
+        List<FeedItem> items = new ArrayList<>();
+        FeedItem item = item("id1", "Title1", "example.com/episode1", 0, 5 * MINUTES, "audio/*");
+        items.add(item);
+        FeedItemMergeIndex index = new FeedItemMergeIndex(items);
+
+        item.setItemIdentifier("id2");
+        index.update(item);
+        assertNull(index.findByIdentifyingValue(
+                item("id1", "Title2", "example.com/episode2", 0, 5 * MINUTES, "audio/*")));
+        assertSame(item, index.findByIdentifyingValue(
+                item("id2", "Title2", "example.com/episode2", 0, 5 * MINUTES, "audio/*")));
+    }
+
+    private static FeedItem linearSearchByIdentifyingValue(List<FeedItem> items, FeedItem searchItem) {
+        for (FeedItem item : items) {
+            if (TextUtils.equals(item.getIdentifyingValue(), searchItem.getIdentifyingValue())) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    private static FeedItem linearSearchGuessedDuplicate(List<FeedItem> items, FeedItem searchItem) {
+        for (FeedItem item : items) {
+            if (FeedItemDuplicateGuesser.seemDuplicates(item, searchItem)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Generates items that draw their attributes from small pools, so that there are many collisions.
+     */
+    private static List<FeedItem> generateItems(Random random, int count) {
+        List<FeedItem> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String guid = random.nextInt(4) == 0 ? "" : "guid" + random.nextInt(count);
+            String title = random.nextInt(10) == 0 ? "" : "Title " + random.nextInt(count / 4);
+            String url = "example.com/episode" + random.nextInt(count);
+            long date = random.nextInt(50) * 12 * HOURS;
+            long duration = random.nextInt(60) * MINUTES;
+            String mime = random.nextBoolean() ? "audio/*" : "video/*";
+            FeedItem item = item(guid, title, url, date, duration, mime);
+            if (random.nextInt(10) == 0) {
+                item.setMedia(null);
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static FeedItem item(String guid, String title, String downloadUrl,
+                                 long date, long duration, String mime) {
+        FeedItem item = new FeedItem(0, title, guid, "link", new Date(date), FeedItem.PLAYED, null);
+        FeedMedia media = new FeedMedia(item, downloadUrl, duration, mime);
+        item.setMedia(media);
+        return item;
+    }
+}
@@ -0,0 +1,79 @@
+package de.danoeh.antennapod.core.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LongHashSetTest {
+
+    @Test
+    public void testEmptySet() {
+        LongHashSet set = new LongHashSet();
+        assertEquals(0, set.size());
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(0));
+        assertFalse(set.contains(42));
+        assertFalse(set.remove(42));
+        assertEquals("LongHashSet{}", set.toString());
+    }
+
+    @Test
+    public void testAddAndRemove() {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.add(0));
+        assertTrue(set.add(17));
+        assertTrue(set.add(-5));
+        assertFalse(set.add(17));
+        assertEquals(3, set.size());
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(17));
+        assertTrue(set.contains(-5));
+        assertFalse(set.contains(18));
+
+        long[] values = set.toArray();
+        Arrays.sort(values);
+        assertArrayEquals(new long[] {-5, 0, 17}, values);
+
+        assertTrue(set.remove(0));
+        assertTrue(set.remove(17));
+        assertFalse(set.remove(17));
+        assertEquals(1, set.size());
+        assertTrue(set.contains(-5));
+    }
+
+    @Test
+    public void testOf() {
+        LongHashSet set = LongHashSet.of(LongList.of(3, 1, 3, 2));
+        assertEquals(3, set.size());
+        assertTrue(set.contains(1));
+        assertTrue(set.contains(2));
+        assertTrue(set.contains(3));
+    }
+
+    @Test
+    public void testCompareWithHashSet() {
+        Random random = new Random(42);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 10000; i++) {
+            long value = random.nextInt(2000);
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for (long value = 0; value < 2000; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package de.danoeh.antennapod.core.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LongObjectMapTest {
+
+    @Test
+    public void testEmptyMap() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertEquals(0, map.size());
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0));
+        assertNull(map.get(42));
+        assertFalse(map.containsKey(42));
+        assertNull(map.remove(42));
+    }
+
+    @Test
+    public void testPutAndRemove() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertNull(map.put(0, "zero"));
+        assertNull(map.put(17, "a"));
+        assertEquals("a", map.put(17, "b"));
+        assertEquals(2, map.size());
+        assertEquals("zero", map.get(0));
+        assertEquals("b", map.get(17));
+        assertTrue(map.containsKey(17));
+
+        assertEquals("zero", map.remove(0));
+        assertEquals("b", map.remove(17));
+        assertNull(map.remove(17));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testCompareWithHashMap() {
+        Random random = new Random(42);
+        LongObjectMap<Integer> map = new LongObjectMap<>();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            long key = random.nextInt(2000);
+            if (random.nextBoolean()) {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (long key = 0; key < 2000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package de.danoeh.antennapod.core.util;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class RemoteMediaFileTest {
+    private static final byte[] CONTENT = new byte[1000];
+
+    static {
+        for (int i = 0; i < CONTENT.length; i++) {
+            CONTENT[i] = (byte) i;
+        }
+    }
+
+    private MockWebServer server;
+    private RemoteMediaFile file;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        file = new RemoteMediaFile(server.url("/episode.mp3").toString(), new OkHttpClient());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private static MockResponse partialResponse(int offset, int length) {
+        return new MockResponse()
+                .setResponseCode(HttpURLConnection.HTTP_PARTIAL)
+                .setHeader("Content-Range", "bytes " + offset + "-" + (offset + length - 1) + "/" + CONTENT.length)
+                .setBody(new Buffer().write(CONTENT, offset, length));
+    }
+
+    @Test
+    public void testRangeRequest() throws Exception {
+        server.enqueue(partialResponse(0, 10).setHeader("ETag", "\"abc\""));
+        server.enqueue(partialResponse(10, 100));
+
+        assertArrayEquals(Arrays.copyOfRange(CONTENT, 0, 10), file.read(0, 10));
+        assertArrayEquals(Arrays.copyOfRange(CONTENT, 10, 110), file.read(10, 100));
+        assertEquals("bytes=0-9", server.takeRequest().getHeader("Range"));
+        assertEquals("bytes=10-109", server.takeRequest().getHeader("Range"));
+        assertEquals("\"abc\"", file.getEtag());
+        assertEquals(110, file.getBytesTransferred());
+    }
+
+    @Test
+    public void testRangeNotSupported() throws Exception {
+        server.enqueue(new MockResponse().setBody(new Buffer().write(CONTENT)));
+
+        assertArrayEquals(Arrays.copyOfRange(CONTENT, 100, 110), file.read(100, 10));
+        RecordedRequest request = server.takeRequest();
+        assertEquals("bytes=100-109", request.getHeader("Range"));
+        // The beginning of the file is skipped, the rest of it is not read
+        assertEquals(110, file.getBytesTransferred());
+        assertNull(file.getEtag());
+    }
+
+    @Test
+    public void testReadBeyondEnd() throws Exception {
+        server.enqueue(partialResponse(990, 10));
+
+        assertArrayEquals(Arrays.copyOfRange(CONTENT, 990, 1000), file.read(990, 100));
+        assertEquals(10, file.getBytesTransferred());
+    }
+
+    @Test
+    public void testOpenStream() throws Exception {
+        server.enqueue(partialResponse(0, 500));
+        try (InputStream in = file.openStream(0, 500)) {
+            assertArrayEquals(Arrays.copyOfRange(CONTENT, 0, 500), IOUtils.toByteArray(in));
+        }
+        assertEquals("bytes=0-499", server.takeRequest().getHeader("Range"));
+        assertEquals(500, file.getBytesTransferred());
+    }
+
+    @Test
+    public void testOpenStreamRangeNotSupported() throws Exception {
+        server.enqueue(new MockResponse().setBody(new Buffer().write(CONTENT)));
+        try (InputStream in = file.openStream(100, 10)) {
+            assertArrayEquals(Arrays.copyOfRange(CONTENT, 100, 110), IOUtils.toByteArray(in));
+        }
+        assertEquals(110, file.getBytesTransferred());
+    }
+
+    @Test
+    public void testEmptyRead() throws Exception {
+        assertEquals(0, file.read(0, 0).length);
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void testHttpError() {
+        server.enqueue(new MockResponse().setResponseCode(HttpURLConnection.HTTP_NOT_FOUND));
+        try {
+            file.read(0, 10);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
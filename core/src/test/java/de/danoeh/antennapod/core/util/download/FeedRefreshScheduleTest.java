@@ -0,0 +1,70 @@
+package de.danoeh.antennapod.core.util.download;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FeedRefreshScheduleTest {
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long NOW = 1000 * DAY;
+
+    @Test
+    public void testNotEnoughEpisodes() {
+        assertEquals(NOW + HOUR, FeedRefreshSchedule.getNextRefresh(NOW, new long[0], 0, HOUR));
+        long[] pubDates = {NOW - DAY, NOW - 2 * DAY};
+        assertEquals(NOW + HOUR, FeedRefreshSchedule.getNextRefresh(NOW, pubDates, 0, HOUR));
+    }
+
+    @Test
+    public void testMedianInterval() {
+        long[] pubDates = {10 * DAY, 9 * DAY, 2 * DAY, DAY};
+        assertEquals(DAY, FeedRefreshSchedule.getMedianInterval(pubDates));
+    }
+
+    @Test
+    public void testFrequentFeedUsesGlobalInterval() {
+        long[] pubDates = {NOW - HOUR, NOW - 3 * HOUR, NOW - 5 * HOUR, NOW - 7 * HOUR};
+        assertEquals(NOW + HOUR, FeedRefreshSchedule.getNextRefresh(NOW, pubDates, 0, HOUR));
+    }
+
+    @Test
+    public void testWeeklyFeed() {
+        long[] pubDates = {NOW - DAY, NOW - 8 * DAY, NOW - 15 * DAY, NOW - 22 * DAY};
+        long next = FeedRefreshSchedule.getNextRefresh(NOW, pubDates, 0, HOUR);
+        assertEquals(NOW + 7 * DAY / 4, next);
+
+        // Refreshes when the next episode is expected, not later
+        long beforeEpisode = NOW + 5 * DAY + 12 * HOUR;
+        assertEquals(NOW + 6 * DAY, FeedRefreshSchedule.getNextRefresh(beforeEpisode, pubDates, 0, HOUR));
+    }
+
+    @Test
+    public void testNotModifiedBackoff() {
+        long[] pubDates = {NOW - DAY, NOW - 5 * DAY, NOW - 9 * DAY, NOW - 13 * DAY};
+        assertEquals(NOW + DAY, FeedRefreshSchedule.getNextRefresh(NOW, pubDates, 0, HOUR));
+        assertEquals(NOW + DAY + DAY / 2, FeedRefreshSchedule.getNextRefresh(NOW, pubDates, 2, HOUR));
+        assertEquals(NOW + FeedRefreshSchedule.MAX_INTERVAL,
+                FeedRefreshSchedule.getNextRefresh(NOW, pubDates, 10, HOUR));
+    }
+
+    @Test
+    public void testAbandonedFeed() {
+        long[] pubDates = {NOW - 400 * DAY, NOW - 401 * DAY, NOW - 402 * DAY};
+        assertEquals(NOW + FeedRefreshSchedule.MAX_INTERVAL,
+                FeedRefreshSchedule.getNextRefresh(NOW, pubDates, 0, HOUR));
+        // Never more often than the automatic refresh runs
+        assertEquals(NOW + 3 * DAY, FeedRefreshSchedule.getNextRefresh(NOW, pubDates, 0, 3 * DAY));
+    }
+
+    @Test
+    public void testIsDue() {
+        assertTrue(FeedRefreshSchedule.isDue(0, NOW, HOUR));
+        assertTrue(FeedRefreshSchedule.isDue(NOW + HOUR / 2, NOW, HOUR));
+        assertFalse(FeedRefreshSchedule.isDue(NOW + HOUR, NOW, HOUR));
+    }
+}
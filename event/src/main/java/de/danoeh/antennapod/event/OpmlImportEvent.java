@@ -0,0 +1,25 @@
+package de.danoeh.antennapod.event;
+
+public class OpmlImportEvent {
+    private final int done;
+    private final int total;
+    private final boolean finished;
+
+    public OpmlImportEvent(int done, int total, boolean finished) {
+        this.done = done;
+        this.total = total;
+        this.finished = finished;
+    }
+
+    public int getDone() {
+        return done;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+}
@@ -48,10 +48,26 @@ public class Feed extends FeedFile {
     private List<FeedItem> items;
 
     /**
-     * String that identifies the last update (adopted from Last-Modified or ETag header).
+     * String that identifies the last update (adopted from Last-Modified header).
      */
     private String lastUpdate;
 
+    /**
+     * ETag header of the last update.
+     */
+    @Nullable
+    private String etag;
+
+    /**
+     * Time after which the feed is refreshed by the next automatic refresh, in milliseconds.
+     */
+    private long nextRefresh;
+
+    /**
+     * Time at which all items of the feed were parsed the last time, in milliseconds.
+     */
+    private long lastFullParse;
+
     private ArrayList<FeedFunding> fundingList;
     /**
      * Feed type, for example RSS 2 or Atom.
@@ -381,6 +397,31 @@ public class Feed extends FeedFile {
         this.lastUpdate = lastModified;
     }
 
+    @Nullable
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(@Nullable String etag) {
+        this.etag = etag;
+    }
+
+    public long getNextRefresh() {
+        return nextRefresh;
+    }
+
+    public void setNextRefresh(long nextRefresh) {
+        this.nextRefresh = nextRefresh;
+    }
+
+    public long getLastFullParse() {
+        return lastFullParse;
+    }
+
+    public void setLastFullParse(long lastFullParse) {
+        this.lastFullParse = lastFullParse;
+    }
+
     public String getFeedIdentifier() {
         return feedIdentifier;
     }
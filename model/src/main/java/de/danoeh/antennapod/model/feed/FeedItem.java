@@ -6,12 +6,17 @@ import androidx.annotation.Nullable;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 
+import java.io.ByteArrayOutputStream;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 /**
  * Item (episode) within a feed.
@@ -31,9 +36,19 @@ public class FeedItem extends FeedComponent implements Serializable {
     private String itemIdentifier;
     private String title;
     /**
-     * The description of a feeditem.
+     * The description of a feeditem, or null if it is only kept in compressedDescription.
      */
     private String description;
+    /**
+     * The description, compressed by {@link #compressDescription()}.
+     */
+    private byte[] compressedDescription;
+    private int compressedDescriptionLength;
+    /**
+     * Hash of the description, or 0 if it has not been calculated yet. Items that are loaded from the database
+     * know the hash of the stored description even if the description itself has not been loaded.
+     */
+    private long descriptionHash = 0;
 
     private String link;
     private Date pubDate;
@@ -47,6 +62,28 @@ public class FeedItem extends FeedComponent implements Serializable {
     public static final int UNPLAYED = 0;
     public static final int PLAYED = 1;
 
+    /*
+     * Attributes that can be reported by getChangedAttributes()
+     */
+    public static final int CHANGED_TITLE = 1;
+    public static final int CHANGED_DESCRIPTION = 1 << 1;
+    public static final int CHANGED_LINK = 1 << 2;
+    public static final int CHANGED_PUBDATE = 1 << 3;
+    public static final int CHANGED_PAYMENT_LINK = 1 << 4;
+    public static final int CHANGED_IMAGE_URL = 1 << 5;
+    public static final int CHANGED_ITEM_IDENTIFIER = 1 << 6;
+    public static final int CHANGED_STATE = 1 << 7;
+    public static final int CHANGED_FEED = 1 << 8;
+    public static final int CHANGED_AUTO_DOWNLOAD = 1 << 9;
+    public static final int CHANGED_CHAPTERS = 1 << 10;
+    public static final int CHANGED_MEDIA = 1 << 11;
+    public static final int CHANGED_ALL = (1 << 12) - 1;
+
+    /**
+     * Descriptions shorter than this are not worth compressing.
+     */
+    private static final int MIN_COMPRESSED_DESCRIPTION_LENGTH = 4096;
+
     private String paymentLink;
 
     /**
@@ -71,6 +108,12 @@ public class FeedItem extends FeedComponent implements Serializable {
      */
     private final Set<String> tags = new HashSet<>();
 
+    /**
+     * True if changes are recorded in changedAttributes. Otherwise, all attributes are considered to be changed.
+     */
+    private transient boolean trackingChanges = false;
+    private transient int changedAttributes = 0;
+
     public FeedItem() {
         this.state = UNPLAYED;
         this.hasChapters = false;
@@ -125,20 +168,26 @@ public class FeedItem extends FeedComponent implements Serializable {
 
     public void updateFromOther(FeedItem other) {
         super.updateFromOther(other);
-        if (other.imageUrl != null) {
+        if (other.imageUrl != null && !other.imageUrl.equals(imageUrl)) {
             this.imageUrl = other.imageUrl;
+            markChanged(CHANGED_IMAGE_URL);
         }
-        if (other.title != null) {
+        if (other.title != null && !other.title.equals(title)) {
             title = other.title;
+            markChanged(CHANGED_TITLE);
         }
-        if (other.getDescription() != null) {
-            description = other.getDescription();
+        long otherDescriptionHash = other.getDescriptionHash();
+        if (otherDescriptionHash != 0 && otherDescriptionHash != getDescriptionHash()) {
+            setDescription(other.getDescription(), otherDescriptionHash);
+            markChanged(CHANGED_DESCRIPTION);
         }
-        if (other.link != null) {
+        if (other.link != null && !other.link.equals(link)) {
             link = other.link;
+            markChanged(CHANGED_LINK);
         }
         if (other.pubDate != null && !other.pubDate.equals(pubDate)) {
             pubDate = other.pubDate;
+            markChanged(CHANGED_PUBDATE);
         }
         if (other.media != null) {
             if (media == null) {
@@ -147,18 +196,43 @@ public class FeedItem extends FeedComponent implements Serializable {
                 setNew();
             } else if (media.compareWithOther(other.media)) {
                 media.updateFromOther(other.media);
+                markChanged(CHANGED_MEDIA);
             }
         }
-        if (other.paymentLink != null) {
+        if (other.paymentLink != null && !other.paymentLink.equals(paymentLink)) {
             paymentLink = other.paymentLink;
+            markChanged(CHANGED_PAYMENT_LINK);
         }
         if (other.chapters != null) {
             if (!hasChapters) {
                 chapters = other.chapters;
+                markChanged(CHANGED_CHAPTERS);
             }
         }
     }
 
+    /**
+     * Starts recording which attributes of this item are changed. Before this method is called,
+     * {@link #getChangedAttributes()} considers all attributes to be changed.
+     */
+    public void startTrackingChanges() {
+        trackingChanges = true;
+        changedAttributes = 0;
+    }
+
+    /**
+     * Returns the attributes that were changed since {@link #startTrackingChanges()} was called,
+     * as a combination of the CHANGED_* flags. Changes of the media object are only
+     * recorded if they were made by {@link #updateFromOther(FeedItem)}.
+     */
+    public int getChangedAttributes() {
+        return trackingChanges ? changedAttributes : CHANGED_ALL;
+    }
+
+    private void markChanged(int attributes) {
+        changedAttributes |= attributes;
+    }
+
     /**
      * Returns the value that uniquely identifies this FeedItem. If the
      * itemIdentifier attribute is not null, it will be returned. Else it will
@@ -183,18 +257,74 @@ public class FeedItem extends FeedComponent implements Serializable {
 
     public void setTitle(String title) {
         this.title = title;
+        markChanged(CHANGED_TITLE);
     }
 
     public String getDescription() {
+        if (description == null && compressedDescription != null) {
+            return decompress(compressedDescription);
+        }
         return description;
     }
 
+    /**
+     * Returns a hash of the description that can be compared instead of the description itself.
+     *
+     * @return The hash, or 0 if the item has no description
+     */
+    public long getDescriptionHash() {
+        if (descriptionHash == 0 && description != null) {
+            descriptionHash = hash(description);
+        }
+        return descriptionHash;
+    }
+
+    /**
+     * Sets the hash of the stored description, for items that are loaded without their description.
+     */
+    public void setDescriptionHash(long descriptionHash) {
+        this.descriptionHash = descriptionHash;
+    }
+
+    /**
+     * Keeps a long description only in compressed form, to save memory while many items are held,
+     * for example while a parsed feed waits to be saved. {@link #getDescription()} decompresses it again.
+     */
+    public void compressDescription() {
+        if (description == null || description.length() < MIN_COMPRESSED_DESCRIPTION_LENGTH) {
+            return;
+        }
+        byte[] compressed = compress(description);
+        if (compressed.length > description.length() * 3 / 4) {
+            // Mostly single-byte characters are stored at one byte each, so this would barely save anything
+            return;
+        }
+        getDescriptionHash();
+        compressedDescription = compressed;
+        compressedDescriptionLength = description.length();
+        description = null;
+    }
+
+    private void setDescription(String description, long descriptionHash) {
+        this.description = description;
+        this.descriptionHash = descriptionHash;
+        compressedDescription = null;
+    }
+
+    private int getDescriptionLength() {
+        if (description == null && compressedDescription != null) {
+            return compressedDescriptionLength;
+        }
+        return description != null ? description.length() : -1;
+    }
+
     public String getLink() {
         return link;
     }
 
     public void setLink(String link) {
         this.link = link;
+        markChanged(CHANGED_LINK);
     }
 
     public Date getPubDate() {
@@ -211,6 +341,7 @@ public class FeedItem extends FeedComponent implements Serializable {
         } else {
             this.pubDate = null;
         }
+        markChanged(CHANGED_PUBDATE);
     }
 
     @Nullable
@@ -225,6 +356,7 @@ public class FeedItem extends FeedComponent implements Serializable {
      */
     public void setMedia(FeedMedia media) {
         this.media = media;
+        markChanged(CHANGED_MEDIA);
         if (media != null && media.getItem() != this) {
             media.setItem(this);
         }
@@ -236,6 +368,7 @@ public class FeedItem extends FeedComponent implements Serializable {
 
     public void setFeed(Feed feed) {
         this.feed = feed;
+        markChanged(CHANGED_FEED);
     }
 
     public boolean isNew() {
@@ -248,6 +381,7 @@ public class FeedItem extends FeedComponent implements Serializable {
 
     public void setNew() {
         state = NEW;
+        markChanged(CHANGED_STATE);
     }
 
     public boolean isPlayed() {
@@ -260,6 +394,7 @@ public class FeedItem extends FeedComponent implements Serializable {
         } else {
             state = UNPLAYED;
         }
+        markChanged(CHANGED_STATE);
     }
 
     public boolean isInProgress() {
@@ -274,10 +409,9 @@ public class FeedItem extends FeedComponent implements Serializable {
         if (newDescription == null) {
             return;
         }
-        if (this.description == null) {
-            this.description = newDescription;
-        } else if (this.description.length() < newDescription.length()) {
-            this.description = newDescription;
+        if (getDescriptionLength() < newDescription.length()) {
+            setDescription(newDescription, 0);
+            markChanged(CHANGED_DESCRIPTION);
         }
     }
 
@@ -287,6 +421,7 @@ public class FeedItem extends FeedComponent implements Serializable {
 
     public void setPaymentLink(String paymentLink) {
         this.paymentLink = paymentLink;
+        markChanged(CHANGED_PAYMENT_LINK);
     }
 
     public List<Chapter> getChapters() {
@@ -295,6 +430,7 @@ public class FeedItem extends FeedComponent implements Serializable {
 
     public void setChapters(List<Chapter> chapters) {
         this.chapters = chapters;
+        markChanged(CHANGED_CHAPTERS);
     }
 
     public String getItemIdentifier() {
@@ -303,6 +439,7 @@ public class FeedItem extends FeedComponent implements Serializable {
 
     public void setItemIdentifier(String itemIdentifier) {
         this.itemIdentifier = itemIdentifier;
+        markChanged(CHANGED_ITEM_IDENTIFIER);
     }
 
     public boolean hasMedia() {
@@ -331,6 +468,7 @@ public class FeedItem extends FeedComponent implements Serializable {
 
     public void setFeedId(long feedId) {
         this.feedId = feedId;
+        markChanged(CHANGED_FEED);
     }
 
     /**
@@ -344,6 +482,7 @@ public class FeedItem extends FeedComponent implements Serializable {
 
     public void setImageUrl(String imageUrl) {
         this.imageUrl = imageUrl;
+        markChanged(CHANGED_IMAGE_URL);
     }
 
     @Override
@@ -357,6 +496,7 @@ public class FeedItem extends FeedComponent implements Serializable {
 
     public void disableAutoDownload() {
         this.autoDownload = 0;
+        markChanged(CHANGED_AUTO_DOWNLOAD);
     }
 
     public long getAutoDownloadAttemptsAndTime() {
@@ -364,6 +504,10 @@ public class FeedItem extends FeedComponent implements Serializable {
     }
 
     public int getFailedAutoDownloadAttempts() {
+        return getFailedAutoDownloadAttempts(autoDownload);
+    }
+
+    private static int getFailedAutoDownloadAttempts(long autoDownload) {
         // 0: auto download disabled
         // 1: auto download enabled (default)
         // > 1: auto download enabled, timestamp of last failed attempt, last digit denotes number of failed attempts
@@ -386,17 +530,29 @@ public class FeedItem extends FeedComponent implements Serializable {
             disableAutoDownload(); // giving up
         } else {
             autoDownload = (now / 10) * 10 + failedAttempts;
+            markChanged(CHANGED_AUTO_DOWNLOAD);
         }
     }
 
     public boolean isAutoDownloadable(long now) {
-        if (media == null || media.isDownloaded() || autoDownload == 0) {
+        if (media == null || media.isDownloaded()) {
+            return false;
+        }
+        return isAutoDownloadAttemptDue(autoDownload, now);
+    }
+
+    /**
+     * @param autoDownload The value of {@link #getAutoDownloadAttemptsAndTime()}
+     * @return true if auto download is enabled and enough time has passed since the last failed attempt
+     */
+    public static boolean isAutoDownloadAttemptDue(long autoDownload, long now) {
+        if (autoDownload == 0) {
             return false;
         }
         if (autoDownload == 1) {
             return true; // Never failed
         }
-        int failedAttempts = getFailedAutoDownloadAttempts();
+        int failedAttempts = getFailedAutoDownloadAttempts(autoDownload);
         long waitingTime = TimeUnit.HOURS.toMillis((long) Math.pow(2, failedAttempts - 1));
         long lastAttempt = (autoDownload / 10) * 10;
         return now >= (lastAttempt + waitingTime);
@@ -432,4 +588,51 @@ public class FeedItem extends FeedComponent implements Serializable {
     public String toString() {
         return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
     }
+
+    /**
+     * 64-bit FNV-1a hash of the characters of the text. Never returns 0.
+     */
+    private static long hash(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash != 0 ? hash : 1;
+    }
+
+    private static byte[] compress(String text) {
+        byte[] input = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(input);
+        deflater.finish();
+        ByteArrayOutputStream output = new ByteArrayOutputStream(input.length / 4);
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            output.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return output.toByteArray();
+    }
+
+    private static String decompress(byte[] compressed) {
+        Inflater inflater = new Inflater();
+        inflater.setInput(compressed);
+        ByteArrayOutputStream output = new ByteArrayOutputStream(compressed.length * 4);
+        byte[] buffer = new byte[8192];
+        try {
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && inflater.needsInput()) {
+                    throw new IllegalStateException("Compressed description is truncated");
+                }
+                output.write(buffer, 0, length);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            inflater.end();
+        }
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
 }
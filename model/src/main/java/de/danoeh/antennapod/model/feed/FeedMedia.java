@@ -47,6 +47,10 @@ public class FeedMedia extends FeedFile implements Playable {
     // if null: unknown, will be checked
     private Boolean hasEmbeddedPicture;
 
+    // Size and modification time of the file that the stored chapters were read from
+    private long chaptersFileSize;
+    private long chaptersFileModified;
+
     /* Used for loading item when restoring from parcel. */
     private long itemID;
 
@@ -438,6 +442,26 @@ public class FeedMedia extends FeedFile implements Playable {
         this.hasEmbeddedPicture = hasEmbeddedPicture;
     }
 
+    public long getChaptersFileSize() {
+        return chaptersFileSize;
+    }
+
+    public long getChaptersFileModified() {
+        return chaptersFileModified;
+    }
+
+    public void setChaptersFileFingerprint(long size, long lastModified) {
+        this.chaptersFileSize = size;
+        this.chaptersFileModified = lastModified;
+    }
+
+    /**
+     * @return true if the stored chapters were read from a file with the given size and modification time
+     */
+    public boolean hasChaptersOfFile(long size, long lastModified) {
+        return size > 0 && chaptersFileSize == size && chaptersFileModified == lastModified;
+    }
+
     @Override
     public void setDownloaded(boolean downloaded) {
         super.setDownloaded(downloaded);
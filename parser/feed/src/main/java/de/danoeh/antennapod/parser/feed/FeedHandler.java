@@ -5,9 +5,11 @@ import org.apache.commons.io.input.XmlStreamReader;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
-import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
+import java.util.Set;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -16,21 +18,57 @@ import javax.xml.parsers.SAXParserFactory;
 import de.danoeh.antennapod.model.feed.Feed;
 
 public class FeedHandler {
+    private Set<String> knownItems = null;
+    private int knownItemsBeforeSkipping;
+
+    /**
+     * Skips the remaining items of the feed after a run of known items.
+     * See {@link HandlerState#setKnownItems(Set, int)}.
+     */
+    public void setKnownItems(Set<String> knownItems, int knownItemsBeforeSkipping) {
+        this.knownItems = knownItems;
+        this.knownItemsBeforeSkipping = knownItemsBeforeSkipping;
+    }
+
     public FeedHandlerResult parseFeed(Feed feed) throws SAXException, IOException,
             ParserConfigurationException, UnsupportedFeedtypeException {
-        TypeGetter tg = new TypeGetter();
-        TypeGetter.Type type = tg.getType(feed);
-        SyndHandler handler = new SyndHandler(feed, type);
+        if (feed.getFile_url() == null) {
+            throw new UnsupportedFeedtypeException(TypeGetter.Type.INVALID);
+        }
+        try (InputStream in = new FileInputStream(feed.getFile_url())) {
+            return parseFeed(feed, in);
+        }
+    }
+
+    /**
+     * Parses a feed in a single pass while it is read from the stream, for example from the body of
+     * an HTTP response. The type of the feed is recognized from its root element.
+     */
+    public FeedHandlerResult parseFeed(Feed feed, InputStream in) throws SAXException, IOException,
+            ParserConfigurationException, UnsupportedFeedtypeException {
+        SyndHandler handler = new SyndHandler(feed);
+        if (knownItems != null) {
+            handler.state.setKnownItems(knownItems, knownItemsBeforeSkipping);
+        }
 
         SAXParserFactory factory = SAXParserFactory.newInstance();
         factory.setNamespaceAware(true);
         SAXParser saxParser = factory.newSAXParser();
-        File file = new File(feed.getFile_url());
-        Reader inputStreamReader = new XmlStreamReader(file);
+        Reader inputStreamReader = new XmlStreamReader(in);
         InputSource inputSource = new InputSource(inputStreamReader);
 
-        saxParser.parse(inputSource, handler);
-        inputStreamReader.close();
-        return new FeedHandlerResult(handler.state.feed, handler.state.alternateUrls);
+        try {
+            saxParser.parse(inputSource, handler);
+        } catch (SAXException e) {
+            if (e.getException() instanceof UnsupportedFeedtypeException) {
+                throw (UnsupportedFeedtypeException) e.getException();
+            } else if (handler.getType() == null) {
+                // Not even the root element is valid XML, so the document might actually be a HTML document
+                throw new UnsupportedFeedtypeException(TypeGetter.Type.INVALID, "html");
+            }
+            throw e;
+        }
+        return new FeedHandlerResult(handler.state.feed, handler.state.alternateUrls,
+                handler.state.getSkippedItemCount());
     }
 }
@@ -11,9 +11,19 @@ public class FeedHandlerResult {
 
     public final Feed feed;
     public final Map<String, String> alternateFeedUrls;
+    /**
+     * Number of items that were not parsed because they were already known.
+     * If this is not 0, the items of the feed are incomplete.
+     */
+    public final int skippedItems;
 
     public FeedHandlerResult(Feed feed, Map<String, String> alternateFeedUrls) {
+        this(feed, alternateFeedUrls, 0);
+    }
+
+    public FeedHandlerResult(Feed feed, Map<String, String> alternateFeedUrls, int skippedItems) {
         this.feed = feed;
         this.alternateFeedUrls = alternateFeedUrls;
+        this.skippedItems = skippedItems;
     }
 }
@@ -1,8 +1,12 @@
 package de.danoeh.antennapod.parser.feed;
 
+import androidx.annotation.NonNull;
+
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.Stack;
 
 import de.danoeh.antennapod.model.feed.Feed;
@@ -10,6 +14,7 @@ import de.danoeh.antennapod.model.feed.FeedFunding;
 import de.danoeh.antennapod.model.feed.FeedItem;
 import de.danoeh.antennapod.parser.feed.namespace.Namespace;
 import de.danoeh.antennapod.parser.feed.element.SyndElement;
+import de.danoeh.antennapod.parser.feed.util.DateParser;
 
 /**
  * Contains all relevant information to describe the current state of a
@@ -36,14 +41,29 @@ public class HandlerState {
     final Map<String, Namespace> namespaces;
     final Stack<Namespace> defaultNamespaces;
     /**
-     * Buffer for saving characters.
+     * Buffer for saving characters. It is reused for all elements.
+     */
+    final StringBuilder contentBuf = new StringBuilder();
+    /**
+     * True if the characters of the current element are saved in contentBuf.
      */
-    protected StringBuilder contentBuf;
+    boolean collectingContent = false;
 
     /**
      * Temporarily saved objects.
      */
     private final Map<String, Object> tempObjects;
+    private final DateParser dateParser = new DateParser();
+
+    /**
+     * Identifying values of the items that are already known, or null if all items are parsed.
+     */
+    private Set<String> knownItems = null;
+    private int knownItemsBeforeSkipping;
+    private int consecutiveKnownItems = 0;
+    private Date previousPubDate = null;
+    private boolean skippingItems = false;
+    private int skippedItems = 0;
 
     public HandlerState(Feed feed) {
         this.feed = feed;
@@ -91,23 +111,18 @@ public class HandlerState {
      * Returns the SyndElement that comes after the top element of the tagstack.
      */
     public SyndElement getSecondTag() {
-        SyndElement top = tagstack.pop();
-        SyndElement second = tagstack.peek();
-        tagstack.push(top);
-        return second;
+        return tagstack.get(tagstack.size() - 2);
     }
 
     public SyndElement getThirdTag() {
-        SyndElement top = tagstack.pop();
-        SyndElement second = tagstack.pop();
-        SyndElement third = tagstack.peek();
-        tagstack.push(second);
-        tagstack.push(top);
-        return third;
+        return tagstack.get(tagstack.size() - 3);
     }
 
+    /**
+     * @return The characters of the current element, or null if they have not been saved
+     */
     public StringBuilder getContentBuf() {
-        return contentBuf;
+        return collectingContent ? contentBuf : null;
     }
 
     public void addAlternateFeedUrl(String title, String url) {
@@ -117,4 +132,66 @@ public class HandlerState {
     public Map<String, Object> getTempObjects() {
         return tempObjects;
     }
+
+    /**
+     * Parser for the dates of this feed, which remembers the format of the previous date.
+     */
+    public DateParser getDateParser() {
+        return dateParser;
+    }
+
+    /**
+     * Stops parsing items after a run of already known items, so long feeds that list their newest items first
+     * do not need to be parsed completely. The items of the feed are then incomplete.
+     * Items are only skipped if all items before them are sorted by publication date, newest first.
+     *
+     * @param knownItems Identifying values of the items that are already known
+     * @param knownItemsBeforeSkipping Number of consecutive known items after which the remaining items are skipped
+     */
+    public void setKnownItems(@NonNull Set<String> knownItems, int knownItemsBeforeSkipping) {
+        this.knownItems = knownItems;
+        this.knownItemsBeforeSkipping = knownItemsBeforeSkipping;
+    }
+
+    /**
+     * Called after an item was parsed completely.
+     */
+    void onItemParsed(FeedItem item) {
+        if (knownItems == null || skippingItems) {
+            return;
+        }
+        Date pubDate = item.getPubDate();
+        if (pubDate == null || (previousPubDate != null && pubDate.after(previousPubDate))) {
+            // Not sorted newest first, so new items might still follow
+            knownItems = null;
+            return;
+        }
+        previousPubDate = pubDate;
+        if (knownItems.contains(item.getIdentifyingValue())) {
+            consecutiveKnownItems++;
+            skippingItems = consecutiveKnownItems >= knownItemsBeforeSkipping;
+        } else {
+            consecutiveKnownItems = 0;
+        }
+    }
+
+    boolean isSkippingItems() {
+        return skippingItems;
+    }
+
+    /**
+     * Removes the item that was just started from the items of the feed.
+     */
+    void skipCurrentItem() {
+        items.remove(items.size() - 1);
+        currentItem = null;
+        skippedItems++;
+    }
+
+    /**
+     * @return The number of items that were skipped because they were already known
+     */
+    public int getSkippedItemCount() {
+        return skippedItems;
+    }
 }
@@ -7,10 +7,8 @@ import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
-import java.util.HashMap;
-import java.util.function.Function;
-
 import de.danoeh.antennapod.model.feed.Feed;
+import de.danoeh.antennapod.model.feed.FeedItem;
 import de.danoeh.antennapod.parser.feed.namespace.Content;
 import de.danoeh.antennapod.parser.feed.namespace.DublinCore;
 import de.danoeh.antennapod.parser.feed.namespace.Itunes;
@@ -27,78 +25,93 @@ public class SyndHandler extends DefaultHandler {
     private static final String TAG = "SyndHandler";
     private static final String DEFAULT_PREFIX = "";
     public final HandlerState state;
-
-    private HashMap<String, HashMap<String, PrefixMappingInfo>> prefixMappings;
-
-    private class PrefixMappingInfo {
-        String logText;
-        Class prefixClass;
-
-        PrefixMappingInfo(String logText, Class prefixClass){
-            this.logText = logText;
-            this.prefixClass = prefixClass;
-        }
+    /**
+     * Type of the feed, or null if the root element has not been read yet.
+     */
+    private TypeGetter.Type type;
+    /**
+     * Depth of the current element inside an item that is skipped, 0 if no item is skipped.
+     */
+    private int skippedElementDepth = 0;
+
+    /**
+     * Creates a handler that gets the type of the feed from its root element.
+     */
+    public SyndHandler(Feed feed) {
+        this(feed, null);
     }
 
     public SyndHandler(Feed feed, TypeGetter.Type type) {
         state = new HandlerState(feed);
-        if (type == TypeGetter.Type.RSS20 || type == TypeGetter.Type.RSS091) {
-            state.defaultNamespaces.push(new Rss20());
+        if (type != null) {
+            setType(type);
         }
-
-        prefixMappings = new HashMap<>();
-        prefixMappings.put(Atom.NSURI, new HashMap<>());
-        prefixMappings.get(Atom.NSURI).put(Atom.NSTAG, new PrefixMappingInfo("Recognized Atom namespace", Atom.class));
-        prefixMappings.put(Content.NSURI, new HashMap<>());
-        prefixMappings.get(Content.NSURI).put(Content.NSTAG, new PrefixMappingInfo("Recognized Content namespace", Content.class));
-        prefixMappings.put(Itunes.NSURI, new HashMap<>());
-        prefixMappings.get(Itunes.NSURI).put(Itunes.NSTAG, new PrefixMappingInfo("Recognized ITunes namespace", Itunes.class));
-        prefixMappings.put(SimpleChapters.NSURI, new HashMap<>());
-        prefixMappings.get(SimpleChapters.NSURI).put(SimpleChapters.NSTAG, new PrefixMappingInfo("Recognized SimpleChapters namespace", SimpleChapters.class));
-        prefixMappings.put(Media.NSURI, new HashMap<>());
-        prefixMappings.get(Media.NSURI).put(Media.NSTAG, new PrefixMappingInfo("Recognized Media namespace", Media.class));
-        prefixMappings.put(DublinCore.NSURI, new HashMap<>());
-        prefixMappings.get(DublinCore.NSURI).put(DublinCore.NSTAG, new PrefixMappingInfo("Recognized DublinCore namespace", DublinCore.class));
-        prefixMappings.put(PodcastIndex.NSURI, new HashMap<>());
-        prefixMappings.get(PodcastIndex.NSURI).put(PodcastIndex.NSTAG, new PrefixMappingInfo("Recognized PodcastIndex namespace", PodcastIndex.class));
     }
 
     @Override
     public void startElement(String uri, String localName, String qualifiedName,
             Attributes attributes) throws SAXException {
-        state.contentBuf = new StringBuilder();
+        if (type == null) {
+            try {
+                setType(new TypeGetter().getType(state.feed, localName, attributes.getValue("", "version"),
+                        attributes.getValue(TypeGetter.XML_NAMESPACE, "lang")));
+            } catch (UnsupportedFeedtypeException e) {
+                throw new SAXException(e);
+            }
+        }
+        if (skippedElementDepth > 0) {
+            skippedElementDepth++;
+            return;
+        }
+        state.contentBuf.setLength(0);
+        state.collectingContent = false;
         Namespace handler = getHandlingNamespace(uri, qualifiedName);
         if (handler != null) {
+            FeedItem previousItem = state.getCurrentItem();
             SyndElement element = handler.handleElementStart(localName, state,
                     attributes);
             state.tagstack.push(element);
+            state.collectingContent = state.tagstack.size() >= 2 && handler.isTextElement(localName);
 
+            if (previousItem == null && state.getCurrentItem() != null && state.isSkippingItems()) {
+                state.skipCurrentItem();
+                skippedElementDepth = 1;
+            }
         }
     }
 
     @Override
     public void characters(char[] ch, int start, int length)
             throws SAXException {
-        if (!state.tagstack.empty()) {
-            if (state.getTagstack().size() >= 2) {
-                if (state.contentBuf != null) {
-                    state.contentBuf.append(ch, start, length);
-                }
-            }
+        if (skippedElementDepth == 0 && state.collectingContent) {
+            state.contentBuf.append(ch, start, length);
         }
     }
 
     @Override
     public void endElement(String uri, String localName, String qualifiedName)
             throws SAXException {
+        if (skippedElementDepth > 0) {
+            skippedElementDepth--;
+            if (skippedElementDepth == 0) {
+                // End of the skipped item
+                state.tagstack.pop();
+            }
+            state.collectingContent = false;
+            return;
+        }
         Namespace handler = getHandlingNamespace(uri, qualifiedName);
         if (handler != null) {
+            FeedItem currentItem = state.getCurrentItem();
             handler.handleElementEnd(localName, state);
             state.tagstack.pop();
-
+            if (currentItem != null && state.getCurrentItem() == null) {
+                // The item is complete, so its description does not grow anymore
+                currentItem.compressDescription();
+                state.onItemParsed(currentItem);
+            }
         }
-        state.contentBuf = null;
-
+        state.collectingContent = false;
     }
 
     @Override
@@ -111,29 +124,61 @@ public class SyndHandler extends DefaultHandler {
     @Override
     public void startPrefixMapping(String prefix, String uri)
             throws SAXException {
-        // Find the right namespace
-        if (!state.namespaces.containsKey(uri)) {
-            HashMap<String, PrefixMappingInfo> uriInfo = prefixMappings.get(uri);
-            if(uriInfo != null){
-                if (isDefaultNamespace(uri, prefix)) {
-                    state.defaultNamespaces.push(new Atom());
-                } else {
-                    PrefixMappingInfo prefixInfo = uriInfo.get(prefix);
-                    if(prefixInfo != null){
-                        try {
-                            state.namespaces.put(uri, (Namespace)prefixInfo.prefixClass.newInstance());
-                        } catch (IllegalAccessException e) {
-                            e.printStackTrace();
-                        } catch (InstantiationException e) {
-                            e.printStackTrace();
-                        }
-                        Log.d(TAG, prefixInfo.logText);
-                    }
-                }
-            }
+        if (state.namespaces.containsKey(uri)) {
+            return;
+        }
+        if (isDefaultNamespace(uri, prefix)) {
+            state.defaultNamespaces.push(new Atom());
+            return;
+        }
+        Namespace namespace = createNamespace(uri, prefix);
+        if (namespace != null) {
+            state.namespaces.put(uri, namespace);
+            Log.d(TAG, "Recognized " + namespace.getClass().getSimpleName() + " namespace");
+        }
+    }
+
+    /**
+     * Creates the handler of a namespace if it is known and bound to its usual prefix.
+     *
+     * @return The handler, or null if the namespace is not supported
+     */
+    private static Namespace createNamespace(String uri, String prefix) {
+        switch (uri) {
+            case Atom.NSURI:
+                return Atom.NSTAG.equals(prefix) ? new Atom() : null;
+            case Content.NSURI:
+                return Content.NSTAG.equals(prefix) ? new Content() : null;
+            case Itunes.NSURI:
+                return Itunes.NSTAG.equals(prefix) ? new Itunes() : null;
+            case SimpleChapters.NSURI:
+                return SimpleChapters.NSTAG.equals(prefix) ? new SimpleChapters() : null;
+            case Media.NSURI:
+                return Media.NSTAG.equals(prefix) ? new Media() : null;
+            case DublinCore.NSURI:
+                return DublinCore.NSTAG.equals(prefix) ? new DublinCore() : null;
+            case PodcastIndex.NSURI:
+                return PodcastIndex.NSTAG.equals(prefix) ? new PodcastIndex() : null;
+            default:
+                return null;
         }
     }
 
+    private void setType(TypeGetter.Type type) {
+        this.type = type;
+        if (type == TypeGetter.Type.RSS20 || type == TypeGetter.Type.RSS091) {
+            // Prefix mappings of the root element might already have added default namespaces
+            state.defaultNamespaces.insertElementAt(new Rss20(), 0);
+        }
+    }
+
+    /**
+     * @return The type of the feed, or null if the root element has not been read yet
+     */
+    TypeGetter.Type getType() {
+        return type;
+    }
+
     private boolean isDefaultNamespace(String uri, String prefix){
         return prefix.equals(DEFAULT_PREFIX) && uri.equals(Atom.NSURI);
     }
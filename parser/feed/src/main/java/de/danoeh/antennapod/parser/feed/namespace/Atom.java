@@ -6,7 +6,6 @@ import android.util.Log;
 import de.danoeh.antennapod.model.feed.FeedFunding;
 import de.danoeh.antennapod.parser.feed.HandlerState;
 import de.danoeh.antennapod.parser.feed.element.AtomText;
-import de.danoeh.antennapod.parser.feed.util.DateUtils;
 import de.danoeh.antennapod.parser.feed.util.SyndStringUtils;
 import org.xml.sax.Attributes;
 
@@ -15,6 +14,10 @@ import de.danoeh.antennapod.model.feed.FeedMedia;
 import de.danoeh.antennapod.parser.feed.element.SyndElement;
 import de.danoeh.antennapod.parser.feed.util.SyndTypeUtils;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 public class Atom extends Namespace {
     private static final String TAG = "NSAtom";
     public static final String NSTAG = "atom";
@@ -56,13 +59,15 @@ public class Atom extends Namespace {
     private static final String LINK_TYPE_RSS = "application/rss+xml";
 
     /**
-     * Regexp to test whether an Element is a Text Element.
+     * Elements that are read as AtomText.
      */
-    private static final String isText = TITLE + "|" + CONTENT + "|"
-            + SUBTITLE + "|" + SUMMARY;
-
-    private static final String isFeed = FEED + "|" + Rss20.CHANNEL;
-    private static final String isFeedItem = ENTRY + "|" + Rss20.ITEM;
+    private static final Set<String> ATOM_TEXT_ELEMENTS = new HashSet<>(Arrays.asList(
+            TITLE, CONTENT, SUBTITLE, SUMMARY));
+    /**
+     * Elements whose characters are used.
+     */
+    private static final Set<String> TEXT_ELEMENTS = new HashSet<>(Arrays.asList(
+            ID, TITLE, CONTENT, SUBTITLE, SUMMARY, UPDATED, PUBLISHED, IMAGE_LOGO, IMAGE_ICON, AUTHOR_NAME));
 
     @Override
     public SyndElement handleElementStart(String localName, HandlerState state,
@@ -71,14 +76,14 @@ public class Atom extends Namespace {
             state.setCurrentItem(new FeedItem());
             state.getItems().add(state.getCurrentItem());
             state.getCurrentItem().setFeed(state.getFeed());
-        } else if (localName.matches(isText)) {
+        } else if (ATOM_TEXT_ELEMENTS.contains(localName)) {
             String type = attributes.getValue(TEXT_TYPE);
             return new AtomText(localName, this, type);
         } else if (LINK.equals(localName)) {
             String href = attributes.getValue(LINK_HREF);
             String rel = attributes.getValue(LINK_REL);
             SyndElement parent = state.getTagstack().peek();
-            if (parent.getName().matches(isFeedItem)) {
+            if (ENTRY.equals(parent.getName()) || Rss20.ITEM.equals(parent.getName())) {
                 if (rel == null || LINK_REL_ALTERNATE.equals(rel)) {
                     state.getCurrentItem().setLink(href);
                 } else if (LINK_REL_ENCLOSURE.equals(rel)) {
@@ -104,7 +109,7 @@ public class Atom extends Namespace {
                 } else if (LINK_REL_PAYMENT.equals(rel)) {
                     state.getCurrentItem().setPaymentLink(href);
                 }
-            } else if (parent.getName().matches(isFeed)) {
+            } else if (FEED.equals(parent.getName()) || Rss20.CHANNEL.equals(parent.getName())) {
                 if (rel == null || LINK_REL_ALTERNATE.equals(rel)) {
                     String type = attributes.getValue(LINK_TYPE);
                     /*
@@ -175,7 +180,7 @@ public class Atom extends Namespace {
             SyndElement secondElement = state.getSecondTag();
             String second = secondElement.getName();
 
-            if (top.matches(isText)) {
+            if (ATOM_TEXT_ELEMENTS.contains(top)) {
                 textElement = (AtomText) topElement;
                 textElement.setContent(content);
             }
@@ -203,9 +208,9 @@ public class Atom extends Namespace {
                 state.getCurrentItem().setDescriptionIfLonger(textElement.getProcessedContent());
             } else if (UPDATED.equals(top) && ENTRY.equals(second) && state.getCurrentItem() != null &&
                 state.getCurrentItem().getPubDate() == null) {
-                state.getCurrentItem().setPubDate(DateUtils.parseOrNullIfFuture(content));
+                state.getCurrentItem().setPubDate(state.getDateParser().parseOrNullIfFuture(content));
             } else if (PUBLISHED.equals(top) && ENTRY.equals(second) && state.getCurrentItem() != null) {
-                state.getCurrentItem().setPubDate(DateUtils.parseOrNullIfFuture(content));
+                state.getCurrentItem().setPubDate(state.getDateParser().parseOrNullIfFuture(content));
             } else if (IMAGE_LOGO.equals(top) && state.getFeed() != null && state.getFeed().getImageUrl() == null) {
                 state.getFeed().setImageUrl(content);
             } else if (IMAGE_ICON.equals(top) && state.getFeed() != null) {
@@ -221,4 +226,9 @@ public class Atom extends Namespace {
             }
         }
     }
+
+    @Override
+    public boolean isTextElement(String localName) {
+        return TEXT_ELEMENTS.contains(localName);
+    }
 }
@@ -21,4 +21,9 @@ public class Content extends Namespace {
             state.getCurrentItem().setDescriptionIfLonger(state.getContentBuf().toString());
         }
     }
+
+    @Override
+    public boolean isTextElement(String localName) {
+        return ENCODED.equals(localName);
+    }
 }
@@ -2,7 +2,6 @@ package de.danoeh.antennapod.parser.feed.namespace;
 
 import de.danoeh.antennapod.parser.feed.HandlerState;
 import de.danoeh.antennapod.parser.feed.element.SyndElement;
-import de.danoeh.antennapod.parser.feed.util.DateUtils;
 import org.xml.sax.Attributes;
 
 import de.danoeh.antennapod.model.feed.FeedItem;
@@ -30,9 +29,13 @@ public class DublinCore extends Namespace {
             String second = state.getSecondTag().getName();
             if (DATE.equals(top) && ITEM.equals(second)) {
                 String content = state.getContentBuf().toString();
-                currentItem.setPubDate(DateUtils.parseOrNullIfFuture(content));
+                currentItem.setPubDate(state.getDateParser().parseOrNullIfFuture(content));
             }
         }
     }
 
+    @Override
+    public boolean isTextElement(String localName) {
+        return DATE.equals(localName);
+    }
 }
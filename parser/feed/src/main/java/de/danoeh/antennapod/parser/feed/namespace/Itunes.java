@@ -50,13 +50,12 @@ public class Itunes extends Namespace {
         }
 
         String content = state.getContentBuf().toString();
-        String contentFromHtml = HtmlCompat.fromHtml(content, HtmlCompat.FROM_HTML_MODE_COMPACT).toString();
         if (TextUtils.isEmpty(content)) {
             return;
         }
 
         if (AUTHOR.equals(localName) && state.getFeed() != null) {
-            state.getFeed().setAuthor(contentFromHtml);
+            state.getFeed().setAuthor(HtmlCompat.fromHtml(content, HtmlCompat.FROM_HTML_MODE_COMPACT).toString());
         } else if (DURATION.equals(localName)) {
             try {
                 long durationMs = DurationParser.inMillis(content);
@@ -78,4 +77,10 @@ public class Itunes extends Namespace {
             }
         }
     }
+
+    @Override
+    public boolean isTextElement(String localName) {
+        return AUTHOR.equals(localName) || DURATION.equals(localName)
+                || SUBTITLE.equals(localName) || SUMMARY.equals(localName);
+    }
 }
@@ -122,12 +122,17 @@ public class Media extends Namespace {
 
     @Override
     public void handleElementEnd(String localName, HandlerState state) {
-        if (DESCRIPTION.equals(localName)) {
+        if (DESCRIPTION.equals(localName) && state.getContentBuf() != null) {
             String content = state.getContentBuf().toString();
             if (state.getCurrentItem() != null) {
                 state.getCurrentItem().setDescriptionIfLonger(content);
             }
         }
     }
+
+    @Override
+    public boolean isTextElement(String localName) {
+        return DESCRIPTION.equals(localName);
+    }
 }
 
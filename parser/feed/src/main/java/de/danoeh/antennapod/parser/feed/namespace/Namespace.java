@@ -16,4 +16,11 @@ public abstract class Namespace {
     /** Called by a Feedhandler when in endElement and it detects a namespace element 
      * */
     public abstract void handleElementEnd(String localName, HandlerState state);
+
+    /** Called by a Feedhandler when in startElement to check whether the characters of the element are needed.
+     *  Content of other elements is not collected and {@link HandlerState#getContentBuf()} returns null for them.
+     * */
+    public boolean isTextElement(String localName) {
+        return true;
+    }
 }
@@ -36,4 +36,9 @@ public class PodcastIndex extends Namespace {
             state.getCurrentFunding().setContent(content);
         }
     }
+
+    @Override
+    public boolean isTextElement(String localName) {
+        return FUNDING.equals(localName);
+    }
 }
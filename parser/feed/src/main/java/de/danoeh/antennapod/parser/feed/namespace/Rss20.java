@@ -6,7 +6,6 @@ import android.util.Log;
 import androidx.core.text.HtmlCompat;
 import de.danoeh.antennapod.parser.feed.HandlerState;
 import de.danoeh.antennapod.parser.feed.element.SyndElement;
-import de.danoeh.antennapod.parser.feed.util.DateUtils;
 import de.danoeh.antennapod.parser.feed.util.SyndStringUtils;
 import org.xml.sax.Attributes;
 
@@ -14,7 +13,10 @@ import de.danoeh.antennapod.model.feed.FeedItem;
 import de.danoeh.antennapod.model.feed.FeedMedia;
 import de.danoeh.antennapod.parser.feed.util.SyndTypeUtils;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Locale;
+import java.util.Set;
 
 /**
  * SAX-Parser for reading RSS-Feeds.
@@ -39,6 +41,9 @@ public class Rss20 extends Namespace {
     private static final String ENC_LEN = "length";
     private static final String ENC_TYPE = "type";
 
+    private static final Set<String> TEXT_ELEMENTS = new HashSet<>(Arrays.asList(
+            GUID, TITLE, LINK, DESCR, PUBDATE, URL, LANGUAGE));
+
     @Override
     public SyndElement handleElementStart(String localName, HandlerState state, Attributes attributes) {
         if (ITEM.equals(localName) && CHANNEL.equals(state.getTagstack().lastElement().getName())) {
@@ -98,50 +103,67 @@ public class Rss20 extends Namespace {
         } else if (state.getTagstack().size() >= 2 && state.getContentBuf() != null) {
             String contentRaw = state.getContentBuf().toString();
             String content = SyndStringUtils.trimAllWhitespace(contentRaw);
-            String contentFromHtml = HtmlCompat.fromHtml(content, HtmlCompat.FROM_HTML_MODE_COMPACT).toString();
-            SyndElement topElement = state.getTagstack().peek();
-            String top = topElement.getName();
-            SyndElement secondElement = state.getSecondTag();
-            String second = secondElement.getName();
-            String third = null;
-            if (state.getTagstack().size() >= 3) {
-                third = state.getThirdTag().getName();
-            }
-            if (GUID.equals(top) && ITEM.equals(second)) {
-                // some feed creators include an empty or non-standard guid-element in their feed,
-                // which should be ignored
-                if (!TextUtils.isEmpty(contentRaw) && state.getCurrentItem() != null) {
-                    state.getCurrentItem().setItemIdentifier(contentRaw);
-                }
-            } else if (TITLE.equals(top)) {
-                if (ITEM.equals(second) && state.getCurrentItem() != null) {
-                    state.getCurrentItem().setTitle(contentFromHtml);
-                } else if (CHANNEL.equals(second) && state.getFeed() != null) {
-                    state.getFeed().setTitle(contentFromHtml);
-                }
-            } else if (LINK.equals(top)) {
-                if (CHANNEL.equals(second) && state.getFeed() != null) {
-                    state.getFeed().setLink(content);
-                } else if (ITEM.equals(second) && state.getCurrentItem() != null) {
-                    state.getCurrentItem().setLink(content);
-                }
-            } else if (PUBDATE.equals(top) && ITEM.equals(second) && state.getCurrentItem() != null) {
-                state.getCurrentItem().setPubDate(DateUtils.parseOrNullIfFuture(content));
-            } else if (URL.equals(top) && IMAGE.equals(second) && CHANNEL.equals(third)) {
-                // prefer itunes:image
-                if (state.getFeed() != null && state.getFeed().getImageUrl() == null) {
-                    state.getFeed().setImageUrl(content);
-                }
-            } else if (DESCR.equals(localName)) {
-                if (CHANNEL.equals(second) && state.getFeed() != null) {
-                    state.getFeed().setDescription(contentFromHtml);
-                } else if (ITEM.equals(second) && state.getCurrentItem() != null) {
-                    state.getCurrentItem().setDescriptionIfLonger(contentFromHtml);
-                }
-            } else if (LANGUAGE.equals(localName) && state.getFeed() != null) {
-                state.getFeed().setLanguage(content.toLowerCase(Locale.US));
+            String second = state.getSecondTag().getName();
+            switch (localName) {
+                case GUID:
+                    // some feed creators include an empty or non-standard guid-element in their feed,
+                    // which should be ignored
+                    if (ITEM.equals(second) && !TextUtils.isEmpty(contentRaw) && state.getCurrentItem() != null) {
+                        state.getCurrentItem().setItemIdentifier(contentRaw);
+                    }
+                    break;
+                case TITLE:
+                    if (ITEM.equals(second) && state.getCurrentItem() != null) {
+                        state.getCurrentItem().setTitle(fromHtml(content));
+                    } else if (CHANNEL.equals(second) && state.getFeed() != null) {
+                        state.getFeed().setTitle(fromHtml(content));
+                    }
+                    break;
+                case LINK:
+                    if (CHANNEL.equals(second) && state.getFeed() != null) {
+                        state.getFeed().setLink(content);
+                    } else if (ITEM.equals(second) && state.getCurrentItem() != null) {
+                        state.getCurrentItem().setLink(content);
+                    }
+                    break;
+                case PUBDATE:
+                    if (ITEM.equals(second) && state.getCurrentItem() != null) {
+                        state.getCurrentItem().setPubDate(state.getDateParser().parseOrNullIfFuture(content));
+                    }
+                    break;
+                case URL:
+                    // prefer itunes:image
+                    if (IMAGE.equals(second) && state.getTagstack().size() >= 3
+                            && CHANNEL.equals(state.getThirdTag().getName())
+                            && state.getFeed() != null && state.getFeed().getImageUrl() == null) {
+                        state.getFeed().setImageUrl(content);
+                    }
+                    break;
+                case DESCR:
+                    if (CHANNEL.equals(second) && state.getFeed() != null) {
+                        state.getFeed().setDescription(fromHtml(content));
+                    } else if (ITEM.equals(second) && state.getCurrentItem() != null) {
+                        state.getCurrentItem().setDescriptionIfLonger(fromHtml(content));
+                    }
+                    break;
+                case LANGUAGE:
+                    if (state.getFeed() != null) {
+                        state.getFeed().setLanguage(content.toLowerCase(Locale.US));
+                    }
+                    break;
+                default:
+                    break;
             }
         }
     }
 
+    @Override
+    public boolean isTextElement(String localName) {
+        return TEXT_ELEMENTS.contains(localName);
+    }
+
+    private static String fromHtml(String content) {
+        return HtmlCompat.fromHtml(content, HtmlCompat.FROM_HTML_MODE_COMPACT).toString();
+    }
+
 }
@@ -51,4 +51,8 @@ public class SimpleChapters extends Namespace {
     public void handleElementEnd(String localName, HandlerState state) {
     }
 
+    @Override
+    public boolean isTextElement(String localName) {
+        return false;
+    }
 }
@@ -0,0 +1,542 @@
+package de.danoeh.antennapod.parser.feed.util;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import org.apache.commons.lang3.StringUtils;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Parses the date formats supported by {@link DateUtils}.
+ *
+ * <p>RFC 822 dates, asctime dates and ISO 8601 dates are read by a tokenizer that works directly on the
+ * input string and does not allocate anything except the resulting Date. Other dates are parsed with
+ * SimpleDateFormat patterns, starting with the pattern that matched last time.</p>
+ *
+ * <p>A feed usually writes all of its dates in the same format, so use one instance per feed.
+ * Instances are not thread safe.</p>
+ */
+public class DateParser {
+    private static final String TAG = "DateParser";
+    private static final TimeZone defaultTimezone = TimeZone.getTimeZone("GMT");
+    private static final long INVALID = Long.MIN_VALUE;
+    private static final int INVALID_ZONE = Integer.MIN_VALUE;
+
+    private static final String[] MONTHS = {
+        "january", "february", "march", "april", "may", "june",
+        "july", "august", "september", "october", "november", "december"
+    };
+    private static final String[] WEEKDAYS = {
+        "monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday"
+    };
+    private static final String[] ZONE_NAMES = {
+        "GMT", "UTC", "UT", "Z", "EST", "EDT", "CST", "CDT", "MST", "MDT", "PST", "PDT", "CET", "CEST"
+    };
+    private static final int[] ZONE_OFFSETS = {
+        0, 0, 0, 0, -5 * 60, -4 * 60, -6 * 60, -5 * 60, -7 * 60, -6 * 60, -8 * 60, -7 * 60, 60, 2 * 60
+    };
+
+    private static final String[] PATTERNS = {
+        "dd MMM yy HH:mm:ss Z",
+        "dd MMM yy HH:mm Z",
+        "EEE, dd MMM yyyy HH:mm:ss Z",
+        "EEE, dd MMM yyyy HH:mm:ss",
+        "EEE, dd MMMM yyyy HH:mm:ss Z",
+        "EEE, dd MMMM yyyy HH:mm:ss",
+        "EEEE, dd MMM yyyy HH:mm:ss Z",
+        "EEEE, dd MMM yy HH:mm:ss Z",
+        "EEEE, dd MMM yyyy HH:mm:ss",
+        "EEEE, dd MMM yy HH:mm:ss",
+        "EEE MMM d HH:mm:ss yyyy",
+        "EEE, dd MMM yyyy HH:mm Z",
+        "EEE, dd MMM yyyy HH:mm",
+        "EEE, dd MMMM yyyy HH:mm Z",
+        "EEE, dd MMMM yyyy HH:mm",
+        "EEEE, dd MMM yyyy HH:mm Z",
+        "EEEE, dd MMM yy HH:mm Z",
+        "EEEE, dd MMM yyyy HH:mm",
+        "EEEE, dd MMM yy HH:mm",
+        "EEE MMM d HH:mm yyyy",
+        "yyyy-MM-dd'T'HH:mm:ss",
+        "yyyy-MM-dd'T'HH:mm:ss.SSS Z",
+        "yyyy-MM-dd'T'HH:mm:ss.SSS",
+        "yyyy-MM-dd'T'HH:mm:ssZ",
+        "yyyy-MM-dd'T'HH:mm:ss'Z'",
+        "yyyy-MM-dd'T'HH:mm:ss.SSSZ",
+        "yyyy-MM-ddZ",
+        "yyyy-MM-dd",
+        "EEE d MMM yyyy HH:mm:ss 'GMT'Z (z)"
+    };
+
+    private SimpleDateFormat patternParser = null;
+    private int lastPattern = 0;
+
+    // State of the tokenizer
+    private String input;
+    private int pos;
+    private int end;
+    private int digits;
+    private int hour;
+    private int minute;
+    private int second;
+    private int millis;
+
+    /**
+     * @return The date, or null if the input is not in a supported format
+     */
+    @Nullable
+    public Date parse(String input) {
+        if (input == null) {
+            throw new IllegalArgumentException("Date must not be null");
+        }
+        long time = parseTime(input);
+        if (time != INVALID) {
+            return new Date(time);
+        }
+        return parseWithPatterns(input);
+    }
+
+    /**
+     * Parses the date but if the date is in the future, returns null.
+     */
+    @Nullable
+    public Date parseOrNullIfFuture(String input) {
+        Date date = parse(input);
+        if (date == null || date.getTime() > System.currentTimeMillis()) {
+            return null;
+        }
+        return date;
+    }
+
+    private long parseTime(String input) {
+        this.input = input;
+        pos = 0;
+        end = input.length();
+        while (end > 0 && input.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        skipWhitespace();
+        if (pos + 4 < end && readNumber(4) >= 0 && digits == 4
+                && (input.charAt(pos) == '-' || input.charAt(pos) == '/')) {
+            pos = 0;
+            skipWhitespace();
+            return parseIso8601();
+        }
+        pos = 0;
+        skipWhitespace();
+        return parseRfc822();
+    }
+
+    /**
+     * Parses yyyy-MM-dd[Thh:mm[:ss[.fraction]]][zone]. Dashes can be slashes.
+     */
+    private long parseIso8601() {
+        int year = readNumber(4);
+        char separator = input.charAt(pos++);
+        int month = readNumber(2);
+        if (month < 0 || !consume(separator)) {
+            return INVALID;
+        }
+        int day = readNumber(2);
+        if (day < 0) {
+            return INVALID;
+        }
+        hour = 0;
+        minute = 0;
+        second = 0;
+        millis = 0;
+        if (consume('T') || consume('t')) {
+            if (!readTime()) {
+                return INVALID;
+            }
+        }
+        skipWhitespace();
+        int offset = 0;
+        if (pos < end) {
+            offset = readZone();
+            if (offset == INVALID_ZONE) {
+                return INVALID;
+            }
+        }
+        return pos == end ? toEpochMillis(year, month, day, offset) : INVALID;
+    }
+
+    /**
+     * Parses [weekday[,]] d MMM yy[yy] hh:mm[:ss] [zone] and [weekday] MMM d hh:mm[:ss] yyyy.
+     */
+    private long parseRfc822() {
+        int month = -1;
+        int wordEnd = wordEnd();
+        if (wordEnd > pos) {
+            month = month(pos, wordEnd);
+            if (month < 0) {
+                boolean weekday = weekday(pos, wordEnd);
+                pos = wordEnd;
+                skipWhitespace();
+                if (!consume(',') && !weekday) {
+                    return INVALID;
+                }
+                skipWhitespace();
+                wordEnd = wordEnd();
+                if (wordEnd > pos) {
+                    month = month(pos, wordEnd);
+                    if (month < 0) {
+                        return INVALID;
+                    }
+                }
+            }
+        }
+
+        int day;
+        int year;
+        int offset = 0;
+        if (month >= 0) {
+            // asctime
+            pos = wordEnd;
+            skipWhitespace();
+            day = readNumber(2);
+            skipWhitespace();
+            if (day < 0 || !readTime()) {
+                return INVALID;
+            }
+            skipWhitespace();
+            year = readYear();
+        } else {
+            day = readNumber(2);
+            skipWhitespace();
+            wordEnd = wordEnd();
+            month = month(pos, wordEnd);
+            if (day < 0 || month < 0) {
+                return INVALID;
+            }
+            pos = wordEnd;
+            skipWhitespace();
+            year = readYear();
+            skipWhitespace();
+            if (!readTime()) {
+                return INVALID;
+            }
+        }
+        skipWhitespace();
+        if (pos < end) {
+            offset = readZone();
+            if (offset == INVALID_ZONE) {
+                return INVALID;
+            }
+        }
+        if (year < 0 || pos != end) {
+            return INVALID;
+        }
+        return toEpochMillis(year, month, day, offset);
+    }
+
+    /**
+     * Reads hh:mm[:ss[.fraction]] into the time fields.
+     */
+    private boolean readTime() {
+        hour = readNumber(2);
+        if (hour < 0 || !consume(':')) {
+            return false;
+        }
+        minute = readNumber(2);
+        second = 0;
+        millis = 0;
+        if (consume(':')) {
+            second = readNumber(2);
+            if (second < 0) {
+                return false;
+            }
+            if (consume('.')) {
+                int start = pos;
+                while (pos < end && isDigit(input.charAt(pos))) {
+                    if (pos - start < 3) {
+                        millis = millis * 10 + input.charAt(pos) - '0';
+                    }
+                    pos++;
+                }
+                if (pos == start) {
+                    return false;
+                }
+                for (int i = pos - start; i < 3; i++) {
+                    millis *= 10;
+                }
+            }
+        }
+        return minute >= 0;
+    }
+
+    /**
+     * Reads a four digit year, or a two digit year the same way as SimpleDateFormat.
+     */
+    private int readYear() {
+        int year = readNumber(4);
+        if (year >= 0 && digits == 2) {
+            int centuryStart = yearOf(System.currentTimeMillis()) - 80;
+            year += centuryStart / 100 * 100;
+            if (year < centuryStart) {
+                year += 100;
+            }
+        } else if (digits != 4) {
+            return -1;
+        }
+        return year;
+    }
+
+    /**
+     * Reads a numeric offset like +0200, +02:00 and +02, or a zone name optionally followed
+     * by an offset and a comment, like GMT-0400 (EDT).
+     *
+     * @return The offset in minutes
+     */
+    private int readZone() {
+        char c = input.charAt(pos);
+        if (c == '+' || c == '-') {
+            return readOffset();
+        }
+        int wordEnd = wordEnd();
+        int offset = INVALID_ZONE;
+        for (int i = 0; i < ZONE_NAMES.length; i++) {
+            if (wordEnd - pos == ZONE_NAMES[i].length()
+                    && input.regionMatches(true, pos, ZONE_NAMES[i], 0, wordEnd - pos)) {
+                offset = ZONE_OFFSETS[i];
+                break;
+            }
+        }
+        if (offset == INVALID_ZONE) {
+            return INVALID_ZONE;
+        }
+        pos = wordEnd;
+        if (offset == 0 && pos < end && (input.charAt(pos) == '+' || input.charAt(pos) == '-')) {
+            offset = readOffset();
+        }
+        skipWhitespace();
+        if (consume('(')) {
+            while (pos < end && input.charAt(pos) != ')') {
+                pos++;
+            }
+            if (!consume(')')) {
+                return INVALID_ZONE;
+            }
+        }
+        return offset;
+    }
+
+    private int readOffset() {
+        int sign = input.charAt(pos++) == '-' ? -1 : 1;
+        int value = readNumber(4);
+        int hours;
+        int minutes = 0;
+        if (value < 0) {
+            return INVALID_ZONE;
+        } else if (digits == 4) {
+            hours = value / 100;
+            minutes = value % 100;
+        } else if (digits <= 2) {
+            hours = value;
+            if (consume(':')) {
+                minutes = readNumber(2);
+                if (digits != 2) {
+                    return INVALID_ZONE;
+                }
+            }
+        } else {
+            return INVALID_ZONE;
+        }
+        if (hours > 23 || minutes > 59) {
+            return INVALID_ZONE;
+        }
+        return sign * (hours * 60 + minutes);
+    }
+
+    /**
+     * Reads up to maxDigits digits and stores the number of digits in {@link #digits}.
+     *
+     * @return The number, or -1 if there is no digit
+     */
+    private int readNumber(int maxDigits) {
+        int value = 0;
+        int start = pos;
+        while (pos < end && pos - start < maxDigits && isDigit(input.charAt(pos))) {
+            value = value * 10 + input.charAt(pos) - '0';
+            pos++;
+        }
+        digits = pos - start;
+        if (digits == 0 || (pos < end && isDigit(input.charAt(pos)))) {
+            return -1;
+        }
+        return value;
+    }
+
+    private boolean consume(char c) {
+        if (pos < end && input.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (pos < end && input.charAt(pos) <= ' ') {
+            pos++;
+        }
+    }
+
+    private int wordEnd() {
+        int wordEnd = pos;
+        while (wordEnd < end && Character.isLetter(input.charAt(wordEnd))) {
+            wordEnd++;
+        }
+        return wordEnd;
+    }
+
+    /**
+     * Accepts the full name, the three letter abbreviation and "Sept".
+     *
+     * @return The month from 1 to 12, or -1
+     */
+    private int month(int start, int wordEnd) {
+        int length = wordEnd - start;
+        for (int i = 0; i < MONTHS.length; i++) {
+            if ((length == 3 || length == MONTHS[i].length() || (i == 8 && length == 4))
+                    && input.regionMatches(true, start, MONTHS[i], 0, length)) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private boolean weekday(int start, int wordEnd) {
+        int length = wordEnd - start;
+        for (String weekday : WEEKDAYS) {
+            if ((length == 3 || length == weekday.length())
+                    && input.regionMatches(true, start, weekday, 0, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long toEpochMillis(int year, int month, int day, int offsetMinutes) {
+        if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour > 23 || minute > 59 || second > 59) {
+            return INVALID;
+        }
+        long days = daysFromCivil(year, month, day);
+        return (((days * 24 + hour) * 60 + minute - offsetMinutes) * 60 + second) * 1000 + millis;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            boolean leapYear = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return leapYear ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    /**
+     * @return The number of days between 1970-01-01 and the date in the proleptic Gregorian calendar
+     */
+    static long daysFromCivil(int year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = (year >= 0 ? year : year - 399) / 400;
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * @param time A time after 1970
+     */
+    private static int yearOf(long time) {
+        long days = time / (24 * 60 * 60 * 1000L) + 719468;
+        long era = days / 146097;
+        long dayOfEra = days - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        return (int) (yearOfEra + era * 400 + (monthIndex >= 10 ? 1 : 0));
+    }
+
+    /**
+     * Parses dates that the tokenizer does not understand.
+     */
+    @Nullable
+    private Date parseWithPatterns(final String input) {
+        String date = input.trim().replace('/', '-').replaceAll("( ){2,}+", " ");
+
+        // remove colon from timezone to avoid differences between Android and Java SimpleDateFormat
+        date = date.replaceAll("([+-]\\d\\d):(\\d\\d)$", "$1$2");
+
+        // CEST is widely used but not in the "ISO 8601 Time zone" list. Let's hack around.
+        date = date.replaceAll("CEST$", "+0200");
+        date = date.replaceAll("CET$", "+0100");
+
+        // some generators use "Sept" for September
+        date = date.replaceAll("\\bSept\\b", "Sep");
+
+        // if datetime is more precise than seconds, make sure the value is in ms
+        if (date.contains(".")) {
+            int start = date.indexOf('.');
+            int current = start + 1;
+            while (current < date.length() && Character.isDigit(date.charAt(current))) {
+                current++;
+            }
+            // even more precise than microseconds: discard further decimal places
+            if (current - start > 4) {
+                if (current < date.length() - 1) {
+                    date = date.substring(0, start + 4) + date.substring(current);
+                } else {
+                    date = date.substring(0, start + 4);
+                }
+                // less than 4 decimal places: pad to have a consistent format for the parser
+            } else if (current - start < 4) {
+                if (current < date.length() - 1) {
+                    date = date.substring(0, current) + StringUtils.repeat("0", 4 - (current - start))
+                            + date.substring(current);
+                } else {
+                    date = date.substring(0, current) + StringUtils.repeat("0", 4 - (current - start));
+                }
+            }
+        }
+
+        if (patternParser == null) {
+            patternParser = new SimpleDateFormat("", Locale.US);
+            patternParser.setLenient(false);
+            patternParser.setTimeZone(defaultTimezone);
+        }
+        ParsePosition pos = new ParsePosition(0);
+        for (int i = 0; i < PATTERNS.length; i++) {
+            // Start with the pattern that matched last time
+            int pattern = (lastPattern + i) % PATTERNS.length;
+            patternParser.applyPattern(PATTERNS[pattern]);
+            pos.setIndex(0);
+            try {
+                Date result = patternParser.parse(date, pos);
+                if (result != null && pos.getIndex() == date.length()) {
+                    lastPattern = pattern;
+                    return result;
+                }
+            } catch (Exception e) {
+                Log.e(TAG, Log.getStackTraceString(e));
+            }
+        }
+
+        // if date string starts with a weekday, try parsing date string without it
+        if (date.matches("^\\w+, .*$")) {
+            return parse(date.substring(date.indexOf(',') + 1));
+        }
+
+        Log.d(TAG, "Could not parse date string \"" + input + "\" [" + date + "]");
+        return null;
+    }
+}
@@ -2,6 +2,8 @@ package de.danoeh.antennapod.parser.feed.util;
 
 import android.util.Log;
 
+import androidx.annotation.Nullable;
+
 import de.danoeh.antennapod.parser.feed.UnsupportedFeedtypeException;
 import org.apache.commons.io.input.XmlStreamReader;
 import org.jsoup.Jsoup;
@@ -26,6 +28,7 @@ public class TypeGetter {
 
     private static final String ATOM_ROOT = "feed";
     private static final String RSS_ROOT = "rss";
+    public static final String XML_NAMESPACE = "http://www.w3.org/XML/1998/namespace";
 
     public Type getType(Feed feed) throws UnsupportedFeedtypeException {
         XmlPullParserFactory factory;
@@ -41,37 +44,8 @@ public class TypeGetter {
 
                 while (eventType != XmlPullParser.END_DOCUMENT) {
                     if (eventType == XmlPullParser.START_TAG) {
-                        String tag = xpp.getName();
-                        switch (tag) {
-                            case ATOM_ROOT:
-                                feed.setType(Feed.TYPE_ATOM1);
-                                Log.d(TAG, "Recognized type Atom");
-
-                                String strLang = xpp.getAttributeValue("http://www.w3.org/XML/1998/namespace", "lang");
-                                if (strLang != null) {
-                                    feed.setLanguage(strLang);
-                                }
-
-                                return Type.ATOM;
-                            case RSS_ROOT:
-                                String strVersion = xpp.getAttributeValue(null, "version");
-                                if (strVersion == null) {
-                                    feed.setType(Feed.TYPE_RSS2);
-                                    Log.d(TAG, "Assuming type RSS 2.0");
-                                    return Type.RSS20;
-                                } else if (strVersion.equals("2.0")) {
-                                    feed.setType(Feed.TYPE_RSS2);
-                                    Log.d(TAG, "Recognized type RSS 2.0");
-                                    return Type.RSS20;
-                                } else if (strVersion.equals("0.91") || strVersion.equals("0.92")) {
-                                    Log.d(TAG, "Recognized type RSS 0.91/0.92");
-                                    return Type.RSS091;
-                                }
-                                throw new UnsupportedFeedtypeException("Unsupported rss version");
-                            default:
-                                Log.d(TAG, "Type is invalid");
-                                throw new UnsupportedFeedtypeException(Type.INVALID, tag);
-                        }
+                        return getType(feed, xpp.getName(), xpp.getAttributeValue(null, "version"),
+                                xpp.getAttributeValue(XML_NAMESPACE, "lang"));
                     } else {
                         try {
                             eventType = xpp.next();
@@ -110,6 +84,43 @@ public class TypeGetter {
         throw new UnsupportedFeedtypeException(Type.INVALID);
     }
 
+    /**
+     * Gets the type of a feed from its root element. Use this if the root element was already read,
+     * so the feed does not need to be opened again.
+     *
+     * @param version  The version attribute of the root element, or null
+     * @param language The xml:lang attribute of the root element, or null
+     */
+    public Type getType(Feed feed, String rootElement, @Nullable String version, @Nullable String language)
+            throws UnsupportedFeedtypeException {
+        switch (rootElement) {
+            case ATOM_ROOT:
+                feed.setType(Feed.TYPE_ATOM1);
+                Log.d(TAG, "Recognized type Atom");
+                if (language != null) {
+                    feed.setLanguage(language);
+                }
+                return Type.ATOM;
+            case RSS_ROOT:
+                if (version == null) {
+                    feed.setType(Feed.TYPE_RSS2);
+                    Log.d(TAG, "Assuming type RSS 2.0");
+                    return Type.RSS20;
+                } else if (version.equals("2.0")) {
+                    feed.setType(Feed.TYPE_RSS2);
+                    Log.d(TAG, "Recognized type RSS 2.0");
+                    return Type.RSS20;
+                } else if (version.equals("0.91") || version.equals("0.92")) {
+                    Log.d(TAG, "Recognized type RSS 0.91/0.92");
+                    return Type.RSS091;
+                }
+                throw new UnsupportedFeedtypeException("Unsupported rss version");
+            default:
+                Log.d(TAG, "Type is invalid");
+                throw new UnsupportedFeedtypeException(Type.INVALID, rootElement);
+        }
+    }
+
     private Reader createReader(Feed feed) {
         Reader reader;
         try {
@@ -0,0 +1,94 @@
+package de.danoeh.antennapod.parser.feed.element.namespace;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import de.danoeh.antennapod.model.feed.Feed;
+import de.danoeh.antennapod.parser.feed.FeedHandler;
+import de.danoeh.antennapod.parser.feed.FeedHandlerResult;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for skipping known items in FeedHandler.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class IncrementalParserTest {
+    private static final int NUM_ITEMS = 20;
+
+    @Test
+    public void testSkipsAfterKnownItems() throws Exception {
+        Set<String> knownItems = new HashSet<>();
+        for (int i = 5; i < NUM_ITEMS; i++) {
+            knownItems.add("item-" + i);
+        }
+        FeedHandlerResult result = parse(createNewestFirstFeed(), knownItems, 3);
+        assertEquals(8, result.feed.getItems().size());
+        assertEquals(NUM_ITEMS - 8, result.skippedItems);
+        assertEquals("item-7", result.feed.getItems().get(7).getItemIdentifier());
+        // Channel elements after the items are still parsed
+        assertEquals("de", result.feed.getLanguage());
+    }
+
+    @Test
+    public void testUnknownItemRestartsRun() throws Exception {
+        Set<String> knownItems = new HashSet<>(Arrays.asList("item-0", "item-1", "item-3", "item-4", "item-5"));
+        FeedHandlerResult result = parse(createNewestFirstFeed(), knownItems, 3);
+        assertEquals(6, result.feed.getItems().size());
+        assertEquals(NUM_ITEMS - 6, result.skippedItems);
+    }
+
+    @Test
+    public void testNoKnownItems() throws Exception {
+        FeedHandlerResult result = parse(createNewestFirstFeed(), new HashSet<>(), 3);
+        assertEquals(NUM_ITEMS, result.feed.getItems().size());
+        assertEquals(0, result.skippedItems);
+    }
+
+    @Test
+    public void testOldestFirstIsParsedCompletely() throws Exception {
+        File feedFile = FeedParserTestHelper.getFeedFile("feed-rss-testRss2Basic.xml");
+        Set<String> knownItems = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            knownItems.add("http://example.com/item-" + i);
+        }
+        try (InputStream in = new FileInputStream(feedFile)) {
+            FeedHandlerResult result = parse(in, knownItems, 3);
+            assertEquals(10, result.feed.getItems().size());
+            assertEquals(0, result.skippedItems);
+        }
+    }
+
+    private static FeedHandlerResult parse(InputStream in, Set<String> knownItems, int knownItemsBeforeSkipping)
+            throws Exception {
+        FeedHandler handler = new FeedHandler();
+        handler.setKnownItems(knownItems, knownItemsBeforeSkipping);
+        return handler.parseFeed(new Feed("http://example.com/feed", null), in);
+    }
+
+    private static InputStream createNewestFirstFeed() {
+        StringBuilder feed = new StringBuilder("<?xml version='1.0' encoding='UTF-8' ?>"
+                + "<rss version=\"2.0\"><channel><title>title</title>");
+        for (int i = 0; i < NUM_ITEMS; i++) {
+            feed.append("<item><title>Item ").append(i).append("</title>")
+                    .append("<guid>item-").append(i).append("</guid>")
+                    .append("<description><![CDATA[<p>Description</p>]]></description>")
+                    .append("<pubDate>").append(String.format("Mon, %02d Jan 2018 10:00:00 +0000", 31 - i))
+                    .append("</pubDate>")
+                    .append("<enclosure url=\"http://example.com/media-").append(i)
+                    .append("\" length=\"1048576\" type=\"audio/mp3\"/></item>");
+        }
+        feed.append("<language>de</language></channel></rss>");
+        return new ByteArrayInputStream(feed.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,155 @@
+package de.danoeh.antennapod.parser.feed.element.namespace;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.XmlStreamReader;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import de.danoeh.antennapod.model.feed.Feed;
+import de.danoeh.antennapod.model.feed.FeedItem;
+import de.danoeh.antennapod.parser.feed.FeedHandler;
+import de.danoeh.antennapod.parser.feed.SyndHandler;
+import de.danoeh.antennapod.parser.feed.UnsupportedFeedtypeException;
+import de.danoeh.antennapod.parser.feed.util.TypeGetter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for parsing feeds from a stream in FeedHandler.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class StreamingParserTest {
+    private static final String[] FEED_FILES = {
+        "feed-atom-testAtomBasic.xml",
+        "feed-atom-testEmptyRelLinks.xml",
+        "feed-atom-testLogoWithWhitespace.xml",
+        "feed-rss-testImageWithWhitespace.xml",
+        "feed-rss-testMediaContentMime.xml",
+        "feed-rss-testMultipleFundingTags.xml",
+        "feed-rss-testRss2Basic.xml",
+        "feed-rss-testUnsupportedElements.xml",
+    };
+
+    @Test
+    public void testStreamMatchesTwoPassParser() throws Exception {
+        for (String fileName : FEED_FILES) {
+            File feedFile = FeedParserTestHelper.getFeedFile(fileName);
+            Feed expected = runTwoPassParser(feedFile);
+            Feed fromStream = runStreamingParser(FileUtils.readFileToByteArray(feedFile));
+            assertSameFeed(fileName, expected, fromStream);
+        }
+    }
+
+    @Test
+    public void testHtml() throws Exception {
+        byte[] html = "<!DOCTYPE html><html><head><title>title</title></head><body></body></html>"
+                .getBytes(StandardCharsets.UTF_8);
+        try {
+            runStreamingParser(html);
+            fail("Expected UnsupportedFeedtypeException");
+        } catch (UnsupportedFeedtypeException e) {
+            assertEquals("html", e.getRootElement());
+        }
+    }
+
+    @Test
+    public void testContentBufferReusedAndUnusedTextSkipped() throws Exception {
+        String feed = "<rss version=\"2.0\"><channel><title>Feed title</title>"
+                + "<unknown>Text of an unknown element</unknown>"
+                + "<item><title>Item title</title><guid>id</guid></item>"
+                + "</channel></rss>";
+        Feed parsedFeed = new Feed("http://example.com/feed", null);
+        RecordingSyndHandler handler = new RecordingSyndHandler(parsedFeed);
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.newSAXParser().parse(new ByteArrayInputStream(feed.getBytes(StandardCharsets.UTF_8)), handler);
+
+        assertEquals("Feed title", parsedFeed.getTitle());
+        assertEquals("Item title", parsedFeed.getItems().get(0).getTitle());
+        assertEquals(1, handler.buffers.size());
+        assertEquals("Text of an unknown element", handler.skippedText.toString());
+    }
+
+    /**
+     * Remembers which buffers the characters were saved in, and which characters were not saved.
+     */
+    private static class RecordingSyndHandler extends SyndHandler {
+        final Set<StringBuilder> buffers = Collections.newSetFromMap(new IdentityHashMap<>());
+        final StringBuilder skippedText = new StringBuilder();
+
+        RecordingSyndHandler(Feed feed) {
+            super(feed);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            super.characters(ch, start, length);
+            StringBuilder buffer = state.getContentBuf();
+            if (buffer != null) {
+                buffers.add(buffer);
+            } else {
+                skippedText.append(ch, start, length);
+            }
+        }
+    }
+
+    /**
+     * Parses the file the way FeedHandler did before feeds were parsed in a single pass:
+     * TypeGetter reads the root element from the file, and then the file is parsed again.
+     */
+    private static Feed runTwoPassParser(File feedFile) throws Exception {
+        Feed parsedFeed = new Feed("http://example.com/feed", null);
+        parsedFeed.setFile_url(feedFile.getAbsolutePath());
+        TypeGetter.Type type = new TypeGetter().getType(parsedFeed);
+        SyndHandler handler = new SyndHandler(parsedFeed, type);
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        try (Reader reader = new XmlStreamReader(feedFile)) {
+            factory.newSAXParser().parse(new InputSource(reader), handler);
+        }
+        return parsedFeed;
+    }
+
+    private static Feed runStreamingParser(byte[] feed) throws Exception {
+        Feed parsedFeed = new Feed("http://example.com/feed", null);
+        new FeedHandler().parseFeed(parsedFeed, new ByteArrayInputStream(feed));
+        return parsedFeed;
+    }
+
+    private static void assertSameFeed(String fileName, Feed expected, Feed actual) {
+        assertEquals(fileName, expected.getType(), actual.getType());
+        assertEquals(fileName, expected.getTitle(), actual.getTitle());
+        assertEquals(fileName, expected.getLanguage(), actual.getLanguage());
+        assertEquals(fileName, expected.getLink(), actual.getLink());
+        assertEquals(fileName, expected.getDescription(), actual.getDescription());
+        assertEquals(fileName, expected.getImageUrl(), actual.getImageUrl());
+        assertEquals(fileName, expected.getItems().size(), actual.getItems().size());
+        for (int i = 0; i < expected.getItems().size(); i++) {
+            FeedItem expectedItem = expected.getItems().get(i);
+            FeedItem actualItem = actual.getItems().get(i);
+            assertEquals(fileName, expectedItem.getItemIdentifier(), actualItem.getItemIdentifier());
+            assertEquals(fileName, expectedItem.getTitle(), actualItem.getTitle());
+            assertEquals(fileName, expectedItem.getPubDate(), actualItem.getPubDate());
+            assertEquals(fileName, expectedItem.hasMedia(), actualItem.hasMedia());
+            if (expectedItem.hasMedia()) {
+                //noinspection ConstantConditions
+                assertEquals(fileName, expectedItem.getMedia().getDownload_url(),
+                        actualItem.getMedia().getDownload_url());
+            }
+        }
+    }
+}
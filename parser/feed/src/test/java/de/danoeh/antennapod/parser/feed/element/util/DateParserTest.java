@@ -0,0 +1,88 @@
+package de.danoeh.antennapod.parser.feed.element.util;
+
+import de.danoeh.antennapod.parser.feed.util.DateParser;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit test for {@link DateParser}. See DateUtilsTest for the supported formats.
+ */
+public class DateParserTest {
+    private static final String[] FORMATS = {
+        "EEE, dd MMM yyyy HH:mm:ss Z",
+        "EEE, d MMM yyyy HH:mm:ss Z",
+        "EEEE, dd MMMM yyyy HH:mm:ss Z",
+        "EEE, dd MMM yyyy HH:mm Z",
+        "EEE, dd MMM yyyy HH:mm:ss",
+        "dd MMM yyyy HH:mm:ss Z",
+        "EEE MMM d HH:mm:ss yyyy",
+        "yyyy-MM-dd'T'HH:mm:ss",
+        "yyyy-MM-dd'T'HH:mm:ss.SSSZ",
+        "yyyy-MM-dd'T'HH:mm:ss'Z'",
+        "yyyy-MM-dd",
+    };
+
+    @Test
+    public void testMatchesSimpleDateFormat() {
+        Random random = new Random(42);
+        DateParser parser = new DateParser();
+        for (String format : FORMATS) {
+            SimpleDateFormat formatter = new SimpleDateFormat(format, Locale.US);
+            for (int i = 0; i < 1000; i++) {
+                boolean hasZone = format.endsWith("Z") && !format.endsWith("'Z'");
+                formatter.setTimeZone(TimeZone.getTimeZone(hasZone && i % 2 == 1 ? "GMT-05:30" : "GMT"));
+                // Dates between 1970 and 2038, without milliseconds unless they are formatted
+                long time = (random.nextLong() & Long.MAX_VALUE) % (1L << 31) * 1000;
+                if (format.contains("SSS")) {
+                    time += random.nextInt(1000);
+                }
+                String formatted = formatter.format(new Date(time));
+                long expected = format.equals("yyyy-MM-dd") ? time - time % (24 * 3600 * 1000) : time;
+                if (format.contains("mm") && !format.contains("ss")) {
+                    expected -= time % 60000;
+                }
+                assertEquals(formatted, new Date(expected), parser.parse(formatted));
+            }
+        }
+    }
+
+    @Test
+    public void testTwoDigitYear() {
+        assertEquals(new Date(1425171600000L), new DateParser().parse("01 Mar 15 01:00:00 +0000"));
+    }
+
+    @Test
+    public void testSeptember() {
+        Date expected = new Date(1410134400000L);
+        assertEquals(expected, new DateParser().parse("Mon, 8 Sept 2014 00:00:00 GMT"));
+        assertEquals(expected, new DateParser().parse("Mon, 8 September 2014 00:00:00 GMT"));
+        assertEquals(expected, new DateParser().parse("Mon, 8 Sep 2014 00:00:00 GMT"));
+    }
+
+    @Test
+    public void testInvalid() {
+        DateParser parser = new DateParser();
+        assertNull(parser.parse("Mon, 31 Feb 2014 00:00:00 GMT"));
+        assertNull(parser.parse("Mon, 8 Sep 2014 25:00:00 GMT"));
+        assertNull(parser.parse("2014-13-01"));
+        assertNull(parser.parse("Mon, 8 Sep 2014"));
+        assertNull(parser.parse("yesterday"));
+        assertNull(parser.parse(""));
+    }
+
+    @Test
+    public void testFallbackFormat() {
+        DateParser parser = new DateParser();
+        assertEquals(new Date(1427556664000L), parser.parse("Sat, 28 Mar 2015 05:31:04 HST"));
+        // The same pattern matches again
+        assertEquals(new Date(1427556664000L), parser.parse("Sat, 28 Mar 2015 05:31:04 HST"));
+    }
+}
@@ -10,6 +10,7 @@ import org.apache.commons.io.input.CountingInputStream;
 
 import java.io.IOException;
 import java.net.URLDecoder;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -33,6 +34,10 @@ public class ChapterReader extends ID3Reader {
         super(input);
     }
 
+    public ChapterReader(ByteBuffer input) {
+        super(input);
+    }
+
     @Override
     protected void readFrame(@NonNull FrameHeader frameHeader) throws IOException, ID3ReaderException {
         if (FRAME_ID_CHAPTER.equals(frameHeader.getId())) {
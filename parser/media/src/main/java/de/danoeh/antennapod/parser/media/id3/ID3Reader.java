@@ -2,34 +2,97 @@ package de.danoeh.antennapod.parser.media.id3;
 
 import android.util.Log;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import de.danoeh.antennapod.parser.media.id3.model.FrameHeader;
 import de.danoeh.antennapod.parser.media.id3.model.TagHeader;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.CountingInputStream;
 
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.MalformedInputException;
 
 /**
- * Reads the ID3 Tag of a given file.
+ * Reads the ID3 Tag of a given file, either from a stream or from a buffer that contains the tag.
  * See https://id3.org/id3v2.3.0
  */
 public class ID3Reader {
     private static final String TAG = "ID3Reader";
     private static final int FRAME_ID_LENGTH = 4;
+    public static final int TAG_HEADER_LENGTH = 10;
+    /**
+     * Tags up to this size are copied into memory. Larger ones, usually because of embedded images, are mapped.
+     */
+    private static final int MAX_COPIED_TAG_SIZE = 64 * 1024;
     public static final byte ENCODING_ISO = 0;
     public static final byte ENCODING_UTF16_WITH_BOM = 1;
     public static final byte ENCODING_UTF16_WITHOUT_BOM = 2;
     public static final byte ENCODING_UTF8 = 3;
 
     private TagHeader tagHeader;
+    @Nullable
     private final CountingInputStream inputStream;
+    @Nullable
+    private final ByteBuffer buffer;
 
     public ID3Reader(CountingInputStream input) {
         inputStream = input;
+        buffer = null;
+    }
+
+    /**
+     * @param input Buffer that starts at the beginning of the file, see {@link #readTagRegion(FileChannel)}.
+     *              Frames are decoded directly from the buffer and skipped without reading them.
+     */
+    public ID3Reader(ByteBuffer input) {
+        inputStream = null;
+        buffer = input;
+    }
+
+    /**
+     * Returns the beginning of the file that contains the ID3 tag, or just the tag header if the file has no tag.
+     */
+    public static ByteBuffer readTagRegion(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(TAG_HEADER_LENGTH);
+        readFully(channel, header);
+        long length = Math.min(getTagLength(header), channel.size());
+        if (length > MAX_COPIED_TAG_SIZE) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        }
+        ByteBuffer region = ByteBuffer.allocate((int) length);
+        readFully(channel, region);
+        return region;
+    }
+
+    /**
+     * @param header The beginning of a file
+     * @return The length of the ID3 tag including its header, or the length of the header if there is no tag
+     */
+    public static int getTagLength(ByteBuffer header) {
+        if (header.limit() < TAG_HEADER_LENGTH
+                || header.get(0) != 'I' || header.get(1) != 'D' || header.get(2) != '3') {
+            return header.limit();
+        }
+        return TAG_HEADER_LENGTH + unsynchsafe(header.getInt(6));
+    }
+
+    /**
+     * Reads from the start of the channel until the buffer is full or the channel ends, and flips the buffer.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer destination) throws IOException {
+        long position = 0;
+        while (destination.hasRemaining()) {
+            int read = channel.read(destination, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+        destination.flip();
     }
 
     public void readInputStream() throws IOException, ID3ReaderException {
@@ -51,6 +114,9 @@ public class ID3Reader {
     }
 
     int getPosition() {
+        if (buffer != null) {
+            return buffer.position();
+        }
         return inputStream.getCount();
     }
 
@@ -61,20 +127,54 @@ public class ID3Reader {
         if (number < 0) {
             throw new ID3ReaderException("Trying to read a negative number of bytes");
         }
+        if (buffer != null) {
+            requireRemaining(number);
+            buffer.position(buffer.position() + number);
+            return;
+        }
         IOUtils.skipFully(inputStream, number);
     }
 
+    private void requireRemaining(int number) throws EOFException {
+        if (buffer.remaining() < number) {
+            throw new EOFException("Tag ends " + (number - buffer.remaining()) + " bytes too early");
+        }
+    }
+
+    /**
+     * Returns the next bytes of the buffer without copying them, and skips them.
+     */
+    private ByteBuffer sliceBuffer(int length) throws EOFException {
+        requireRemaining(length);
+        ByteBuffer slice = buffer.slice();
+        slice.limit(length);
+        buffer.position(buffer.position() + length);
+        return slice;
+    }
+
     byte readByte() throws IOException {
+        if (buffer != null) {
+            requireRemaining(1);
+            return buffer.get();
+        }
         return (byte) inputStream.read();
     }
 
     short readShort() throws IOException {
+        if (buffer != null) {
+            requireRemaining(2);
+            return buffer.getShort();
+        }
         char firstByte = (char) inputStream.read();
         char secondByte = (char) inputStream.read();
         return (short) ((firstByte << 8) | secondByte);
     }
 
     int readInt() throws IOException {
+        if (buffer != null) {
+            requireRemaining(4);
+            return buffer.getInt();
+        }
         char firstByte = (char) inputStream.read();
         char secondByte = (char) inputStream.read();
         char thirdByte = (char) inputStream.read();
@@ -83,7 +183,7 @@ public class ID3Reader {
     }
 
     void expectChar(char expected) throws ID3ReaderException, IOException {
-        char read = (char) inputStream.read();
+        char read = buffer != null ? (char) (readByte() & 0xff) : (char) inputStream.read();
         if (read != expected) {
             throw new ID3ReaderException("Expected " + expected + " and got " + read);
         }
@@ -115,7 +215,7 @@ public class ID3Reader {
         return new FrameHeader(id, size, flags);
     }
 
-    private int unsynchsafe(int in) {
+    private static int unsynchsafe(int in) {
         int out = 0;
         int mask = 0x7F000000;
 
@@ -138,6 +238,9 @@ public class ID3Reader {
 
     @SuppressWarnings("CharsetObjectCanBeUsed")
     protected String readIsoStringFixed(int length) throws IOException {
+        if (buffer != null) {
+            return Charset.forName("ISO-8859-1").newDecoder().decode(sliceBuffer(length)).toString();
+        }
         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
         int bytesRead = 0;
         while (bytesRead < length) {
@@ -166,6 +269,18 @@ public class ID3Reader {
      * Reads chars where the encoding uses 1 char per symbol.
      */
     private String readEncodedString1(Charset charset, int max) throws IOException {
+        if (buffer != null) {
+            int available = Math.min(max, buffer.remaining());
+            int length = 0;
+            while (length < available && buffer.get(buffer.position() + length) != 0) {
+                length++;
+            }
+            ByteBuffer bytes = sliceBuffer(length);
+            if (length < available) {
+                buffer.get(); // Null-terminator
+            }
+            return charset.newDecoder().decode(bytes).toString();
+        }
         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
         int bytesRead = 0;
         while (bytesRead < max) {
@@ -183,6 +298,9 @@ public class ID3Reader {
      * Reads chars where the encoding uses 2 chars per symbol.
      */
     private String readEncodedString2(Charset charset, int max) throws IOException {
+        if (buffer != null) {
+            return decodeOrEmpty(charset, sliceEncodedString2(max));
+        }
         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
         int bytesRead = 0;
         boolean foundEnd = false;
@@ -204,8 +322,39 @@ public class ID3Reader {
                 bytes.write(c);
             }
         }
+        return decodeOrEmpty(charset, ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    /**
+     * Same as the stream-based part of {@link #readEncodedString2}, but only finds the end of the string.
+     */
+    private ByteBuffer sliceEncodedString2(int max) throws EOFException {
+        int available = Math.min(max, buffer.remaining());
+        int start = buffer.position();
+        int length = 0;
+        while (length + 1 < available) {
+            if (buffer.get(start + length) == 0 && buffer.get(start + length + 1) == 0) {
+                ByteBuffer bytes = sliceBuffer(length);
+                buffer.position(buffer.position() + 2); // Null-terminator
+                return bytes;
+            }
+            length += 2;
+        }
+        if (length < available) {
+            // Last character
+            if (buffer.get(start + length) != 0) {
+                return sliceBuffer(length + 1);
+            }
+            ByteBuffer bytes = sliceBuffer(length);
+            buffer.get();
+            return bytes;
+        }
+        return sliceBuffer(length);
+    }
+
+    private static String decodeOrEmpty(Charset charset, ByteBuffer bytes) throws IOException {
         try {
-            return charset.newDecoder().decode(ByteBuffer.wrap(bytes.toByteArray())).toString();
+            return charset.newDecoder().decode(bytes).toString();
         } catch (MalformedInputException e) {
             return "";
         }
@@ -18,6 +18,7 @@ public abstract class VorbisCommentReader {
     private static final int SECOND_PAGE_MAX_LENGTH = 64 * 1024 * 1024;
     private static final int PACKET_TYPE_IDENTIFICATION = 1;
     private static final int PACKET_TYPE_COMMENT = 3;
+    private static final int OGG_PAGE_HEADER_LENGTH = 27;
 
     /** Called when Reader finds identification header. */
     protected abstract void onVorbisCommentFound();
@@ -39,6 +40,47 @@ public abstract class VorbisCommentReader {
 
     protected abstract void onError(VorbisCommentReaderException exception);
 
+    /**
+     * Finds out how much of an Ogg file has to be read to get the identification and comment headers,
+     * using the segment tables of the first pages.
+     *
+     * @param data The beginning of the file
+     * @return The length of the pages that contain both headers, or, if more data is needed to find it out,
+     *         the negative length of data that is needed for the next step
+     */
+    public static int getHeaderPagesLength(byte[] data) {
+        final byte[] oggPageHeader = {'O', 'g', 'g', 'S'};
+        int pageStart = 0;
+        int packets = 0;
+        while (true) {
+            // Checked before more data is requested, so files that are not Ogg are recognized early
+            for (int i = 0; i < oggPageHeader.length && pageStart + i < data.length; i++) {
+                if (data[pageStart + i] != oggPageHeader[i]) {
+                    // Not a valid page, so there is nothing more to find out
+                    return data.length;
+                }
+            }
+            int segmentTableStart = pageStart + OGG_PAGE_HEADER_LENGTH;
+            if (data.length < segmentTableStart) {
+                return -segmentTableStart;
+            }
+            int numSegments = data[segmentTableStart - 1] & 0xff;
+            if (data.length < segmentTableStart + numSegments) {
+                return -(segmentTableStart + numSegments);
+            }
+            int position = segmentTableStart + numSegments;
+            for (int i = 0; i < numSegments; i++) {
+                int segmentLength = data[segmentTableStart + i] & 0xff;
+                position += segmentLength;
+                // Packets end with the first segment that is shorter than 255 bytes
+                if (segmentLength < 255 && ++packets == 2) {
+                    return position;
+                }
+            }
+            pageStart = position;
+        }
+    }
+
     public void readInputStream(InputStream input) throws VorbisCommentReaderException {
         try {
             skipIdentificationHeader(input);
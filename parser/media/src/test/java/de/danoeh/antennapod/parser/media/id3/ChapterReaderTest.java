@@ -9,7 +9,11 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
@@ -24,6 +28,9 @@ public class ChapterReaderTest {
             0, 0, 0, 0, // Start offset
             0, 0, 0, 0 // End offset
     };
+    private static final String[] REAL_FILES = {
+        "auphonic.mp3", "hindenburg-journalist-pro.mp3", "mp3chaps-py.mp3"
+    };
 
     @Test
     public void testReadFullTagWithChapter() throws IOException, ID3ReaderException {
@@ -205,4 +212,98 @@ public class ChapterReaderTest {
         assertEquals("Chapter 2", chapters.get(2).getTitle());
         assertEquals("Chapter 3", chapters.get(3).getTitle());
     }
+
+    @Test
+    public void testReadFullTagFromBuffer() throws IOException, ID3ReaderException {
+        byte[] chapter = Id3ReaderTest.concat(
+                Id3ReaderTest.generateFrameHeader(ChapterReader.FRAME_ID_CHAPTER, CHAPTER_WITHOUT_SUBFRAME.length),
+                CHAPTER_WITHOUT_SUBFRAME);
+        byte[] data = Id3ReaderTest.concat(
+                Id3ReaderTest.generateId3Header(2 * chapter.length),
+                chapter,
+                chapter);
+        ChapterReader reader = new ChapterReader(ByteBuffer.wrap(data));
+        reader.readInputStream();
+        assertEquals(2, reader.getChapters().size());
+        assertEquals(CHAPTER_WITHOUT_SUBFRAME_START_TIME, reader.getChapters().get(1).getStart());
+        assertEquals(data.length, reader.getPosition());
+    }
+
+    @Test
+    public void testRealFilesFromChannel() throws IOException, ID3ReaderException {
+        for (String resource : REAL_FILES) {
+            File file = new File(getClass().getClassLoader().getResource(resource).getFile());
+            List<Chapter> expected = readChaptersFromStream(file);
+            List<Chapter> actual = readChaptersFromChannel(file);
+            assertEquals(resource, expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(resource, expected.get(i).getStart(), actual.get(i).getStart());
+                assertEquals(resource, expected.get(i).getTitle(), actual.get(i).getTitle());
+                assertEquals(resource, expected.get(i).getLink(), actual.get(i).getLink());
+                assertEquals(resource, expected.get(i).getImageUrl(), actual.get(i).getImageUrl());
+            }
+        }
+    }
+
+    /**
+     * Reads chapters with embedded images that make the tag too large to be copied, so it is memory-mapped.
+     */
+    @Test
+    public void testEmbeddedImagesFromChannel() throws IOException, ID3ReaderException {
+        final int imageLength = 40 * 1024;
+        byte[] pictureHeader = Id3ReaderTest.concat(
+                new byte[] {ID3Reader.ENCODING_ISO, 'i', 'm', 'a', 'g', 'e', '/', 'j', 'p', 'e', 'g', 0},
+                new byte[] {ChapterReader.IMAGE_TYPE_COVER, 0}); // Type, empty description
+        byte[] picture = Id3ReaderTest.concat(pictureHeader, new byte[imageLength]);
+        byte[] pictureFrameHeader = Id3ReaderTest.generateFrameHeader(ChapterReader.FRAME_ID_PICTURE, picture.length);
+        byte[] chapterData = Id3ReaderTest.concat(CHAPTER_WITHOUT_SUBFRAME, pictureFrameHeader, picture);
+        byte[] chapterHeader = Id3ReaderTest.generateFrameHeader(ChapterReader.FRAME_ID_CHAPTER, chapterData.length);
+        byte[] chapter = Id3ReaderTest.concat(chapterHeader, chapterData);
+        byte[] tagHeader = generateSynchsafeId3Header(2 * chapter.length);
+        File file = File.createTempFile("chapters", ".mp3");
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            outputStream.write(tagHeader);
+            outputStream.write(chapter);
+            outputStream.write(chapter);
+        }
+
+        try {
+            List<Chapter> chapters = readChaptersFromChannel(file);
+            assertEquals(2, chapters.size());
+            for (int i = 0; i < chapters.size(); i++) {
+                int imagePosition = tagHeader.length + i * chapter.length + chapterHeader.length
+                        + CHAPTER_WITHOUT_SUBFRAME.length + pictureFrameHeader.length + pictureHeader.length;
+                assertEquals(CHAPTER_WITHOUT_SUBFRAME_START_TIME, chapters.get(i).getStart());
+                assertEquals(EmbeddedChapterImage.makeUrl(imagePosition, imageLength), chapters.get(i).getImageUrl());
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static byte[] generateSynchsafeId3Header(int size) {
+        return new byte[] {
+                'I', 'D', '3', // Identifier
+                3, 0, // Version
+                0, // Flags
+                (byte) ((size >> 21) & 0x7f), (byte) ((size >> 14) & 0x7f),
+                (byte) ((size >> 7) & 0x7f), (byte) (size & 0x7f), // Size
+        };
+    }
+
+    private static List<Chapter> readChaptersFromStream(File file) throws IOException, ID3ReaderException {
+        try (CountingInputStream inputStream = new CountingInputStream(new FileInputStream(file))) {
+            ChapterReader reader = new ChapterReader(inputStream);
+            reader.readInputStream();
+            return reader.getChapters();
+        }
+    }
+
+    private static List<Chapter> readChaptersFromChannel(File file) throws IOException, ID3ReaderException {
+        try (FileInputStream inputStream = new FileInputStream(file)) {
+            ChapterReader reader = new ChapterReader(ID3Reader.readTagRegion(inputStream.getChannel()));
+            reader.readInputStream();
+            return reader.getChapters();
+        }
+    }
 }
@@ -10,6 +10,7 @@ import org.robolectric.RobolectricTestRunner;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 import static org.junit.Assert.assertEquals;
@@ -101,6 +102,27 @@ public class Id3ReaderTest {
         assertTrue("Should respect limit even if it breaks a symbol", reader.getPosition() <= 6);
     }
 
+    @Test
+    public void testReadStringsFromBuffer() throws IOException {
+        byte[] data = {
+            ID3Reader.ENCODING_UTF16_WITH_BOM,
+            (byte) 0xff, (byte) 0xfe, // BOM: Little-endian
+            'A', 0, 'B', 0, 'C', 0,
+            0, 0, // Null-terminated
+            ID3Reader.ENCODING_ISO,
+            'F', 'o', 'o',
+            0, // Null-terminated
+            ID3Reader.ENCODING_ISO,
+            'A', 'B', 'C', 'D'
+        };
+        ID3Reader reader = new ID3Reader(ByteBuffer.wrap(data));
+        assertEquals("ABC", reader.readEncodingAndString(1000));
+        assertEquals("Foo", reader.readEncodingAndString(1000));
+        assertEquals("ABC", reader.readEncodingAndString(4)); // Includes encoding
+        assertEquals('D', reader.readByte());
+        assertEquals(data.length, reader.getPosition());
+    }
+
     @Test
     public void testReadTagHeader() throws IOException, ID3ReaderException {
         byte[] data = generateId3Header(23);
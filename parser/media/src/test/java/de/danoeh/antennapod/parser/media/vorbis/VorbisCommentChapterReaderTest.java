@@ -1,15 +1,19 @@
 package de.danoeh.antennapod.parser.media.vorbis;
 
 import de.danoeh.antennapod.model.feed.Chapter;
+import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(RobolectricTestRunner.class)
 public class VorbisCommentChapterReaderTest {
@@ -20,9 +24,40 @@ public class VorbisCommentChapterReaderTest {
         testRealFileAuphonic("auphonic.opus");
     }
 
+    @Test
+    public void testHeaderPagesLength() throws IOException, VorbisCommentReaderException {
+        testHeaderPagesLength("auphonic.ogg");
+        testHeaderPagesLength("auphonic.opus");
+    }
+
+    @Test
+    public void testHeaderPagesLengthNotOgg() {
+        byte[] id3Header = {'I', 'D', '3', 4, 0, 0, 0, 0, 0, 0};
+        assertEquals(id3Header.length, VorbisCommentReader.getHeaderPagesLength(id3Header));
+        byte[] oggHeader = {'O', 'g', 'g', 'S', 0, 2, 0, 0, 0, 0};
+        assertEquals(-27, VorbisCommentReader.getHeaderPagesLength(oggHeader));
+    }
+
+    /**
+     * Reads only as much of the file as the header pages need, the same way as when streaming.
+     */
+    private void testHeaderPagesLength(String filename) throws IOException, VorbisCommentReaderException {
+        byte[] file = IOUtils.toByteArray(getClass().getClassLoader().getResource(filename));
+        int length = 10;
+        int headerPagesLength;
+        while ((headerPagesLength = VorbisCommentReader.getHeaderPagesLength(Arrays.copyOf(file, length))) < 0
+                || headerPagesLength > length) {
+            length = Math.abs(headerPagesLength);
+        }
+        assertTrue(length < file.length);
+        testRealFileAuphonic(new ByteArrayInputStream(Arrays.copyOf(file, length)));
+    }
+
     public void testRealFileAuphonic(String filename) throws IOException, VorbisCommentReaderException {
-        InputStream inputStream = getClass().getClassLoader()
-                .getResource(filename).openStream();
+        testRealFileAuphonic(getClass().getClassLoader().getResource(filename).openStream());
+    }
+
+    private void testRealFileAuphonic(InputStream inputStream) throws VorbisCommentReaderException {
         VorbisCommentChapterReader reader = new VorbisCommentChapterReader();
         reader.readInputStream(inputStream);
         List<Chapter> chapters = reader.getChapters();